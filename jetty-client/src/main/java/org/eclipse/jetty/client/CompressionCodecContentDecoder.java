@@ -0,0 +1,118 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.component.Destroyable;
+import org.eclipse.jetty.util.compression.CompressionCodec;
+
+/**
+ * {@link ContentDecoder} for the encoding of a {@link CompressionCodec}.
+ */
+public class CompressionCodecContentDecoder implements ContentDecoder, Destroyable
+{
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final CompressionCodec.Decoder decoder;
+    private final ByteBufferPool byteBufferPool;
+    private final int bufferSize;
+
+    public CompressionCodecContentDecoder(CompressionCodec codec)
+    {
+        this(codec, null, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CompressionCodecContentDecoder(CompressionCodec codec, ByteBufferPool byteBufferPool, int bufferSize)
+    {
+        this.decoder = codec.newDecoder();
+        this.byteBufferPool = byteBufferPool;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer buffer)
+    {
+        ByteBuffer decoded = byteBufferPool == null ? BufferUtil.allocate(bufferSize) : byteBufferPool.acquire(bufferSize, false);
+        try
+        {
+            while (true)
+            {
+                decoder.decode(buffer, decoded);
+                if (decoded.hasRemaining())
+                    return decoded;
+                if (!buffer.hasRemaining())
+                {
+                    release(decoded);
+                    return BufferUtil.EMPTY_BUFFER;
+                }
+            }
+        }
+        catch (IOException x)
+        {
+            release(decoded);
+            throw new RuntimeException(x);
+        }
+    }
+
+    @Override
+    public void release(ByteBuffer decoded)
+    {
+        if (byteBufferPool != null && !BufferUtil.isTheEmptyBuffer(decoded))
+            byteBufferPool.release(decoded);
+    }
+
+    @Override
+    public void destroy()
+    {
+        decoder.end();
+    }
+
+    /**
+     * Specialized {@link ContentDecoder.Factory} for the encoding of a {@link CompressionCodec}.
+     */
+    public static class Factory extends ContentDecoder.Factory
+    {
+        private final CompressionCodec codec;
+        private final ByteBufferPool byteBufferPool;
+        private final int bufferSize;
+
+        public Factory(CompressionCodec codec)
+        {
+            this(codec, null, DEFAULT_BUFFER_SIZE);
+        }
+
+        public Factory(CompressionCodec codec, ByteBufferPool byteBufferPool, int bufferSize)
+        {
+            super(codec.getEncoding());
+            this.codec = codec;
+            this.byteBufferPool = byteBufferPool;
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public ContentDecoder newContentDecoder()
+        {
+            return new CompressionCodecContentDecoder(codec, byteBufferPool, bufferSize);
+        }
+    }
+}
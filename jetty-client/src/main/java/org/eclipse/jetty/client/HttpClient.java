@@ -74,6 +74,9 @@ import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.DumpableCollection;
+import org.eclipse.jetty.util.compression.CompressionCodec;
+import org.eclipse.jetty.util.compression.CompressionCodecs;
+import org.eclipse.jetty.util.compression.GzipCodec;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
@@ -219,6 +222,12 @@ public class HttpClient extends ContainerLifeCycle
         handlers.put(new UpgradeProtocolHandler());
 
         decoderFactories.add(new GZIPContentDecoder.Factory(byteBufferPool));
+        for (CompressionCodec codec : CompressionCodecs.getCodecs())
+        {
+            // The gzip encoding is decoded by the GZIPContentDecoder.
+            if (!GzipCodec.ENCODING.equalsIgnoreCase(codec.getEncoding()))
+                decoderFactories.add(new CompressionCodecContentDecoder.Factory(codec, byteBufferPool, CompressionCodecContentDecoder.DEFAULT_BUFFER_SIZE));
+        }
 
         cookieManager = newCookieManager();
         cookieStore = cookieManager.getCookieStore();
@@ -18,36 +18,33 @@
 
 package org.eclipse.jetty.http;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.DataFormatException;
-import java.util.zip.Inflater;
 import java.util.zip.ZipException;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.component.Destroyable;
+import org.eclipse.jetty.util.compression.GzipCodec;
 
 /**
  * <p>Decoder for the "gzip" content encoding.</p>
  * <p>This decoder inflates gzip compressed data, and has
  * been optimized for async usage with minimal data copies.</p>
+ * <p>The gzip format is decoded by the {@link GzipCodec} decoder,
+ * while this class manages the buffers of the inflated data.</p>
  */
 public class GZIPContentDecoder implements Destroyable
 {
-    // Unsigned Integer Max == 2^32
-    private static final long UINT_MAX = 0xFFFFFFFFL;
-
     private final List<ByteBuffer> _inflateds = new ArrayList<>();
-    private final Inflater _inflater = new Inflater(true);
+    private final GzipCodec.Decoder _decoder = new GzipCodec.Decoder();
     private final ByteBufferPool _pool;
     private final int _bufferSize;
-    private State _state;
-    private int _size;
-    private long _value;
-    private byte _flags;
+    private boolean _finished;
     private ByteBuffer _inflated;
 
     public GZIPContentDecoder()
@@ -91,7 +88,7 @@ public class GZIPContentDecoder implements Destroyable
 
         if (_inflateds.isEmpty())
         {
-            if (BufferUtil.isEmpty(_inflated) || _state == State.CRC || _state == State.ISIZE)
+            if (BufferUtil.isEmpty(_inflated) || _decoder.isDecodingTrailer())
                 return BufferUtil.EMPTY_BUFFER;
             ByteBuffer result = _inflated;
             _inflated = null;
@@ -159,241 +156,30 @@ public class GZIPContentDecoder implements Destroyable
      */
     protected void decodeChunks(ByteBuffer compressed)
     {
+        _finished = false;
         ByteBuffer buffer = null;
         try
         {
             while (true)
             {
-                switch (_state)
-                {
-                    case INITIAL:
-                    {
-                        _state = State.ID;
-                        break;
-                    }
-
-                    case FLAGS:
-                    {
-                        if ((_flags & 0x04) == 0x04)
-                        {
-                            _state = State.EXTRA_LENGTH;
-                            _size = 0;
-                            _value = 0;
-                        }
-                        else if ((_flags & 0x08) == 0x08)
-                            _state = State.NAME;
-                        else if ((_flags & 0x10) == 0x10)
-                            _state = State.COMMENT;
-                        else if ((_flags & 0x2) == 0x2)
-                        {
-                            _state = State.HCRC;
-                            _size = 0;
-                            _value = 0;
-                        }
-                        else
-                        {
-                            _state = State.DATA;
-                            continue;
-                        }
-                        break;
-                    }
-
-                    case DATA:
-                    {
-                        while (true)
-                        {
-                            if (buffer == null)
-                                buffer = acquire(_bufferSize);
+                if (buffer == null)
+                    buffer = acquire(_bufferSize);
 
-                            try
-                            {
-                                int length = _inflater.inflate(buffer.array(), buffer.arrayOffset(), buffer.capacity());
-                                buffer.limit(length);
-                            }
-                            catch (DataFormatException x)
-                            {
-                                throw new ZipException(x.getMessage());
-                            }
+                _decoder.decode(compressed, buffer);
+                boolean finished = _decoder.finished();
+                if (finished)
+                    reset();
 
-                            if (buffer.hasRemaining())
-                            {
-                                ByteBuffer chunk = buffer;
-                                buffer = null;
-                                if (decodedChunk(chunk))
-                                    return;
-                            }
-                            else if (_inflater.needsInput())
-                            {
-                                if (!compressed.hasRemaining())
-                                    return;
-                                if (compressed.hasArray())
-                                {
-                                    _inflater.setInput(compressed.array(), compressed.arrayOffset() + compressed.position(), compressed.remaining());
-                                    compressed.position(compressed.limit());
-                                }
-                                else
-                                {
-                                    // TODO use the pool
-                                    byte[] input = new byte[compressed.remaining()];
-                                    compressed.get(input);
-                                    _inflater.setInput(input);
-                                }
-                            }
-                            else if (_inflater.finished())
-                            {
-                                int remaining = _inflater.getRemaining();
-                                compressed.position(compressed.limit() - remaining);
-                                _state = State.CRC;
-                                _size = 0;
-                                _value = 0;
-                                break;
-                            }
-                        }
-                        continue;
-                    }
-
-                    default:
-                        break;
+                if (buffer.hasRemaining())
+                {
+                    ByteBuffer chunk = buffer;
+                    buffer = null;
+                    if (decodedChunk(chunk) || finished)
+                        return;
                 }
-
-                if (!compressed.hasRemaining())
-                    break;
-
-                byte currByte = compressed.get();
-                switch (_state)
+                else if (finished || !compressed.hasRemaining())
                 {
-                    case ID:
-                    {
-                        _value += (currByte & 0xFF) << 8 * _size;
-                        ++_size;
-                        if (_size == 2)
-                        {
-                            if (_value != 0x8B1F)
-                                throw new ZipException("Invalid gzip bytes");
-                            _state = State.CM;
-                        }
-                        break;
-                    }
-                    case CM:
-                    {
-                        if ((currByte & 0xFF) != 0x08)
-                            throw new ZipException("Invalid gzip compression method");
-                        _state = State.FLG;
-                        break;
-                    }
-                    case FLG:
-                    {
-                        _flags = currByte;
-                        _state = State.MTIME;
-                        _size = 0;
-                        _value = 0;
-                        break;
-                    }
-                    case MTIME:
-                    {
-                        // Skip the 4 MTIME bytes
-                        ++_size;
-                        if (_size == 4)
-                            _state = State.XFL;
-                        break;
-                    }
-                    case XFL:
-                    {
-                        // Skip XFL
-                        _state = State.OS;
-                        break;
-                    }
-                    case OS:
-                    {
-                        // Skip OS
-                        _state = State.FLAGS;
-                        break;
-                    }
-                    case EXTRA_LENGTH:
-                    {
-                        _value += (currByte & 0xFF) << 8 * _size;
-                        ++_size;
-                        if (_size == 2)
-                            _state = State.EXTRA;
-                        break;
-                    }
-                    case EXTRA:
-                    {
-                        // Skip EXTRA bytes
-                        --_value;
-                        if (_value == 0)
-                        {
-                            // Clear the EXTRA flag and loop on the flags
-                            _flags &= ~0x04;
-                            _state = State.FLAGS;
-                        }
-                        break;
-                    }
-                    case NAME:
-                    {
-                        // Skip NAME bytes
-                        if (currByte == 0)
-                        {
-                            // Clear the NAME flag and loop on the flags
-                            _flags &= ~0x08;
-                            _state = State.FLAGS;
-                        }
-                        break;
-                    }
-                    case COMMENT:
-                    {
-                        // Skip COMMENT bytes
-                        if (currByte == 0)
-                        {
-                            // Clear the COMMENT flag and loop on the flags
-                            _flags &= ~0x10;
-                            _state = State.FLAGS;
-                        }
-                        break;
-                    }
-                    case HCRC:
-                    {
-                        // Skip HCRC
-                        ++_size;
-                        if (_size == 2)
-                        {
-                            // Clear the HCRC flag and loop on the flags
-                            _flags &= ~0x02;
-                            _state = State.FLAGS;
-                        }
-                        break;
-                    }
-                    case CRC:
-                    {
-                        _value += (currByte & 0xFF) << 8 * _size;
-                        ++_size;
-                        if (_size == 4)
-                        {
-                            // From RFC 1952, compliant decoders need not to verify the CRC
-                            _state = State.ISIZE;
-                            _size = 0;
-                            _value = 0;
-                        }
-                        break;
-                    }
-                    case ISIZE:
-                    {
-                        _value = _value | ((currByte & 0xFFL) << (8 * _size));
-                        ++_size;
-                        if (_size == 4)
-                        {
-                            // RFC 1952: Section 2.3.1; ISIZE is the input size modulo 2^32
-                            if (_value != (_inflater.getBytesWritten() & UINT_MAX))
-                                throw new ZipException("Invalid input size");
-
-                            // TODO ByteBuffer result = output == null ? BufferUtil.EMPTY_BUFFER : ByteBuffer.wrap(output);
-                            reset();
-                            return;
-                        }
-                        break;
-                    }
-                    default:
-                        throw new ZipException();
+                    return;
                 }
             }
         }
@@ -401,6 +187,10 @@ public class GZIPContentDecoder implements Destroyable
         {
             throw new RuntimeException(x);
         }
+        catch (IOException x)
+        {
+            throw new UncheckedIOException(x);
+        }
         finally
         {
             if (buffer != null)
@@ -410,27 +200,19 @@ public class GZIPContentDecoder implements Destroyable
 
     private void reset()
     {
-        _inflater.reset();
-        _state = State.INITIAL;
-        _size = 0;
-        _value = 0;
-        _flags = 0;
+        _decoder.reset();
+        _finished = true;
     }
 
     @Override
     public void destroy()
     {
-        _inflater.end();
+        _decoder.end();
     }
 
     public boolean isFinished()
     {
-        return _state == State.INITIAL;
-    }
-
-    private enum State
-    {
-        INITIAL, ID, CM, FLG, MTIME, XFL, OS, FLAGS, EXTRA_LENGTH, EXTRA, NAME, COMMENT, HCRC, DATA, CRC, ISIZE
+        return _finished;
     }
 
     /**
@@ -0,0 +1,311 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.ArrayTernaryTrie;
+import org.eclipse.jetty.util.Trie;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A cache of {@link HttpField}s shared by many {@link HttpParser}s,
+ * that learns the most frequent fields from the parsed messages.</p>
+ * <p>Parsers {@link #learn(HttpField) report} the fields they parse;
+ * the occurrences of at most {@link #getMaxCandidates() maxCandidates}
+ * distinct fields are counted, and after about {@link #getPublishInterval() publishInterval}
+ * reported fields the most frequent ones are published in an immutable {@link Trie}
+ * of {@link #getCapacity() capacity} characters.
+ * The publication is performed by the {@link #getExecutor() executor}, so that it does
+ * not delay the parser that reported the field that completed the publish interval.
+ * Parsers lookup the published {@link #getTrie() Trie} after their per-connection
+ * field cache, so that the fields of messages sent by many different clients with the
+ * same configuration (for example the same User-Agent or Accept-Language header) are
+ * parsed without allocating {@link HttpField} or {@link String} objects.</p>
+ * <p>Only the fields of known headers are learned, with the exception of the
+ * headers that carry credentials or session state, such as Authorization or Cookie,
+ * whose values must not be retained beyond the message they belong to.</p>
+ * <p>At every publication the counts are halved and the fields that were not seen
+ * recently are discarded, so that the cache adapts to changes in the traffic.</p>
+ *
+ * @see HttpParser#setHttpFieldCache(HttpFieldCache)
+ */
+@ManagedObject("Shared HTTP field cache")
+public class HttpFieldCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger(HttpFieldCache.class);
+    // The shared count of learned fields is summed on average once every 64 learned fields.
+    private static final int PUBLISH_CHECK_MASK = 0x3F;
+
+    private final Map<HttpField, LongAdder> _candidates = new ConcurrentHashMap<>();
+    private final LongAdder _learned = new LongAdder();
+    private final AtomicBoolean _publishing = new AtomicBoolean();
+    private final LongAdder _publishes = new LongAdder();
+    private final int _capacity;
+    private final int _maxCandidates;
+    private final int _publishInterval;
+    private volatile Executor _executor;
+    private volatile Trie<HttpField> _trie;
+    private volatile int _size;
+
+    public HttpFieldCache()
+    {
+        this(4096, 1024, 4096);
+    }
+
+    /**
+     * @param capacity the capacity in characters of the published {@link Trie}
+     * @param maxCandidates the max number of distinct fields whose occurrences are counted
+     * @param publishInterval the number of reported fields between publications
+     */
+    public HttpFieldCache(int capacity, int maxCandidates, int publishInterval)
+    {
+        if (capacity <= 0 || capacity > Character.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        if (maxCandidates <= 0 || publishInterval <= 0)
+            throw new IllegalArgumentException();
+        _capacity = capacity;
+        _maxCandidates = maxCandidates;
+        _publishInterval = publishInterval;
+    }
+
+    @ManagedAttribute("The capacity in characters of the published cache")
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    @ManagedAttribute("The max number of distinct fields whose occurrences are counted")
+    public int getMaxCandidates()
+    {
+        return _maxCandidates;
+    }
+
+    @ManagedAttribute("The number of parsed fields between publications")
+    public int getPublishInterval()
+    {
+        return _publishInterval;
+    }
+
+    /**
+     * @return the executor that publishes the learned fields
+     */
+    public Executor getExecutor()
+    {
+        return _executor;
+    }
+
+    /**
+     * <p>Sets the executor that publishes the learned fields.</p>
+     * <p>If no executor is set, the learned fields are published
+     * by the parser that completes the publish interval.</p>
+     *
+     * @param executor the executor that publishes the learned fields
+     */
+    public void setExecutor(Executor executor)
+    {
+        _executor = executor;
+    }
+
+    @ManagedAttribute("The number of fields whose occurrences are counted")
+    public int getCandidates()
+    {
+        return _candidates.size();
+    }
+
+    @ManagedAttribute("The number of fields in the published cache")
+    public int getSize()
+    {
+        return _size;
+    }
+
+    @ManagedAttribute("The number of publications")
+    public long getPublishes()
+    {
+        return _publishes.sum();
+    }
+
+    /**
+     * @return the last published {@link Trie}, or null if no fields have been published yet
+     */
+    public Trie<HttpField> getTrie()
+    {
+        return _trie;
+    }
+
+    /**
+     * @param field the field to test
+     * @return whether the given field may be learned by this cache
+     */
+    public static boolean isLearnable(HttpField field)
+    {
+        HttpHeader header = field.getHeader();
+        if (header == null)
+            return false;
+        switch (header)
+        {
+            case AUTHORIZATION:
+            case PROXY_AUTHORIZATION:
+            case COOKIE:
+            case SET_COOKIE:
+            case SET_COOKIE2:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * <p>Reports the occurrence of the given field in a parsed message.</p>
+     * <p>Fields that are not {@link #isLearnable(HttpField) learnable} are ignored.
+     * When about {@link #getPublishInterval() publishInterval} fields have been
+     * reported, a new {@link Trie} is published by the {@link #getExecutor() executor}.</p>
+     *
+     * @param field the parsed field
+     */
+    public void learn(HttpField field)
+    {
+        if (!isLearnable(field))
+            return;
+
+        LongAdder count = _candidates.get(field);
+        if (count == null && _candidates.size() < _maxCandidates)
+            count = _candidates.computeIfAbsent(field, f -> new LongAdder());
+        if (count != null)
+            count.increment();
+
+        _learned.increment();
+        if ((ThreadLocalRandom.current().nextInt() & PUBLISH_CHECK_MASK) == 0 && _learned.sum() >= _publishInterval)
+            schedulePublish();
+    }
+
+    private void schedulePublish()
+    {
+        if (!_publishing.compareAndSet(false, true))
+            return;
+        Executor executor = _executor;
+        if (executor == null)
+        {
+            doPublish();
+            return;
+        }
+        try
+        {
+            executor.execute(this::doPublish);
+        }
+        catch (RejectedExecutionException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Could not publish {}", this, x);
+            _publishing.set(false);
+        }
+    }
+
+    /**
+     * <p>Publishes a new {@link Trie} with the most frequent fields.</p>
+     */
+    @ManagedOperation(value = "Publishes the most frequent fields", impact = "ACTION")
+    public void publish()
+    {
+        if (_publishing.compareAndSet(false, true))
+            doPublish();
+    }
+
+    private void doPublish()
+    {
+        try
+        {
+            _learned.reset();
+            List<Candidate> candidates = new ArrayList<>(_candidates.size());
+            for (Map.Entry<HttpField, LongAdder> entry : _candidates.entrySet())
+            {
+                LongAdder adder = entry.getValue();
+                long count = adder.sumThenReset();
+                // Fields seen only once are likely unique values.
+                if (count > 1)
+                    candidates.add(new Candidate(entry.getKey(), count));
+                // Age the counts, so that fields that are not seen anymore are eventually discarded.
+                long aged = count / 2;
+                if (aged > 0)
+                    adder.add(aged);
+                else
+                    _candidates.remove(entry.getKey(), adder);
+            }
+            candidates.sort((c1, c2) -> Long.compare(c2.count, c1.count));
+
+            ArrayTernaryTrie<HttpField> trie = new ArrayTernaryTrie<>(_capacity);
+            int size = 0;
+            for (Candidate candidate : candidates)
+            {
+                if (!trie.put(candidate.field))
+                    break;
+                ++size;
+            }
+
+            _trie = size == 0 ? null : trie;
+            _size = size;
+            _publishes.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Published {} fields of {} candidates in {}", size, candidates.size(), this);
+        }
+        finally
+        {
+            _publishing.set(false);
+        }
+    }
+
+    @ManagedOperation(value = "Clears the cache", impact = "ACTION")
+    public void clear()
+    {
+        _candidates.clear();
+        _trie = null;
+        _size = 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,candidates=%d,capacity=%d}",
+            getClass().getSimpleName(), hashCode(), getSize(), getCandidates(), getCapacity());
+    }
+
+    private static class Candidate
+    {
+        private final HttpField field;
+        private final long count;
+
+        private Candidate(HttpField field, long count)
+        {
+            this.field = field;
+            this.count = count;
+        }
+    }
+}
@@ -73,7 +73,9 @@ import static org.eclipse.jetty.http.HttpCompliance.Violation.WHITESPACE_AFTER_F
  * (eg. "Connection: close"), or just header names (eg. "Connection:" ).
  * For headers who's value is not known statically (eg. Host, COOKIE) then a
  * per parser dynamic Trie of {@link HttpFields} from previous parsed messages
- * is used to help the parsing of subsequent messages.
+ * is used to help the parsing of subsequent messages, optionally followed by
+ * a {@link HttpFieldCache} shared with other parsers, that learns the most
+ * frequent fields parsed by all the parsers.
  * </p>
  * <p>
  * The parser can work in varying compliance modes:
@@ -180,6 +182,7 @@ public class HttpParser
     private boolean _cr;
     private ByteBuffer _contentChunk;
     private Trie<HttpField> _fieldCache;
+    private HttpFieldCache _httpFieldCache;
     private int _length;
     private final StringBuilder _string = new StringBuilder();
     private int _headerCacheSize = 1024;
@@ -313,6 +316,24 @@ public class HttpParser
         _headerCacheCaseSensitive = headerCacheCaseSensitive;
     }
 
+    public HttpFieldCache getHttpFieldCache()
+    {
+        return _httpFieldCache;
+    }
+
+    /**
+     * <p>Sets the {@link HttpFieldCache} shared with other parsers.</p>
+     * <p>The parser reports to the shared cache the fields of known headers whose
+     * values are not known statically, excluding credentials and cookies, and looks
+     * up the fields published by the shared cache after its per-connection field cache.</p>
+     *
+     * @param httpFieldCache the shared field cache, or null to not use a shared field cache
+     */
+    public void setHttpFieldCache(HttpFieldCache httpFieldCache)
+    {
+        _httpFieldCache = httpFieldCache;
+    }
+
     protected void checkViolation(Violation violation) throws BadMessageException
     {
         if (violation.isAllowedBy(_complianceMode))
@@ -935,6 +956,7 @@ public class HttpParser
         // handler last header if any.  Delayed to here just in case there was a continuation line (above)
         if (_headerString != null || _valueString != null)
         {
+            boolean addToHttpFieldCache = false;
             // Handle known headers
             if (_header != null)
             {
@@ -1012,6 +1034,7 @@ public class HttpParser
                                 _valueString);
                             addToConnectionTrie = _fieldCache != null;
                         }
+                        addToHttpFieldCache = true;
                         break;
 
                     case CONNECTION:
@@ -1021,14 +1044,19 @@ public class HttpParser
                         break;
 
                     case AUTHORIZATION:
+                    case COOKIE:
+                        // Credentials and session state are only cached per connection.
+                        addToConnectionTrie = _fieldCache != null && _field == null;
+                        break;
+
                     case ACCEPT:
                     case ACCEPT_CHARSET:
                     case ACCEPT_ENCODING:
                     case ACCEPT_LANGUAGE:
-                    case COOKIE:
                     case CACHE_CONTROL:
                     case USER_AGENT:
                         addToConnectionTrie = _fieldCache != null && _field == null;
+                        addToHttpFieldCache = true;
                         break;
 
                     default:
@@ -1042,6 +1070,13 @@ public class HttpParser
                     _fieldCache.put(_field);
                 }
             }
+
+            if (addToHttpFieldCache && _httpFieldCache != null && _valueString != null)
+            {
+                if (_field == null)
+                    _field = new HttpField(_header, caseInsensitiveHeader(_headerString, _header.asString()), _valueString);
+                _httpFieldCache.learn(_field);
+            }
             _handler.parsedHeader(_field != null ? _field : new HttpField(_header, _headerString, _valueString));
         }
 
@@ -1219,6 +1254,12 @@ public class HttpParser
                             {
                                 // Try a look ahead for the known header name and value.
                                 HttpField cachedField = _fieldCache == null ? null : _fieldCache.getBest(buffer, -1, buffer.remaining());
+                                if (cachedField == null && _httpFieldCache != null)
+                                {
+                                    Trie<HttpField> sharedCache = _httpFieldCache.getTrie();
+                                    if (sharedCache != null)
+                                        cachedField = sharedCache.getBest(buffer, -1, buffer.remaining());
+                                }
                                 if (cachedField == null)
                                     cachedField = CACHE.getBest(buffer, -1, buffer.remaining());
 
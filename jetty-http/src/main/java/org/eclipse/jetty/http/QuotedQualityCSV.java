@@ -179,7 +179,7 @@ public class QuotedQualityCSV extends QuotedCSV implements Iterable<String>
                 _quality.set(i, _quality.get(i + 1));
                 _quality.set(i + 1, q);
                 last = 0.0D;
-                lastSecondaryOrder = 0;
+                lastSecondaryOrder = Integer.MIN_VALUE;
                 i = _values.size();
                 continue;
             }
@@ -40,6 +40,11 @@ import org.slf4j.LoggerFactory;
  * Path Mappings of PathSpec to Resource.
  * <p>
  * Sorted into search order upon entry into the Set
+ * <p>
+ * The {@link UriTemplatePathSpec}s and {@link RegexPathSpec}s are compiled
+ * in a tree of path segments, so that {@link #getMatch(String)} finds the
+ * best of them in a single walk of the path, rather than testing them one
+ * by one, while preserving the search order.
  *
  * @param <E> the type of mapping endpoint
  */
@@ -52,6 +57,8 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     private Trie<MappedResource<E>> _exactMap = new ArrayTernaryTrie<>(false);
     private Trie<MappedResource<E>> _prefixMap = new ArrayTernaryTrie<>(false);
     private Trie<MappedResource<E>> _suffixMap = new ArrayTernaryTrie<>(false);
+    private PathSpecTree<E> _pathSpecTree = new PathSpecTree<>();
+    private List<Step<E>> _steps = new ArrayList<>();
 
     @Override
     public String dump()
@@ -81,11 +88,13 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         _mappings.clear();
         _prefixMap.clear();
         _suffixMap.clear();
+        compile();
     }
 
     public void removeIf(Predicate<MappedResource<E>> predicate)
     {
         _mappings.removeIf(predicate);
+        compile();
     }
 
     /**
@@ -122,13 +131,17 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
 
     public MappedResource<E> getMatch(String path)
     {
-        PathSpecGroup lastGroup = null;
+        // Find the best of the compiled mappings, then search the other
+        // mappings that have priority over it, in the search order.
+        PathSpecTree.Entry<E> compiled = _pathSpecTree.getMatch(path);
 
-        // Search all the mappings
-        for (MappedResource<E> mr : _mappings)
+        for (Step<E> step : _steps)
         {
-            PathSpecGroup group = mr.getPathSpec().getGroup();
-            if (group != lastGroup)
+            if (compiled != null && compiled.getPosition() < step._position)
+                return compiled.getResource();
+
+            PathSpecGroup group = step._group;
+            if (group != null)
             {
                 // New group in list, so let's look for an optimization
                 switch (group)
@@ -182,13 +195,36 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                 }
             }
 
-            if (mr.getPathSpec().matches(path))
+            MappedResource<E> mr = step._resource;
+            if (mr != null && mr.getPathSpec().matches(path))
                 return mr;
+        }
 
+        return compiled == null ? null : compiled.getResource();
+    }
+
+    /**
+     * <p>Compiles the mappings in search order: the {@link UriTemplatePathSpec}s and
+     * {@link RegexPathSpec}s are added to the {@link PathSpecTree}, while for the other
+     * mappings, and for the first mapping of each group, a {@link Step} is created.</p>
+     */
+    private void compile()
+    {
+        PathSpecTree<E> pathSpecTree = new PathSpecTree<>();
+        List<Step<E>> steps = new ArrayList<>();
+        PathSpecGroup lastGroup = null;
+        int position = 0;
+        for (MappedResource<E> mr : _mappings)
+        {
+            PathSpecGroup group = mr.getPathSpec().getGroup();
+            boolean compiled = pathSpecTree.add(mr, position);
+            if (group != lastGroup || !compiled)
+                steps.add(new Step<>(position, group == lastGroup ? null : group, compiled ? null : mr));
             lastGroup = group;
+            ++position;
         }
-
-        return null;
+        _pathSpecTree = pathSpecTree;
+        _steps = steps;
     }
 
     @Override
@@ -253,6 +289,8 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         }
 
         boolean added = _mappings.add(entry);
+        if (added)
+            compile();
         if (LOG.isDebugEnabled())
             LOG.debug("{} {} to {}", added ? "Added" : "Ignored", entry, this);
         return added;
@@ -292,6 +330,8 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                 break;
             }
         }
+        if (removed)
+            compile();
         if (LOG.isDebugEnabled())
             LOG.debug("{} {} to {}", removed ? "Removed" : "Ignored", pathSpec, this);
         return removed;
@@ -302,4 +342,23 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     {
         return String.format("%s[size=%d]", this.getClass().getSimpleName(), _mappings.size());
     }
+
+    /**
+     * <p>A step of the search of {@link #getMatch(String)}:
+     * the start of a new group, whose optimized lookup should be
+     * performed, and/or a mapping that is not compiled.</p>
+     */
+    private static class Step<E>
+    {
+        private final int _position;
+        private final PathSpecGroup _group;
+        private final MappedResource<E> _resource;
+
+        private Step(int position, PathSpecGroup group, MappedResource<E> resource)
+        {
+            _position = position;
+            _group = group;
+            _resource = resource;
+        }
+    }
 }
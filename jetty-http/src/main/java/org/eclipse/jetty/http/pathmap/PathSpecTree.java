@@ -0,0 +1,279 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.pathmap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.util.ArrayTernaryTrie;
+import org.eclipse.jetty.util.Trie;
+
+/**
+ * <p>A tree of path segments that matches many {@link UriTemplatePathSpec}s
+ * and {@link RegexPathSpec}s in a single walk of the path.</p>
+ * <p>Each node of the tree has literal children, indexed by segment in a {@link Trie},
+ * and one variable child that matches any non empty segment.
+ * A {@link UriTemplatePathSpec} is added to the node reached by its segments,
+ * and it matches the paths whose walk ends at that node.
+ * A {@link RegexPathSpec} is added to the node reached by the segments of
+ * the literal prefix of its regular expression, and it is tested only
+ * against the paths whose walk visits that node.</p>
+ * <p>Entries are added with their position in the {@link PathMappings} search
+ * order, and the match with the lowest position is returned, so that the
+ * priority of the path specs is preserved.</p>
+ *
+ * @param <E> the type of mapping endpoint
+ */
+class PathSpecTree<E>
+{
+    private static final String REGEX_META = "\\.[]{}()*+?^$|";
+    private static final String REGEX_QUANTIFIERS = "*+?{";
+    // Characters that are not escaped by UriTemplatePathSpec in its regular expression.
+    private static final String UNESCAPED_TEMPLATE_META = "()*+?^$|{}";
+
+    private final Node<E> _root = new Node<>();
+    private int _size;
+
+    /**
+     * @param resource the mapped resource to add
+     * @param position the position of the mapped resource in the search order
+     * @return whether the mapped resource has been added, false if its path spec cannot be compiled in this tree
+     */
+    boolean add(MappedResource<E> resource, int position)
+    {
+        PathSpec pathSpec = resource.getPathSpec();
+        if (pathSpec instanceof UriTemplatePathSpec)
+            return addTemplate(resource, position);
+        if (pathSpec instanceof RegexPathSpec)
+            return addRegex(resource, position);
+        return false;
+    }
+
+    private boolean addTemplate(MappedResource<E> resource, int position)
+    {
+        String declaration = resource.getPathSpec().getDeclaration();
+        for (int i = 0; i < UNESCAPED_TEMPLATE_META.length(); i++)
+        {
+            // Variables are whole segments, so braces are only allowed as delimiters.
+            char c = UNESCAPED_TEMPLATE_META.charAt(i);
+            if (c != '{' && c != '}' && declaration.indexOf(c) >= 0)
+                return false;
+        }
+
+        // The declaration always starts with '/', and a trailing '/' is an empty last segment.
+        String[] segments = declaration.substring(1).split("/", -1);
+        Node<E> node = _root;
+        for (String segment : segments)
+        {
+            if (segment.startsWith("{") && segment.endsWith("}"))
+                node = node.variable();
+            else
+                node = node.literal(segment);
+        }
+        node._templates.add(new Entry<>(resource, position));
+        ++_size;
+        return true;
+    }
+
+    private boolean addRegex(MappedResource<E> resource, int position)
+    {
+        String regex = resource.getPathSpec().getDeclaration();
+        Node<E> node = _root;
+        // Alternatives do not have a common literal prefix.
+        if (regex.indexOf('|') < 0)
+        {
+            int start = regex.startsWith("^") ? 1 : 0;
+            int end = start;
+            while (end < regex.length() && REGEX_META.indexOf(regex.charAt(end)) < 0)
+            {
+                ++end;
+            }
+            // A quantified character is not part of the literal prefix.
+            if (end > start && end < regex.length() && REGEX_QUANTIFIERS.indexOf(regex.charAt(end)) >= 0)
+                --end;
+            String prefix = regex.substring(start, end);
+            int lastSlash = prefix.lastIndexOf('/');
+            if (prefix.startsWith("/") && lastSlash > 0)
+            {
+                for (String segment : prefix.substring(1, lastSlash).split("/", -1))
+                {
+                    node = node.literal(segment);
+                }
+            }
+        }
+        node._regexes.add(new Entry<>(resource, position));
+        ++_size;
+        return true;
+    }
+
+    boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    int size()
+    {
+        return _size;
+    }
+
+    /**
+     * @param path the path to match
+     * @return the matching entry with the lowest position, or null if no entry matches
+     */
+    Entry<E> getMatch(String path)
+    {
+        if (_size == 0 || path.isEmpty() || path.charAt(0) != '/')
+            return null;
+
+        // Match only the non query part.
+        int end = path.indexOf('?');
+        if (end < 0)
+            end = path.length();
+
+        Walk<E> walk = new Walk<>();
+        walk(_root, path, 1, end, walk);
+
+        // Regular expressions are tested in order, only if they have priority over the template match.
+        Entry<E> match = walk._template;
+        List<Entry<E>> regexes = walk._regexes;
+        if (regexes != null)
+        {
+            if (regexes.size() > 1)
+                regexes.sort((e1, e2) -> Integer.compare(e1._position, e2._position));
+            for (Entry<E> regex : regexes)
+            {
+                if (match != null && match._position < regex._position)
+                    break;
+                if (regex._resource.getPathSpec().matches(path))
+                    return regex;
+            }
+        }
+        return match;
+    }
+
+    private void walk(Node<E> node, String path, int start, int end, Walk<E> walk)
+    {
+        if (!node._regexes.isEmpty())
+            walk.addRegexes(node._regexes);
+
+        int slash = path.indexOf('/', start);
+        if (slash < 0 || slash > end)
+            slash = end;
+
+        Trie<Node<E>> literals = node._literals;
+        if (literals != null)
+        {
+            Node<E> literal = literals.get(path, start, slash - start);
+            if (literal != null)
+                next(literal, path, slash, end, walk);
+        }
+
+        Node<E> variable = node._variable;
+        if (variable != null && slash > start)
+            next(variable, path, slash, end, walk);
+    }
+
+    private void next(Node<E> node, String path, int slash, int end, Walk<E> walk)
+    {
+        if (slash == end)
+        {
+            // The whole path has been consumed.
+            if (!node._regexes.isEmpty())
+                walk.addRegexes(node._regexes);
+            if (!node._templates.isEmpty())
+                walk.addTemplate(node._templates.get(0));
+        }
+        else
+        {
+            walk(node, path, slash + 1, end, walk);
+        }
+    }
+
+    static class Entry<E>
+    {
+        private final MappedResource<E> _resource;
+        private final int _position;
+
+        private Entry(MappedResource<E> resource, int position)
+        {
+            _resource = resource;
+            _position = position;
+        }
+
+        MappedResource<E> getResource()
+        {
+            return _resource;
+        }
+
+        int getPosition()
+        {
+            return _position;
+        }
+    }
+
+    private static class Node<E>
+    {
+        private final List<Entry<E>> _templates = new ArrayList<>(1);
+        private final List<Entry<E>> _regexes = new ArrayList<>(1);
+        private Trie<Node<E>> _literals;
+        private Node<E> _variable;
+
+        private Node<E> literal(String segment)
+        {
+            if (_literals == null)
+                _literals = new ArrayTernaryTrie<>(false);
+            Node<E> node = _literals.get(segment);
+            if (node == null)
+            {
+                node = new Node<>();
+                while (!_literals.put(segment, node))
+                {
+                    _literals = new ArrayTernaryTrie<>((ArrayTernaryTrie<Node<E>>)_literals, 1.5);
+                }
+            }
+            return node;
+        }
+
+        private Node<E> variable()
+        {
+            if (_variable == null)
+                _variable = new Node<>();
+            return _variable;
+        }
+    }
+
+    private static class Walk<E>
+    {
+        private Entry<E> _template;
+        private List<Entry<E>> _regexes;
+
+        private void addTemplate(Entry<E> entry)
+        {
+            if (_template == null || entry._position < _template._position)
+                _template = entry;
+        }
+
+        private void addRegexes(List<Entry<E>> entries)
+        {
+            if (_regexes == null)
+                _regexes = new ArrayList<>();
+            _regexes.addAll(entries);
+        }
+    }
+}
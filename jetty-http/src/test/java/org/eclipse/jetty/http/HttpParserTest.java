@@ -39,11 +39,13 @@ import static org.eclipse.jetty.http.HttpCompliance.Violation.TRANSFER_ENCODING_
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -2108,6 +2110,88 @@ public class HttpParserTest
         assertSame(field, _fields.get(0));
     }
 
+    @Test
+    public void testSharedHttpFieldCache()
+    {
+        String request =
+            "GET / HTTP/1.1\r\n" +
+                "Host: www.example.com\r\n" +
+                "User-Agent: Fleet/1.0\r\n" +
+                "Accept-Language: en-AU\r\n" +
+                "Authorization: Bearer token\r\n" +
+                "Cookie: id=%d\r\n" +
+                "X-Api-Key: 0123456789\r\n" +
+                "\r\n";
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpFieldCache cache = new HttpFieldCache(1024, 16, Integer.MAX_VALUE);
+        for (int i = 0; i < 2; i++)
+        {
+            HttpParser parser = new HttpParser(handler);
+            parser.setHttpFieldCache(cache);
+            parseAll(parser, BufferUtil.toBuffer(String.format(request, i)));
+        }
+        // Credentials, cookies and unknown headers are not learned.
+        assertEquals(3, cache.getCandidates());
+        cache.publish();
+        assertEquals(1, cache.getPublishes());
+        assertEquals(3, cache.getSize());
+        assertNotNull(cache.getTrie());
+
+        // New parsers, as if on new connections, use the learned fields.
+        HttpParser parser = new HttpParser(handler);
+        parser.setHttpFieldCache(cache);
+        parseAll(parser, BufferUtil.toBuffer(String.format(request, 2)));
+        List<HttpField> fields1 = new ArrayList<>(_fields);
+
+        parser = new HttpParser(handler);
+        parser.setHttpFieldCache(cache);
+        parseAll(parser, BufferUtil.toBuffer(String.format(request, 3)));
+        List<HttpField> fields2 = new ArrayList<>(_fields);
+
+        assertEquals(6, fields2.size());
+        assertThat(fields2.get(0), instanceOf(HostPortHttpField.class));
+        assertEquals("www.example.com", ((HostPortHttpField)fields2.get(0)).getHost());
+        assertSame(fields1.get(0), fields2.get(0));
+        assertSame(fields1.get(1), fields2.get(1));
+        assertSame(fields1.get(2), fields2.get(2));
+        assertEquals("en-AU", fields2.get(2).getValue());
+        assertNotSame(fields1.get(3), fields2.get(3));
+        assertNotSame(fields1.get(4), fields2.get(4));
+        assertNotSame(fields1.get(5), fields2.get(5));
+    }
+
+    @Test
+    public void testSharedHttpFieldCachePublishedByExecutor()
+    {
+        String request =
+            "GET / HTTP/1.1\r\n" +
+                "Host: www.example.com\r\n" +
+                "User-Agent: Fleet/1.0\r\n" +
+                "\r\n";
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpFieldCache cache = new HttpFieldCache(1024, 16, 8);
+        List<Runnable> tasks = new ArrayList<>();
+        cache.setExecutor(tasks::add);
+        // The publish interval is checked by sampling, so parse enough requests to trigger it.
+        for (int i = 0; i < 1000; i++)
+        {
+            HttpParser parser = new HttpParser(handler);
+            parser.setHttpFieldCache(cache);
+            parseAll(parser, BufferUtil.toBuffer(request));
+        }
+
+        // Only one publication is pending, and it is not run by the parsers.
+        assertEquals(1, tasks.size());
+        assertEquals(0, cache.getPublishes());
+        assertNull(cache.getTrie());
+
+        tasks.get(0).run();
+        assertEquals(1, cache.getPublishes());
+        assertEquals(2, cache.getSize());
+    }
+
     @Test
     public void testParseRequest()
     {
@@ -81,6 +81,14 @@ public class QuotedQualityCSVTest
         ));
     }
 
+    @Test
+    public void testZeroQualityNotPreferred()
+    {
+        QuotedQualityCSV values = new QuotedQualityCSV(new String[]{"br", "gzip"});
+        values.addValue("deflate;q=0, *");
+        assertThat(values, Matchers.contains("*"));
+    }
+
     @Test
     public void test7231Sec534Example1()
     {
@@ -167,6 +167,55 @@ public class PathMappingsTest
         assertMatch(p, "/b/d", "endpointE");
     }
 
+    @Test
+    public void testCompiledMatchesSearchOrder()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        p.put(new UriTemplatePathSpec("/"), "root");
+        p.put(new UriTemplatePathSpec("/api/"), "apiSlash");
+        for (int i = 0; i < 50; i++)
+        {
+            p.put(new UriTemplatePathSpec("/api/v" + i + "/users/{id}"), "user" + i);
+            p.put(new UriTemplatePathSpec("/api/v" + i + "/users/{id}/orders/{order}"), "order" + i);
+            p.put(new UriTemplatePathSpec("/api/v" + i + "/users/me"), "me" + i);
+            p.put(new UriTemplatePathSpec("/api/{version}/users/{id}/profile"), "profile");
+            p.put(new RegexPathSpec("^/api/v" + i + "/files/.*\\.txt$"), "text" + i);
+        }
+        p.put(new UriTemplatePathSpec("/{any}/v1/users/{id}"), "any");
+        p.put(new RegexPathSpec("^/api/v1/users/[0-9]+$"), "numeric");
+        p.put(new RegexPathSpec("^/(api|web)/v2/.*$"), "alternatives");
+        p.put(new RegexPathSpec("^/ap*/v3/.*$"), "quantified");
+        p.put(new UriTemplatePathSpec("/api/a+b"), "unescaped");
+
+        String[] paths = {
+            "/", "/api/", "/api", "/api/v1/users/42", "/api/v1/users/me", "/api/v1/users/abc",
+            "/api/v7/users/42/orders/1", "/api/v7/users/42/orders/", "/api/v7/users/42/profile",
+            "/api/v99/users/42/profile", "/web/v1/users/42", "/api/v2/files/a/b.txt", "/api/v2/files/a.bin",
+            "/web/v2/anything", "/a/v3/x", "/api/aab", "/api/a+b", "/api/v1/users/42?query=value",
+            "/api//users/42", "/nothing"
+        };
+        for (String path : paths)
+        {
+            // The first mapping in search order that matches.
+            MappedResource<String> expected = p.getMappings().stream()
+                .filter(mr -> mr.getPathSpec().matches(path))
+                .findFirst()
+                .orElse(null);
+            assertEquals(expected, p.getMatch(path), path);
+        }
+
+        assertMatch(p, "/api/v1/users/me", "me1");
+        assertMatch(p, "/api/v2/files/a/b.txt", "text2");
+        assertMatch(p, "/web/v2/anything", "alternatives");
+        assertMatch(p, "/a/v3/x", "quantified");
+        assertMatch(p, "/api/aab", "unescaped");
+
+        p.remove(new UriTemplatePathSpec("/api/v1/users/me"));
+        assertMatch(p, "/api/v1/users/me", "user1");
+        p.removeIf(mr -> mr.getResource().startsWith("user"));
+        assertMatch(p, "/api/v1/users/me", "any");
+    }
+
     @Test
     public void testPathMap() throws Exception
     {
@@ -0,0 +1,307 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http2.AutoTuningFlowControlStrategy;
+import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.ISession;
+import org.eclipse.jetty.http2.IStream;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AutoTuningFlowControlStrategyTest extends FlowControlStrategyTest
+{
+    private static final int WINDOW = FlowControlStrategy.DEFAULT_WINDOW_SIZE;
+
+    private final CountDownLatch pingReplyLatch = new CountDownLatch(1);
+
+    @Override
+    protected FlowControlStrategy newFlowControlStrategy()
+    {
+        return new AutoTuningFlowControlStrategy()
+        {
+            @Override
+            public boolean onPingReply(ISession session, PingFrame frame)
+            {
+                boolean consumed = super.onPingReply(session, frame);
+                if (consumed)
+                    pingReplyLatch.countDown();
+                return consumed;
+            }
+        };
+    }
+
+    @Test
+    public void testWindowTargetGrowsAndShrinksWithSamples()
+    {
+        AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy(WINDOW, 64 * WINDOW);
+        strategy.setPingInterval(0);
+        Windows session = new Windows(WINDOW);
+        ISession iSession = session.newSession();
+
+        // Samples as large as the window mean that the sender is limited by the window.
+        sample(strategy, session, iSession, WINDOW);
+        assertEquals(2 * WINDOW, strategy.getSessionRecvWindowTarget());
+        sample(strategy, session, iSession, 2 * WINDOW);
+        assertEquals(4 * WINDOW, strategy.getSessionRecvWindowTarget());
+        assertEquals(2 * WINDOW, strategy.getBandwidthDelayProduct());
+        assertTrue(strategy.getRoundTripTime() >= 0);
+
+        // The target is not shrunk by a few small samples.
+        for (int i = 0; i < 7; i++)
+        {
+            sample(strategy, session, iSession, 1024);
+        }
+        assertEquals(4 * WINDOW, strategy.getSessionRecvWindowTarget());
+
+        // But it is by a sustained period of small samples.
+        sample(strategy, session, iSession, 1024);
+        assertEquals(2 * WINDOW, strategy.getSessionRecvWindowTarget());
+
+        // Down to the min window.
+        for (int i = 0; i < 16; i++)
+        {
+            sample(strategy, session, iSession, 1024);
+        }
+        assertEquals(WINDOW, strategy.getSessionRecvWindowTarget());
+    }
+
+    @Test
+    public void testOnlyOwnPingRepliesAreConsumed()
+    {
+        AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy();
+        strategy.setPingInterval(0);
+        Windows session = new Windows(WINDOW);
+        ISession iSession = session.newSession();
+
+        // No PING sent yet.
+        assertFalse(strategy.onPingReply(iSession, new PingFrame(1L, true)));
+
+        strategy.onDataReceived(iSession, null, 1024);
+        PingFrame ping = session.pings.poll();
+        assertNotNull(ping);
+
+        // Replies to other PINGs, for example sent by the application, are not consumed.
+        assertFalse(strategy.onPingReply(iSession, new PingFrame(ping.getPayloadAsLong() + 1, true)));
+        PingFrame reply = new PingFrame(ping.getPayload(), true);
+        assertTrue(strategy.onPingReply(iSession, reply));
+        // A duplicate reply is not consumed.
+        assertFalse(strategy.onPingReply(iSession, reply));
+    }
+
+    @Test
+    public void testStreamWindowsShareSessionWindowTarget()
+    {
+        AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy(WINDOW, 64 * WINDOW);
+        strategy.setPingInterval(0);
+        Windows session = new Windows(WINDOW);
+        ISession iSession = session.newSession();
+        for (int i = 1; i <= 4; i++)
+        {
+            sample(strategy, session, iSession, strategy.getSessionRecvWindowTarget());
+        }
+        int sessionTarget = strategy.getSessionRecvWindowTarget();
+        assertEquals(16 * WINDOW, sessionTarget);
+
+        List<Windows> streams = new ArrayList<>();
+        List<IStream> iStreams = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+        {
+            Windows stream = new Windows(0);
+            IStream iStream = stream.newStream(2 * i + 1);
+            strategy.onStreamCreated(iStream);
+            streams.add(stream);
+            iStreams.add(iStream);
+        }
+        assertEquals(sessionTarget / 4, strategy.getStreamRecvWindowTarget());
+
+        // Consume enough on every stream to trigger the stream window updates.
+        for (int i = 0; i < 4; i++)
+        {
+            for (int j = 0; j < 5; j++)
+            {
+                strategy.onDataReceived(iSession, iStreams.get(i), 40 * 1024);
+                strategy.onDataConsumed(iSession, iStreams.get(i), 40 * 1024);
+            }
+        }
+
+        // The sum of the stream windows does not exceed the session window target.
+        int sum = 0;
+        for (Windows stream : streams)
+        {
+            assertEquals(sessionTarget / 4, stream.recvWindow.get());
+            sum += stream.recvWindow.get();
+        }
+        assertTrue(sum <= sessionTarget);
+
+        // With fewer streams, each gets a larger share.
+        strategy.onStreamDestroyed(iStreams.get(3));
+        strategy.onStreamDestroyed(iStreams.get(2));
+        assertEquals(sessionTarget / 2, strategy.getStreamRecvWindowTarget());
+
+        // But never less than the initial stream window.
+        for (int i = 0; i < 64; i++)
+        {
+            strategy.onStreamCreated(new Windows(0).newStream(101 + 2 * i));
+        }
+        assertEquals(strategy.getInitialStreamRecvWindow(), strategy.getStreamRecvWindowTarget());
+    }
+
+    @Test
+    public void testPingRepliesNotNotifiedToListener() throws Exception
+    {
+        AtomicInteger serverPings = new AtomicInteger();
+        CountDownLatch dataLatch = new CountDownLatch(1);
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                return new Stream.Listener.Adapter()
+                {
+                    @Override
+                    public void onData(Stream stream, DataFrame frame, Callback callback)
+                    {
+                        callback.succeeded();
+                        if (frame.isEndStream())
+                            dataLatch.countDown();
+                    }
+                };
+            }
+
+            @Override
+            public void onPing(Session session, PingFrame frame)
+            {
+                serverPings.incrementAndGet();
+            }
+        });
+
+        Session clientSession = newClient(new Session.Listener.Adapter());
+        FuturePromise<Stream> promise = new FuturePromise<>();
+        clientSession.newStream(new HeadersFrame(newRequest("POST", HttpFields.EMPTY), null, false), promise, new Stream.Listener.Adapter());
+        Stream stream = promise.get(5, TimeUnit.SECONDS);
+        stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(1024 * 1024), true), Callback.NOOP);
+
+        assertTrue(dataLatch.await(5, TimeUnit.SECONDS));
+        // The server measured the connection with a PING, whose reply was consumed.
+        assertTrue(pingReplyLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, serverPings.get());
+    }
+
+    /**
+     * <p>Receives {@code bytes} between a PING and its reply, then consumes them.</p>
+     */
+    private static void sample(AutoTuningFlowControlStrategy strategy, Windows session, ISession iSession, int bytes)
+    {
+        // The first data frame sends the PING.
+        strategy.onDataReceived(iSession, null, 1);
+        PingFrame ping = session.pings.poll();
+        assertNotNull(ping);
+        strategy.onDataConsumed(iSession, null, 1);
+        // Receive the sample without exceeding the session window.
+        int remaining = bytes;
+        while (remaining > 0)
+        {
+            int length = Math.min(remaining, session.recvWindow.get());
+            strategy.onDataReceived(iSession, null, length);
+            strategy.onDataConsumed(iSession, null, length);
+            remaining -= length;
+        }
+        assertTrue(strategy.onPingReply(iSession, new PingFrame(ping.getPayload(), true)));
+    }
+
+    /**
+     * <p>The flow control windows of a session or stream stub.</p>
+     */
+    private static class Windows
+    {
+        private final AtomicInteger recvWindow;
+        private final AtomicInteger sendWindow = new AtomicInteger();
+        private final Queue<PingFrame> pings = new ConcurrentLinkedQueue<>();
+
+        private Windows(int recvWindow)
+        {
+            this.recvWindow = new AtomicInteger(recvWindow);
+        }
+
+        private ISession newSession()
+        {
+            return (ISession)newProxy(ISession.class, 0);
+        }
+
+        private IStream newStream(int id)
+        {
+            return (IStream)newProxy(IStream.class, id);
+        }
+
+        private Object newProxy(Class<?> type, int id)
+        {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                    case "updateRecvWindow":
+                        return recvWindow.getAndAdd((Integer)args[0]);
+                    case "updateSendWindow":
+                        return sendWindow.getAndAdd((Integer)args[0]);
+                    case "ping":
+                        pings.offer((PingFrame)args[0]);
+                        return null;
+                    case "frames":
+                        return null;
+                    case "getId":
+                        return id;
+                    case "isRemotelyClosed":
+                        return false;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return type.getSimpleName() + "#" + id;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+}
@@ -30,6 +30,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Exchanger;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -128,9 +129,13 @@ public abstract class FlowControlStrategyTest
     @AfterEach
     public void dispose() throws Exception
     {
+        // Tests that only exercise the strategy do not start client and server.
+        if (server == null)
+            return;
         // Allow WINDOW_UPDATE frames to be sent/received to avoid exception stack traces.
         Thread.sleep(1000);
-        client.stop();
+        if (client != null)
+            client.stop();
         server.stop();
     }
 
@@ -949,6 +954,97 @@ public abstract class FlowControlStrategyTest
         assertTrue(dataLatch.await(5, TimeUnit.SECONDS));
     }
 
+    @Test
+    public void testStalledStreamSendsWindowUpdate() throws Exception
+    {
+        int windowSize = 1024;
+        CountDownLatch settingsLatch = new CountDownLatch(1);
+        CountDownLatch serverDataLatch = new CountDownLatch(1);
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Map<Integer, Integer> onPreface(Session session)
+            {
+                Map<Integer, Integer> settings = new HashMap<>();
+                settings.put(SettingsFrame.INITIAL_WINDOW_SIZE, windowSize);
+                return settings;
+            }
+
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame requestFrame)
+            {
+                // Send more response content than the client allows,
+                // so that the DATA frames of the stream are stalled.
+                MetaData.Response metaData = new MetaData.Response(HttpVersion.HTTP_2, 200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), metaData, null, false), Callback.NOOP);
+                stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(2 * windowSize), true), Callback.NOOP);
+                return new Stream.Listener.Adapter()
+                {
+                    @Override
+                    public void onData(Stream stream, DataFrame frame, Callback callback)
+                    {
+                        // Consume the request content, so that
+                        // WINDOW_UPDATE frames are sent for the stream.
+                        callback.succeeded();
+                        if (frame.isEndStream())
+                            serverDataLatch.countDown();
+                    }
+                };
+            }
+        });
+
+        client.setInitialStreamRecvWindow(windowSize);
+        Session session = newClient(new Session.Listener.Adapter()
+        {
+            @Override
+            public void onSettings(Session session, SettingsFrame frame)
+            {
+                settingsLatch.countDown();
+            }
+        });
+        assertTrue(settingsLatch.await(5, TimeUnit.SECONDS));
+
+        MetaData.Request metaData = newRequest("POST", HttpFields.EMPTY);
+        HeadersFrame requestFrame = new HeadersFrame(metaData, null, false);
+        FuturePromise<Stream> streamPromise = new FuturePromise<>();
+        List<Callback> callbacks = new ArrayList<>();
+        AtomicBoolean consume = new AtomicBoolean();
+        CountDownLatch responseLatch = new CountDownLatch(1);
+        session.newStream(requestFrame, streamPromise, new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                synchronized (callbacks)
+                {
+                    // Do not consume the response content until the request content is sent.
+                    if (consume.get())
+                        callback.succeeded();
+                    else
+                        callbacks.add(callback);
+                }
+                if (frame.isEndStream())
+                    responseLatch.countDown();
+            }
+        });
+        Stream stream = streamPromise.get(5, TimeUnit.SECONDS);
+
+        // The request content can only be sent if the server sends WINDOW_UPDATE
+        // frames for the stream, while its response DATA frames are stalled.
+        FutureCallback callback = new FutureCallback();
+        stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(4 * windowSize), true), callback);
+        callback.get(5, TimeUnit.SECONDS);
+        assertTrue(serverDataLatch.await(5, TimeUnit.SECONDS));
+
+        // Consume the response content to receive the rest of it.
+        synchronized (callbacks)
+        {
+            consume.set(true);
+            callbacks.forEach(Callback::succeeded);
+        }
+        assertTrue(responseLatch.await(5, TimeUnit.SECONDS));
+    }
+
     @Test
     public void testNoWindowUpdateForRemotelyClosedStream() throws Exception
     {
@@ -29,7 +29,9 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -42,6 +44,7 @@ import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http2.ErrorCode;
 import org.eclipse.jetty.http2.HTTP2Session;
+import org.eclipse.jetty.http2.IStream;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
@@ -53,9 +56,12 @@ import org.eclipse.jetty.http2.frames.SettingsFrame;
 import org.eclipse.jetty.http2.hpack.HpackException;
 import org.eclipse.jetty.http2.parser.RateControl;
 import org.eclipse.jetty.http2.parser.ServerParser;
+import org.eclipse.jetty.http2.server.AbstractHTTP2ServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HttpTransportOverHTTP2;
 import org.eclipse.jetty.http2.server.RawHTTP2ServerConnectionFactory;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.FuturePromise;
@@ -67,6 +73,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -203,6 +210,161 @@ public class HTTP2Test extends AbstractTest
         assertTrue(latch.await(5, TimeUnit.SECONDS));
     }
 
+    @Test
+    public void testSmallResponseWritesAreCoalesced() throws Exception
+    {
+        int chunks = 100;
+        byte[] chunk = new byte[100];
+        start(new HttpServlet()
+        {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException
+            {
+                ServletOutputStream output = resp.getOutputStream();
+                for (int i = 0; i < chunks; ++i)
+                {
+                    output.write(chunk);
+                    output.flush();
+                }
+            }
+        });
+        connector.getConnectionFactory(AbstractHTTP2ServerConnectionFactory.class).setDataCoalescingDelay(5000);
+
+        Session session = newClient(new Session.Listener.Adapter());
+
+        MetaData.Request metaData = newRequest("GET", HttpFields.EMPTY);
+        HeadersFrame frame = new HeadersFrame(metaData, null, true);
+        AtomicInteger frames = new AtomicInteger();
+        AtomicInteger bytes = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        session.newStream(frame, new Promise.Adapter<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                frames.incrementAndGet();
+                bytes.addAndGet(frame.getData().remaining());
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(chunks * chunk.length, bytes.get());
+        assertThat(frames.get(), lessThan(chunks / 10));
+    }
+
+    @Test
+    public void testCoalescedWriteSentWhenDelayExpires() throws Exception
+    {
+        byte[] chunk = new byte[100];
+        CountDownLatch coalescedLatch = new CountDownLatch(1);
+        start(new HttpServlet()
+        {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException
+            {
+                ServletOutputStream output = resp.getOutputStream();
+                // The first write commits the response and is sent with the headers.
+                output.write(chunk);
+                output.flush();
+                // The second write is coalesced, and only sent when the delay expires.
+                output.write(chunk);
+                output.flush();
+                try
+                {
+                    if (!coalescedLatch.await(5, TimeUnit.SECONDS))
+                        throw new IOException("coalesced write not sent");
+                }
+                catch (InterruptedException x)
+                {
+                    throw new IOException(x);
+                }
+            }
+        });
+        connector.getConnectionFactory(AbstractHTTP2ServerConnectionFactory.class).setDataCoalescingDelay(100);
+
+        Session session = newClient(new Session.Listener.Adapter());
+
+        MetaData.Request metaData = newRequest("GET", HttpFields.EMPTY);
+        HeadersFrame frame = new HeadersFrame(metaData, null, true);
+        AtomicInteger bytes = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        session.newStream(frame, new Promise.Adapter<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                int received = bytes.addAndGet(frame.getData().remaining());
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+                else if (received == 2 * chunk.length)
+                    coalescedLatch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, coalescedLatch.getCount());
+        assertEquals(2 * chunk.length, bytes.get());
+    }
+
+    @Test
+    public void testFailedCoalescedSendFailsNextWrite() throws Exception
+    {
+        long delay = 100;
+        byte[] chunk = new byte[100];
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        start(new HttpServlet()
+        {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException
+            {
+                ServletOutputStream output = resp.getOutputStream();
+                output.write(chunk);
+                output.flush();
+                // Coalesced and succeeded before it is sent.
+                output.write(chunk);
+                output.flush();
+
+                // Reset the stream, so that sending the coalesced write fails when the delay expires.
+                HttpTransportOverHTTP2 transport = (HttpTransportOverHTTP2)Request.getBaseRequest(req).getHttpChannel().getHttpTransport();
+                IStream stream = transport.getStream();
+                stream.reset(new ResetFrame(stream.getId(), ErrorCode.CANCEL_STREAM_ERROR.code), Callback.NOOP);
+                try
+                {
+                    Thread.sleep(5 * delay);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new IOException(x);
+                }
+
+                try
+                {
+                    output.write(chunk);
+                    output.flush();
+                    failure.complete(null);
+                }
+                catch (IOException x)
+                {
+                    failure.complete(x);
+                    throw x;
+                }
+            }
+        });
+        connector.getConnectionFactory(AbstractHTTP2ServerConnectionFactory.class).setDataCoalescingDelay(delay);
+
+        Session session = newClient(new Session.Listener.Adapter());
+
+        MetaData.Request metaData = newRequest("GET", HttpFields.EMPTY);
+        HeadersFrame frame = new HeadersFrame(metaData, null, true);
+        session.newStream(frame, new Promise.Adapter<>(), new Stream.Listener.Adapter());
+
+        assertNotNull(failure.get(5, TimeUnit.SECONDS));
+    }
+
     @Test
     public void testRequestContentResponseContent() throws Exception
     {
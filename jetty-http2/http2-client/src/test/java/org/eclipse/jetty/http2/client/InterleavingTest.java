@@ -35,6 +35,7 @@ import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http2.ISession;
+import org.eclipse.jetty.http2.UrgencyStreamScheduler;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
@@ -50,6 +51,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -201,6 +203,83 @@ public class InterleavingTest extends AbstractTest
         });
     }
 
+    @Test
+    public void testUrgencyScheduling() throws Exception
+    {
+        CountDownLatch serverStreamsLatch = new CountDownLatch(2);
+        List<Stream> serverStreams = new ArrayList<>();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                serverStreams.add(stream);
+                serverStreamsLatch.countDown();
+                return null;
+            }
+        }, factory -> factory.setStreamScheduler(new UrgencyStreamScheduler()));
+
+        Session session = newClient(new Session.Listener.Adapter());
+
+        BlockingQueue<DataFrameCallback> dataFrames = new LinkedBlockingDeque<>();
+        Stream.Listener streamListener = new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                dataFrames.offer(new DataFrameCallback(frame, callback));
+            }
+        };
+
+        // The first request has a low urgency, the second the highest urgency.
+        HttpFields fields1 = HttpFields.build().put("priority", "u=5");
+        FuturePromise<Stream> streamPromise1 = new FuturePromise<>();
+        session.newStream(new HeadersFrame(newRequest("GET", fields1), null, true), streamPromise1, streamListener);
+        Stream clientStream1 = streamPromise1.get(5, TimeUnit.SECONDS);
+
+        HttpFields fields2 = HttpFields.build().put("priority", "u=0");
+        FuturePromise<Stream> streamPromise2 = new FuturePromise<>();
+        session.newStream(new HeadersFrame(newRequest("GET", fields2), null, true), streamPromise2, streamListener);
+        Stream clientStream2 = streamPromise2.get(5, TimeUnit.SECONDS);
+
+        assertTrue(serverStreamsLatch.await(5, TimeUnit.SECONDS));
+
+        Stream serverStream1 = serverStreams.get(0);
+        Stream serverStream2 = serverStreams.get(1);
+        byte[] content = new byte[3 * Frame.DEFAULT_MAX_LENGTH];
+        MetaData.Response response1 = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+        serverStream1.headers(new HeadersFrame(serverStream1.getId(), response1, null, false), Callback.NOOP);
+        MetaData.Response response2 = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+        serverStream2.headers(new HeadersFrame(serverStream2.getId(), response2, null, false), new Callback()
+        {
+            @Override
+            public void succeeded()
+            {
+                // Write data for both streams from within the callback so that they get queued together.
+                serverStream1.data(new DataFrame(serverStream1.getId(), ByteBuffer.wrap(content), true), NOOP);
+                serverStream2.data(new DataFrame(serverStream2.getId(), ByteBuffer.wrap(content), true), NOOP);
+            }
+        });
+
+        List<Integer> streamIds = new ArrayList<>();
+        int finished = 0;
+        while (finished < 2)
+        {
+            DataFrameCallback dataFrameCallback = dataFrames.poll(5, TimeUnit.SECONDS);
+            if (dataFrameCallback == null)
+                fail();
+            DataFrame dataFrame = dataFrameCallback.frame;
+            if (dataFrame.remaining() > 0)
+                streamIds.add(dataFrame.getStreamId());
+            if (dataFrame.isEndStream())
+                ++finished;
+            dataFrameCallback.callback.succeeded();
+        }
+
+        // All the data of the urgent stream is received before the data of the other stream.
+        assertThat(streamIds.lastIndexOf(clientStream2.getId()), lessThan(streamIds.indexOf(clientStream1.getId())));
+    }
+
     private static class DataFrameCallback
     {
         private final DataFrame frame;
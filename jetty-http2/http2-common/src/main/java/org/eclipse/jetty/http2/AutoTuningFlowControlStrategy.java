@@ -0,0 +1,387 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>A flow control strategy that sizes the receive windows after the
+ * bandwidth-delay product (BDP) of the connection.</p>
+ * <p>While data is being received, a PING frame is sent at most every
+ * {@link #getPingInterval() ping interval}; the bytes received between the
+ * PING and its reply are a sample of the BDP, and the time between them is
+ * a sample of the round trip time.</p>
+ * <p>When a sample is close to the current window size, the sender is likely
+ * limited by the window rather than by the network, so the window target
+ * is doubled, up to {@link #getMaxWindow() the max window}; when many
+ * consecutive samples are much smaller than the window target, the target
+ * is halved, down to {@link #getMinWindow() the min window}.</p>
+ * <p>Like {@link BufferingFlowControlStrategy}, consumed bytes are accumulated
+ * and window updates are sent when the accumulated bytes exceed a fraction
+ * of the window target; the window update enlarges the receive window so that
+ * the window, plus the bytes received but not yet consumed, matches the
+ * window target. When the target shrinks, window updates are withheld until
+ * the window falls below the new target.</p>
+ * <p>The stream receive windows share the session window target: each stream
+ * window target is the session window target divided by the number of streams,
+ * so that with many concurrent streams the sum of the stream windows does not
+ * grow beyond the session window target. The stream window targets are never
+ * smaller than the initial stream receive window, and stay at the initial stream
+ * receive window until the samples grow the session window target.</p>
+ */
+@ManagedObject
+public class AutoTuningFlowControlStrategy extends AbstractFlowControlStrategy
+{
+    private static final long PING_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+    private final AtomicInteger sessionLevel = new AtomicInteger();
+    private final AtomicInteger sessionUnconsumed = new AtomicInteger();
+    private final Map<IStream, Levels> streamLevels = new ConcurrentHashMap<>();
+    private final AtomicLong pingTime = new AtomicLong();
+    private final AtomicInteger pingBytes = new AtomicInteger();
+    private volatile int minWindow;
+    private volatile int maxWindow;
+    private volatile float bufferRatio = 0.5F;
+    private volatile long pingInterval = 500;
+    private volatile int initialWindowTarget;
+    private volatile int windowTarget;
+    private volatile long lastPingTime;
+    private volatile long roundTripTime;
+    private volatile long bandwidth;
+    private volatile int bandwidthDelayProduct;
+    private int smallSamples;
+
+    public AutoTuningFlowControlStrategy()
+    {
+        this(DEFAULT_WINDOW_SIZE, 16 * 1024 * 1024);
+    }
+
+    public AutoTuningFlowControlStrategy(int minWindow, int maxWindow)
+    {
+        this(DEFAULT_WINDOW_SIZE, minWindow, maxWindow);
+    }
+
+    public AutoTuningFlowControlStrategy(int initialStreamSendWindow, int minWindow, int maxWindow)
+    {
+        super(initialStreamSendWindow);
+        if (minWindow <= 0 || maxWindow < minWindow)
+            throw new IllegalArgumentException("Invalid window bounds: " + minWindow + "/" + maxWindow);
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+    }
+
+    @ManagedAttribute("The min size of the receive windows")
+    public int getMinWindow()
+    {
+        return minWindow;
+    }
+
+    public void setMinWindow(int minWindow)
+    {
+        this.minWindow = minWindow;
+    }
+
+    @ManagedAttribute("The max size of the receive windows")
+    public int getMaxWindow()
+    {
+        return maxWindow;
+    }
+
+    public void setMaxWindow(int maxWindow)
+    {
+        this.maxWindow = maxWindow;
+    }
+
+    @ManagedAttribute("The ratio between the receive window target and the consume buffer")
+    public float getBufferRatio()
+    {
+        return bufferRatio;
+    }
+
+    public void setBufferRatio(float bufferRatio)
+    {
+        this.bufferRatio = bufferRatio;
+    }
+
+    @ManagedAttribute("The min interval in milliseconds between PING frames that measure the connection")
+    public long getPingInterval()
+    {
+        return pingInterval;
+    }
+
+    public void setPingInterval(long pingInterval)
+    {
+        this.pingInterval = pingInterval;
+    }
+
+    @ManagedAttribute("The target size of the session receive window")
+    public int getSessionRecvWindowTarget()
+    {
+        int target = windowTarget;
+        return target == 0 ? minWindow : target;
+    }
+
+    @ManagedAttribute("The target size of the stream receive windows")
+    public int getStreamRecvWindowTarget()
+    {
+        int initial = getInitialStreamRecvWindow();
+        int target = windowTarget;
+        // Until the samples grow the session window, keep the configured stream window.
+        if (target <= initialWindowTarget)
+            return initial;
+        int streams = Math.max(1, streamLevels.size());
+        return Math.max(initial, Math.min(target / streams, maxWindow));
+    }
+
+    @ManagedAttribute("The smoothed round trip time in microseconds")
+    public long getRoundTripTime()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(roundTripTime);
+    }
+
+    @ManagedAttribute("The last measured bandwidth in bytes per second")
+    public long getBandwidth()
+    {
+        return bandwidth;
+    }
+
+    @ManagedAttribute("The last measured bandwidth-delay product in bytes")
+    public int getBandwidthDelayProduct()
+    {
+        return bandwidthDelayProduct;
+    }
+
+    @Override
+    public void onStreamCreated(IStream stream)
+    {
+        super.onStreamCreated(stream);
+        streamLevels.put(stream, new Levels());
+    }
+
+    @Override
+    public void onStreamDestroyed(IStream stream)
+    {
+        streamLevels.remove(stream);
+        super.onStreamDestroyed(stream);
+    }
+
+    @Override
+    public void onDataReceived(ISession session, IStream stream, int length)
+    {
+        if (windowTarget == 0)
+        {
+            int target = clamp(session.updateRecvWindow(0));
+            initialWindowTarget = target;
+            windowTarget = target;
+        }
+
+        super.onDataReceived(session, stream, length);
+
+        sessionUnconsumed.addAndGet(length);
+        if (stream != null)
+        {
+            Levels levels = streamLevels.get(stream);
+            if (levels != null)
+                levels.unconsumed.addAndGet(length);
+        }
+
+        // Data exceeding the windows fails the connection, do not measure it.
+        if (session.updateRecvWindow(0) < 0 || (stream != null && stream.updateRecvWindow(0) < 0))
+            return;
+
+        long now = System.nanoTime();
+        long sent = pingTime.get();
+        if (sent != 0)
+        {
+            if (now - sent < PING_TIMEOUT)
+            {
+                pingBytes.addAndGet(length);
+                return;
+            }
+            // The PING reply never arrived, allow another PING.
+            if (!pingTime.compareAndSet(sent, 0))
+                return;
+        }
+
+        if (now - lastPingTime >= TimeUnit.MILLISECONDS.toNanos(pingInterval) && pingTime.compareAndSet(0, now))
+        {
+            pingBytes.set(0);
+            lastPingTime = now;
+            if (LOG.isDebugEnabled())
+                LOG.debug("Sending PING to measure the BDP for {}", session);
+            session.ping(new PingFrame(now, false), Callback.from(() -> {}, x -> pingTime.compareAndSet(now, 0)));
+        }
+    }
+
+    @Override
+    public boolean onPingReply(ISession session, PingFrame frame)
+    {
+        long sent = pingTime.get();
+        if (sent == 0 || frame.getPayloadAsLong() != sent || !pingTime.compareAndSet(sent, 0))
+            return false;
+
+        long now = System.nanoTime();
+        long rtt = Math.max(1, now - sent);
+        int bytes = pingBytes.getAndSet(0);
+        onSample(session, rtt, bytes);
+        return true;
+    }
+
+    private void onSample(ISession session, long rtt, int bytes)
+    {
+        long smoothed = roundTripTime;
+        roundTripTime = smoothed == 0 ? rtt : (7 * smoothed + rtt) / 8;
+        bandwidth = bytes * TimeUnit.SECONDS.toNanos(1) / rtt;
+        bandwidthDelayProduct = bytes;
+
+        int target = getSessionRecvWindowTarget();
+        int newTarget = target;
+        if (bytes >= target / 3 * 2)
+        {
+            // The sender is likely limited by the window, grow it.
+            smallSamples = 0;
+            newTarget = clamp(Math.max(2L * target, 2L * bytes));
+        }
+        else if (bytes < target / 4)
+        {
+            // Shrink only after a sustained period of small samples.
+            if (++smallSamples >= 8)
+            {
+                smallSamples = 0;
+                newTarget = clamp(Math.max(target / 2, 2L * bytes));
+            }
+        }
+        else
+        {
+            smallSamples = 0;
+        }
+        windowTarget = newTarget;
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("BDP sample {} bytes in {} us, window target {} -> {} for {}", bytes, TimeUnit.NANOSECONDS.toMicros(rtt), target, newTarget, session);
+    }
+
+    private int clamp(long window)
+    {
+        return (int)Math.max(minWindow, Math.min(maxWindow, window));
+    }
+
+    @Override
+    public void onDataConsumed(ISession session, IStream stream, int length)
+    {
+        if (length <= 0)
+            return;
+
+        float ratio = bufferRatio;
+
+        sessionUnconsumed.addAndGet(-length);
+        int target = getSessionRecvWindowTarget();
+        int level = sessionLevel.addAndGet(length);
+        // The window may still be smaller than a target that just grew,
+        // so the level is measured against the window actually granted.
+        int window = session.updateRecvWindow(0) + sessionUnconsumed.get() + level;
+        int maxLevel = (int)(Math.min(target, window) * ratio);
+        if (level > maxLevel && sessionLevel.compareAndSet(level, 0))
+        {
+            // Enlarge the window so that the window plus the
+            // unconsumed bytes match the target; if the target
+            // shrunk, the consumed bytes are not given back.
+            int delta = target - sessionUnconsumed.get() - session.updateRecvWindow(0);
+            if (delta > 0)
+            {
+                session.updateRecvWindow(delta);
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Data consumed, {} bytes, updated session recv window by {}/{} for {}", length, delta, target, session);
+                sendWindowUpdate(null, session, new WindowUpdateFrame(0, delta));
+            }
+            else
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Data consumed, {} bytes, withheld session recv window update {}/{} for {}", length, level, target, session);
+            }
+        }
+
+        if (stream != null)
+        {
+            if (stream.isRemotelyClosed())
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Data consumed, {} bytes, ignoring update stream recv window for remotely closed {}", length, stream);
+            }
+            else
+            {
+                Levels levels = streamLevels.get(stream);
+                if (levels != null)
+                {
+                    levels.unconsumed.addAndGet(-length);
+                    target = getStreamRecvWindowTarget();
+                    level = levels.level.addAndGet(length);
+                    window = stream.updateRecvWindow(0) + levels.unconsumed.get() + level;
+                    maxLevel = (int)(Math.min(target, window) * ratio);
+                    if (level > maxLevel && levels.level.compareAndSet(level, 0))
+                    {
+                        int delta = target - levels.unconsumed.get() - stream.updateRecvWindow(0);
+                        if (delta > 0)
+                        {
+                            stream.updateRecvWindow(delta);
+                            if (LOG.isDebugEnabled())
+                                LOG.debug("Data consumed, {} bytes, updated stream recv window by {}/{} for {}", length, delta, target, stream);
+                            sendWindowUpdate(stream, session, new WindowUpdateFrame(stream.getId(), delta));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    protected void sendWindowUpdate(IStream stream, ISession session, WindowUpdateFrame frame)
+    {
+        session.frames(stream, Callback.NOOP, frame, Frame.EMPTY_ARRAY);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[target=%d,rtt=%dus,bdp=%d,sessionStallTime=%dms,streamsStallTime=%dms]",
+            getClass().getSimpleName(),
+            hashCode(),
+            getSessionRecvWindowTarget(),
+            getRoundTripTime(),
+            bandwidthDelayProduct,
+            getSessionStallTime(),
+            getStreamsStallTime());
+    }
+
+    private static class Levels
+    {
+        private final AtomicInteger level = new AtomicInteger();
+        private final AtomicInteger unconsumed = new AtomicInteger();
+    }
+}
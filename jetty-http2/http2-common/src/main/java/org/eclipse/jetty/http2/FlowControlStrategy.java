@@ -18,6 +18,7 @@
 
 package org.eclipse.jetty.http2;
 
+import org.eclipse.jetty.http2.frames.PingFrame;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
 
 public interface FlowControlStrategy
@@ -42,6 +43,20 @@ public interface FlowControlStrategy
 
     public void onDataSent(IStream stream, int length);
 
+    /**
+     * <p>Invoked when a PING reply is received, so that strategies that send
+     * PING frames to measure the connection can consume their own replies.</p>
+     *
+     * @param session the session that received the PING reply
+     * @param frame the PING reply
+     * @return whether the PING reply was consumed by this strategy, in which
+     * case the application is not notified
+     */
+    public default boolean onPingReply(ISession session, PingFrame frame)
+    {
+        return false;
+    }
+
     public interface Factory
     {
         public FlowControlStrategy newFlowControlStrategy();
@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -31,7 +32,9 @@ import java.util.Queue;
 import java.util.Set;
 
 import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.FrameType;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.http2.generator.FrameHeaderLease;
 import org.eclipse.jetty.http2.hpack.HpackException;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EofException;
@@ -50,15 +53,28 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     private final Deque<Entry> entries = new ArrayDeque<>();
     private final Queue<Entry> pendingEntries = new ArrayDeque<>();
     private final Collection<Entry> processedEntries = new ArrayList<>();
+    private final List<Entry> dataEntries = new ArrayList<>();
+    private final Comparator<Entry> byRank = (e1, e2) -> Integer.compare(getStreamScheduler().getRank(e1.stream), getStreamScheduler().getRank(e2.stream));
     private final HTTP2Session session;
     private final ByteBufferPool.Lease lease;
     private Throwable terminated;
     private Entry stalledEntry;
+    private volatile StreamScheduler streamScheduler = StreamScheduler.ROUND_ROBIN;
 
     public HTTP2Flusher(HTTP2Session session)
     {
         this.session = session;
-        this.lease = new ByteBufferPool.Lease(session.getGenerator().getByteBufferPool());
+        this.lease = new FrameHeaderLease(session.getGenerator().getByteBufferPool());
+    }
+
+    public StreamScheduler getStreamScheduler()
+    {
+        return streamScheduler;
+    }
+
+    public void setStreamScheduler(StreamScheduler streamScheduler)
+    {
+        this.streamScheduler = streamScheduler == null ? StreamScheduler.ROUND_ROBIN : streamScheduler;
     }
 
     public void window(IStream stream, WindowUpdateFrame frame)
@@ -160,6 +176,42 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             return Action.IDLE;
         }
 
+        try
+        {
+            generate();
+        }
+        catch (Throwable failure)
+        {
+            // Failure to generate an entry is catastrophic.
+            if (LOG.isDebugEnabled())
+                LOG.debug("Failure generating frames", failure);
+            failed(failure);
+            return Action.SUCCEEDED;
+        }
+
+        List<ByteBuffer> byteBuffers = lease.getByteBuffers();
+        if (byteBuffers.isEmpty())
+        {
+            finish();
+            return Action.IDLE;
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("Writing {} buffers ({} bytes) - entries processed/pending {}/{}: {}/{}",
+                byteBuffers.size(),
+                lease.getTotalLength(),
+                processedEntries.size(),
+                pendingEntries.size(),
+                processedEntries,
+                pendingEntries);
+
+        session.getEndPoint().write(this, byteBuffers.toArray(EMPTY_BYTE_BUFFERS));
+        return Action.SCHEDULED;
+    }
+
+    private void generate() throws Throwable
+    {
+        int writeThreshold = session.getWriteThreshold();
         while (true)
         {
             boolean progress = false;
@@ -167,6 +219,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             if (pendingEntries.isEmpty())
                 break;
 
+            // Generate the frames other than DATA in order,
+            // and collect the DATA entries to be scheduled.
+            dataEntries.clear();
             Iterator<Entry> pending = pendingEntries.iterator();
             while (pending.hasNext())
             {
@@ -185,50 +240,52 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                     continue;
                 }
 
-                try
+                if (entry.frame.getType() == FrameType.DATA)
                 {
-                    if (entry.generate(lease))
-                    {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
+                    dataEntries.add(entry);
+                    continue;
+                }
 
-                        progress = true;
+                // HEADERS frames, such as trailers, must not overtake the DATA frames
+                // of the same stream; other frames, such as WINDOW_UPDATE for a stream
+                // whose DATA frames are stalled, must not wait for them.
+                if (entry.frame.getType() == FrameType.HEADERS && hasDataEntry(entry.stream))
+                    continue;
 
-                        // We use ArrayList contains() + add() instead of HashSet add()
-                        // because that is faster for collections of size up to 250 entries.
-                        if (!processedEntries.contains(entry))
-                            processedEntries.add(entry);
+                int generated = generate(entry);
+                if (generated > 0)
+                    progress = true;
+                if (generated < 0 || generated > 0 && entry.getDataBytesRemaining() == 0)
+                    pending.remove();
+            }
 
-                        if (entry.getDataBytesRemaining() == 0)
-                            pending.remove();
-                    }
-                    else
+            // Interleave the DATA frames of the streams as decided by the scheduler.
+            StreamScheduler scheduler = getStreamScheduler();
+            if (dataEntries.size() > 1)
+                dataEntries.sort(byRank);
+            boolean threshold = false;
+            for (Entry entry : dataEntries)
+            {
+                int quantum = Math.max(1, scheduler.getQuantum(entry.stream));
+                for (int i = 0; i < quantum; ++i)
+                {
+                    int generated = generate(entry);
+                    if (generated > 0)
+                        progress = true;
+                    if (generated < 0 || generated > 0 && entry.getDataBytesRemaining() == 0)
+                        pendingEntries.remove(entry);
+                    if (generated <= 0 || entry.getDataBytesRemaining() == 0)
+                        break;
+                    if (lease.getTotalLength() >= writeThreshold)
                     {
-                        if (session.getSendWindow() <= 0 && stalledEntry == null)
-                        {
-                            stalledEntry = entry;
-                            if (LOG.isDebugEnabled())
-                                LOG.debug("Flow control stalled at {}", entry);
-                            // Continue to process control frames.
-                        }
+                        threshold = true;
+                        break;
                     }
                 }
-                catch (HpackException.StreamException failure)
-                {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Failure generating " + entry, failure);
-                    entry.failed(failure);
-                    pending.remove();
-                }
-                catch (Throwable failure)
-                {
-                    // Failure to generate the entry is catastrophic.
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Failure generating " + entry, failure);
-                    failed(failure);
-                    return Action.SUCCEEDED;
-                }
+                if (threshold)
+                    break;
             }
+            dataEntries.clear();
 
             if (!progress)
                 break;
@@ -236,7 +293,6 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             if (stalledEntry != null)
                 break;
 
-            int writeThreshold = session.getWriteThreshold();
             if (lease.getTotalLength() >= writeThreshold)
             {
                 if (LOG.isDebugEnabled())
@@ -244,25 +300,55 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                 break;
             }
         }
+    }
 
-        List<ByteBuffer> byteBuffers = lease.getByteBuffers();
-        if (byteBuffers.isEmpty())
+    private boolean hasDataEntry(IStream stream)
+    {
+        for (Entry entry : dataEntries)
         {
-            finish();
-            return Action.IDLE;
+            if (entry.stream == stream)
+                return true;
         }
+        return false;
+    }
 
-        if (LOG.isDebugEnabled())
-            LOG.debug("Writing {} buffers ({} bytes) - entries processed/pending {}/{}: {}/{}",
-                byteBuffers.size(),
-                lease.getTotalLength(),
-                processedEntries.size(),
-                pendingEntries.size(),
-                processedEntries,
-                pendingEntries);
+    /**
+     * @param entry the entry to generate
+     * @return 1 if frame bytes were generated, 0 if none were, -1 if the entry failed
+     * @throws Throwable if the failure to generate the entry is catastrophic
+     */
+    private int generate(Entry entry) throws Throwable
+    {
+        try
+        {
+            if (entry.generate(lease))
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
 
-        session.getEndPoint().write(this, byteBuffers.toArray(EMPTY_BYTE_BUFFERS));
-        return Action.SCHEDULED;
+                // We use ArrayList contains() + add() instead of HashSet add()
+                // because that is faster for collections of size up to 250 entries.
+                if (!processedEntries.contains(entry))
+                    processedEntries.add(entry);
+                return 1;
+            }
+
+            if (session.getSendWindow() <= 0 && stalledEntry == null)
+            {
+                stalledEntry = entry;
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Flow control stalled at {}", entry);
+                // Continue to process control frames.
+            }
+            return 0;
+        }
+        catch (HpackException.StreamException failure)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Failure generating " + entry, failure);
+            entry.failed(failure);
+            return -1;
+        }
     }
 
     void onFlushed(long bytes) throws IOException
@@ -292,6 +378,24 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     {
         lease.recycle();
 
+        // Move the entries that have been served behind those
+        // that have not, so that streams take turns across writes.
+        int pending = pendingEntries.size();
+        if (pending > 1 && !processedEntries.isEmpty())
+        {
+            List<Entry> served = dataEntries;
+            for (int i = 0; i < pending; ++i)
+            {
+                Entry entry = pendingEntries.poll();
+                if (processedEntries.contains(entry))
+                    served.add(entry);
+                else
+                    pendingEntries.offer(entry);
+            }
+            pendingEntries.addAll(served);
+            served.clear();
+        }
+
         processedEntries.forEach(Entry::succeeded);
         processedEntries.clear();
 
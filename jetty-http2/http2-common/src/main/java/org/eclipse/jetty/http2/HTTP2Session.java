@@ -26,17 +26,17 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.api.Stream;
@@ -78,8 +78,9 @@ import org.slf4j.LoggerFactory;
 public abstract class HTTP2Session extends ContainerLifeCycle implements ISession, Parser.Listener
 {
     private static final Logger LOG = LoggerFactory.getLogger(HTTP2Session.class);
+    private static final String PRIORITY_HEADER = "priority";
 
-    private final ConcurrentMap<Integer, IStream> streams = new ConcurrentHashMap<>();
+    private final StreamMap<IStream> streams = new StreamMap<>(IStream::getId);
     private final StreamCreator streamCreator = new StreamCreator();
     private final AtomicBiInteger streamCount = new AtomicBiInteger(); // Hi = closed, Lo = stream count
     private final AtomicInteger localStreamIds = new AtomicInteger();
@@ -298,6 +299,66 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Received {} on {}", frame, this);
+
+        IStream stream = getStream(frame.getStreamId());
+        if (stream != null)
+            stream.setWeight(frame.getWeight());
+    }
+
+    /**
+     * <p>Updates the scheduling priority of the given stream from the
+     * RFC 7540 priority of the given HEADERS frame, and from the RFC 9218
+     * {@code priority} header of its metadata, if present.</p>
+     *
+     * @param stream the stream to update
+     * @param frame the HEADERS frame received for the stream
+     * @see StreamScheduler
+     */
+    protected void updatePriority(IStream stream, HeadersFrame frame)
+    {
+        PriorityFrame priority = frame.getPriority();
+        if (priority != null)
+            stream.setWeight(priority.getWeight());
+
+        HttpFields fields = frame.getMetaData().getFields();
+        String value = fields == null ? null : fields.get(PRIORITY_HEADER);
+        if (value == null)
+            return;
+        // A structured field dictionary, for example "u=5, i".
+        for (String member : value.split(","))
+        {
+            member = member.trim();
+            if (member.startsWith("u="))
+            {
+                try
+                {
+                    stream.setUrgency(Integer.parseInt(member.substring(2).trim()));
+                }
+                catch (NumberFormatException x)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Ignoring invalid urgency {}", member, x);
+                }
+            }
+            else if (member.equals("i") || member.equals("i=?1"))
+            {
+                stream.setIncremental(true);
+            }
+            else if (member.equals("i=?0"))
+            {
+                stream.setIncremental(false);
+            }
+        }
+    }
+
+    public StreamScheduler getStreamScheduler()
+    {
+        return flusher.getStreamScheduler();
+    }
+
+    public void setStreamScheduler(StreamScheduler scheduler)
+    {
+        flusher.setStreamScheduler(scheduler);
     }
 
     @Override
@@ -424,7 +485,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
 
         if (frame.isReply())
         {
-            notifyPing(this, frame);
+            if (!flowControl.onPingReply(this, frame))
+                notifyPing(this, frame);
         }
         else
         {
@@ -810,7 +872,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         }
 
         IStream stream = newStream(streamId, request, true);
-        if (streams.putIfAbsent(streamId, stream) == null)
+        if (streams.putIfAbsent(stream) == null)
         {
             stream.setIdleTimeout(getStreamIdleTimeout());
             flowControl.onStreamCreated(stream);
@@ -847,7 +909,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         IStream stream = newStream(streamId, request, false);
 
         // SPEC: duplicate stream is treated as connection error.
-        if (streams.putIfAbsent(streamId, stream) == null)
+        if (streams.putIfAbsent(stream) == null)
         {
             updateLastRemoteStreamId(streamId);
             stream.setIdleTimeout(getStreamIdleTimeout());
@@ -888,7 +950,9 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     @Override
     public Collection<Stream> getStreams()
     {
-        return new ArrayList<>(streams.values());
+        List<Stream> result = new ArrayList<>(streams.size());
+        streams.forEach(result::add);
+        return result;
     }
 
     @ManagedAttribute("The number of active streams")
@@ -1123,10 +1187,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
                     if (closed.compareAndSet(current, CloseState.CLOSED))
                     {
                         flusher.terminate(cause);
-                        for (IStream stream : streams.values())
-                        {
-                            stream.close();
-                        }
+                        streams.forEach(IStream::close);
                         streams.clear();
                         disconnect();
                         return;
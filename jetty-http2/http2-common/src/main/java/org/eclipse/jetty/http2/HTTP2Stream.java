@@ -78,6 +78,9 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
     private long dataDemand;
     private boolean dataInitial;
     private boolean dataProcess;
+    private volatile int weight = 16;
+    private volatile int urgency = 3;
+    private volatile boolean incremental;
 
     public HTTP2Stream(Scheduler scheduler, ISession session, int streamId, MetaData.Request request, boolean local)
     {
@@ -215,6 +218,42 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
         }
     }
 
+    @Override
+    public int getWeight()
+    {
+        return weight;
+    }
+
+    @Override
+    public void setWeight(int weight)
+    {
+        this.weight = Math.max(1, Math.min(256, weight));
+    }
+
+    @Override
+    public int getUrgency()
+    {
+        return urgency;
+    }
+
+    @Override
+    public void setUrgency(int urgency)
+    {
+        this.urgency = Math.max(0, Math.min(7, urgency));
+    }
+
+    @Override
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    @Override
+    public void setIncremental(boolean incremental)
+    {
+        this.incremental = incremental;
+    }
+
     @Override
     public boolean isClosed()
     {
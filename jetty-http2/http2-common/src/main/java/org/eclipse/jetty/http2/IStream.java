@@ -109,4 +109,36 @@ public interface IStream extends Stream, Attachable, Closeable
      * @see Listener#onFailure(Stream, int, String, Throwable, Callback)
      */
     boolean isResetOrFailed();
+
+    /**
+     * @return the RFC 7540 weight of this stream, between 1 and 256
+     * @see WeightedStreamScheduler
+     */
+    int getWeight();
+
+    /**
+     * @param weight the RFC 7540 weight of this stream, between 1 and 256
+     */
+    void setWeight(int weight);
+
+    /**
+     * @return the RFC 9218 urgency of this stream, between 0 (highest) and 7 (lowest)
+     * @see UrgencyStreamScheduler
+     */
+    int getUrgency();
+
+    /**
+     * @param urgency the RFC 9218 urgency of this stream, between 0 (highest) and 7 (lowest)
+     */
+    void setUrgency(int urgency);
+
+    /**
+     * @return whether the RFC 9218 incremental parameter of this stream is set
+     */
+    boolean isIncremental();
+
+    /**
+     * @param incremental the RFC 9218 incremental parameter of this stream
+     */
+    void setIncremental(boolean incremental);
 }
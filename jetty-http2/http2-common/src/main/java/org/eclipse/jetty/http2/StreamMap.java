@@ -0,0 +1,249 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A concurrent map of streams keyed by stream id, specialized for the way
+ * HTTP/2 stream ids are allocated.</p>
+ * <p>Stream ids of the same parity are allocated in sequence, so the streams
+ * open at any time are a sliding window of ids. Odd and even ids are kept in
+ * separate tables indexed directly by the position of the id in the sequence
+ * of its parity, modulo the table capacity; the stream id is not boxed, no
+ * node is allocated per entry and lookups do not probe.</p>
+ * <p>When the slot of a new stream is taken by an older stream, the table is
+ * enlarged if it is small compared to the number of streams; otherwise the
+ * older, long-lived, stream is moved to an overflow map.</p>
+ * <p>Lookups are lock-free, while insertions and removals are serialized.</p>
+ *
+ * @param <S> the type of the streams
+ */
+public class StreamMap<S>
+{
+    private static final int MIN_CAPACITY = 16;
+
+    private final AutoLock lock = new AutoLock();
+    private final Map<Integer, S> overflow = new ConcurrentHashMap<>();
+    private final ToIntFunction<S> idOf;
+    private volatile AtomicReferenceArray<S> oddTable = new AtomicReferenceArray<>(MIN_CAPACITY);
+    private volatile AtomicReferenceArray<S> evenTable = new AtomicReferenceArray<>(MIN_CAPACITY);
+    private volatile int size;
+
+    /**
+     * @param idOf the function that returns the stream id of a stream
+     */
+    public StreamMap(ToIntFunction<S> idOf)
+    {
+        this.idOf = idOf;
+    }
+
+    private AtomicReferenceArray<S> tableOf(int streamId)
+    {
+        return (streamId & 1) == 1 ? oddTable : evenTable;
+    }
+
+    private static int indexOf(int streamId, int capacity)
+    {
+        return (streamId >>> 1) & (capacity - 1);
+    }
+
+    /**
+     * @param streamId the stream id
+     * @return the stream with the given stream id, or null if there is no such stream
+     */
+    public S get(int streamId)
+    {
+        AtomicReferenceArray<S> table = tableOf(streamId);
+        S stream = table.get(indexOf(streamId, table.length()));
+        if (stream != null && idOf.applyAsInt(stream) == streamId)
+            return stream;
+        if (overflow.isEmpty())
+            return null;
+        return overflow.get(streamId);
+    }
+
+    /**
+     * <p>Adds the given stream, unless a stream with the same stream id is already present.</p>
+     *
+     * @param stream the stream to add
+     * @return the stream already present with the same stream id, or null if the stream was added
+     */
+    public S putIfAbsent(S stream)
+    {
+        int streamId = idOf.applyAsInt(stream);
+        try (AutoLock l = lock.lock())
+        {
+            if (!overflow.isEmpty())
+            {
+                S existing = overflow.get(streamId);
+                if (existing != null)
+                    return existing;
+            }
+
+            AtomicReferenceArray<S> table = tableOf(streamId);
+            int index = indexOf(streamId, table.length());
+            S occupant = table.get(index);
+            if (occupant != null)
+            {
+                if (idOf.applyAsInt(occupant) == streamId)
+                    return occupant;
+                if (table.length() < 4 * (size + 1))
+                {
+                    table = rebuild(table, 2 * table.length());
+                    index = indexOf(streamId, table.length());
+                    occupant = table.get(index);
+                }
+                if (occupant != null)
+                {
+                    // Publish the occupant in the overflow map before replacing it.
+                    overflow.put(idOf.applyAsInt(occupant), occupant);
+                }
+            }
+            table.set(index, stream);
+            size = size + 1;
+            return null;
+        }
+    }
+
+    /**
+     * @param streamId the stream id
+     * @return the stream removed, or null if there was no stream with the given stream id
+     */
+    public S remove(int streamId)
+    {
+        try (AutoLock l = lock.lock())
+        {
+            AtomicReferenceArray<S> table = tableOf(streamId);
+            int index = indexOf(streamId, table.length());
+            S stream = table.get(index);
+            if (stream != null && idOf.applyAsInt(stream) == streamId)
+                table.set(index, null);
+            else if (overflow.isEmpty() || (stream = overflow.remove(streamId)) == null)
+                return null;
+
+            int newSize = size - 1;
+            size = newSize;
+            if (table.length() > MIN_CAPACITY && 16 * newSize < table.length())
+                rebuild(table, table.length() / 2);
+            return stream;
+        }
+    }
+
+    private AtomicReferenceArray<S> rebuild(AtomicReferenceArray<S> table, int capacity)
+    {
+        // Readers may still be using the old table, which is not modified anymore.
+        AtomicReferenceArray<S> newTable = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < table.length(); ++i)
+        {
+            S stream = table.get(i);
+            if (stream == null)
+                continue;
+            int streamId = idOf.applyAsInt(stream);
+            int index = indexOf(streamId, capacity);
+            S occupant = newTable.get(index);
+            if (occupant == null)
+            {
+                newTable.set(index, stream);
+            }
+            else
+            {
+                // Keep the most recent stream in the table.
+                if (idOf.applyAsInt(occupant) < streamId)
+                {
+                    newTable.set(index, stream);
+                    stream = occupant;
+                }
+                overflow.put(idOf.applyAsInt(stream), stream);
+            }
+        }
+        if (table == oddTable)
+            oddTable = newTable;
+        else
+            evenTable = newTable;
+        return newTable;
+    }
+
+    /**
+     * @return the number of streams
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param action the action to perform on each stream
+     */
+    public void forEach(Consumer<? super S> action)
+    {
+        forEach(oddTable, action);
+        forEach(evenTable, action);
+        overflow.values().forEach(action);
+    }
+
+    private void forEach(AtomicReferenceArray<S> table, Consumer<? super S> action)
+    {
+        for (int i = 0; i < table.length(); ++i)
+        {
+            S stream = table.get(i);
+            if (stream != null)
+                action.accept(stream);
+        }
+    }
+
+    /**
+     * @return a snapshot of the streams
+     */
+    public List<S> values()
+    {
+        List<S> result = new ArrayList<>(size());
+        forEach(result::add);
+        return result;
+    }
+
+    /**
+     * <p>Removes all the streams.</p>
+     */
+    public void clear()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            oddTable = new AtomicReferenceArray<>(MIN_CAPACITY);
+            evenTable = new AtomicReferenceArray<>(MIN_CAPACITY);
+            overflow.clear();
+            size = 0;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,odd=%d,even=%d,overflow=%d}", getClass().getSimpleName(), hashCode(),
+            size(), oddTable.length(), evenTable.length(), overflow.size());
+    }
+}
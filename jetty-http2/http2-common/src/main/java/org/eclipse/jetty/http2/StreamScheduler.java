@@ -0,0 +1,70 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+/**
+ * <p>Decides the order in which {@link HTTP2Flusher} interleaves the DATA frames
+ * of the streams of a connection.</p>
+ * <p>On every round, the flusher first generates the other frames in the order they
+ * were queued, and then the DATA frames of the streams ordered by their
+ * {@link #getRank(IStream) rank}, generating up to {@link #getQuantum(IStream) quantum}
+ * DATA frames for each stream. Streams with the same rank are served in turn: the
+ * streams that were served in a write are moved behind the ones that were not.</p>
+ *
+ * @see WeightedStreamScheduler
+ * @see UrgencyStreamScheduler
+ */
+public interface StreamScheduler
+{
+    /**
+     * <p>A scheduler that serves all the streams in turn, one DATA frame at a time.</p>
+     */
+    public static final StreamScheduler ROUND_ROBIN = new StreamScheduler()
+    {
+        @Override
+        public int getRank(IStream stream)
+        {
+            return 0;
+        }
+
+        @Override
+        public int getQuantum(IStream stream)
+        {
+            return 1;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "ROUND_ROBIN";
+        }
+    };
+
+    /**
+     * @param stream the stream to rank
+     * @return the rank of the stream; the DATA frames of streams with a lower rank are generated first
+     */
+    public int getRank(IStream stream);
+
+    /**
+     * @param stream the stream to serve
+     * @return the max number of DATA frames of the stream generated in a round, at least 1
+     */
+    public int getQuantum(IStream stream);
+}
@@ -0,0 +1,66 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+/**
+ * <p>A {@link StreamScheduler} that serves streams by their RFC 9218 urgency,
+ * as sent by the peer in the {@code priority} request header.</p>
+ * <p>Streams with a lower urgency are served first. Streams with the same urgency
+ * that are incremental are served in turn, one DATA frame at a time, while streams
+ * that are not incremental are served a larger number of DATA frames at a time,
+ * so that they tend to complete one after the other.</p>
+ *
+ * @see IStream#getUrgency()
+ * @see IStream#isIncremental()
+ */
+public class UrgencyStreamScheduler implements StreamScheduler
+{
+    private final int nonIncrementalQuantum;
+
+    public UrgencyStreamScheduler()
+    {
+        this(16);
+    }
+
+    /**
+     * @param nonIncrementalQuantum the number of DATA frames generated in a round for streams that are not incremental
+     */
+    public UrgencyStreamScheduler(int nonIncrementalQuantum)
+    {
+        this.nonIncrementalQuantum = Math.max(1, nonIncrementalQuantum);
+    }
+
+    @Override
+    public int getRank(IStream stream)
+    {
+        return stream.getUrgency();
+    }
+
+    @Override
+    public int getQuantum(IStream stream)
+    {
+        return stream.isIncremental() ? 1 : nonIncrementalQuantum;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[quantum=%d]", getClass().getSimpleName(), hashCode(), nonIncrementalQuantum);
+    }
+}
@@ -0,0 +1,49 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+/**
+ * <p>A {@link StreamScheduler} that serves all the streams in turn, generating
+ * for each stream a number of DATA frames proportional to its RFC 7540 weight,
+ * as sent by the peer in HEADERS or PRIORITY frames.</p>
+ * <p>Stream dependencies are not honored, as they are deprecated by RFC 9113.</p>
+ *
+ * @see IStream#getWeight()
+ */
+public class WeightedStreamScheduler implements StreamScheduler
+{
+    @Override
+    public int getRank(IStream stream)
+    {
+        return 0;
+    }
+
+    @Override
+    public int getQuantum(IStream stream)
+    {
+        // Weights are 1..256, the default is 16: frames per round are 1..8.
+        return 1 + (stream.getWeight() - 1) / 32;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x", getClass().getSimpleName(), hashCode());
+    }
+}
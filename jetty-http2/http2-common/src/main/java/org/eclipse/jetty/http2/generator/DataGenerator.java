@@ -74,7 +74,7 @@ public class DataGenerator
         if (last)
             flags |= Flags.END_STREAM;
 
-        ByteBuffer header = headerGenerator.generate(lease, FrameType.DATA, Frame.HEADER_LENGTH + length, length, flags, streamId);
+        ByteBuffer header = headerGenerator.generate(lease, FrameType.DATA, Frame.HEADER_LENGTH, length, flags, streamId);
         BufferUtil.flipToFlush(header, 0);
         lease.append(header, true);
         // Skip empty data buffers.
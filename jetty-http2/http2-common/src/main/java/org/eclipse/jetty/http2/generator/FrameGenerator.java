@@ -40,7 +40,12 @@ public abstract class FrameGenerator
 
     protected ByteBuffer generateHeader(ByteBufferPool.Lease lease, FrameType frameType, int length, int flags, int streamId)
     {
-        return headerGenerator.generate(lease, frameType, Frame.HEADER_LENGTH + length, length, flags, streamId);
+        return generateHeader(lease, frameType, Frame.HEADER_LENGTH + length, length, flags, streamId);
+    }
+
+    protected ByteBuffer generateHeader(ByteBufferPool.Lease lease, FrameType frameType, int capacity, int length, int flags, int streamId)
+    {
+        return headerGenerator.generate(lease, frameType, capacity, length, flags, streamId);
     }
 
     public int getMaxFrameSize()
@@ -0,0 +1,159 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.generator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+
+/**
+ * <p>A {@link ByteBufferPool.Lease} that carves the small buffers used for frame
+ * headers, and for the control frames whose body is written along with the header,
+ * out of a shared slab, rather than acquiring a buffer from the pool for each frame.</p>
+ * <p>When two slab buffers are appended one after the other, they are merged into a
+ * single buffer, so that for example a sequence of WINDOW_UPDATE frames is written
+ * as one buffer.</p>
+ * <p>Slabs are acquired from the pool when needed and released by {@link #recycle()},
+ * after the buffers have been written, so that one slab is shared by all the frames
+ * generated for a single write.</p>
+ */
+public class FrameHeaderLease extends ByteBufferPool.Lease
+{
+    private static final int SLAB_SIZE = 4096;
+    private static final int MAX_SLICE_SIZE = 256;
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final List<ByteBuffer> slices = new ArrayList<>();
+    private ByteBuffer slab;
+    private ByteBuffer slice;
+    private int sliceOffset;
+    private ByteBuffer tail;
+    private int tailOffset;
+
+    public FrameHeaderLease(ByteBufferPool byteBufferPool)
+    {
+        super(byteBufferPool);
+    }
+
+    @Override
+    public ByteBuffer acquire(int capacity, boolean direct)
+    {
+        if (capacity > MAX_SLICE_SIZE)
+            return super.acquire(capacity, direct);
+
+        if (slab == null || slab.isDirect() != direct || slab.remaining() < capacity)
+        {
+            slab = super.acquire(SLAB_SIZE, direct);
+            slabs.add(slab);
+            tail = null;
+        }
+
+        sliceOffset = slab.position();
+        slice = slab.slice();
+        slice.limit(capacity);
+        slab.position(sliceOffset + capacity);
+        slices.add(slice);
+        return slice;
+    }
+
+    @Override
+    public void append(ByteBuffer buffer, boolean recycle)
+    {
+        if (!removeSlice(buffer))
+        {
+            super.append(buffer, recycle);
+            tail = null;
+            return;
+        }
+
+        if (buffer != slice || !slices.isEmpty())
+        {
+            // Not the last slice acquired, cannot be merged.
+            super.append(buffer, false);
+            tail = null;
+            return;
+        }
+
+        // Give back to the slab the bytes that were not written.
+        int length = buffer.limit();
+        slab.position(sliceOffset + length);
+        slice = null;
+
+        // The tail slice spans to the end of the slab, so it can be extended.
+        if (tail != null && buffer.position() == 0 && tail.position() == 0 && tailOffset + tail.limit() == sliceOffset)
+        {
+            tail.limit(tail.limit() + length);
+            return;
+        }
+
+        super.append(buffer, false);
+        tail = buffer;
+        tailOffset = sliceOffset;
+    }
+
+    @Override
+    public void insert(int index, ByteBuffer buffer, boolean recycle)
+    {
+        super.insert(index, buffer, !removeSlice(buffer) && recycle);
+        tail = null;
+    }
+
+    @Override
+    public void release(ByteBuffer buffer)
+    {
+        if (!removeSlice(buffer))
+            super.release(buffer);
+    }
+
+    @Override
+    public void recycle()
+    {
+        super.recycle();
+        for (int i = 0; i < slabs.size(); ++i)
+        {
+            super.release(slabs.get(i));
+        }
+        slabs.clear();
+        slices.clear();
+        slab = null;
+        slice = null;
+        tail = null;
+    }
+
+    private boolean removeSlice(ByteBuffer buffer)
+    {
+        for (int i = slices.size(); i-- > 0;)
+        {
+            if (slices.get(i) == buffer)
+            {
+                slices.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{buffers=%d,slabs=%d}", getClass().getSimpleName(), hashCode(), getSize(), slabs.size());
+    }
+}
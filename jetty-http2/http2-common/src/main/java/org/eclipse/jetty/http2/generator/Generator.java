@@ -18,11 +18,14 @@
 
 package org.eclipse.jetty.http2.generator;
 
+import java.util.List;
+
 import org.eclipse.jetty.http2.frames.DataFrame;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.FrameType;
 import org.eclipse.jetty.http2.hpack.HpackEncoder;
 import org.eclipse.jetty.http2.hpack.HpackException;
+import org.eclipse.jetty.http2.hpack.PreEncodedFieldBlock;
 import org.eclipse.jetty.io.ByteBufferPool;
 
 public class Generator
@@ -76,11 +79,21 @@ public class Generator
         hpackEncoder.setValidateEncoding(validateEncoding);
     }
 
+    public void setPreEncodedFieldBlocks(List<PreEncodedFieldBlock> blocks)
+    {
+        hpackEncoder.setPreEncodedFieldBlocks(blocks);
+    }
+
     public void setHeaderTableSize(int headerTableSize)
     {
         hpackEncoder.setRemoteMaxDynamicTableSize(headerTableSize);
     }
 
+    public int getMaxFrameSize()
+    {
+        return headerGenerator.getMaxFrameSize();
+    }
+
     public void setMaxFrameSize(int maxFrameSize)
     {
         headerGenerator.setMaxFrameSize(maxFrameSize);
@@ -64,8 +64,13 @@ public class HeadersGenerator extends FrameGenerator
 
         int flags = Flags.NONE;
 
+        // The header buffer holds the frame header and the priority, the header block is a separate buffer.
+        int capacity = Frame.HEADER_LENGTH;
         if (priority != null)
+        {
             flags = Flags.PRIORITY;
+            capacity += PriorityFrame.PRIORITY_LENGTH;
+        }
 
         ByteBuffer hpacked = encode(encoder, lease, metaData, getMaxFrameSize());
         int hpackedLength = hpacked.position();
@@ -81,7 +86,7 @@ public class HeadersGenerator extends FrameGenerator
             if (priority != null)
                 length += PriorityFrame.PRIORITY_LENGTH;
 
-            ByteBuffer header = generateHeader(lease, FrameType.HEADERS, length, flags, streamId);
+            ByteBuffer header = generateHeader(lease, FrameType.HEADERS, capacity, length, flags, streamId);
             generatePriority(header, priority);
             BufferUtil.flipToFlush(header, 0);
             lease.append(header, true);
@@ -95,7 +100,7 @@ public class HeadersGenerator extends FrameGenerator
             while (limit < hpackedLength)
             {
                 hpacked.position(position).limit(limit);
-                header = generateHeader(lease, FrameType.CONTINUATION, maxHeaderBlockFragment, Flags.NONE, streamId);
+                header = generateHeader(lease, FrameType.CONTINUATION, Frame.HEADER_LENGTH, maxHeaderBlockFragment, Flags.NONE, streamId);
                 BufferUtil.flipToFlush(header, 0);
                 lease.append(header, true);
                 lease.append(hpacked.slice(), false);
@@ -105,7 +110,7 @@ public class HeadersGenerator extends FrameGenerator
             }
 
             hpacked.position(position).limit(hpackedLength);
-            header = generateHeader(lease, FrameType.CONTINUATION, hpacked.remaining(), Flags.END_HEADERS, streamId);
+            header = generateHeader(lease, FrameType.CONTINUATION, Frame.HEADER_LENGTH, hpacked.remaining(), Flags.END_HEADERS, streamId);
             BufferUtil.flipToFlush(header, 0);
             lease.append(header, true);
             lease.append(hpacked, true);
@@ -123,7 +128,7 @@ public class HeadersGenerator extends FrameGenerator
             if (priority != null)
                 length += PriorityFrame.PRIORITY_LENGTH;
 
-            ByteBuffer header = generateHeader(lease, FrameType.HEADERS, length, flags, streamId);
+            ByteBuffer header = generateHeader(lease, FrameType.HEADERS, capacity, length, flags, streamId);
             generatePriority(header, priority);
             BufferUtil.flipToFlush(header, 0);
             lease.append(header, true);
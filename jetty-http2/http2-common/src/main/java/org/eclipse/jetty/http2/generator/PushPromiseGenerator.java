@@ -66,7 +66,7 @@ public class PushPromiseGenerator extends FrameGenerator
         int length = hpackedLength + extraSpace;
         int flags = Flags.END_HEADERS;
 
-        ByteBuffer header = generateHeader(lease, FrameType.PUSH_PROMISE, length, flags, streamId);
+        ByteBuffer header = generateHeader(lease, FrameType.PUSH_PROMISE, Frame.HEADER_LENGTH + extraSpace, length, flags, streamId);
         header.putInt(promisedStreamId);
         BufferUtil.flipToFlush(header, 0);
 
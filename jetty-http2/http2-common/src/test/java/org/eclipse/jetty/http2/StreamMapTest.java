@@ -0,0 +1,112 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class StreamMapTest
+{
+    @Test
+    public void testSlidingWindowOfStreams()
+    {
+        StreamMap<Integer> streams = new StreamMap<>(Integer::intValue);
+        int window = 100;
+        for (int streamId = 1; streamId < 100_000; streamId += 2)
+        {
+            Integer stream = streamId;
+            assertNull(streams.putIfAbsent(stream));
+            assertSame(stream, streams.putIfAbsent(streamId));
+            int oldest = streamId - 2 * window;
+            if (oldest > 0)
+                assertEquals((Integer)oldest, streams.remove(oldest));
+            assertSame(stream, streams.get(streamId));
+            assertNull(streams.get(oldest));
+            assertEquals(Math.min(window, (streamId + 1) / 2), streams.size());
+        }
+    }
+
+    @Test
+    public void testLongLivedStreams()
+    {
+        StreamMap<Integer> streams = new StreamMap<>(Integer::intValue);
+        // Long-lived streams, of both parities, among many short-lived ones.
+        Integer first = 1;
+        Integer pushed = 2;
+        streams.putIfAbsent(first);
+        streams.putIfAbsent(pushed);
+        for (int streamId = 3; streamId < 100_000; streamId += 2)
+        {
+            assertNull(streams.putIfAbsent(streamId));
+            assertSame(first, streams.get(1));
+            assertSame(pushed, streams.get(2));
+            assertEquals((Integer)streamId, streams.remove(streamId));
+            assertEquals(2, streams.size());
+        }
+        assertEquals(2, streams.values().size());
+        assertSame(first, streams.remove(1));
+        assertSame(pushed, streams.remove(2));
+        assertEquals(0, streams.size());
+        assertNull(streams.get(1));
+    }
+
+    @Test
+    public void testRandomOperationsAgainstHashMap()
+    {
+        StreamMap<Integer> streams = new StreamMap<>(Integer::intValue);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; ++i)
+        {
+            int streamId = random.nextInt(512);
+            switch (random.nextInt(3))
+            {
+                case 0:
+                    assertEquals(expected.putIfAbsent(streamId, streamId), streams.putIfAbsent(streamId));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(streamId), streams.remove(streamId));
+                    break;
+                default:
+                    assertEquals(expected.get(streamId), streams.get(streamId));
+                    break;
+            }
+            assertEquals(expected.size(), streams.size());
+        }
+
+        List<Integer> values = streams.values();
+        assertEquals(expected.size(), values.size());
+        for (Integer value : values)
+        {
+            assertEquals(expected.get(value), value);
+        }
+
+        streams.clear();
+        assertEquals(0, streams.size());
+        assertNull(streams.get(values.isEmpty() ? 1 : values.get(0)));
+    }
+}
@@ -0,0 +1,107 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.frames;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.eclipse.jetty.http2.generator.FrameHeaderLease;
+import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrameHeaderLeaseTest
+{
+    private final ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+
+    @Test
+    public void testFramesGeneratedIntoSharedSlab() throws Exception
+    {
+        Generator generator = new Generator(byteBufferPool);
+
+        List<Frame> frames = new ArrayList<>();
+        Parser parser = new Parser(byteBufferPool, new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onData(DataFrame frame)
+            {
+                frames.add(frame);
+            }
+
+            @Override
+            public void onWindowUpdate(WindowUpdateFrame frame)
+            {
+                frames.add(frame);
+            }
+
+            @Override
+            public void onPing(PingFrame frame)
+            {
+                frames.add(frame);
+            }
+        }, 4096, 8192);
+        parser.init(UnaryOperator.identity());
+
+        // Iterate a few times to be sure the slab is properly recycled.
+        for (int i = 0; i < 2; ++i)
+        {
+            FrameHeaderLease lease = new FrameHeaderLease(byteBufferPool);
+            generator.control(lease, new WindowUpdateFrame(0, 1024));
+            generator.control(lease, new WindowUpdateFrame(1, 2048));
+            generator.data(lease, new DataFrame(1, BufferUtil.toBuffer("hello"), true), 1024);
+            generator.control(lease, new PingFrame(17, false));
+
+            // The window updates and the data frame header are contiguous in the slab.
+            List<ByteBuffer> buffers = lease.getByteBuffers();
+            assertEquals(3, buffers.size());
+            assertEquals(2 * (Frame.HEADER_LENGTH + WindowUpdateFrame.WINDOW_UPDATE_LENGTH) + Frame.HEADER_LENGTH, buffers.get(0).remaining());
+
+            frames.clear();
+            for (ByteBuffer buffer : buffers)
+            {
+                while (buffer.hasRemaining())
+                {
+                    parser.parse(buffer);
+                }
+            }
+            lease.recycle();
+
+            assertEquals(4, frames.size());
+            WindowUpdateFrame sessionUpdate = (WindowUpdateFrame)frames.get(0);
+            assertEquals(0, sessionUpdate.getStreamId());
+            assertEquals(1024, sessionUpdate.getWindowDelta());
+            WindowUpdateFrame streamUpdate = (WindowUpdateFrame)frames.get(1);
+            assertEquals(1, streamUpdate.getStreamId());
+            assertEquals(2048, streamUpdate.getWindowDelta());
+            DataFrame data = (DataFrame)frames.get(2);
+            assertEquals("hello", BufferUtil.toString(data.getData()));
+            assertTrue(data.isEndStream());
+            PingFrame ping = (PingFrame)frames.get(3);
+            assertEquals(17, ping.getPayloadAsLong());
+        }
+    }
+}
@@ -247,6 +247,11 @@ public class HpackContext
         return __staticTableByHeader[header.ordinal()];
     }
 
+    static StaticEntry getStatic(HttpField field)
+    {
+        return (StaticEntry)__staticFieldMap.get(field);
+    }
+
     public Entry add(HttpField field)
     {
         Entry entry = new Entry(field);
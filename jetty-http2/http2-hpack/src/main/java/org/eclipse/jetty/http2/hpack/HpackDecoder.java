@@ -26,21 +26,32 @@ import org.eclipse.jetty.http.HttpTokens;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http2.hpack.HpackContext.Entry;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Utf8StringBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Hpack Decoder
  * <p>This is not thread safe and may only be called by 1 thread at a time.</p>
+ * <p>Fields sent as indexes are emitted as the {@link HttpField} instances held by
+ * the static or dynamic table. Literal fields that are seen repeatedly are kept
+ * in a small cache keyed by their encoded octets, so that the same literal is
+ * emitted as the same {@link HttpField} instance without decoding it again.
+ * Never indexed literals, which are sensitive, are never cached.</p>
  */
 public class HpackDecoder
 {
     public static final Logger LOG = LoggerFactory.getLogger(HpackDecoder.class);
     public static final HttpField.LongValueHttpField CONTENT_LENGTH_0 =
         new HttpField.LongValueHttpField(HttpHeader.CONTENT_LENGTH, 0L);
+    private static final int FIELD_CACHE_SIZE = 256;
+    private static final int FIELD_CACHE_MAX_LENGTH = 256;
 
     private final HpackContext _context;
     private final MetaDataBuilder _builder;
+    private final Utf8StringBuilder _utf8 = new Utf8StringBuilder(64);
+    private final CachedField[] _fieldCache = new CachedField[FIELD_CACHE_SIZE];
+    private final int[] _fieldCacheSeen = new int[FIELD_CACHE_SIZE];
     private int _localMaxDynamicTableSize;
 
     /**
@@ -118,6 +129,7 @@ public class HpackDecoder
                 String value;
 
                 boolean indexed;
+                boolean sensitive = false;
                 int nameIndex;
 
                 switch (f)
@@ -136,8 +148,13 @@ public class HpackDecoder
                         continue;
 
                     case 0: // 7.2.2
+                        indexed = false;
+                        nameIndex = NBitInteger.decode(buffer, 4);
+                        break;
+
                     case 1: // 7.2.3
                         indexed = false;
+                        sensitive = true;
                         nameIndex = NBitInteger.decode(buffer, 4);
                         break;
 
@@ -168,7 +185,7 @@ public class HpackDecoder
                     int length = NBitInteger.decode(buffer, 7);
                     _builder.checkSize(length, huffmanName);
                     if (huffmanName)
-                        name = Huffman.decode(buffer, length);
+                        name = huffmanDecode(buffer, length);
                     else
                         name = toASCIIString(buffer, length);
                     check:
@@ -208,13 +225,47 @@ public class HpackDecoder
                 boolean huffmanValue = (buffer.get() & 0x80) == 0x80;
                 int length = NBitInteger.decode(buffer, 7);
                 _builder.checkSize(length, huffmanValue);
+
+                // Is the same literal in the cache?
+                boolean cacheable = !sensitive && length <= FIELD_CACHE_MAX_LENGTH;
+                int hash = cacheable ? hash(name, huffmanValue, buffer, length) : 0;
+                HttpField field = cacheable ? getCachedField(hash, name, huffmanValue, buffer, length) : null;
+                if (field != null)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("decoded '{}' from cache", field);
+                    emitted = true;
+                    _builder.emit(field);
+                    if (indexed)
+                        _context.add(field);
+                    continue;
+                }
+
+                // Cache the literal the second time it is seen.
+                byte[] octets = null;
+                if (cacheable)
+                {
+                    int slot = hash & (FIELD_CACHE_SIZE - 1);
+                    if (_fieldCacheSeen[slot] == hash)
+                    {
+                        octets = new byte[length];
+                        for (int i = 0; i < length; i++)
+                        {
+                            octets[i] = buffer.get(buffer.position() + i);
+                        }
+                    }
+                    else
+                    {
+                        _fieldCacheSeen[slot] = hash;
+                    }
+                }
+
                 if (huffmanValue)
-                    value = Huffman.decode(buffer, length);
+                    value = huffmanDecode(buffer, length);
                 else
                     value = toASCIIString(buffer, length);
 
                 // Make the new field
-                HttpField field;
                 if (header == null)
                 {
                     // just make a normal field and bypass header name lookup
@@ -250,6 +301,9 @@ public class HpackDecoder
                     }
                 }
 
+                if (octets != null)
+                    _fieldCache[hash & (FIELD_CACHE_SIZE - 1)] = new CachedField(field, huffmanValue, octets);
+
                 if (LOG.isDebugEnabled())
                 {
                     LOG.debug("decoded '{}' by {}/{}/{}",
@@ -272,6 +326,42 @@ public class HpackDecoder
         return _builder.build();
     }
 
+    private String huffmanDecode(ByteBuffer buffer, int length) throws HpackException.CompressionException
+    {
+        _utf8.reset();
+        Huffman.decode(buffer, length, _utf8);
+        return _utf8.toString();
+    }
+
+    private static int hash(String name, boolean huffman, ByteBuffer buffer, int length)
+    {
+        int hash = name.hashCode() * 31 + (huffman ? 1 : 0);
+        int position = buffer.position();
+        for (int i = 0; i < length; i++)
+        {
+            hash = hash * 31 + buffer.get(position + i);
+        }
+        // Spread the bits, as the slot is taken from the low bits.
+        return hash ^ (hash >>> 16);
+    }
+
+    private HttpField getCachedField(int hash, String name, boolean huffman, ByteBuffer buffer, int length)
+    {
+        CachedField cached = _fieldCache[hash & (FIELD_CACHE_SIZE - 1)];
+        if (cached == null || cached._huffman != huffman || cached._octets.length != length)
+            return null;
+        int position = buffer.position();
+        for (int i = 0; i < length; i++)
+        {
+            if (cached._octets[i] != buffer.get(position + i))
+                return null;
+        }
+        if (!cached._field.getName().equals(name))
+            return null;
+        buffer.position(position + length);
+        return cached._field;
+    }
+
     public static String toASCIIString(ByteBuffer buffer, int length)
     {
         StringBuilder builder = new StringBuilder(length);
@@ -287,4 +377,18 @@ public class HpackDecoder
     {
         return String.format("HpackDecoder@%x{%s}", hashCode(), _context);
     }
+
+    private static class CachedField
+    {
+        private final HttpField _field;
+        private final boolean _huffman;
+        private final byte[] _octets;
+
+        private CachedField(HttpField field, boolean huffman, byte[] octets)
+        {
+            _field = field;
+            _huffman = huffman;
+            _octets = octets;
+        }
+    }
 }
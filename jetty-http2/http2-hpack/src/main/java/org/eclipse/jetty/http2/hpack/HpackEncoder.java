@@ -23,6 +23,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.jetty.http.HttpField;
@@ -82,6 +83,8 @@ public class HpackEncoder
     private static final PreEncodedHttpField C_SCHEME_HTTP = new PreEncodedHttpField(HttpHeader.C_SCHEME, "http");
     private static final PreEncodedHttpField C_SCHEME_HTTPS = new PreEncodedHttpField(HttpHeader.C_SCHEME, "https");
     private static final EnumMap<HttpMethod, PreEncodedHttpField> C_METHODS = new EnumMap<>(HttpMethod.class);
+    private static final int HUFFMAN_CACHE_SIZE = 64;
+    private static final int HUFFMAN_CACHE_MAX_VALUE_LENGTH = 256;
 
     static
     {
@@ -102,6 +105,10 @@ public class HpackEncoder
     private int _maxHeaderListSize;
     private int _headerListSize;
     private boolean _validateEncoding = true;
+    private List<PreEncodedFieldBlock> _preEncodedFieldBlocks = List.of();
+    private final String[] _huffmanValues = new String[HUFFMAN_CACHE_SIZE];
+    private final byte[][] _huffmanEncodings = new byte[HUFFMAN_CACHE_SIZE][];
+    private final String[] _huffmanCandidates = new String[HUFFMAN_CACHE_SIZE];
 
     public HpackEncoder()
     {
@@ -162,6 +169,24 @@ public class HpackEncoder
         _validateEncoding = validateEncoding;
     }
 
+    public List<PreEncodedFieldBlock> getPreEncodedFieldBlocks()
+    {
+        return _preEncodedFieldBlocks;
+    }
+
+    /**
+     * <p>Sets the blocks of fields that are copied already encoded when
+     * their fields are found in the fields to encode.</p>
+     * <p>The list is not copied, so that it may be shared by the encoders
+     * of all the connections; it must be safe to iterate concurrently.</p>
+     *
+     * @param blocks the blocks of pre-encoded fields
+     */
+    public void setPreEncodedFieldBlocks(List<PreEncodedFieldBlock> blocks)
+    {
+        _preEncodedFieldBlocks = blocks == null ? List.of() : blocks;
+    }
+
     public void encode(ByteBuffer buffer, MetaData metadata) throws HpackException
     {
         try
@@ -234,9 +259,22 @@ public class HpackEncoder
                     hopHeaders.add(StringUtil.asciiToLowerCase(value));
                 }
 
+                // Blocks may contain fields named by the Connection header.
+                List<PreEncodedFieldBlock> blocks = hopHeaders == null ? _preEncodedFieldBlocks : List.of();
                 boolean contentLengthEncoded = false;
-                for (HttpField field : fields)
+                int size = fields.size();
+                for (int i = 0; i < size; i++)
                 {
+                    HttpField field = fields.getField(i);
+                    if (!blocks.isEmpty())
+                    {
+                        PreEncodedFieldBlock block = encode(buffer, blocks, fields, i);
+                        if (block != null)
+                        {
+                            i += block.size() - 1;
+                            continue;
+                        }
+                    }
                     HttpHeader header = field.getHeader();
                     if (header != null && IGNORED_HEADERS.contains(header))
                         continue;
@@ -285,6 +323,22 @@ public class HpackEncoder
         }
     }
 
+    private PreEncodedFieldBlock encode(ByteBuffer buffer, List<PreEncodedFieldBlock> blocks, HttpFields fields, int index)
+    {
+        for (PreEncodedFieldBlock block : blocks)
+        {
+            if (block.matches(fields, index))
+            {
+                block.putTo(buffer);
+                _headerListSize += block.getHeaderListSize();
+                if (_debug)
+                    LOG.debug("encode PreEncodedBlock:{}", block);
+                return block;
+            }
+        }
+        return null;
+    }
+
     public void encodeMaxDynamicTableSize(ByteBuffer buffer, int maxDynamicTableSize)
     {
         if (maxDynamicTableSize > _remoteMaxDynamicTableSize)
@@ -354,7 +408,7 @@ public class HpackEncoder
                     // custom field.  Unless the name is once only, this is worthwhile
                     indexed = true;
                     encodeName(buffer, (byte)0x40, 6, field.getName(), null);
-                    encodeValue(buffer, true, field.getValue());
+                    encodeHuffmanValue(buffer, field.getValue(), false);
                     if (_debug)
                         encoding = "LitHuffNHuffVIdx";
                 }
@@ -364,7 +418,7 @@ public class HpackEncoder
                     // This is probably a custom field with changing value, so don't index.
                     indexed = false;
                     encodeName(buffer, (byte)0x00, 4, field.getName(), null);
-                    encodeValue(buffer, true, field.getValue());
+                    encodeHuffmanValue(buffer, field.getValue(), true);
                     if (_debug)
                         encoding = "LitHuffNHuffV!Idx";
                 }
@@ -391,7 +445,11 @@ public class HpackEncoder
                     boolean neverIndex = NEVER_INDEX.contains(header);
                     boolean huffman = !DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer, neverIndex ? (byte)0x10 : (byte)0x00, 4, header.asString(), name);
-                    encodeValue(buffer, huffman, field.getValue());
+                    // Never indexed values are sensitive, so they are not kept in the cache.
+                    if (huffman && !neverIndex)
+                        encodeHuffmanValue(buffer, field.getValue(), true);
+                    else
+                        encodeValue(buffer, huffman, field.getValue());
 
                     if (_debug)
                         encoding = "Lit" +
@@ -404,7 +462,7 @@ public class HpackEncoder
                     // The field is too large or a non zero content length, so do not index.
                     indexed = false;
                     encodeName(buffer, (byte)0x00, 4, header.asString(), name);
-                    encodeValue(buffer, true, field.getValue());
+                    encodeHuffmanValue(buffer, field.getValue(), true);
                     if (_debug)
                         encoding = "Lit" +
                             ((name == null) ? "HuffN" : "IdxNS" + (1 + NBitInteger.octectsNeeded(4, _context.index(name)))) +
@@ -416,7 +474,10 @@ public class HpackEncoder
                     indexed = true;
                     boolean huffman = !DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer, (byte)0x40, 6, header.asString(), name);
-                    encodeValue(buffer, huffman, field.getValue());
+                    if (huffman)
+                        encodeHuffmanValue(buffer, field.getValue(), false);
+                    else
+                        encodeValue(buffer, false, field.getValue());
                     if (_debug)
                         encoding = ((name == null) ? "LitHuffN" : ("LitIdxN" + (name.isStatic() ? "S" : "") + (1 + NBitInteger.octectsNeeded(6, _context.index(name))))) +
                             (huffman ? "HuffVIdx" : "LitVIdx");
@@ -452,6 +513,69 @@ public class HpackEncoder
         }
     }
 
+    /**
+     * <p>Encodes a Huffman literal value, copying the encoding of the values
+     * that are frequently repeated from a small cache.</p>
+     * <p>Values that are added to the dynamic table will be sent as indexes
+     * while they remain in the table, so they may use the cached encodings of
+     * other fields but do not populate the cache. Other values are first recorded
+     * as candidates and are only cached, replacing the cached value of their slot,
+     * the second time in a row they are seen, so that values that change on every
+     * response, such as dates, do not evict the values that repeat.</p>
+     *
+     * @param buffer the buffer to encode the value into
+     * @param value the value to encode
+     * @param admit whether the value may be added to the cache
+     */
+    private void encodeHuffmanValue(ByteBuffer buffer, String value, boolean admit)
+    {
+        int slot = value.hashCode() & (HUFFMAN_CACHE_SIZE - 1);
+        if (value.equals(_huffmanValues[slot]))
+        {
+            buffer.put(_huffmanEncodings[slot]);
+            return;
+        }
+
+        if (admit && value.length() <= HUFFMAN_CACHE_MAX_VALUE_LENGTH)
+        {
+            if (value.equals(_huffmanCandidates[slot]))
+            {
+                _huffmanCandidates[slot] = null;
+                byte[] encoding = huffmanEncoding(value);
+                if (encoding != null)
+                {
+                    _huffmanValues[slot] = value;
+                    _huffmanEncodings[slot] = encoding;
+                    buffer.put(encoding);
+                    return;
+                }
+            }
+            else
+            {
+                _huffmanCandidates[slot] = value;
+            }
+        }
+        encodeValue(buffer, true, value);
+    }
+
+    boolean isHuffmanValueCached(String value)
+    {
+        return value.equals(_huffmanValues[value.hashCode() & (HUFFMAN_CACHE_SIZE - 1)]);
+    }
+
+    private static byte[] huffmanEncoding(String value)
+    {
+        int needed = Huffman.octetsNeeded(value);
+        if (needed < 0)
+            return null;
+        byte[] encoding = new byte[1 + NBitInteger.octectsNeeded(7, needed) + needed];
+        ByteBuffer buffer = ByteBuffer.wrap(encoding);
+        buffer.put((byte)0x80);
+        NBitInteger.encode(buffer, 7, needed);
+        Huffman.encode(buffer, value);
+        return encoding;
+    }
+
     static void encodeValue(ByteBuffer buffer, boolean huffman, String value)
     {
         if (huffman)
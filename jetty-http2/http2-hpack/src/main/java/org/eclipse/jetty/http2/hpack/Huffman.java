@@ -361,6 +361,21 @@ public class Huffman
     public static String decode(ByteBuffer buffer, int length) throws HpackException.CompressionException
     {
         Utf8StringBuilder utf8 = new Utf8StringBuilder(length * 2);
+        decode(buffer, length, utf8);
+        return utf8.toString();
+    }
+
+    /**
+     * <p>Decodes Huffman encoded octets, appending the decoded characters
+     * to the given builder, so that the builder can be reused.</p>
+     *
+     * @param buffer the buffer with the Huffman encoded octets
+     * @param length the number of octets to decode
+     * @param utf8 the builder to append the decoded characters to
+     * @throws HpackException.CompressionException if the octets are not valid Huffman encoded octets
+     */
+    public static void decode(ByteBuffer buffer, int length, Utf8StringBuilder utf8) throws HpackException.CompressionException
+    {
         int node = 0;
         int current = 0;
         int bits = 0;
@@ -420,8 +435,6 @@ public class Huffman
 
         if (node != 0)
             throw new HpackException.CompressionException("Bad termination");
-
-        return utf8.toString();
     }
 
     public static int octetsNeeded(String s)
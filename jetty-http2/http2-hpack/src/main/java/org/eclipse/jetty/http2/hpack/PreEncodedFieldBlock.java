@@ -0,0 +1,193 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.BufferUtil;
+
+/**
+ * <p>An immutable sequence of header fields that is HPACK encoded once and then
+ * copied as is in every header block that contains it, for example a set of
+ * security headers added to every response.</p>
+ * <p>The fields are encoded either as indexes into the static table or as Huffman
+ * encoded literals that are not added to the dynamic table, so the encoded bytes
+ * are valid for any HPACK context and can be shared by all the encoders.</p>
+ * <p>An {@link HpackEncoder} with the block registered copies the encoded bytes
+ * when it finds the very same {@link HttpField} instances of the block, in the same
+ * order, in the fields it encodes; the fields should therefore be added to the
+ * response with {@link #addTo(HttpFields.Mutable)}.</p>
+ *
+ * @see HpackEncoder#setPreEncodedFieldBlocks(List)
+ */
+public class PreEncodedFieldBlock
+{
+    private static final EnumSet<HttpHeader> ILLEGAL_HEADERS = EnumSet.of(HttpHeader.CONNECTION, HttpHeader.KEEP_ALIVE,
+        HttpHeader.PROXY_CONNECTION, HttpHeader.TRANSFER_ENCODING, HttpHeader.UPGRADE, HttpHeader.TE, HttpHeader.CONTENT_LENGTH);
+
+    private final HttpField[] _fields;
+    private final byte[] _encoded;
+    private final int _headerListSize;
+
+    public PreEncodedFieldBlock(HttpFields fields)
+    {
+        this(fields.stream().toArray(HttpField[]::new));
+    }
+
+    public PreEncodedFieldBlock(HttpField... fields)
+    {
+        if (fields.length == 0)
+            throw new IllegalArgumentException("No fields");
+
+        int capacity = 0;
+        int headerListSize = 0;
+        for (HttpField field : fields)
+        {
+            String name = field.getName();
+            char firstChar = name.charAt(0);
+            if (firstChar <= ' ' || firstChar == ':')
+                throw new IllegalArgumentException("Invalid header name: " + name);
+            HttpHeader header = field.getHeader();
+            if (header != null && ILLEGAL_HEADERS.contains(header))
+                throw new IllegalArgumentException("Unsupported header: " + name);
+            String value = field.getValue() == null ? "" : field.getValue();
+            // Worst case of UTF-8 values and length prefixes.
+            capacity += name.length() + 3 * value.length() + 16;
+            headerListSize += name.length() + value.length() + 32;
+        }
+
+        ByteBuffer buffer = BufferUtil.allocate(capacity);
+        BufferUtil.clearToFill(buffer);
+        for (HttpField field : fields)
+        {
+            encode(buffer, field);
+        }
+        BufferUtil.flipToFlush(buffer, 0);
+
+        _fields = fields.clone();
+        _encoded = BufferUtil.toArray(buffer);
+        _headerListSize = headerListSize;
+    }
+
+    private static void encode(ByteBuffer buffer, HttpField field)
+    {
+        String value = field.getValue() == null ? "" : field.getValue();
+        HpackContext.StaticEntry entry = HpackContext.getStatic(new HttpField(field.getHeader(), field.getName(), value));
+        if (entry != null)
+        {
+            buffer.put(entry.getEncodedField());
+            return;
+        }
+
+        HttpHeader header = field.getHeader();
+        boolean neverIndex = header != null && HpackEncoder.NEVER_INDEX.contains(header);
+        boolean huffman = header == null || !HpackEncoder.DO_NOT_HUFFMAN.contains(header);
+        buffer.put(neverIndex ? (byte)0x10 : (byte)0x00);
+        int nameIndex = HpackContext.staticIndex(header);
+        if (nameIndex > 0)
+        {
+            NBitInteger.encode(buffer, 4, nameIndex);
+        }
+        else
+        {
+            buffer.put((byte)0x80);
+            NBitInteger.encode(buffer, 7, Huffman.octetsNeededLC(field.getName()));
+            Huffman.encodeLC(buffer, field.getName());
+        }
+        HpackEncoder.encodeValue(buffer, huffman, value);
+    }
+
+    /**
+     * @return the fields of this block
+     */
+    public List<HttpField> getFields()
+    {
+        return Arrays.asList(_fields.clone());
+    }
+
+    /**
+     * @return the number of fields of this block
+     */
+    public int size()
+    {
+        return _fields.length;
+    }
+
+    /**
+     * @return the number of octets of the encoded fields
+     */
+    public int getEncodedLength()
+    {
+        return _encoded.length;
+    }
+
+    /**
+     * <p>Adds the fields of this block, in order, to the given fields.</p>
+     *
+     * @param fields the fields to add the fields of this block to
+     * @return the given fields
+     */
+    public HttpFields.Mutable addTo(HttpFields.Mutable fields)
+    {
+        for (HttpField field : _fields)
+        {
+            fields.add(field);
+        }
+        return fields;
+    }
+
+    /**
+     * @param fields the fields to match
+     * @param index the index of the field to start matching from
+     * @return whether the fields at the given index are the fields of this block
+     */
+    boolean matches(HttpFields fields, int index)
+    {
+        if (fields.getField(index) != _fields[0] || index + _fields.length > fields.size())
+            return false;
+        for (int i = 1; i < _fields.length; i++)
+        {
+            if (fields.getField(index + i) != _fields[i])
+                return false;
+        }
+        return true;
+    }
+
+    int getHeaderListSize()
+    {
+        return _headerListSize;
+    }
+
+    void putTo(ByteBuffer buffer)
+    {
+        buffer.put(_encoded);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{fields=%d,octets=%d}", getClass().getSimpleName(), hashCode(), _fields.length, _encoded.length);
+    }
+}
@@ -19,6 +19,7 @@
 package org.eclipse.jetty.http2.hpack;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
@@ -31,7 +32,11 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.equalToIgnoringCase;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HpackEncoderTest
 {
@@ -311,4 +316,133 @@ public class HpackEncoderTest
         assertThat(context.getMaxDynamicTableSize(), Matchers.is(50));
         assertThat(context.size(), Matchers.is(1));
     }
+
+    @Test
+    public void testPreEncodedFieldBlock() throws Exception
+    {
+        PreEncodedFieldBlock block = new PreEncodedFieldBlock(
+            new HttpField("strict-transport-security", "max-age=31536000; includeSubDomains"),
+            new HttpField("x-content-type-options", "nosniff"),
+            new HttpField("x-frame-options", "DENY"),
+            new HttpField(HttpHeader.ACCEPT_RANGES, "bytes"));
+
+        HpackEncoder encoder = new HpackEncoder();
+        encoder.setPreEncodedFieldBlocks(List.of(block));
+        HpackDecoder decoder = new HpackDecoder(4096, 8192);
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+
+        for (int i = 0; i < 3; i++)
+        {
+            HttpFields.Mutable fields = HttpFields.build().add(HttpHeader.CONTENT_TYPE, "text/html");
+            block.addTo(fields).add("custom-key", "value" + i);
+
+            BufferUtil.clearToFill(buffer);
+            encoder.encode(buffer, new MetaData.Response(HttpVersion.HTTP_2, 200, fields));
+            BufferUtil.flipToFlush(buffer, 0);
+
+            assertFieldsEquals(fields, decoder.decode(buffer).getFields());
+        }
+
+        // The fields of the block are never added to the dynamic table.
+        HpackContext context = encoder.getHpackContext();
+        for (HttpField field : block.getFields())
+        {
+            HpackContext.Entry entry = context.get(field);
+            assertTrue(entry == null || entry.isStatic());
+        }
+
+        // Equal but not identical fields are encoded as usual.
+        HttpFields.Mutable copies = HttpFields.build();
+        for (HttpField field : block.getFields())
+        {
+            copies.add(new HttpField(field.getName(), field.getValue()));
+        }
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, copies));
+        BufferUtil.flipToFlush(buffer, 0);
+        assertFieldsEquals(copies, decoder.decode(buffer).getFields());
+        assertThat(context.size(), Matchers.greaterThan(0));
+    }
+
+    @Test
+    public void testPreEncodedFieldBlockRejectsHopHeaders()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedFieldBlock(new HttpField(HttpHeader.CONNECTION, "close")));
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedFieldBlock(new HttpField(HttpHeader.CONTENT_LENGTH, "10")));
+    }
+
+    @Test
+    public void testCachedHuffmanValue() throws Exception
+    {
+        HpackEncoder encoder = new HpackEncoder();
+        HpackDecoder decoder = new HpackDecoder(4096, 8192);
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+
+        // Not indexed values are encoded the same whether they are cached or not.
+        int length = -1;
+        for (int i = 0; i < 4; i++)
+        {
+            HttpFields fields = HttpFields.build()
+                .add(HttpHeader.ETAG, "W/\"1234567890\"")
+                .add(HttpHeader.CONTENT_LENGTH, "12345");
+            BufferUtil.clearToFill(buffer);
+            encoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, fields));
+            BufferUtil.flipToFlush(buffer, 0);
+            if (length < 0)
+                length = buffer.remaining();
+            assertEquals(length, buffer.remaining());
+            assertFieldsEquals(fields, decoder.decode(buffer).getFields());
+        }
+    }
+
+    @Test
+    public void testOneOffHuffmanValueDoesNotEvictCachedValue() throws Exception
+    {
+        HpackEncoder encoder = new HpackEncoder();
+        HpackDecoder decoder = new HpackDecoder(4096, 8192);
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+
+        String repeated = "W/\"repeated\"";
+        String colliding = null;
+        for (int i = 0; colliding == null; i++)
+        {
+            String candidate = "W/\"" + i + "\"";
+            if ((candidate.hashCode() & 63) == (repeated.hashCode() & 63))
+                colliding = candidate;
+        }
+
+        encodeETag(encoder, decoder, buffer, repeated);
+        assertFalse(encoder.isHuffmanValueCached(repeated));
+        encodeETag(encoder, decoder, buffer, repeated);
+        assertTrue(encoder.isHuffmanValueCached(repeated));
+
+        // A value seen once in the same slot does not replace the cached value.
+        encodeETag(encoder, decoder, buffer, colliding);
+        assertTrue(encoder.isHuffmanValueCached(repeated));
+        assertFalse(encoder.isHuffmanValueCached(colliding));
+
+        // Seen again, it does.
+        encodeETag(encoder, decoder, buffer, colliding);
+        assertTrue(encoder.isHuffmanValueCached(colliding));
+        assertFalse(encoder.isHuffmanValueCached(repeated));
+    }
+
+    private static void encodeETag(HpackEncoder encoder, HpackDecoder decoder, ByteBuffer buffer, String etag) throws Exception
+    {
+        HttpFields fields = HttpFields.build().add(HttpHeader.ETAG, etag);
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, fields));
+        BufferUtil.flipToFlush(buffer, 0);
+        assertFieldsEquals(fields, decoder.decode(buffer).getFields());
+    }
+
+    private static void assertFieldsEquals(HttpFields expected, HttpFields actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertThat(actual.getField(i).getName(), equalToIgnoringCase(expected.getField(i).getName()));
+            assertEquals(expected.getField(i).getValue(), actual.getField(i).getValue());
+        }
+    }
 }
@@ -21,22 +21,26 @@ package org.eclipse.jetty.http2.server;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.http2.BufferingFlowControlStrategy;
 import org.eclipse.jetty.http2.FlowControlStrategy;
 import org.eclipse.jetty.http2.HTTP2Connection;
 import org.eclipse.jetty.http2.ISession;
+import org.eclipse.jetty.http2.StreamScheduler;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
 import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.hpack.PreEncodedFieldBlock;
 import org.eclipse.jetty.http2.parser.RateControl;
 import org.eclipse.jetty.http2.parser.ServerParser;
 import org.eclipse.jetty.http2.parser.WindowRateControl;
@@ -57,6 +61,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
 {
     private final HTTP2SessionContainer sessionContainer = new HTTP2SessionContainer();
     private final HttpConfiguration httpConfiguration;
+    private final List<PreEncodedFieldBlock> preEncodedFieldBlocks = new CopyOnWriteArrayList<>();
     private int maxDynamicTableSize = 4096;
     private int initialSessionRecvWindow = 1024 * 1024;
     private int initialStreamRecvWindow = 512 * 1024;
@@ -67,7 +72,9 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
     private boolean connectProtocolEnabled = true;
     private RateControl.Factory rateControlFactory = new WindowRateControl.Factory(20);
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
+    private StreamScheduler streamScheduler = StreamScheduler.ROUND_ROBIN;
     private long streamIdleTimeout;
+    private long dataCoalescingDelay;
     private boolean useInputDirectByteBuffers;
     private boolean useOutputDirectByteBuffers;
 
@@ -157,6 +164,27 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.flowControlStrategyFactory = flowControlStrategyFactory;
     }
 
+    /**
+     * @return the scheduler that interleaves the DATA frames of the streams of a connection
+     */
+    @ManagedAttribute("The scheduler of the DATA frames of the streams")
+    public StreamScheduler getStreamScheduler()
+    {
+        return streamScheduler;
+    }
+
+    /**
+     * <p>Sets the scheduler that interleaves the DATA frames of the streams of a connection,
+     * for example a {@link org.eclipse.jetty.http2.UrgencyStreamScheduler} to serve streams
+     * by their RFC 9218 urgency. The scheduler is shared by all the connections.</p>
+     *
+     * @param streamScheduler the scheduler of the DATA frames of the streams
+     */
+    public void setStreamScheduler(StreamScheduler streamScheduler)
+    {
+        this.streamScheduler = Objects.requireNonNull(streamScheduler);
+    }
+
     @ManagedAttribute("The stream idle timeout in milliseconds")
     public long getStreamIdleTimeout()
     {
@@ -168,6 +196,27 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.streamIdleTimeout = streamIdleTimeout;
     }
 
+    @ManagedAttribute("The max delay in milliseconds of small response DATA writes")
+    public long getDataCoalescingDelay()
+    {
+        return dataCoalescingDelay;
+    }
+
+    /**
+     * <p>Sets the max delay in milliseconds that small response content writes may be
+     * retained for, so that consecutive small writes of a stream are coalesced into
+     * DATA frames up to the max frame size, rather than sent each in its own frame.</p>
+     * <p>Retained bytes are sent when the frame is full, with a write that does not fit,
+     * with the last write, on a flush with no new content, or when the delay expires.
+     * The default value of {@code 0} sends every write immediately.</p>
+     *
+     * @param dataCoalescingDelay the max delay in milliseconds, or 0 to disable coalescing
+     */
+    public void setDataCoalescingDelay(long dataCoalescingDelay)
+    {
+        this.dataCoalescingDelay = dataCoalescingDelay;
+    }
+
     @ManagedAttribute("The max frame length in bytes")
     public int getMaxFrameLength()
     {
@@ -246,6 +295,31 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         return httpConfiguration;
     }
 
+    /**
+     * @return the blocks of fields that are HPACK encoded once for all the connections
+     */
+    public List<PreEncodedFieldBlock> getPreEncodedFieldBlocks()
+    {
+        return preEncodedFieldBlocks;
+    }
+
+    /**
+     * <p>Adds a block of fields, for example the security headers added to every response,
+     * that is HPACK encoded once and copied as is in the responses of all the connections
+     * that contain the fields of the block, see {@link PreEncodedFieldBlock#addTo(org.eclipse.jetty.http.HttpFields.Mutable)}.</p>
+     *
+     * @param block the block of fields to add
+     */
+    public void addPreEncodedFieldBlock(PreEncodedFieldBlock block)
+    {
+        preEncodedFieldBlocks.add(Objects.requireNonNull(block));
+    }
+
+    public boolean removePreEncodedFieldBlock(PreEncodedFieldBlock block)
+    {
+        return preEncodedFieldBlocks.remove(block);
+    }
+
     protected Map<Integer, Integer> newSettings()
     {
         Map<Integer, Integer> settings = new HashMap<>();
@@ -265,6 +339,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         ServerSessionListener listener = newSessionListener(connector, endPoint);
 
         Generator generator = new Generator(connector.getByteBufferPool(), isUseOutputDirectByteBuffers(), getMaxDynamicTableSize(), getMaxHeaderBlockFragment());
+        generator.setPreEncodedFieldBlocks(getPreEncodedFieldBlocks());
         FlowControlStrategy flowControl = getFlowControlStrategyFactory().newFlowControlStrategy();
         HTTP2ServerSession session = new HTTP2ServerSession(connector.getScheduler(), endPoint, generator, listener, flowControl);
         session.setMaxLocalStreams(getMaxConcurrentStreams());
@@ -277,6 +352,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         if (streamIdleTimeout > 0)
             session.setStreamIdleTimeout(streamIdleTimeout);
         session.setInitialSessionRecvWindow(getInitialSessionRecvWindow());
+        session.setStreamScheduler(getStreamScheduler());
         session.setWriteThreshold(getHttpConfiguration().getOutputBufferSize());
         session.setConnectProtocolEnabled(isConnectProtocolEnabled());
 
@@ -284,8 +360,9 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         parser.setMaxFrameLength(getMaxFrameLength());
         parser.setMaxSettingsKeys(getMaxSettingsKeys());
 
-        HTTP2Connection connection = new HTTP2ServerConnection(connector.getByteBufferPool(), connector.getExecutor(),
+        HTTP2ServerConnection connection = new HTTP2ServerConnection(connector.getByteBufferPool(), connector.getExecutor(),
             endPoint, httpConfiguration, parser, session, getInputBufferSize(), listener);
+        connection.setDataCoalescingDelay(getDataCoalescingDelay());
         connection.setUseInputDirectByteBuffers(isUseInputDirectByteBuffers());
         connection.setUseOutputDirectByteBuffers(isUseOutputDirectByteBuffers());
         connection.addEventListener(sessionContainer);
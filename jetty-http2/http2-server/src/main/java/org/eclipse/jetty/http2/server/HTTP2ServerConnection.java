@@ -92,6 +92,7 @@ public class HTTP2ServerConnection extends HTTP2Connection
     private final ServerSessionListener listener;
     private final HttpConfiguration httpConfig;
     private boolean recycleHttpChannels = true;
+    private long dataCoalescingDelay;
 
     public HTTP2ServerConnection(ByteBufferPool byteBufferPool, Executor executor, EndPoint endPoint, HttpConfiguration httpConfig, ServerParser parser, ISession session, int inputBufferSize, ServerSessionListener listener)
     {
@@ -128,6 +129,26 @@ public class HTTP2ServerConnection extends HTTP2Connection
         this.recycleHttpChannels = recycleHttpChannels;
     }
 
+    /**
+     * @return the max delay in milliseconds of small response DATA writes, or 0 if small writes are not coalesced
+     * @see #setDataCoalescingDelay(long)
+     */
+    public long getDataCoalescingDelay()
+    {
+        return dataCoalescingDelay;
+    }
+
+    /**
+     * <p>Sets the max delay in milliseconds that small response content writes may be
+     * retained for, to be coalesced with subsequent writes into larger DATA frames.</p>
+     *
+     * @param dataCoalescingDelay the max delay in milliseconds, or 0 to send every write immediately
+     */
+    public void setDataCoalescingDelay(long dataCoalescingDelay)
+    {
+        this.dataCoalescingDelay = dataCoalescingDelay;
+    }
+
     @Override
     public void onOpen()
     {
@@ -268,6 +289,7 @@ public class HTTP2ServerConnection extends HTTP2Connection
         else
         {
             HttpTransportOverHTTP2 transport = new HttpTransportOverHTTP2(connector, this);
+            transport.setDataCoalescingDelay(getDataCoalescingDelay());
             transport.setStream(stream);
             channel = newServerHttpChannelOverHTTP2(connector, httpConfig, transport);
             channel.setUseOutputDirectByteBuffers(isUseOutputDirectByteBuffers());
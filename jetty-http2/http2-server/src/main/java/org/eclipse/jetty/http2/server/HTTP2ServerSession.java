@@ -115,6 +115,7 @@ public class HTTP2ServerSession extends HTTP2Session implements ServerParser.Lis
                         if (stream != null)
                         {
                             onStreamOpened(stream);
+                            updatePriority(stream, frame);
 
                             if (metaData instanceof MetaData.ConnectRequest)
                             {
@@ -19,6 +19,7 @@
 package org.eclipse.jetty.http2.server;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -30,9 +31,12 @@ import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http2.ErrorCode;
+import org.eclipse.jetty.http2.HTTP2Session;
+import org.eclipse.jetty.http2.ISession;
 import org.eclipse.jetty.http2.IStream;
 import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.HeadersFrame;
 import org.eclipse.jetty.http2.frames.PushPromiseFrame;
 import org.eclipse.jetty.http2.frames.ResetFrame;
@@ -44,6 +48,7 @@ import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.Promise;
+import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,10 +58,12 @@ public class HttpTransportOverHTTP2 implements HttpTransport
 
     private final AtomicBoolean commit = new AtomicBoolean();
     private final TransportCallback transportCallback = new TransportCallback();
+    private final DataCoalescer dataCoalescer = new DataCoalescer();
     private final Connector connector;
     private final HTTP2ServerConnection connection;
     private IStream stream;
     private MetaData.Response metaData;
+    private long dataCoalescingDelay;
 
     public HttpTransportOverHTTP2(Connector connector, HTTP2ServerConnection connection)
     {
@@ -76,8 +83,22 @@ public class HttpTransportOverHTTP2 implements HttpTransport
         this.stream = stream;
     }
 
+    /**
+     * @return the max delay in milliseconds of small DATA writes, or 0 if small writes are not coalesced
+     */
+    public long getDataCoalescingDelay()
+    {
+        return dataCoalescingDelay;
+    }
+
+    public void setDataCoalescingDelay(long dataCoalescingDelay)
+    {
+        this.dataCoalescingDelay = dataCoalescingDelay;
+    }
+
     public void recycle()
     {
+        dataCoalescer.clear();
         this.stream = null;
         commit.set(false);
     }
@@ -210,30 +231,24 @@ public class HttpTransportOverHTTP2 implements HttpTransport
                     {
                         SendTrailers sendTrailers = new SendTrailers(callback, trailers);
                         if (hasContent)
-                        {
-                            transportCallback.send(sendTrailers, false, c ->
-                                sendDataFrame(content, true, false, c));
-                        }
+                            dataCoalescer.send(sendTrailers, content, true, false);
                         else
-                        {
-                            sendTrailers.succeeded();
-                        }
+                            dataCoalescer.flush(sendTrailers);
                     }
                     else
                     {
-                        transportCallback.send(callback, false, c ->
-                            sendDataFrame(content, true, true, c));
+                        dataCoalescer.send(callback, content, true, true);
                     }
                 }
                 else
                 {
-                    transportCallback.send(callback, false, c ->
-                        sendDataFrame(content, false, false, c));
+                    dataCoalescer.send(callback, content, false, false);
                 }
             }
             else
             {
-                callback.succeeded();
+                // A flush with no new content sends the coalesced content, if any.
+                dataCoalescer.flush(callback);
             }
         }
     }
@@ -330,6 +345,7 @@ public class HttpTransportOverHTTP2 implements HttpTransport
 
     public void onStreamFailure(Throwable failure)
     {
+        dataCoalescer.clear();
         transportCallback.abort(failure);
     }
 
@@ -514,6 +530,14 @@ public class HttpTransportOverHTTP2 implements HttpTransport
             callback.failed(failure);
         }
 
+        private Throwable failure()
+        {
+            synchronized (this)
+            {
+                return _state == State.FAILED ? _failure : null;
+            }
+        }
+
         private boolean idleTimeout(Throwable failure)
         {
             Callback callback = null;
@@ -571,6 +595,233 @@ public class HttpTransportOverHTTP2 implements HttpTransport
         FAILED
     }
 
+    /**
+     * <p>Coalesces the small DATA writes of a response into frames up to the max frame size.</p>
+     * <p>A small write is copied into an aggregation buffer and completed immediately.
+     * The aggregated bytes are sent when the buffer is full, before a write that does not
+     * fit, with the last write, on a flush with no new content, or when the coalescing
+     * delay expires. Writes arriving while the expired aggregation buffer is sent are
+     * deferred until it has been sent, so that there is only one send at a time.</p>
+     */
+    private class DataCoalescer implements Runnable
+    {
+        private ByteBuffer _buffer;
+        private int _maxLength;
+        private Scheduler.Task _task;
+        private boolean _flushing;
+        private Runnable _deferred;
+        private Throwable _failure;
+
+        private void send(Callback callback, ByteBuffer content, boolean lastContent, boolean endStream)
+        {
+            long delay = dataCoalescingDelay;
+            if (delay <= 0)
+            {
+                transportCallback.send(callback, false, c ->
+                    sendDataFrame(content, lastContent, endStream, c));
+                return;
+            }
+
+            Throwable failure = failure();
+            if (failure != null)
+            {
+                callback.failed(failure);
+                return;
+            }
+
+            ByteBuffer aggregated;
+            boolean coalesced = false;
+            synchronized (this)
+            {
+                if (_flushing)
+                {
+                    _deferred = () -> send(callback, content, lastContent, endStream);
+                    return;
+                }
+
+                int length = content.remaining();
+                int maxLength = _buffer == null ? maxFrameSize() : _maxLength;
+                int space = _buffer == null ? maxLength : maxLength - _buffer.remaining();
+                if (!lastContent && length <= maxLength / 4 && length <= space)
+                {
+                    if (_buffer == null)
+                    {
+                        _maxLength = maxLength;
+                        _buffer = connector.getByteBufferPool().acquire(maxLength, connection.isUseOutputDirectByteBuffers());
+                    }
+                    BufferUtil.append(_buffer, content);
+                    coalesced = true;
+                    if (length < space)
+                    {
+                        if (_task == null)
+                            _task = connector.getScheduler().schedule(this, delay, TimeUnit.MILLISECONDS);
+                        aggregated = null;
+                    }
+                    else
+                    {
+                        aggregated = take();
+                    }
+                }
+                else
+                {
+                    aggregated = take();
+                }
+            }
+
+            if (coalesced)
+            {
+                if (aggregated == null)
+                    callback.succeeded();
+                else
+                    sendAggregated(aggregated, false, false, callback);
+            }
+            else if (aggregated == null)
+            {
+                transportCallback.send(callback, false, c ->
+                    sendDataFrame(content, lastContent, endStream, c));
+            }
+            else if (content.remaining() <= _maxLength - aggregated.remaining())
+            {
+                BufferUtil.append(aggregated, content);
+                sendAggregated(aggregated, lastContent, endStream, callback);
+            }
+            else
+            {
+                sendAggregated(aggregated, false, false, Callback.from(() ->
+                    transportCallback.send(callback, false, c ->
+                        sendDataFrame(content, lastContent, endStream, c)), callback::failed));
+            }
+        }
+
+        private void flush(Callback callback)
+        {
+            Throwable failure = failure();
+            if (failure != null)
+            {
+                callback.failed(failure);
+                return;
+            }
+
+            ByteBuffer aggregated;
+            synchronized (this)
+            {
+                if (_flushing)
+                {
+                    _deferred = () -> flush(callback);
+                    return;
+                }
+                aggregated = take();
+            }
+            if (aggregated == null)
+                callback.succeeded();
+            else
+                sendAggregated(aggregated, false, false, callback);
+        }
+
+        @Override
+        public void run()
+        {
+            // The coalescing delay expired.
+            ByteBuffer aggregated;
+            synchronized (this)
+            {
+                _task = null;
+                if (_flushing || _buffer == null)
+                    return;
+                aggregated = take();
+                _flushing = true;
+            }
+            sendAggregated(aggregated, false, false, Callback.from(this::flushed, this::flushFailed));
+        }
+
+        private void flushFailed(Throwable failure)
+        {
+            // The coalesced writes have already been succeeded, so the
+            // failure is reported to the next send or flush instead; the
+            // last write is never coalesced, so the response always sees it.
+            synchronized (this)
+            {
+                _failure = failure;
+            }
+            flushed();
+        }
+
+        private Throwable failure()
+        {
+            synchronized (this)
+            {
+                if (_failure != null)
+                    return _failure;
+            }
+            return transportCallback.failure();
+        }
+
+        private void flushed()
+        {
+            Runnable deferred;
+            synchronized (this)
+            {
+                _flushing = false;
+                deferred = _deferred;
+                _deferred = null;
+            }
+            if (deferred != null)
+                deferred.run();
+        }
+
+        private ByteBuffer take()
+        {
+            assert Thread.holdsLock(this);
+            if (_task != null)
+            {
+                _task.cancel();
+                _task = null;
+            }
+            ByteBuffer buffer = _buffer;
+            _buffer = null;
+            if (BufferUtil.isEmpty(buffer))
+            {
+                if (buffer != null)
+                    connector.getByteBufferPool().release(buffer);
+                return null;
+            }
+            return buffer;
+        }
+
+        private void sendAggregated(ByteBuffer aggregated, boolean lastContent, boolean endStream, Callback callback)
+        {
+            Callback release = Callback.from(callback, () -> connector.getByteBufferPool().release(aggregated));
+            transportCallback.send(release, false, c ->
+                sendDataFrame(aggregated, lastContent, endStream, c));
+        }
+
+        private void clear()
+        {
+            ByteBuffer buffer;
+            synchronized (this)
+            {
+                if (_task != null)
+                {
+                    _task.cancel();
+                    _task = null;
+                }
+                buffer = _buffer;
+                _buffer = null;
+                _failure = null;
+            }
+            if (buffer != null)
+                connector.getByteBufferPool().release(buffer);
+        }
+
+        private int maxFrameSize()
+        {
+            ISession session = stream.getSession();
+            if (session instanceof HTTP2Session)
+                return ((HTTP2Session)session).getGenerator().getMaxFrameSize();
+            return Frame.DEFAULT_MAX_LENGTH;
+        }
+    }
+
     private class SendTrailers extends Callback.Nested
     {
         private final HttpFields trailers;
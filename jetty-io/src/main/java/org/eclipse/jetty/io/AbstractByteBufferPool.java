@@ -54,6 +54,11 @@ abstract class AbstractByteBufferPool implements ByteBufferPool
         return _maxQueueLength;
     }
 
+    protected long getMaxMemory(boolean direct)
+    {
+        return direct ? _maxDirectMemory : _maxHeapMemory;
+    }
+
     protected void decrementMemory(ByteBuffer buffer)
     {
         updateMemory(buffer, false);
@@ -73,7 +78,7 @@ abstract class AbstractByteBufferPool implements ByteBufferPool
 
     protected void releaseExcessMemory(boolean direct, Consumer<Boolean> clearFn)
     {
-        long maxMemory = direct ? _maxDirectMemory : _maxHeapMemory;
+        long maxMemory = getMaxMemory(direct);
         if (maxMemory > 0)
         {
             while (getMemory(direct) > maxMemory)
@@ -20,6 +20,7 @@ package org.eclipse.jetty.io;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -60,6 +61,24 @@ public abstract class AbstractEndPoint extends IdleTimeout implements EndPoint
         super(scheduler);
     }
 
+    /**
+     * <p>Enables write coalescing for this EndPoint, or disables it if the given
+     * {@link WriteCoalescing} is null.</p>
+     * <p>Must be called before the first write.</p>
+     *
+     * @param coalescing the write coalescing configuration, or null to disable write coalescing
+     * @param bufferPool the pool of the aggregation buffers
+     */
+    public void setWriteCoalescing(WriteCoalescing coalescing, ByteBufferPool bufferPool)
+    {
+        _writeFlusher.setWriteCoalescing(coalescing, bufferPool, getScheduler());
+    }
+
+    public WriteCoalescing getWriteCoalescing()
+    {
+        return _writeFlusher.getWriteCoalescing();
+    }
+
     protected final void shutdownInput()
     {
         if (LOG.isDebugEnabled())
@@ -121,6 +140,9 @@ public abstract class AbstractEndPoint extends IdleTimeout implements EndPoint
     {
         if (LOG.isDebugEnabled())
             LOG.debug("shutdownOutput {}", this);
+        // Write the coalesced bytes before shutting down the output.
+        if (_writeFlusher.getWriteCoalescing() != null && _writeFlusher.flushCoalesced(Callback.from(this::shutdownOutput, this::close)))
+            return;
         while (true)
         {
             State s = _state.get();
@@ -185,6 +207,13 @@ public abstract class AbstractEndPoint extends IdleTimeout implements EndPoint
     {
         if (LOG.isDebugEnabled())
             LOG.debug("close({}) {}", failure, this);
+        if (failure == null)
+        {
+            // Try to write the coalesced bytes before closing, and close with
+            // the failure to write coalesced bytes whose writes were completed.
+            _writeFlusher.tryFlushCoalesced();
+            failure = _writeFlusher.getCoalescedFailure();
+        }
         while (true)
         {
             State s = _state.get();
@@ -391,6 +420,15 @@ public abstract class AbstractEndPoint extends IdleTimeout implements EndPoint
         _writeFlusher.write(callback, buffers);
     }
 
+    @Override
+    public void write(Callback callback, FileChannel file, long position, long count) throws IllegalStateException
+    {
+        if (isFileTransferSupported())
+            _writeFlusher.write(callback, file, position, count);
+        else
+            callback.failed(new UnsupportedOperationException());
+    }
+
     protected abstract void onIncompleteFlush();
 
     protected abstract void needsFillInterest() throws IOException;
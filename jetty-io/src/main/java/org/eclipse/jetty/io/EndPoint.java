@@ -22,6 +22,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadPendingException;
 import java.nio.channels.WritePendingException;
 
@@ -90,6 +91,11 @@ import org.eclipse.jetty.util.thread.Invocable;
  * </pre>
  * <p>Note also that multiple buffers may be passed in {@link #write(Callback, ByteBuffer...)}
  * so that gather writes can be performed for efficiency.</p>
+ *
+ * <h3>File Transfers</h3>
+ * <p>EndPoints that write directly to a network channel may support transferring
+ * a region of a file without copying the bytes through user space buffers, see
+ * {@link #isFileTransferSupported()} and {@link #write(Callback, FileChannel, long, long)}.</p>
  */
 public interface EndPoint extends Closeable
 {
@@ -199,6 +205,31 @@ public interface EndPoint extends Closeable
      */
     boolean flush(ByteBuffer... buffer) throws IOException;
 
+    /**
+     * @return whether this EndPoint supports {@link #transferFrom(FileChannel, long, long)}
+     * and {@link #write(Callback, FileChannel, long, long)}
+     */
+    default boolean isFileTransferSupported()
+    {
+        return false;
+    }
+
+    /**
+     * <p>Transfers bytes from the given file region to this endpoint, as many as can be
+     * consumed without blocking, possibly without copying them into user space.</p>
+     *
+     * @param file the file to transfer bytes from
+     * @param position the position within the file of the first byte to transfer
+     * @param count the maximum number of bytes to transfer
+     * @return the number of bytes transferred, possibly zero
+     * @throws IOException If the endpoint is closed or output is shutdown.
+     * @throws UnsupportedOperationException if file transfers are not {@link #isFileTransferSupported() supported}
+     */
+    default long transferFrom(FileChannel file, long position, long count) throws IOException
+    {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * @return The underlying transport object (socket, channel, etc.)
      */
@@ -255,6 +286,22 @@ public interface EndPoint extends Closeable
      */
     void write(Callback callback, ByteBuffer... buffers) throws WritePendingException;
 
+    /**
+     * <p>Writes the given file region via {@link #transferFrom(FileChannel, long, long)} and invokes
+     * callback methods when either all the bytes have been transferred or an error occurs.</p>
+     * <p>The file is not closed by this method.</p>
+     *
+     * @param callback the callback to call when an error occurs or the write completed.
+     * @param file the file to transfer bytes from
+     * @param position the position within the file of the first byte to transfer
+     * @param count the number of bytes to transfer
+     * @throws WritePendingException if another write operation is concurrent.
+     */
+    default void write(Callback callback, FileChannel file, long position, long count) throws WritePendingException
+    {
+        callback.failed(new UnsupportedOperationException());
+    }
+
     /**
      * @return the {@link Connection} associated with this EndPoint
      * @see #setConnection(Connection)
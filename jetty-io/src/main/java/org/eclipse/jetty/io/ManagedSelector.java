@@ -84,7 +84,9 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     private final SelectorManager _selectorManager;
     private final int _id;
     private final ExecutionStrategy _strategy;
+    private final SelectorStatistics _statistics = new SelectorStatistics();
     private Selector _selector;
+    private long _wakeupTime;
     private Deque<SelectorUpdate> _updates = new ArrayDeque<>();
     private Deque<SelectorUpdate> _updateable = new ArrayDeque<>();
 
@@ -96,6 +98,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         Executor executor = selectorManager.getExecutor();
         _strategy = new EatWhatYouKill(producer, executor);
         addBean(_strategy, true);
+        addBean(_statistics);
     }
 
     public Selector getSelector()
@@ -103,6 +106,14 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         return _selector;
     }
 
+    /**
+     * @return the statistics of the select loop of this selector
+     */
+    public SelectorStatistics getSelectorStatistics()
+    {
+        return _statistics;
+    }
+
     @Override
     protected void doStart() throws Exception
     {
@@ -261,6 +272,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 selector = _selector;
                 // To avoid the extra select wakeup.
                 _selecting = false;
+                _wakeupTime = System.nanoTime();
             }
         }
 
@@ -284,6 +296,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
             {
                 selector = _selector;
                 _selecting = false;
+                _wakeupTime = System.nanoTime();
             }
         }
 
@@ -521,9 +534,11 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 _updateable = updates;
             }
 
+            int updateable = _updateable.size();
             if (LOG.isDebugEnabled())
-                LOG.debug("updateable {}", _updateable.size());
+                LOG.debug("updateable {}", updateable);
 
+            long start = updateable == 0 ? 0 : System.nanoTime();
             for (SelectorUpdate update : _updateable)
             {
                 if (_selector == null)
@@ -540,6 +555,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 }
             }
             _updateable.clear();
+            _statistics.onUpdates(updateable, updateable == 0 ? 0 : System.nanoTime() - start);
 
             Selector selector;
             int updates;
@@ -548,6 +564,8 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 updates = _updates.size();
                 _selecting = updates == 0;
                 selector = _selecting ? null : _selector;
+                if (selector != null)
+                    _wakeupTime = System.nanoTime();
             }
 
             if (LOG.isDebugEnabled())
@@ -579,14 +597,20 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                             LOG.debug("Selector {} woken up from select, {}/{}/{} selected", selector, selected, selector.selectedKeys().size(), selector.keys().size());
 
                         int updates;
+                        long wakeupTime;
                         synchronized (ManagedSelector.this)
                         {
                             // finished selecting
                             _selecting = false;
                             updates = _updates.size();
+                            wakeupTime = _wakeupTime;
+                            _wakeupTime = 0;
                         }
+                        if (wakeupTime != 0)
+                            _statistics.onWakeup(System.nanoTime() - wakeupTime);
 
                         _keys = selector.selectedKeys();
+                        _statistics.onSelected(_keys.size());
                         _cursor = _keys.isEmpty() ? Collections.emptyIterator() : _keys.iterator();
                         if (LOG.isDebugEnabled())
                             LOG.debug("Selector {} processing {} keys, {} updates", selector, _keys.size(), updates);
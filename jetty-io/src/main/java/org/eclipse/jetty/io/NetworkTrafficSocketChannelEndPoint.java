@@ -72,6 +72,13 @@ public class NetworkTrafficSocketChannelEndPoint extends SocketChannelEndPoint
         return flushed;
     }
 
+    @Override
+    public boolean isFileTransferSupported()
+    {
+        // Transferred bytes never appear in a buffer, so they could not be notified to the listener.
+        return false;
+    }
+
     @Override
     public void onOpen()
     {
@@ -36,6 +36,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntUnaryOperator;
 
 import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.Promise;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.Container;
@@ -67,6 +68,7 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     private final IntUnaryOperator _selectorIndexUpdate;
     private final List<AcceptListener> _acceptListeners = new ArrayList<>();
     private long _connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private boolean _selectorBalancing;
     private ThreadPoolBudget.Lease _lease;
 
     private static int defaultSelectors(Executor executor)
@@ -153,9 +155,87 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         return _selectors.length;
     }
 
+    /**
+     * @return whether new channels are registered to the least loaded selector
+     */
+    @ManagedAttribute("Whether new channels are registered to the least loaded selector")
+    public boolean isSelectorBalancing()
+    {
+        return _selectorBalancing;
+    }
+
+    /**
+     * <p>Sets whether new channels are registered to the least loaded selector,
+     * that is the selector with the least number of registered channels,
+     * rather than to the selectors in round-robin order.</p>
+     * <p>Selector balancing is useful when connections are long-lived, for example
+     * HTTP/2 or WebSocket connections, so that round-robin assignment may result
+     * in some selectors managing many more connections than others.</p>
+     *
+     * @param selectorBalancing whether new channels are registered to the least loaded selector
+     * @see #migrate(EndPoint, Promise)
+     */
+    public void setSelectorBalancing(boolean selectorBalancing)
+    {
+        _selectorBalancing = selectorBalancing;
+    }
+
     private ManagedSelector chooseSelector()
     {
-        return _selectors[_selectorIndex.updateAndGet(_selectorIndexUpdate)];
+        int index = _selectorIndex.updateAndGet(_selectorIndexUpdate);
+        if (!_selectorBalancing)
+            return _selectors[index];
+        return leastLoadedSelector(index);
+    }
+
+    private ManagedSelector leastLoadedSelector(int start)
+    {
+        // Start from the round-robin index, so that
+        // selectors with the same load are used in turn.
+        ManagedSelector result = null;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < _selectors.length; ++i)
+        {
+            ManagedSelector selector = _selectors[(start + i) % _selectors.length];
+            if (selector == null)
+                continue;
+            int size = selector.size();
+            if (size < min)
+            {
+                min = size;
+                result = selector;
+            }
+        }
+        return result == null ? _selectors[start] : result;
+    }
+
+    /**
+     * <p>Moves the given EndPoint to the least loaded selector, if it is idle
+     * and its selector manages at least two more channels than the least loaded one.</p>
+     * <p>This method can be called periodically for long-lived connections,
+     * for example on idle WebSocket connections, to rebalance the selectors.</p>
+     *
+     * @param endPoint the EndPoint to move
+     * @param promise the promise completed with whether the EndPoint has been moved
+     * @see SocketChannelEndPoint#migrate(ManagedSelector, Promise)
+     */
+    public void migrate(EndPoint endPoint, Promise<Boolean> promise)
+    {
+        if (!(endPoint instanceof SocketChannelEndPoint))
+        {
+            promise.succeeded(false);
+            return;
+        }
+
+        SocketChannelEndPoint socketEndPoint = (SocketChannelEndPoint)endPoint;
+        ManagedSelector current = socketEndPoint.getSelector();
+        ManagedSelector target = leastLoadedSelector(_selectorIndex.get());
+        if (current == null || target == null || target.size() + 1 >= current.size())
+        {
+            promise.succeeded(false);
+            return;
+        }
+        socketEndPoint.migrate(target, promise);
     }
 
     /**
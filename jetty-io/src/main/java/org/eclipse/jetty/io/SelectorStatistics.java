@@ -0,0 +1,152 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+
+/**
+ * <p>Statistics of the select loop of a {@link ManagedSelector}.</p>
+ * <p>The statistics are always recorded by the selector thread, once per
+ * select loop, and can be used to detect selectors that are hot spots:
+ * a selector that processes many keys per loop, or that has a deep
+ * queue of {@link ManagedSelector.SelectorUpdate updates}, or that takes
+ * long to apply them, delays the I/O of all the EndPoints it manages.</p>
+ * <p>Times are recorded in nanoseconds.</p>
+ *
+ * @see ManagedSelector#getSelectorStatistics()
+ */
+@ManagedObject("Selector statistics")
+public class SelectorStatistics
+{
+    private final SampleStatistic _wakeupLatency = new SampleStatistic();
+    private final SampleStatistic _selectedKeys = new SampleStatistic();
+    private final SampleStatistic _updates = new SampleStatistic();
+    private final SampleStatistic _updatesTime = new SampleStatistic();
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _wakeupLatency.reset();
+        _selectedKeys.reset();
+        _updates.reset();
+        _updatesTime.reset();
+    }
+
+    @ManagedAttribute("The number of select loops")
+    public long getSelects()
+    {
+        return _selectedKeys.getCount();
+    }
+
+    @ManagedAttribute("The number of explicit wakeups of the selector")
+    public long getWakeups()
+    {
+        return _wakeupLatency.getCount();
+    }
+
+    @ManagedAttribute("The mean time in ns between a wakeup request and the return from select()")
+    public double getWakeupLatencyMean()
+    {
+        return _wakeupLatency.getMean();
+    }
+
+    @ManagedAttribute("The max time in ns between a wakeup request and the return from select()")
+    public long getWakeupLatencyMax()
+    {
+        return _wakeupLatency.getMax();
+    }
+
+    @ManagedAttribute("The mean number of keys processed per select loop")
+    public double getSelectedKeysMean()
+    {
+        return _selectedKeys.getMean();
+    }
+
+    @ManagedAttribute("The max number of keys processed per select loop")
+    public long getSelectedKeysMax()
+    {
+        return _selectedKeys.getMax();
+    }
+
+    @ManagedAttribute("The total number of keys processed")
+    public long getSelectedKeysTotal()
+    {
+        return _selectedKeys.getTotal();
+    }
+
+    @ManagedAttribute("The mean number of updates processed per select loop")
+    public double getUpdatesMean()
+    {
+        return _updates.getMean();
+    }
+
+    @ManagedAttribute("The max number of updates processed per select loop")
+    public long getUpdatesMax()
+    {
+        return _updates.getMax();
+    }
+
+    @ManagedAttribute("The mean time in ns spent processing updates per select loop")
+    public double getUpdatesTimeMean()
+    {
+        return _updatesTime.getMean();
+    }
+
+    @ManagedAttribute("The max time in ns spent processing updates per select loop")
+    public long getUpdatesTimeMax()
+    {
+        return _updatesTime.getMax();
+    }
+
+    void onWakeup(long latency)
+    {
+        _wakeupLatency.record(latency);
+    }
+
+    void onSelected(int keys)
+    {
+        _selectedKeys.record(keys);
+    }
+
+    void onUpdates(int updates, long time)
+    {
+        _updates.record(updates);
+        _updatesTime.record(time);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{selects=%d,keys=%.2f/%d,updates=%.2f/%d,updatesTime=%.0f/%dns,wakeupLatency=%.0f/%dns}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getSelects(),
+            getSelectedKeysMean(),
+            getSelectedKeysMax(),
+            getUpdatesMean(),
+            getUpdatesMax(),
+            getUpdatesTimeMean(),
+            getUpdatesTimeMax(),
+            getWakeupLatencyMean(),
+            getWakeupLatencyMax());
+    }
+}
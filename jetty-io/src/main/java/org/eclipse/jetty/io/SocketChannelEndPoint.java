@@ -24,11 +24,13 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Promise;
 import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
@@ -43,7 +45,7 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
     private static final Logger LOG = LoggerFactory.getLogger(SocketChannelEndPoint.class);
 
     private final SocketChannel _channel;
-    private final ManagedSelector _selector;
+    private volatile ManagedSelector _selector;
     private SelectionKey _key;
     private boolean _updatePending;
     // The current value for interestOps.
@@ -161,6 +163,11 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
         _key = key;
     }
 
+    ManagedSelector getSelector()
+    {
+        return _selector;
+    }
+
     @Override
     public InetSocketAddress getLocalAddress()
     {
@@ -285,6 +292,33 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
         return true;
     }
 
+    @Override
+    public boolean isFileTransferSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public long transferFrom(FileChannel file, long position, long count) throws IOException
+    {
+        long transferred;
+        try
+        {
+            transferred = file.transferTo(position, count, _channel);
+            if (LOG.isDebugEnabled())
+                LOG.debug("transferred {}/{} from {}@{} {}", transferred, count, file, position, this);
+        }
+        catch (IOException e)
+        {
+            throw new EofException(e);
+        }
+
+        if (transferred > 0)
+            notIdle();
+
+        return transferred;
+    }
+
     public SocketChannel getChannel()
     {
         return _channel;
@@ -348,6 +382,15 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
 
     private void updateKeyAction(Selector selector)
     {
+        // After a migration, an update submitted
+        // to the previous selector must be ignored.
+        ManagedSelector managedSelector = _selector;
+        if (managedSelector != null && managedSelector.getSelector() != selector)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Ignoring key update from {} for {}", selector, this);
+            return;
+        }
         updateKey();
     }
 
@@ -403,6 +446,7 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
         int oldInterestOps;
         int newInterestOps;
         boolean pending;
+        ManagedSelector selector;
         synchronized (this)
         {
             pending = _updatePending;
@@ -410,13 +454,100 @@ public class SocketChannelEndPoint extends AbstractEndPoint implements ManagedSe
             newInterestOps = oldInterestOps | operation;
             if (newInterestOps != oldInterestOps)
                 _desiredInterestOps = newInterestOps;
+            selector = _selector;
         }
 
         if (LOG.isDebugEnabled())
             LOG.debug("changeInterests p={} {}->{} for {}", pending, oldInterestOps, newInterestOps, this);
 
-        if (!pending && _selector != null)
-            _selector.submit(_updateKeyAction);
+        if (!pending && selector != null)
+            selector.submit(_updateKeyAction);
+    }
+
+    /**
+     * <p>Moves this EndPoint to the given selector, if it is idle.</p>
+     * <p>This EndPoint is idle when its current selector is not processing it
+     * and there is no pending change of its interest operations.
+     * When idle, the SelectionKey of the current selector is cancelled and the
+     * channel is registered to the given selector, with the same interest operations.
+     * Changes of the interest operations that happen during the migration are
+     * applied when the channel is registered to the given selector.</p>
+     *
+     * @param selector the selector to move to
+     * @param promise the promise completed with whether this EndPoint has been moved
+     */
+    public void migrate(ManagedSelector selector, Promise<Boolean> promise)
+    {
+        ManagedSelector current = _selector;
+        if (current == null || current == selector || !isOpen())
+        {
+            promise.succeeded(false);
+            return;
+        }
+        current.submit(s -> migrateFrom(s, selector, promise));
+    }
+
+    private void migrateFrom(Selector selector, ManagedSelector target, Promise<Boolean> promise)
+    {
+        // This method runs from the selector thread of the current selector.
+        SelectionKey key;
+        synchronized (this)
+        {
+            key = _key;
+            boolean idle = !_updatePending &&
+                _currentInterestOps == _desiredInterestOps &&
+                key.selector() == selector &&
+                key.isValid();
+            if (idle)
+            {
+                // Hold the changes of interest operations until
+                // the channel is registered to the target selector.
+                _updatePending = true;
+                _selector = target;
+            }
+            else
+            {
+                key = null;
+            }
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("Migrating={} to {} {}", key != null, target, this);
+
+        if (key == null)
+        {
+            promise.succeeded(false);
+            return;
+        }
+
+        key.cancel();
+        target.submit(s -> migrateTo(s, promise));
+    }
+
+    private void migrateTo(Selector selector, Promise<Boolean> promise)
+    {
+        // This method runs from the selector thread of the target selector.
+        try
+        {
+            int interestOps;
+            synchronized (this)
+            {
+                interestOps = _desiredInterestOps;
+                _key = _channel.register(selector, interestOps, this);
+                _currentInterestOps = interestOps;
+                _updatePending = false;
+            }
+            if (LOG.isDebugEnabled())
+                LOG.debug("Migrated with interests {} {}", interestOps, this);
+            promise.succeeded(true);
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Could not migrate {}", this, x);
+            close(x);
+            promise.failed(x);
+        }
     }
 
     @Override
@@ -0,0 +1,276 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A lock-free ByteBuffer pool where ByteBuffers are held in striped arrays of slots.</p>
+ * <p>Like {@link ArrayByteBufferPool}, given a capacity {@code factor} of 1024, the first
+ * bucket holds ByteBuffers each of capacity 1024, the second bucket holds ByteBuffers each
+ * of capacity 2048, and so on.</p>
+ * <p>Rather than a shared queue, each bucket is a fixed array of slots divided in stripes,
+ * one stripe per CPU core (rounded up to a power of two).
+ * A thread acquires and releases buffers by atomically swapping slots, starting from the
+ * stripe selected by its thread id and then probing the following stripe, so that threads
+ * running on different cores rarely contend on the same memory.
+ * When no pooled buffer is found a new one is allocated, and when no free slot is found
+ * the released buffer is discarded, so the retained memory is always bounded.</p>
+ * <p>The retained memory is also bounded by {@code maxHeapMemory} and {@code maxDirectMemory}:
+ * a released buffer that would make the retained memory exceed the maximum is discarded.</p>
+ */
+@ManagedObject
+public class StripedByteBufferPool extends AbstractByteBufferPool
+{
+    private static final Logger LOG = LoggerFactory.getLogger(StripedByteBufferPool.class);
+    // Stripes are spaced by at least 16 references, i.e. 64 bytes with compressed
+    // references, so that threads on different stripes do not share cache lines.
+    private static final int MIN_STRIDE = 16;
+
+    private final int _minCapacity;
+    private final int _stripes;
+    private final int _stripeSize;
+    private final int _stride;
+    private final AtomicReferenceArray<ByteBuffer>[] _direct;
+    private final AtomicReferenceArray<ByteBuffer>[] _indirect;
+
+    /**
+     * Creates a new StripedByteBufferPool with a default configuration.
+     */
+    public StripedByteBufferPool()
+    {
+        this(-1, -1, -1);
+    }
+
+    /**
+     * Creates a new StripedByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     */
+    public StripedByteBufferPool(int minCapacity, int factor, int maxCapacity)
+    {
+        this(minCapacity, factor, maxCapacity, -1, -1, -1);
+    }
+
+    /**
+     * Creates a new StripedByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxQueueLength the maximum number of ByteBuffers retained per capacity, or -1 for a default
+     * @param maxHeapMemory the max heap memory in bytes
+     * @param maxDirectMemory the max direct memory in bytes
+     */
+    @SuppressWarnings("unchecked")
+    public StripedByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxQueueLength, long maxHeapMemory, long maxDirectMemory)
+    {
+        super(factor, maxQueueLength, maxHeapMemory, maxDirectMemory);
+
+        factor = getCapacityFactor();
+        if (minCapacity <= 0)
+            minCapacity = 0;
+        if (maxCapacity <= 0)
+            maxCapacity = 64 * 1024;
+        if ((maxCapacity % factor) != 0 || factor >= maxCapacity)
+            throw new IllegalArgumentException("The capacity factor must be a divisor of maxCapacity");
+        _minCapacity = minCapacity;
+
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() - 1) << 1;
+        _stripes = Math.max(1, Math.min(stripes, 64));
+        _stripeSize = maxQueueLength > 0 ? Math.max(1, maxQueueLength / _stripes) : 8;
+        _stride = Math.max(_stripeSize, MIN_STRIDE);
+
+        int length = maxCapacity / factor;
+        _direct = new AtomicReferenceArray[length];
+        _indirect = new AtomicReferenceArray[length];
+        for (int i = 0; i < length; ++i)
+        {
+            _direct[i] = new AtomicReferenceArray<>(_stripes * _stride);
+            _indirect[i] = new AtomicReferenceArray<>(_stripes * _stride);
+        }
+    }
+
+    @ManagedAttribute("The number of stripes")
+    public int getStripes()
+    {
+        return _stripes;
+    }
+
+    @ManagedAttribute("The number of ByteBuffers retained per stripe and capacity")
+    public int getStripeSize()
+    {
+        return _stripeSize;
+    }
+
+    @Override
+    public ByteBuffer acquire(int size, boolean direct)
+    {
+        int capacity = size < _minCapacity ? size : (bucketFor(size) + 1) * getCapacityFactor();
+        AtomicReferenceArray<ByteBuffer> slots = slotsFor(size, direct);
+        if (slots == null)
+            return newByteBuffer(capacity, direct);
+
+        int stripe = stripe();
+        for (int s = 0; s < 2; ++s)
+        {
+            int offset = ((stripe + s) & (_stripes - 1)) * _stride;
+            for (int i = 0; i < _stripeSize; ++i)
+            {
+                int index = offset + i;
+                // Read before swapping to avoid invalidating the cache line of empty slots.
+                if (slots.get(index) == null)
+                    continue;
+                ByteBuffer buffer = slots.getAndSet(index, null);
+                if (buffer != null)
+                {
+                    decrementMemory(buffer);
+                    return buffer;
+                }
+            }
+        }
+        return newByteBuffer(capacity, direct);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer == null)
+            return;
+
+        int capacity = buffer.capacity();
+        // Validate that this buffer is from this pool.
+        if ((capacity % getCapacityFactor()) != 0)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("ByteBuffer {} does not belong to this pool, discarding it", BufferUtil.toDetailString(buffer));
+            return;
+        }
+
+        boolean direct = buffer.isDirect();
+        AtomicReferenceArray<ByteBuffer> slots = slotsFor(capacity, direct);
+        if (slots == null)
+            return;
+
+        long maxMemory = getMaxMemory(direct);
+        if (maxMemory > 0 && getMemory(direct) + capacity > maxMemory)
+            return;
+
+        BufferUtil.clear(buffer);
+        int stripe = stripe();
+        for (int s = 0; s < 2; ++s)
+        {
+            int offset = ((stripe + s) & (_stripes - 1)) * _stride;
+            for (int i = 0; i < _stripeSize; ++i)
+            {
+                int index = offset + i;
+                if (slots.get(index) == null && slots.compareAndSet(index, null, buffer))
+                {
+                    incrementMemory(buffer);
+                    return;
+                }
+            }
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("No free slot for ByteBuffer {}, discarding it", BufferUtil.toDetailString(buffer));
+    }
+
+    @Override
+    public void clear()
+    {
+        for (int i = 0; i < _direct.length; ++i)
+        {
+            clear(_direct[i]);
+            clear(_indirect[i]);
+        }
+        super.clear();
+    }
+
+    private void clear(AtomicReferenceArray<ByteBuffer> slots)
+    {
+        for (int i = 0; i < slots.length(); ++i)
+        {
+            slots.set(i, null);
+        }
+    }
+
+    private int stripe()
+    {
+        // Thread ids are sequential, so consecutive threads use different stripes.
+        return (int)Thread.currentThread().getId() & (_stripes - 1);
+    }
+
+    private int bucketFor(int capacity)
+    {
+        return (capacity - 1) / getCapacityFactor();
+    }
+
+    private AtomicReferenceArray<ByteBuffer> slotsFor(int capacity, boolean direct)
+    {
+        if (capacity < _minCapacity)
+            return null;
+        int b = bucketFor(capacity);
+        if (b >= _direct.length)
+            return null;
+        return direct ? _direct[b] : _indirect[b];
+    }
+
+    @ManagedAttribute("The number of pooled direct ByteBuffers")
+    public long getDirectByteBufferCount()
+    {
+        return getByteBufferCount(true);
+    }
+
+    @ManagedAttribute("The number of pooled heap ByteBuffers")
+    public long getHeapByteBufferCount()
+    {
+        return getByteBufferCount(false);
+    }
+
+    private long getByteBufferCount(boolean direct)
+    {
+        long count = 0;
+        for (AtomicReferenceArray<ByteBuffer> slots : direct ? _direct : _indirect)
+        {
+            for (int i = 0; i < slots.length(); ++i)
+            {
+                if (slots.get(i) != null)
+                    ++count;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{stripes=%d,stripeSize=%d,heap=%d,direct=%d}",
+            getClass().getSimpleName(), hashCode(), _stripes, _stripeSize, getHeapMemory(), getDirectMemory());
+    }
+}
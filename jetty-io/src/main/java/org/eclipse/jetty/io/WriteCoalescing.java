@@ -0,0 +1,129 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>The configuration and statistics of write coalescing, shared by all the
+ * {@link WriteFlusher}s of the EndPoints created by a connection factory.</p>
+ * <p>When write coalescing is enabled, small writes are copied into a per-EndPoint
+ * aggregation buffer of {@link #getMaxSize() maxSize} bytes, taken from the
+ * {@link ByteBufferPool} of the connection. The aggregated bytes are written to the
+ * network, in a single gathering write, together with the first write that does not
+ * fit the aggregation buffer, or after {@link #getMaxDelay() maxDelay} milliseconds
+ * from the first aggregated write, whichever comes first.</p>
+ * <p>The callbacks of aggregated writes are completed as soon as their bytes have been
+ * copied; a failure to write the aggregated bytes is reported to the next write, or to
+ * the shutdown or close of the EndPoint.</p>
+ * <p>Write coalescing trades latency for fewer system calls, and should only be
+ * enabled when the protocol produces many small writes and when the added latency
+ * is acceptable.</p>
+ *
+ * @see AbstractEndPoint#setWriteCoalescing(WriteCoalescing, ByteBufferPool)
+ */
+@ManagedObject("Write coalescing")
+public class WriteCoalescing
+{
+    private final LongAdder _writes = new LongAdder();
+    private final LongAdder _coalesced = new LongAdder();
+    private final LongAdder _flushes = new LongAdder();
+    private final int _maxSize;
+    private final long _maxDelay;
+
+    /**
+     * @param maxSize the size in bytes of the aggregation buffer
+     * @param maxDelay the max delay in milliseconds before aggregated bytes are written
+     */
+    public WriteCoalescing(int maxSize, long maxDelay)
+    {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Invalid max size " + maxSize);
+        _maxSize = maxSize;
+        _maxDelay = Math.max(0, maxDelay);
+    }
+
+    @ManagedAttribute("The size in bytes of the aggregation buffer")
+    public int getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    @ManagedAttribute("The max delay in milliseconds before aggregated bytes are written")
+    public long getMaxDelay()
+    {
+        return _maxDelay;
+    }
+
+    @ManagedAttribute("The number of writes")
+    public long getWrites()
+    {
+        return _writes.sum();
+    }
+
+    @ManagedAttribute("The number of writes that were aggregated")
+    public long getCoalescedWrites()
+    {
+        return _coalesced.sum();
+    }
+
+    @ManagedAttribute("The number of flushes to the network")
+    public long getFlushes()
+    {
+        return _flushes.sum();
+    }
+
+    @ManagedAttribute("The average number of writes per flush to the network")
+    public double getWritesPerFlush()
+    {
+        long flushes = getFlushes();
+        return flushes == 0 ? 0 : (double)getWrites() / flushes;
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _writes.reset();
+        _coalesced.reset();
+        _flushes.reset();
+    }
+
+    void onWrite(boolean coalesced)
+    {
+        _writes.increment();
+        if (coalesced)
+            _coalesced.increment();
+    }
+
+    void onFlush()
+    {
+        _flushes.increment();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{maxSize=%d,maxDelay=%d,writes=%d,flushes=%d}",
+            getClass().getSimpleName(), hashCode(), getMaxSize(), getMaxDelay(), getWrites(), getFlushes());
+    }
+}
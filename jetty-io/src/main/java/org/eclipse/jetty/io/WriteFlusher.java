@@ -21,18 +21,21 @@ package org.eclipse.jetty.io;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritePendingException;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.Invocable.InvocationType;
+import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,8 +55,17 @@ public abstract class WriteFlusher
     private static final State __IDLE = new IdleState();
     private static final State __WRITING = new WritingState();
     private static final State __COMPLETING = new CompletingState();
+    private static final State __FLUSHING_COALESCED = new WritingState();
+    private static final State __COMPLETING_COALESCED = new CompletingState();
     private final EndPoint _endPoint;
     private final AtomicReference<State> _state = new AtomicReference<>();
+    private final AtomicReference<Runnable> _queued = new AtomicReference<>();
+    private WriteCoalescing _coalescing;
+    private ByteBufferPool _bufferPool;
+    private Scheduler _scheduler;
+    private volatile Aggregate _aggregate;
+    private volatile boolean _flushRequested;
+    private volatile Throwable _coalescedFailure;
 
     static
     {
@@ -78,6 +90,17 @@ public abstract class WriteFlusher
     // From any other state than IDLE a failure will result in an FAILED state which is a terminal state, and
     // the callback is failed with the Throwable which caused the failure.
     //     IDLE-->WRITING--(fail)-->FAILED
+    //
+    // With write coalescing, a small write is aggregated and its callback is completed
+    // as soon as its bytes have been copied, so that the next write can be issued:
+    //     IDLE-->WRITING-->IDLE
+    // The aggregated bytes are written either by the next write that is not aggregated,
+    // or by a task scheduled once per aggregate, like any other write:
+    //     IDLE-->WRITING(flushing coalesced)-->PENDING-->COMPLETING(flushing coalesced)-->IDLE
+    // A write that arrives while the aggregated bytes are being flushed by the scheduled
+    // task is queued, and started when they have been written.
+    // If the scheduled task fails to write the aggregated bytes, the failure is reported
+    // to the next write, or to the shutdown or close of the EndPoint.
 
     protected WriteFlusher(EndPoint endPoint)
     {
@@ -210,11 +233,21 @@ public abstract class WriteFlusher
     {
         private final Callback _callback;
         private final ByteBuffer[] _buffers;
+        private final FileRegion _region;
 
         private PendingState(ByteBuffer[] buffers, Callback callback)
         {
             super(StateType.PENDING);
             _buffers = buffers;
+            _region = null;
+            _callback = callback;
+        }
+
+        private PendingState(FileRegion region, Callback callback)
+        {
+            super(StateType.PENDING);
+            _buffers = null;
+            _region = region;
             _callback = callback;
         }
 
@@ -237,6 +270,27 @@ public abstract class WriteFlusher
             : Invocable.InvocationType.BLOCKING;
     }
 
+    /**
+     * <p>Enables write coalescing, or disables it if the given {@link WriteCoalescing} is null.</p>
+     * <p>Must be called before the first write.</p>
+     *
+     * @param coalescing the write coalescing configuration, or null to disable write coalescing
+     * @param bufferPool the pool of the aggregation buffers
+     * @param scheduler the scheduler used to write the aggregated bytes after the max delay
+     * @see WriteCoalescing
+     */
+    public void setWriteCoalescing(WriteCoalescing coalescing, ByteBufferPool bufferPool, Scheduler scheduler)
+    {
+        _coalescing = bufferPool == null || scheduler == null ? null : coalescing;
+        _bufferPool = bufferPool;
+        _scheduler = scheduler;
+    }
+
+    public WriteCoalescing getWriteCoalescing()
+    {
+        return _coalescing;
+    }
+
     /**
      * Abstract call to be implemented by specific WriteFlushers. It should schedule a call to {@link #completeWrite()}
      * or {@link #onFail(Throwable)} when appropriate.
@@ -252,11 +306,20 @@ public abstract class WriteFlusher
      *
      * If all buffers have been written it calls callback.complete().
      *
+     * If write coalescing is enabled and the buffers fit the aggregation buffer, they are copied into it and
+     * callback.complete() is called once they have been copied.
+     *
      * @param callback the callback to call on either failed or complete
      * @param buffers the buffers to flush to the endpoint
      * @throws WritePendingException if unable to write due to prior pending write
+     * @see #setWriteCoalescing(WriteCoalescing, ByteBufferPool, Scheduler)
      */
     public void write(Callback callback, ByteBuffer... buffers) throws WritePendingException
+    {
+        write(callback, true, buffers);
+    }
+
+    private void write(Callback callback, boolean coalesce, ByteBuffer... buffers) throws WritePendingException
     {
         Objects.requireNonNull(callback);
 
@@ -269,9 +332,45 @@ public abstract class WriteFlusher
         if (DEBUG)
             LOG.debug("write: {} {}", this, BufferUtil.toDetailString(buffers));
 
-        if (!updateState(__IDLE, __WRITING))
-            throw new WritePendingException();
+        if (!startWriting(callback, () -> write(callback, coalesce, buffers)))
+            return;
 
+        Callback writeCallback = callback;
+        ByteBuffer[] writeBuffers = buffers;
+        WriteCoalescing coalescing = _coalescing;
+        if (coalescing != null)
+        {
+            if (coalesce)
+            {
+                boolean coalesced = coalesce(coalescing, buffers);
+                coalescing.onWrite(coalesced);
+                if (coalesced)
+                {
+                    if (toIdle(__WRITING))
+                    {
+                        callback.succeeded();
+                    }
+                    else
+                    {
+                        failAggregate();
+                        fail(callback);
+                    }
+                    return;
+                }
+            }
+            Aggregate aggregate = takeAggregate(callback);
+            if (aggregate != null)
+            {
+                writeCallback = aggregate;
+                writeBuffers = aggregate.prependTo(buffers);
+            }
+        }
+
+        write(__WRITING, writeCallback, writeBuffers);
+    }
+
+    private void write(State writing, Callback callback, ByteBuffer[] buffers)
+    {
         try
         {
             buffers = flush(buffers);
@@ -281,7 +380,7 @@ public abstract class WriteFlusher
                 if (DEBUG)
                     LOG.debug("flushed incomplete");
                 PendingState pending = new PendingState(buffers, callback);
-                if (updateState(__WRITING, pending))
+                if (updateState(writing, pending))
                     onIncompleteFlush();
                 else
                     fail(callback);
@@ -289,7 +388,7 @@ public abstract class WriteFlusher
                 return;
             }
 
-            if (updateState(__WRITING, __IDLE))
+            if (toIdle(writing))
                 callback.succeeded();
             else
                 fail(callback);
@@ -298,13 +397,272 @@ public abstract class WriteFlusher
         {
             if (DEBUG)
                 LOG.debug("write exception", e);
-            if (updateState(__WRITING, new FailedState(e)))
+            if (updateState(writing, new FailedState(e)))
                 callback.failed(e);
             else
                 fail(callback, e);
         }
     }
 
+    /**
+     * Tries to switch state to WRITING. If successful it transfers the given file region to the EndPoint
+     * via {@link EndPoint#transferFrom(FileChannel, long, long)}, otherwise it behaves like
+     * {@link #write(Callback, ByteBuffer...)}: the remaining bytes will be transferred in {@link #completeWrite()}.
+     *
+     * @param callback the callback to call on either failed or complete
+     * @param file the file to transfer bytes from
+     * @param position the position within the file of the first byte to transfer
+     * @param count the number of bytes to transfer
+     * @throws WritePendingException if unable to write due to prior pending write
+     */
+    public void write(Callback callback, FileChannel file, long position, long count) throws WritePendingException
+    {
+        Objects.requireNonNull(callback);
+
+        if (isFailed())
+        {
+            fail(callback);
+            return;
+        }
+
+        if (DEBUG)
+            LOG.debug("write: {} {}@{}+{}", this, file, position, count);
+
+        if (!startWriting(callback, () -> write(callback, file, position, count)))
+            return;
+
+        Callback writeCallback = callback;
+        try
+        {
+            FileRegion region = new FileRegion(file, position, count);
+            WriteCoalescing coalescing = _coalescing;
+            if (coalescing != null)
+            {
+                coalescing.onWrite(false);
+                // The aggregated bytes must be written before the file region.
+                Aggregate aggregate = takeAggregate(callback);
+                if (aggregate != null)
+                {
+                    writeCallback = aggregate;
+                    region._head = aggregate._buffer;
+                }
+            }
+            if (!transfer(region))
+            {
+                if (DEBUG)
+                    LOG.debug("transferred incomplete {}", region);
+                PendingState pending = new PendingState(region, writeCallback);
+                if (updateState(__WRITING, pending))
+                    onIncompleteFlush();
+                else
+                    fail(writeCallback);
+
+                return;
+            }
+
+            if (toIdle(__WRITING))
+                writeCallback.succeeded();
+            else
+                fail(writeCallback);
+        }
+        catch (Throwable e)
+        {
+            if (DEBUG)
+                LOG.debug("write exception", e);
+            if (updateState(__WRITING, new FailedState(e)))
+                writeCallback.failed(e);
+            else
+                fail(writeCallback, e);
+        }
+    }
+
+    /**
+     * <p>Switches the state from IDLE to WRITING, or queues the write if the
+     * aggregated bytes are being flushed by the scheduled task.</p>
+     *
+     * @param callback the callback of the write
+     * @param write the write to start when the aggregated bytes have been flushed
+     * @return true if the state is WRITING, false if the write has been queued
+     * @throws WritePendingException if another write is in progress
+     */
+    private boolean startWriting(Callback callback, Runnable write) throws WritePendingException
+    {
+        Runnable queued = null;
+        while (true)
+        {
+            State state = _state.get();
+            if (state == __IDLE)
+            {
+                if (updateState(__IDLE, __WRITING))
+                    return true;
+                continue;
+            }
+
+            if (!isFlushingCoalesced(state))
+                throw new WritePendingException();
+
+            if (queued == null)
+            {
+                queued = () ->
+                {
+                    try
+                    {
+                        write.run();
+                    }
+                    catch (WritePendingException x)
+                    {
+                        callback.failed(x);
+                    }
+                };
+            }
+            if (!_queued.compareAndSet(null, queued))
+                throw new WritePendingException();
+            if (DEBUG)
+                LOG.debug("queued write {}", this);
+
+            // The flush runs the queued write only if it completes after the write has been queued.
+            if (isFlushingCoalesced(_state.get()) || !_queued.compareAndSet(queued, null))
+                return false;
+        }
+    }
+
+    private boolean isFlushingCoalesced(State state)
+    {
+        if (state == __FLUSHING_COALESCED || state == __COMPLETING_COALESCED)
+            return true;
+        return state instanceof PendingState && isFlushingCoalesced(((PendingState)state)._callback);
+    }
+
+    private boolean isFlushingCoalesced(Callback callback)
+    {
+        return callback instanceof Aggregate && ((Aggregate)callback)._callback == null;
+    }
+
+    private void runQueued()
+    {
+        Runnable queued = _queued.getAndSet(null);
+        if (queued != null)
+            queued.run();
+    }
+
+    private boolean toIdle(State previous)
+    {
+        if (!updateState(previous, __IDLE))
+            return false;
+        // The scheduled flush may have found this WriteFlusher busy.
+        if (_flushRequested)
+            tryFlushCoalesced();
+        return true;
+    }
+
+    private boolean coalesce(WriteCoalescing coalescing, ByteBuffer[] buffers)
+    {
+        long length = BufferUtil.remaining(buffers);
+        Aggregate aggregate = _aggregate;
+        int aggregated = aggregate == null ? 0 : aggregate._buffer.remaining();
+        if (length == 0 || length > coalescing.getMaxSize() - aggregated)
+            return false;
+
+        if (aggregate == null)
+        {
+            aggregate = new Aggregate(_bufferPool.acquire(coalescing.getMaxSize(), true));
+            _aggregate = aggregate;
+            aggregate._task = _scheduler.schedule(this::tryFlushCoalesced, coalescing.getMaxDelay(), TimeUnit.MILLISECONDS);
+        }
+        aggregate.add(buffers);
+        if (DEBUG)
+            LOG.debug("coalesced {} {}", aggregate, this);
+        return true;
+    }
+
+    private Aggregate takeAggregate(Callback callback)
+    {
+        Aggregate aggregate = _aggregate;
+        if (aggregate == null)
+            return null;
+        _aggregate = null;
+        _flushRequested = false;
+        Scheduler.Task task = aggregate._task;
+        if (task != null)
+            task.cancel();
+        aggregate._callback = callback;
+        return aggregate;
+    }
+
+    private void failAggregate()
+    {
+        Aggregate aggregate = takeAggregate(null);
+        if (aggregate != null)
+            fail(aggregate);
+    }
+
+    /**
+     * <p>Writes the bytes aggregated by write coalescing, if this WriteFlusher is idle.</p>
+     * <p>If a write is in progress, the aggregated bytes are written either by that write
+     * or when that write completes.</p>
+     */
+    void tryFlushCoalesced()
+    {
+        if (_coalescing == null)
+            return;
+        _flushRequested = true;
+        if (!updateState(__IDLE, __FLUSHING_COALESCED))
+            return;
+        _flushRequested = false;
+
+        Aggregate aggregate = takeAggregate(null);
+        if (aggregate == null)
+        {
+            toIdle(__FLUSHING_COALESCED);
+            runQueued();
+            return;
+        }
+
+        if (DEBUG)
+            LOG.debug("flush coalesced {} {}", aggregate, this);
+        write(__FLUSHING_COALESCED, aggregate, new ByteBuffer[]{aggregate._buffer});
+    }
+
+    /**
+     * <p>Writes the bytes aggregated by write coalescing, if any, before the output is shutdown.</p>
+     * <p>The callback is failed if previously aggregated bytes could not be written.</p>
+     *
+     * @param callback the callback to call when the aggregated bytes have been written
+     * @return true if there were aggregated bytes to write and the callback will be completed,
+     * false if the callback will not be completed
+     */
+    boolean flushCoalesced(Callback callback)
+    {
+        if (_coalescing == null)
+            return false;
+        Throwable failure = _coalescedFailure;
+        if (failure != null)
+        {
+            callback.failed(failure);
+            return true;
+        }
+        if (_aggregate == null && !isFlushingCoalesced(_state.get()))
+            return false;
+        try
+        {
+            write(callback, false, BufferUtil.EMPTY_BUFFER);
+            return true;
+        }
+        catch (WritePendingException x)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * @return the failure to write bytes aggregated by write coalescing, whose writes
+     * have already been completed, or null if there is no such failure
+     */
+    Throwable getCoalescedFailure()
+    {
+        return _coalescedFailure;
+    }
+
     private void fail(Callback callback, Throwable... suppressed)
     {
         Throwable cause;
@@ -367,12 +725,34 @@ public abstract class WriteFlusher
             return; // failure already handled.
 
         PendingState pending = (PendingState)previous;
-        if (!updateState(pending, __COMPLETING))
+        Callback callback = pending._callback;
+        State completing = isFlushingCoalesced(callback) ? __COMPLETING_COALESCED : __COMPLETING;
+        if (!updateState(pending, completing))
             return; // failure already handled.
 
-        Callback callback = pending._callback;
         try
         {
+            FileRegion region = pending._region;
+            if (region != null)
+            {
+                if (!transfer(region))
+                {
+                    if (DEBUG)
+                        LOG.debug("transferred incomplete {}", region);
+                    if (updateState(completing, pending))
+                        onIncompleteFlush();
+                    else
+                        fail(callback);
+                    return;
+                }
+
+                if (toIdle(completing))
+                    callback.succeeded();
+                else
+                    fail(callback);
+                return;
+            }
+
             ByteBuffer[] buffers = pending.getBuffers();
 
             buffers = flush(buffers);
@@ -383,14 +763,14 @@ public abstract class WriteFlusher
                     LOG.debug("flushed incomplete {}", BufferUtil.toDetailString(buffers));
                 if (buffers != pending.getBuffers())
                     pending = new PendingState(buffers, callback);
-                if (updateState(__COMPLETING, pending))
+                if (updateState(completing, pending))
                     onIncompleteFlush();
                 else
                     fail(callback);
                 return;
             }
 
-            if (updateState(__COMPLETING, __IDLE))
+            if (toIdle(completing))
                 callback.succeeded();
             else
                 fail(callback);
@@ -399,7 +779,7 @@ public abstract class WriteFlusher
         {
             if (DEBUG)
                 LOG.debug("completeWrite exception", e);
-            if (updateState(__COMPLETING, new FailedState(e)))
+            if (updateState(completing, new FailedState(e)))
                 callback.failed(e);
             else
                 fail(callback, e);
@@ -420,6 +800,9 @@ public abstract class WriteFlusher
         {
             long before = BufferUtil.remaining(buffers);
             boolean flushed = _endPoint.flush(buffers);
+            WriteCoalescing coalescing = _coalescing;
+            if (coalescing != null)
+                coalescing.onFlush();
             long after = BufferUtil.remaining(buffers);
             long written = before - after;
 
@@ -470,6 +853,51 @@ public abstract class WriteFlusher
         return buffers == null ? EMPTY_BUFFERS : buffers;
     }
 
+    /**
+     * Transfers the file region iteratively until no progress is made.
+     *
+     * @param region The file region to transfer, updated with the bytes transferred
+     * @return true if the whole region has been transferred
+     * @throws IOException if unable to transfer
+     */
+    private boolean transfer(FileRegion region) throws IOException
+    {
+        ByteBuffer head = region._head;
+        if (head != null)
+        {
+            if (flush(new ByteBuffer[]{head}) != null)
+                return false;
+            region._head = null;
+        }
+
+        while (region._remaining > 0)
+        {
+            long written = _endPoint.transferFrom(region._file, region._position, region._remaining);
+            WriteCoalescing coalescing = _coalescing;
+            if (coalescing != null)
+                coalescing.onFlush();
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Transferred={} remaining={} {}", written, region._remaining - written, this);
+
+            if (written <= 0)
+            {
+                // A file shorter than expected would otherwise keep this WriteFlusher pending forever.
+                if (region._position >= region._file.size())
+                    throw new EofException("Unexpected end of file at " + region._position);
+                return false;
+            }
+
+            region._position += written;
+            region._remaining -= written;
+
+            Connection connection = _endPoint.getConnection();
+            if (connection instanceof Listener)
+                ((Listener)connection).onFlushed(written);
+        }
+        return true;
+    }
+
     /**
      * Notify the flusher of a failure
      *
@@ -486,6 +914,19 @@ public abstract class WriteFlusher
             {
                 case IDLE:
                 case FAILED:
+                    if (current == __IDLE && _aggregate != null)
+                    {
+                        // The aggregated bytes cannot be written anymore, record the failure.
+                        if (!updateState(__IDLE, __WRITING))
+                            break;
+                        if (DEBUG)
+                            LOG.debug("failed: " + this, cause);
+                        Aggregate aggregate = takeAggregate(null);
+                        updateState(__WRITING, new FailedState(cause));
+                        if (aggregate != null)
+                            aggregate.failed(cause);
+                        return false;
+                    }
                     if (DEBUG)
                     {
                         LOG.debug("ignored: {} {}", cause, this);
@@ -524,6 +965,10 @@ public abstract class WriteFlusher
         switch (_state.get().getType())
         {
             case IDLE:
+                if (_aggregate != null)
+                    onFail(new ClosedChannelException());
+                return;
+
             case FAILED:
                 return;
 
@@ -578,6 +1023,102 @@ public abstract class WriteFlusher
         return String.format("WriteFlusher@%x{%s}->%s", hashCode(), s, s instanceof PendingState ? ((PendingState)s)._callback : null);
     }
 
+    /**
+     * <p>The bytes of coalesced writes, whose callbacks have already been completed.</p>
+     * <p>When the aggregated bytes are written together with a later write, they complete
+     * the callback of that write; when they are written by the scheduled task, a failure
+     * is recorded so that it is reported to the next write, shutdown or close.</p>
+     */
+    private class Aggregate implements Callback
+    {
+        private final ByteBuffer _buffer;
+        private int _writes;
+        private Scheduler.Task _task;
+        private Callback _callback;
+
+        private Aggregate(ByteBuffer buffer)
+        {
+            _buffer = buffer;
+        }
+
+        private void add(ByteBuffer[] buffers)
+        {
+            for (ByteBuffer buffer : buffers)
+            {
+                BufferUtil.append(_buffer, buffer);
+            }
+            ++_writes;
+        }
+
+        private ByteBuffer[] prependTo(ByteBuffer[] buffers)
+        {
+            ByteBuffer[] result = new ByteBuffer[buffers.length + 1];
+            result[0] = _buffer;
+            System.arraycopy(buffers, 0, result, 1, buffers.length);
+            return result;
+        }
+
+        @Override
+        public void succeeded()
+        {
+            _bufferPool.release(_buffer);
+            if (_callback == null)
+                runQueued();
+            else
+                _callback.succeeded();
+        }
+
+        @Override
+        public void failed(Throwable x)
+        {
+            _bufferPool.release(_buffer);
+            if (_callback == null)
+            {
+                if (DEBUG)
+                    LOG.debug("failed to write coalesced {} {}", this, WriteFlusher.this, x);
+                _coalescedFailure = x;
+                runQueued();
+            }
+            else
+            {
+                _callback.failed(x);
+            }
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return _callback == null ? InvocationType.NON_BLOCKING : Invocable.getInvocationType(_callback);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{writes=%d,%s}", getClass().getSimpleName(), hashCode(), _writes, BufferUtil.toDetailString(_buffer));
+        }
+    }
+
+    private static class FileRegion
+    {
+        private final FileChannel _file;
+        private ByteBuffer _head;
+        private long _position;
+        private long _remaining;
+
+        private FileRegion(FileChannel file, long position, long count)
+        {
+            _file = file;
+            _position = position;
+            _remaining = count;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%d+%d", _file, _position, _remaining);
+        }
+    }
+
     /**
      * <p>A listener of {@link WriteFlusher} events.
      * If implemented by a Connection class, the {@link #onFlushed(long)} event will be delivered to it.</p>
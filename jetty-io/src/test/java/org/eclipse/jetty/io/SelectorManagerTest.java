@@ -21,15 +21,24 @@ package org.eclipse.jetty.io;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.TimerScheduler;
 import org.junit.jupiter.api.AfterEach;
@@ -37,7 +46,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SelectorManagerTest
@@ -163,4 +179,205 @@ public class SelectorManagerTest
             selectorManager.stop();
         }
     }
+
+    @Test
+    public void testSelectorStatistics() throws Exception
+    {
+        SelectorManager selectorManager = new SelectorManager(executor, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key)
+            {
+                return new SocketChannelEndPoint((SocketChannel)channel, selector, key, getScheduler());
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment)
+            {
+                return new AbstractConnection(endpoint, executor)
+                {
+                    @Override
+                    public void onFillable()
+                    {
+                    }
+                };
+            }
+        };
+        selectorManager.start();
+
+        try
+        {
+            ManagedSelector selector = selectorManager.getBean(ManagedSelector.class);
+            SelectorStatistics statistics = selector.getSelectorStatistics();
+            assertSame(statistics, selector.getBean(SelectorStatistics.class));
+            long selects = statistics.getSelects();
+
+            int updates = 8;
+            for (int i = 0; i < updates; ++i)
+            {
+                CountDownLatch latch = new CountDownLatch(1);
+                selector.submit(s -> latch.countDown());
+                assertTrue(latch.await(5, TimeUnit.SECONDS));
+                // Let the selector go back to select().
+                Thread.sleep(10);
+            }
+
+            // Updates submitted while the selector is blocked in select() wake it up.
+            assertThat(statistics.getWakeups(), greaterThan(0L));
+            assertThat(statistics.getWakeupLatencyMax(), greaterThan(0L));
+            assertThat(statistics.getSelects(), greaterThan(selects));
+            assertThat(statistics.getUpdatesMax(), greaterThanOrEqualTo(1L));
+            assertThat(statistics.getUpdatesTimeMax(), greaterThan(0L));
+
+            statistics.reset();
+            assertEquals(0, statistics.getSelects());
+            assertEquals(0, statistics.getWakeups());
+        }
+        finally
+        {
+            selectorManager.stop();
+        }
+    }
+
+    @Test
+    public void testSelectorBalancingAndMigration() throws Exception
+    {
+        BlockingQueue<SocketChannelEndPoint> endPoints = new LinkedBlockingQueue<>();
+        SelectorManager selectorManager = new SelectorManager(executor, scheduler, 2)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key)
+            {
+                SocketChannelEndPoint endPoint = new SocketChannelEndPoint((SocketChannel)channel, selector, key, getScheduler());
+                endPoints.offer(endPoint);
+                return endPoint;
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment)
+            {
+                return new AbstractConnection(endpoint, executor)
+                {
+                    @Override
+                    public void onOpen()
+                    {
+                        super.onOpen();
+                        fillInterested();
+                    }
+
+                    @Override
+                    public void onFillable()
+                    {
+                        try
+                        {
+                            ByteBuffer buffer = BufferUtil.allocate(64);
+                            int filled = getEndPoint().fill(buffer);
+                            if (filled < 0)
+                            {
+                                getEndPoint().close();
+                                return;
+                            }
+                            getEndPoint().flush(buffer);
+                            fillInterested();
+                        }
+                        catch (IOException x)
+                        {
+                            close();
+                        }
+                    }
+                };
+            }
+        };
+        selectorManager.start();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open())
+        {
+            server.bind(new InetSocketAddress("localhost", 0));
+            SocketAddress address = server.getLocalAddress();
+
+            // Round-robin assignment.
+            List<SocketChannel> clients = new ArrayList<>();
+            List<SocketChannelEndPoint> serverEndPoints = new ArrayList<>();
+            for (int i = 0; i < 4; ++i)
+            {
+                clients.add(SocketChannel.open(address));
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                selectorManager.accept(channel);
+                serverEndPoints.add(endPoints.poll(5, TimeUnit.SECONDS));
+            }
+            ManagedSelector selector1 = serverEndPoints.get(0).getSelector();
+            ManagedSelector selector2 = serverEndPoints.get(1).getSelector();
+            assertNotSame(selector1, selector2);
+
+            // Close the connections of one selector to unbalance the selectors.
+            for (int i = 1; i < 4; i += 2)
+            {
+                clients.get(i).close();
+                SocketChannelEndPoint endPoint = serverEndPoints.get(i);
+                await(() -> !endPoint.isOpen());
+            }
+            await(() -> selector2.size() == 0);
+            assertEquals(2, selector1.size());
+
+            FuturePromise<Boolean> promise = new FuturePromise<>();
+            selectorManager.migrate(serverEndPoints.get(0), promise);
+            assertTrue(promise.get(5, TimeUnit.SECONDS));
+            assertSame(selector2, serverEndPoints.get(0).getSelector());
+            await(() -> selector1.size() == 1 && selector2.size() == 1);
+
+            // The migrated EndPoint still works.
+            echo(clients.get(0));
+            echo(clients.get(2));
+
+            // Not enough imbalance to migrate.
+            promise = new FuturePromise<>();
+            selectorManager.migrate(serverEndPoints.get(2), promise);
+            assertFalse(promise.get(5, TimeUnit.SECONDS));
+            assertSame(selector1, serverEndPoints.get(2).getSelector());
+
+            // A new channel is registered to the least loaded selector.
+            clients.get(2).close();
+            await(() -> selector1.size() == 0);
+            selectorManager.setSelectorBalancing(true);
+            clients.add(SocketChannel.open(address));
+            SocketChannel channel = server.accept();
+            channel.configureBlocking(false);
+            selectorManager.accept(channel);
+            assertSame(selector1, endPoints.poll(5, TimeUnit.SECONDS).getSelector());
+            await(() -> selector1.size() == 1);
+
+            for (SocketChannel c : clients)
+            {
+                c.close();
+            }
+        }
+        finally
+        {
+            selectorManager.stop();
+        }
+    }
+
+    private void echo(SocketChannel client) throws IOException
+    {
+        byte[] bytes = "hello".getBytes(StandardCharsets.UTF_8);
+        client.write(ByteBuffer.wrap(bytes));
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+        while (buffer.hasRemaining())
+        {
+            if (client.read(buffer) < 0)
+                break;
+        }
+        assertArrayEquals(bytes, buffer.array());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean())
+        {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
 }
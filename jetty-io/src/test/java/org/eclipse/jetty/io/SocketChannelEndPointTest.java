@@ -27,11 +27,14 @@ import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
@@ -445,6 +448,49 @@ public class SocketChannelEndPointTest
         }
     }
 
+    @Test
+    public void testFileTransfer() throws Exception
+    {
+        init(new NormalScenario());
+
+        // A file larger than the socket buffers, so that the transfer cannot complete in one go.
+        byte[] data = new byte[8 * 1024 * 1024];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte)('A' + i % 26);
+        }
+        File dir = MavenTestingUtils.getTargetTestingDir();
+        if (!dir.exists())
+            dir.mkdir();
+        File file = File.createTempFile("transfer", ".bin", dir);
+        file.deleteOnExit();
+        Files.write(file.toPath(), data);
+
+        try (Socket client = _scenario.newClient(_connector))
+        {
+            client.setSoTimeout(10000);
+            try (SocketChannel server = _connector.accept();
+                 FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+            {
+                server.configureBlocking(false);
+                _manager.accept(server);
+                assertTrue(_lastEndPointLatch.await(5, TimeUnit.SECONDS));
+                assertTrue(_lastEndPoint.isFileTransferSupported());
+
+                int offset = 1024;
+                FutureCallback callback = new FutureCallback();
+                _lastEndPoint.write(callback, fileChannel, offset, data.length - offset);
+
+                InputStream in = new BufferedInputStream(client.getInputStream());
+                for (int i = offset; i < data.length; i++)
+                {
+                    assertEquals(data[i], (byte)in.read(), "byte #" + i);
+                }
+                callback.get(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("scenarios")
     @Tag("Unstable")
@@ -0,0 +1,206 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedByteBufferPoolTest
+{
+    @Test
+    public void testMinimumRelease()
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(10, 100, 1000);
+
+        for (int size = 1; size <= 9; size++)
+        {
+            ByteBuffer buffer = bufferPool.acquire(size, true);
+            assertTrue(buffer.isDirect());
+            assertEquals(size, buffer.capacity());
+
+            bufferPool.release(buffer);
+            assertEquals(0, bufferPool.getDirectByteBufferCount());
+        }
+    }
+
+    @Test
+    public void testMaxRelease()
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(10, 100, 1000);
+
+        for (int size = 999; size <= 1001; size++)
+        {
+            bufferPool.clear();
+            ByteBuffer buffer = bufferPool.acquire(size, true);
+            assertTrue(buffer.isDirect());
+
+            bufferPool.release(buffer);
+            assertEquals(size <= 1000 ? 1 : 0, bufferPool.getDirectByteBufferCount());
+        }
+    }
+
+    @Test
+    public void testAcquireRelease()
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(10, 100, 1000);
+
+        for (int size = 390; size <= 510; size++)
+        {
+            bufferPool.clear();
+            ByteBuffer buffer = bufferPool.acquire(size, true);
+
+            assertTrue(buffer.isDirect());
+            assertThat(buffer.capacity(), lessThanOrEqualTo(((size + 99) / 100) * 100));
+            assertEquals(0, bufferPool.getDirectByteBufferCount());
+
+            bufferPool.release(buffer);
+            assertEquals(1, bufferPool.getDirectByteBufferCount());
+            assertEquals(buffer.capacity(), bufferPool.getDirectMemory());
+        }
+    }
+
+    @Test
+    public void testAcquireReleaseAcquire()
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(10, 100, 1000);
+
+        for (int size = 390; size <= 510; size++)
+        {
+            bufferPool.clear();
+            ByteBuffer buffer1 = bufferPool.acquire(size, true);
+            bufferPool.release(buffer1);
+            ByteBuffer buffer2 = bufferPool.acquire(size, true);
+            bufferPool.release(buffer2);
+            ByteBuffer buffer3 = bufferPool.acquire(size, false);
+            bufferPool.release(buffer3);
+
+            assertEquals(1, bufferPool.getDirectByteBufferCount());
+            assertEquals(1, bufferPool.getHeapByteBufferCount());
+            assertSame(buffer1, buffer2);
+            assertNotSame(buffer1, buffer3);
+        }
+    }
+
+    @Test
+    public void testReleaseNonPooledBuffer()
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool();
+
+        // Release a few small non-pool buffers
+        bufferPool.release(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+        assertEquals(0, bufferPool.getHeapByteBufferCount());
+        assertEquals(0, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testMaxQueue()
+    {
+        int stripes = new StripedByteBufferPool().getStripes();
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(-1, -1, -1, stripes, -1, -1);
+        assertEquals(1, bufferPool.getStripeSize());
+
+        // Released from the same thread, only the own and the next stripe are probed.
+        ByteBuffer buffer1 = bufferPool.acquire(512, false);
+        ByteBuffer buffer2 = bufferPool.acquire(512, false);
+        ByteBuffer buffer3 = bufferPool.acquire(512, false);
+        bufferPool.release(buffer1);
+        bufferPool.release(buffer2);
+        bufferPool.release(buffer3);
+
+        assertThat(bufferPool.getHeapByteBufferCount(), lessThanOrEqualTo(2L));
+        assertEquals(bufferPool.getHeapByteBufferCount() * 1024, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testMaxMemory()
+    {
+        int factor = 1024;
+        int maxMemory = 11 * 1024;
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(-1, factor, -1, -1, -1, maxMemory);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 20; ++i)
+        {
+            buffers.add(bufferPool.acquire(1024 * (1 + i % 3), true));
+        }
+        buffers.forEach(bufferPool::release);
+
+        assertThat(bufferPool.getDirectMemory(), lessThanOrEqualTo((long)maxMemory));
+    }
+
+    @Test
+    public void testConcurrentAcquireRelease() throws Exception
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool();
+        int threads = 8;
+        int iterations = 10_000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; ++t)
+        {
+            new Thread(() ->
+            {
+                try
+                {
+                    for (int i = 0; i < iterations; ++i)
+                    {
+                        int size = 1 + ThreadLocalRandom.current().nextInt(4 * 1024);
+                        ByteBuffer buffer = bufferPool.acquire(size, ThreadLocalRandom.current().nextBoolean());
+                        assertEquals(0, buffer.remaining());
+                        bufferPool.release(buffer);
+                    }
+                }
+                catch (Throwable x)
+                {
+                    failure.compareAndSet(null, x);
+                }
+                finally
+                {
+                    latch.countDown();
+                }
+            }).start();
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertNull(failure.get());
+
+        long heapCount = bufferPool.getHeapByteBufferCount();
+        long directCount = bufferPool.getDirectByteBufferCount();
+        bufferPool.clear();
+        assertEquals(0, bufferPool.getHeapByteBufferCount());
+        assertEquals(0, bufferPool.getDirectByteBufferCount());
+        assertTrue(heapCount + directCount > 0);
+    }
+}
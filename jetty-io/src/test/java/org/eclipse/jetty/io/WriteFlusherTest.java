@@ -36,6 +36,7 @@ import org.eclipse.jetty.logging.StacklessLogging;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.FutureCallback;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 
@@ -472,6 +473,230 @@ public class WriteFlusherTest
         }
     }
 
+    @Test
+    public void testWriteCoalescing() throws Exception
+    {
+        ScheduledExecutorScheduler scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+        try
+        {
+            ByteArrayEndPoint endPoint = new ByteArrayEndPoint(scheduler, 10000, new byte[0], 4096);
+            endPoint.setGrowOutput(true);
+            WriteCoalescing coalescing = new WriteCoalescing(16, 60000);
+            endPoint.setWriteCoalescing(coalescing, new ArrayByteBufferPool());
+
+            // Small writes are aggregated, and completed as soon as they are copied,
+            // so that the next write can be issued.
+            for (String chunk : new String[]{"How ", "now ", "brown "})
+            {
+                FutureCallback callback = new FutureCallback();
+                endPoint.write(callback, BufferUtil.toBuffer(chunk));
+                assertTrue(callback.isDone());
+                callback.get();
+            }
+            assertEquals("", endPoint.takeOutputString());
+
+            // A write that does not fit is flushed together with the aggregated bytes.
+            FutureCallback callback = new FutureCallback();
+            endPoint.write(callback, BufferUtil.toBuffer("cow, how now brown cow!"));
+            callback.get(1, TimeUnit.SECONDS);
+            assertEquals("How now brown cow, how now brown cow!", endPoint.takeOutputString());
+
+            assertEquals(4, coalescing.getWrites());
+            assertEquals(3, coalescing.getCoalescedWrites());
+            assertEquals(1, coalescing.getFlushes());
+            assertEquals(4.0D, coalescing.getWritesPerFlush());
+        }
+        finally
+        {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testWriteCoalescingDelay() throws Exception
+    {
+        ScheduledExecutorScheduler scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+        try
+        {
+            ByteArrayEndPoint endPoint = new ByteArrayEndPoint(scheduler, 10000, new byte[0], 4096);
+            WriteCoalescing coalescing = new WriteCoalescing(1024, 10);
+            endPoint.setWriteCoalescing(coalescing, new ArrayByteBufferPool());
+
+            FutureCallback callback = new FutureCallback();
+            endPoint.write(callback, BufferUtil.toBuffer("How now brown cow!"));
+            assertTrue(callback.isDone());
+            assertEquals("", endPoint.takeOutputString());
+
+            // The aggregated bytes are flushed after the delay.
+            ByteBuffer output = endPoint.waitForOutput(5, TimeUnit.SECONDS);
+            assertEquals("How now brown cow!", BufferUtil.toString(output));
+
+            // Writes are possible after the scheduled flush.
+            callback = new FutureCallback();
+            endPoint.write(callback, BufferUtil.toBuffer("Hello"));
+            output = endPoint.waitForOutput(5, TimeUnit.SECONDS);
+            assertEquals("Hello", BufferUtil.toString(output));
+            callback.get(5, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testWriteCoalescingQueuedBehindDelayedFlush() throws Exception
+    {
+        ScheduledExecutorScheduler scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+        try
+        {
+            // The output is too small for the aggregated bytes, so the scheduled flush is incomplete.
+            ByteArrayEndPoint endPoint = new ByteArrayEndPoint(scheduler, 10000, new byte[0], 8);
+            endPoint.setWriteCoalescing(new WriteCoalescing(1024, 10), new ArrayByteBufferPool());
+
+            FutureCallback callback1 = new FutureCallback();
+            endPoint.write(callback1, BufferUtil.toBuffer("How now brown cow!"));
+            callback1.get(5, TimeUnit.SECONDS);
+            assertTrue(waitForPending(endPoint.getWriteFlusher()));
+
+            // The next write, issued during the scheduled flush, is queued rather than failed.
+            FutureCallback callback2 = new FutureCallback();
+            endPoint.write(callback2, BufferUtil.toBuffer(" Hello"));
+            assertFalse(callback2.isDone());
+
+            StringBuilder output = new StringBuilder();
+            while (output.length() < 24)
+            {
+                output.append(BufferUtil.toString(endPoint.waitForOutput(5, TimeUnit.SECONDS)));
+            }
+            assertEquals("How now brown cow! Hello", output.toString());
+            callback2.get(5, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            scheduler.stop();
+        }
+    }
+
+    private boolean waitForPending(WriteFlusher flusher) throws InterruptedException
+    {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < end)
+        {
+            if (flusher.isPending())
+                return true;
+            Thread.sleep(1);
+        }
+        return false;
+    }
+
+    @Test
+    public void testWriteCoalescingFailedFlush() throws Exception
+    {
+        ScheduledExecutorScheduler scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+        try
+        {
+            ByteArrayEndPoint endPoint = new ByteArrayEndPoint(scheduler, 10000, new byte[0], 4096)
+            {
+                @Override
+                public boolean flush(ByteBuffer... buffers) throws IOException
+                {
+                    throw new IOException("Broken pipe");
+                }
+            };
+            ArrayByteBufferPool bufferPool = new ArrayByteBufferPool();
+            endPoint.setWriteCoalescing(new WriteCoalescing(1024, 10), bufferPool);
+
+            FutureCallback callback1 = new FutureCallback();
+            endPoint.write(callback1, BufferUtil.toBuffer("How now brown cow!"));
+            callback1.get(5, TimeUnit.SECONDS);
+
+            // The scheduled flush fails after the aggregated write has been completed.
+            WriteFlusher flusher = endPoint.getWriteFlusher();
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flusher.getCoalescedFailure() == null && System.nanoTime() < end)
+            {
+                Thread.sleep(1);
+            }
+            assertThat(flusher.getCoalescedFailure().getMessage(), containsString("Broken pipe"));
+            // The aggregation buffer has been returned to the pool.
+            assertEquals(1, bufferPool.getDirectByteBufferCount());
+
+            // The failure is reported to the next write.
+            FutureCallback callback2 = new FutureCallback();
+            endPoint.write(callback2, BufferUtil.toBuffer("Hello"));
+            ExecutionException x = assertThrows(ExecutionException.class, () -> callback2.get(5, TimeUnit.SECONDS));
+            assertThat(x.getCause().getMessage(), containsString("Broken pipe"));
+
+            // The failure is reported to the shutdown of the output, which closes the EndPoint.
+            endPoint.shutdownOutput();
+            assertFalse(endPoint.isOpen());
+        }
+        finally
+        {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testWriteCoalescingClose() throws Exception
+    {
+        ScheduledExecutorScheduler scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+        try
+        {
+            ByteArrayEndPoint endPoint = new ByteArrayEndPoint(scheduler, 10000, new byte[0], 4096);
+            endPoint.setWriteCoalescing(new WriteCoalescing(1024, 60000), new ArrayByteBufferPool());
+
+            FutureCallback callback1 = new FutureCallback();
+            endPoint.write(callback1, BufferUtil.toBuffer("How now brown cow!"));
+            callback1.get(5, TimeUnit.SECONDS);
+
+            // Aggregated bytes are not written when the EndPoint is aborted.
+            endPoint.close(new IOException("Aborted"));
+            assertEquals("", endPoint.takeOutputString());
+            assertThat(endPoint.getWriteFlusher().getCoalescedFailure().getMessage(), containsString("Aborted"));
+
+            FutureCallback callback2 = new FutureCallback();
+            endPoint.write(callback2, BufferUtil.toBuffer("Hello"));
+            assertThrows(ExecutionException.class, () -> callback2.get(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testWriteCoalescingShutdownOutput() throws Exception
+    {
+        ScheduledExecutorScheduler scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+        try
+        {
+            ByteArrayEndPoint endPoint = new ByteArrayEndPoint(scheduler, 10000, new byte[0], 4096);
+            endPoint.setWriteCoalescing(new WriteCoalescing(1024, 60000), new ArrayByteBufferPool());
+
+            FutureCallback callback = new FutureCallback();
+            endPoint.write(callback, BufferUtil.toBuffer("How now brown cow!"));
+            callback.get(5, TimeUnit.SECONDS);
+            assertEquals("", endPoint.takeOutputString());
+
+            // The aggregated bytes are flushed before the output is shutdown.
+            endPoint.shutdownOutput();
+            assertTrue(endPoint.isOutputShutdown());
+            assertEquals("How now brown cow!", endPoint.takeOutputString());
+        }
+        finally
+        {
+            scheduler.stop();
+        }
+    }
+
     private static class ConcurrentWriteFlusher extends WriteFlusher implements Runnable
     {
         private final ByteArrayEndPoint endPoint;
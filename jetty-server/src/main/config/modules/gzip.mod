@@ -32,6 +32,13 @@ etc/jetty-gzip.xml
 ## Deflater pool max size (-1 for unlimited, 0 for no pool)
 # jetty.gzip.deflaterPoolCapacity=-1
 
+## Comma separated list of content codings, in order of preference,
+## that are used if a compression codec is available for them
+# jetty.gzip.compressionEncodingList=br,zstd,gzip
+
+## Max bytes of compressed content cached for responses with a strong ETag (0 for no cache)
+# jetty.gzip.maxCompressedCacheSize=0
+
 ## Comma separated list of included methods
 # jetty.gzip.includedMethodList=GET
 
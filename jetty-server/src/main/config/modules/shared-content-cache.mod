@@ -0,0 +1,29 @@
+# DO NOT EDIT - See: https://www.eclipse.org/jetty/documentation/current/startup-modules.html
+
+[description]
+Enables a static content cache shared by all the contexts of the server.
+The DefaultServlet of every context loads the content of cached files
+from this cache, which holds it once in direct or memory mapped buffers.
+
+[tags]
+server
+
+[depend]
+server
+
+[xml]
+etc/jetty-shared-content-cache.xml
+
+[ini-template]
+### Shared Content Cache Configuration
+## The max size in bytes of the direct buffers of the cache
+# jetty.sharedContentCache.maxCacheSize=268435456
+
+## The max size in bytes of a cached file
+# jetty.sharedContentCache.maxCachedFileSize=134217728
+
+## The max number of cached files
+# jetty.sharedContentCache.maxCachedFiles=2048
+
+## Whether files are memory mapped rather than copied into direct buffers
+# jetty.sharedContentCache.useFileMappedBuffer=false
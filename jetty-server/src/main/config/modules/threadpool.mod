@@ -26,3 +26,7 @@ etc/jetty-threadpool.xml
 
 ## Whether to Output a Detailed Dump
 #jetty.threadPool.detailedDump=false
+
+## Whether blocking tasks, such as the handling of requests,
+## run in virtual threads (if supported by the JVM)
+#jetty.threadPool.useVirtualThreads=false
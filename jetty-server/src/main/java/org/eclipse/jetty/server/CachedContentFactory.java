@@ -26,12 +26,13 @@ import java.nio.channels.ReadableByteChannel;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.DateGenerator;
@@ -44,15 +45,42 @@ import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.PrecompressedHttpContent;
 import org.eclipse.jetty.http.ResourceHttpContent;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.FrequencySketch;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * <p>A {@link HttpContent.ContentFactory} that caches the metadata and the
+ * content of resources, bounded by number of files and by bytes.</p>
+ * <p>Eviction follows a segmented LRU policy: new entries enter a probation
+ * segment and are promoted to a protected segment when they are hit again,
+ * so that a scan of many resources accessed only once (for example by a
+ * crawler) only churns the probation segment and does not evict the hot
+ * resources. When the cache is full, a new entry is admitted only if its
+ * estimated access frequency, tracked by a {@link FrequencySketch}, is not
+ * lower than that of the entry it would evict (the TinyLFU admission policy).
+ * Admission, promotion and eviction are all O(1).</p>
+ * <p>Cache hits do not take the lock that guards the segments: they are recorded
+ * in per-thread stripes of small lossy buffers, which are drained in batches under
+ * the lock when they fill up and before an admission or eviction decision is made.
+ * Hits recorded while a buffer is full and being drained may be lost, which only
+ * slightly degrades the recency and frequency estimates.</p>
+ */
+@ManagedObject("Cache of static content")
 public class CachedContentFactory implements HttpContent.ContentFactory
 {
     private static final Logger LOG = LoggerFactory.getLogger(CachedContentFactory.class);
     private static final Map<CompressedContentFormat, CachedPrecompressedHttpContent> NO_PRECOMPRESSED = Collections.unmodifiableMap(Collections.emptyMap());
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFERS = Integer.highestOneBit(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 64) - 1)) << 1;
 
     private final ConcurrentMap<String, CachedHttpContent> _cache;
     private final AtomicInteger _cachedSize;
@@ -63,6 +91,17 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     private final boolean _etags;
     private final CompressedContentFormat[] _precompressedFormats;
     private final boolean _useFileMappedBuffer;
+    private final AutoLock _lock = new AutoLock();
+    private final Segment _probation = new Segment();
+    private final Segment _protected = new Segment();
+    private final ReadBuffer[] _readBuffers = new ReadBuffer[READ_BUFFERS];
+    private final AtomicBoolean _draining = new AtomicBoolean();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final LongAdder _rejections = new LongAdder();
+    private volatile FrequencySketch _sketch;
+    private volatile SharedContentCache _sharedContentCache;
 
     private int _maxCachedFileSize = 128 * 1024 * 1024;
     private int _maxCachedFiles = 2048;
@@ -89,18 +128,72 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         _useFileMappedBuffer = useFileMappedBuffer;
         _etags = etags;
         _precompressedFormats = precompressedFormats;
+        _sketch = new FrequencySketch(_maxCachedFiles);
+        for (int i = 0; i < _readBuffers.length; i++)
+        {
+            _readBuffers[i] = new ReadBuffer();
+        }
     }
 
+    @ManagedAttribute("The number of bytes of cached content")
     public int getCachedSize()
     {
         return _cachedSize.get();
     }
 
+    @ManagedAttribute("The number of cached files")
     public int getCachedFiles()
     {
         return _cachedFiles.get();
     }
 
+    /**
+     * @return the number of lookups that found valid content in this cache
+     */
+    @ManagedAttribute("The number of lookups that found valid cached content")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that did not find valid content in this cache
+     */
+    @ManagedAttribute("The number of lookups that did not find valid cached content")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    /**
+     * @return the number of entries evicted to keep the cache within its limits
+     */
+    @ManagedAttribute("The number of cached entries evicted to keep the cache within its limits")
+    public long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    /**
+     * @return the number of cacheable resources not cached because they were
+     * less popular than the entry they would have evicted
+     */
+    @ManagedAttribute("The number of cacheable resources not admitted because they were less popular than the eviction victim")
+    public long getRejections()
+    {
+        return _rejections.sum();
+    }
+
+    @ManagedOperation(value = "Resets the cache statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+        _rejections.reset();
+    }
+
+    @ManagedAttribute("The max size in bytes of a cached file")
     public int getMaxCachedFileSize()
     {
         return _maxCachedFileSize;
@@ -112,6 +205,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         shrinkCache();
     }
 
+    @ManagedAttribute("The max size in bytes of the cache")
     public int getMaxCacheSize()
     {
         return _maxCacheSize;
@@ -126,6 +220,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     /**
      * @return the max number of cached files.
      */
+    @ManagedAttribute("The max number of cached files")
     public int getMaxCachedFiles()
     {
         return _maxCachedFiles;
@@ -137,6 +232,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     public void setMaxCachedFiles(int maxCachedFiles)
     {
         _maxCachedFiles = maxCachedFiles;
+        _sketch = new FrequencySketch(maxCachedFiles);
         shrinkCache();
     }
 
@@ -145,8 +241,35 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return _useFileMappedBuffer;
     }
 
+    /**
+     * @return the server wide cache the direct buffers are loaded from, or null
+     */
+    public SharedContentCache getSharedContentCache()
+    {
+        return _sharedContentCache;
+    }
+
+    /**
+     * <p>Sets the server wide cache to load direct buffers from, so that the content
+     * of files served by many contexts is held only once. The direct buffers obtained
+     * from the shared cache count towards the {@link #getCachedSize() cached size} of
+     * this cache, as they are kept alive by its entries, until either cache evicts them.</p>
+     *
+     * @param sharedContentCache the server wide cache, or null to cache direct buffers locally
+     */
+    public void setSharedContentCache(SharedContentCache sharedContentCache)
+    {
+        _sharedContentCache = sharedContentCache;
+    }
+
+    @ManagedOperation(value = "Flushes the cache", impact = "ACTION")
     public void flushCache()
     {
+        // Drop the recorded hits, so they do not retain flushed entries.
+        try (AutoLock l = _lock.lock())
+        {
+            drainReadBuffers();
+        }
         while (_cache.size() > 0)
         {
             for (String path : _cache.keySet())
@@ -176,7 +299,13 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         // Is the content in this cache?
         CachedHttpContent content = _cache.get(pathInContext);
         if (content != null && (content).isValid())
+        {
+            _hits.increment();
+            recordHit(content);
             return content;
+        }
+        _misses.increment();
+        _sketch.increment(pathInContext.hashCode());
 
         // try loading the content from our factory.
         Resource resource = _factory.getResource(pathInContext);
@@ -218,8 +347,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         if (resource.isDirectory())
             return new ResourceHttpContent(resource, _mimeTypes.getMimeByExtension(resource.toString()), getMaxCachedFileSize());
 
-        // Will it fit in the cache?
-        if (isCacheable(resource))
+        // Will it fit in the cache, and is it worth evicting another entry?
+        if (isCacheable(resource) && admit(pathInContext))
         {
             CachedHttpContent content;
 
@@ -245,6 +374,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                                 compressedContent.invalidate();
                                 compressedContent = added;
                             }
+                            else
+                            {
+                                insert(compressedContent);
+                            }
                         }
                     }
                     if (compressedContent != null)
@@ -262,6 +395,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                 content.invalidate();
                 content = added;
             }
+            else
+            {
+                insert(content);
+            }
 
             return content;
         }
@@ -293,34 +430,187 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return new ResourceHttpContent(resource, mt, maxBufferSize);
     }
 
-    private void shrinkCache()
+    /**
+     * <p>TinyLFU admission: when the cache is full, a resource is cached only if
+     * it has been accessed at least as often as the entry that would be evicted.</p>
+     *
+     * @param pathInContext the key of the resource to cache
+     * @return whether the resource should be cached
+     */
+    private boolean admit(String pathInContext)
+    {
+        if (_cachedFiles.get() < _maxCachedFiles)
+            return true;
+
+        FrequencySketch sketch = _sketch;
+        try (AutoLock l = _lock.lock())
+        {
+            drainReadBuffers();
+            CachedHttpContent victim = victim(null);
+            if (victim == null || sketch.frequency(pathInContext.hashCode()) >= sketch.frequency(victim._key.hashCode()))
+                return true;
+        }
+        _rejections.increment();
+        if (LOG.isDebugEnabled())
+            LOG.debug("Not admitted {} in {}", pathInContext, this);
+        return false;
+    }
+
+    /**
+     * <p>Records a hit in the read buffer of the current thread, draining
+     * the read buffers if it is full and no other thread is draining them.</p>
+     *
+     * @param content the content that was hit
+     */
+    private void recordHit(CachedHttpContent content)
     {
-        // While we need to shrink
-        while (_cache.size() > 0 && (_cachedFiles.get() > _maxCachedFiles || _cachedSize.get() > _maxCacheSize))
+        ReadBuffer buffer = _readBuffers[(int)Thread.currentThread().getId() & (READ_BUFFERS - 1)];
+        if (buffer.offer(content))
+            return;
+        if (_draining.compareAndSet(false, true))
         {
-            // Scan the entire cache and generate an ordered list by last accessed time.
-            SortedSet<CachedHttpContent> sorted = new TreeSet<>((c1, c2) ->
+            try (AutoLock l = _lock.lock())
             {
-                if (c1._lastAccessed < c2._lastAccessed)
-                    return -1;
+                drainReadBuffers();
+            }
+            finally
+            {
+                _draining.set(false);
+            }
+        }
+    }
 
-                if (c1._lastAccessed > c2._lastAccessed)
-                    return 1;
+    /**
+     * <p>Applies the hits recorded in the read buffers to the frequency sketch
+     * and to the segments. Must be called with {@code _lock} held.</p>
+     */
+    private void drainReadBuffers()
+    {
+        FrequencySketch sketch = _sketch;
+        for (ReadBuffer buffer : _readBuffers)
+        {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++)
+            {
+                CachedHttpContent content = buffer._hits.getAndSet(i, null);
+                if (content != null)
+                {
+                    sketch.increment(content._key.hashCode());
+                    promote(content);
+                }
+            }
+            buffer._size.set(0);
+        }
+    }
 
-                if (c1._contentLengthValue < c2._contentLengthValue)
-                    return -1;
+    private void insert(CachedHttpContent content)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            // The content may have been invalidated concurrently.
+            if (_cache.get(content._key) != content)
+                return;
+            _probation.addFirst(content);
+            content._segment = PROBATION;
+        }
+        if (_cachedFiles.get() > _maxCachedFiles)
+            shrinkCache(content);
+    }
 
-                return c1._key.compareTo(c2._key);
-            });
-            sorted.addAll(_cache.values());
+    /**
+     * <p>Moves the content to the head of the protected segment. Must be called with {@code _lock} held.</p>
+     *
+     * @param content the content that was hit
+     */
+    private void promote(CachedHttpContent content)
+    {
+        switch (content._segment)
+        {
+            case PROBATION:
+            {
+                _probation.remove(content);
+                _protected.addFirst(content);
+                content._segment = PROTECTED;
+                // Keep the probation segment at least 1/5 of the
+                // max files, demoting the least recently used.
+                int maxProtected = _maxCachedFiles - _maxCachedFiles / 5;
+                while (_protected._size > maxProtected)
+                {
+                    CachedHttpContent demoted = _protected._tail;
+                    _protected.remove(demoted);
+                    _probation.addFirst(demoted);
+                    demoted._segment = PROBATION;
+                }
+                break;
+            }
+            case PROTECTED:
+            {
+                _protected.remove(content);
+                _protected.addFirst(content);
+                break;
+            }
+            default:
+                break;
+        }
+    }
 
-            // Invalidate least recently used first
-            for (CachedHttpContent content : sorted)
+    private void unlink(CachedHttpContent content)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            switch (content._segment)
             {
-                if (_cachedFiles.get() <= _maxCachedFiles && _cachedSize.get() <= _maxCacheSize)
+                case PROBATION:
+                    _probation.remove(content);
                     break;
-                if (content == _cache.remove(content.getKey()))
-                    content.invalidate();
+                case PROTECTED:
+                    _protected.remove(content);
+                    break;
+                default:
+                    break;
+            }
+            content._segment = 0;
+        }
+    }
+
+    private CachedHttpContent victim(CachedHttpContent exclude)
+    {
+        CachedHttpContent victim = _probation._tail;
+        if (victim != null && victim == exclude)
+            victim = exclude._prev;
+        if (victim == null)
+            victim = _protected._tail;
+        return victim;
+    }
+
+    private void shrinkCache()
+    {
+        shrinkCache(null);
+    }
+
+    private void shrinkCache(CachedHttpContent exclude)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            drainReadBuffers();
+            // Evict from the probation segment first, then from the protected one.
+            while (_cachedFiles.get() > _maxCachedFiles || _cachedSize.get() > _maxCacheSize)
+            {
+                CachedHttpContent victim = victim(exclude);
+                if (victim == null)
+                    victim = exclude;
+                if (victim == null || victim._segment == 0)
+                    break;
+                if (victim == exclude)
+                    exclude = null;
+                if (_cache.remove(victim._key, victim))
+                {
+                    _evictions.increment();
+                    victim.invalidate();
+                }
+                else
+                {
+                    unlink(victim);
+                }
             }
         }
     }
@@ -395,7 +685,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         private final AtomicReference<ByteBuffer> _indirectBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _directBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _mappedBuffer = new AtomicReference<>();
-        private volatile long _lastAccessed;
+        private final AtomicReference<SharedContentCache.Entry> _sharedEntry = new AtomicReference<>();
+        // The segmented LRU links, guarded by _lock.
+        private CachedHttpContent _prev;
+        private CachedHttpContent _next;
+        private int _segment;
 
         CachedHttpContent(String pathInContext, Resource resource, Map<CompressedContentFormat, CachedHttpContent> precompressedResources)
         {
@@ -415,10 +709,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             _contentLengthValue = exists ? resource.length() : 0;
             _contentLength = new PreEncodedHttpField(HttpHeader.CONTENT_LENGTH, Long.toString(_contentLengthValue));
 
-            if (_cachedFiles.incrementAndGet() > _maxCachedFiles)
-                shrinkCache();
-
-            _lastAccessed = System.currentTimeMillis();
+            _cachedFiles.incrementAndGet();
 
             _etag = CachedContentFactory.this._etags ? new PreEncodedHttpField(HttpHeader.ETAG, resource.getWeakETag()) : null;
 
@@ -467,10 +758,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         boolean isValid()
         {
             if (_lastModifiedValue == _resource.lastModified() && _contentLengthValue == _resource.length())
-            {
-                _lastAccessed = System.currentTimeMillis();
                 return true;
-            }
 
             if (this == _cache.remove(_key))
                 invalidate();
@@ -479,6 +767,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
 
         protected void invalidate()
         {
+            unlink(this);
+
             ByteBuffer indirect = _indirectBuffer.getAndSet(null);
             if (indirect != null)
                 _cachedSize.addAndGet(-BufferUtil.length(indirect));
@@ -489,6 +779,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
 
             _mappedBuffer.getAndSet(null);
 
+            SharedContentCache.Entry shared = _sharedEntry.getAndSet(null);
+            if (shared != null)
+                _cachedSize.addAndGet(-shared.getSize());
+
             _cachedFiles.decrementAndGet();
             _resource.close();
         }
@@ -579,16 +873,47 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return buffer == null ? null : buffer.asReadOnlyBuffer();
         }
 
+        /**
+         * @return the buffer of the shared cache entry, or null if there is
+         * no such entry or if it has been evicted from the shared cache
+         */
+        private ByteBuffer getSharedBuffer()
+        {
+            SharedContentCache.Entry entry = _sharedEntry.get();
+            if (entry == null)
+                return null;
+            ByteBuffer buffer = entry.getBuffer();
+            // Evicted from the shared cache, drop it so that it is not counted any more.
+            if (buffer == null && _sharedEntry.compareAndSet(entry, null))
+                _cachedSize.addAndGet(-entry.getSize());
+            return buffer;
+        }
+
         @Override
         public ByteBuffer getDirectBuffer()
         {
             ByteBuffer buffer = _mappedBuffer.get();
+            if (buffer == null)
+                buffer = getSharedBuffer();
             if (buffer == null)
                 buffer = _directBuffer.get();
             if (buffer == null)
             {
-                ByteBuffer mapped = CachedContentFactory.this.getMappedBuffer(_resource);
-                if (mapped != null)
+                SharedContentCache sharedContentCache = _sharedContentCache;
+                SharedContentCache.Entry entry = sharedContentCache == null ? null : sharedContentCache.getEntry(_resource);
+                ByteBuffer shared = entry == null ? null : entry.getBuffer();
+                ByteBuffer mapped = shared == null ? CachedContentFactory.this.getMappedBuffer(_resource) : null;
+                if (shared != null)
+                {
+                    buffer = shared;
+                    if (_sharedEntry.compareAndSet(null, entry))
+                    {
+                        // The shared buffer is reachable from this cache, so it counts towards its size.
+                        if (_cachedSize.addAndGet(entry.getSize()) > _maxCacheSize)
+                            shrinkCache();
+                    }
+                }
+                else if (mapped != null)
                 {
                     if (_mappedBuffer.compareAndSet(null, mapped))
                         buffer = mapped;
@@ -717,4 +1042,66 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return "Cached" + super.toString();
         }
     }
+
+    /**
+     * <p>A lossy buffer of recorded cache hits, drained under {@code _lock}.</p>
+     */
+    private static class ReadBuffer
+    {
+        private final AtomicReferenceArray<CachedHttpContent> _hits = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicInteger _size = new AtomicInteger();
+
+        /**
+         * @param content the content that was hit
+         * @return false if the buffer is full and the hit was not recorded, or
+         * if the hit filled the buffer, true otherwise
+         */
+        private boolean offer(CachedHttpContent content)
+        {
+            if (_size.get() >= READ_BUFFER_SIZE)
+                return false;
+            int index = _size.getAndIncrement();
+            if (index >= READ_BUFFER_SIZE)
+                return false;
+            _hits.lazySet(index, content);
+            return index < READ_BUFFER_SIZE - 1;
+        }
+    }
+
+    /**
+     * <p>A doubly linked list of cached entries, most recently used first, guarded by {@code _lock}.</p>
+     */
+    private static class Segment
+    {
+        private CachedHttpContent _head;
+        private CachedHttpContent _tail;
+        private int _size;
+
+        private void addFirst(CachedHttpContent content)
+        {
+            content._prev = null;
+            content._next = _head;
+            if (_head == null)
+                _tail = content;
+            else
+                _head._prev = content;
+            _head = content;
+            _size++;
+        }
+
+        private void remove(CachedHttpContent content)
+        {
+            if (content._prev == null)
+                _head = content._next;
+            else
+                content._prev._next = content._next;
+            if (content._next == null)
+                _tail = content._prev;
+            else
+                content._next._prev = content._prev;
+            content._prev = null;
+            content._next = null;
+            _size--;
+        }
+    }
 }
@@ -21,6 +21,7 @@ package org.eclipse.jetty.server;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.EventListener;
 import java.util.List;
@@ -932,6 +933,43 @@ public class HttpChannel implements Runnable, HttpOutput.Interceptor
         sendResponse(null, content, complete, callback);
     }
 
+    /**
+     * @return whether committed response content may be written with
+     * {@link #transfer(FileChannel, long, long, Callback)}
+     */
+    public boolean isFileTransferSupported()
+    {
+        return false;
+    }
+
+    /**
+     * <p>Non-Blocking transfer of a file region as response content directly to the {@link EndPoint},
+     * bypassing the {@link HttpTransport} and any {@link HttpOutput.Interceptor}.</p>
+     * <p>The response must have been committed and {@link #isFileTransferSupported()} must be true.
+     * The response must be completed by a subsequent call to {@link #write(ByteBuffer, boolean, Callback)}.
+     * The transferred bytes are not notified to {@link Listener#onResponseContent(Request, ByteBuffer)}.</p>
+     *
+     * @param file the file to transfer content from
+     * @param position the position within the file of the first byte to transfer
+     * @param count the number of bytes to transfer
+     * @param callback Callback when complete or failed
+     */
+    public void transfer(FileChannel file, long position, long count, Callback callback)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("transfer {}@{}+{} {}", file, position, count, callback);
+
+        _endPoint.write(new Callback.Nested(callback)
+        {
+            @Override
+            public void succeeded()
+            {
+                _written += count;
+                super.succeeded();
+            }
+        }, file, position, count);
+    }
+
     @Override
     public void resetBuffer()
     {
@@ -295,6 +295,19 @@ public class HttpChannelOverHttp extends HttpChannel implements HttpParser.Reque
         return true;
     }
 
+    @Override
+    public boolean isFileTransferSupported()
+    {
+        // Content written directly to the EndPoint must not need any framing.
+        HttpGenerator generator = _httpConnection.getGenerator();
+        return getHttpConfiguration().isUseOutputFileTransfer() &&
+            getEndPoint().isFileTransferSupported() &&
+            generator.isCommitted() &&
+            !generator.isChunking() &&
+            !generator.isNoContent() &&
+            !HttpMethod.HEAD.is(getRequest().getMethod());
+    }
+
     @Override
     public boolean isUseOutputDirectByteBuffers()
     {
@@ -25,6 +25,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.jetty.http.CookieCompliance;
 import org.eclipse.jetty.http.HttpCompliance;
+import org.eclipse.jetty.http.HttpFieldCache;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
 import org.eclipse.jetty.util.Jetty;
@@ -58,6 +59,7 @@ public class HttpConfiguration implements Dumpable
     private int _responseHeaderSize = 8 * 1024;
     private int _headerCacheSize = 1024;
     private boolean _headerCacheCaseSensitive = false;
+    private HttpFieldCache _httpFieldCache;
     private int _securePort;
     private long _idleTimeout = -1;
     private String _secureScheme = HttpScheme.HTTPS.asString();
@@ -69,6 +71,10 @@ public class HttpConfiguration implements Dumpable
     private int _maxErrorDispatches = 10;
     private boolean _useInputDirectByteBuffers = true;
     private boolean _useOutputDirectByteBuffers = true;
+    private boolean _useOutputFileTransfer = true;
+    private boolean _useOutputAsyncFileRead = false;
+    private int _writeCoalescingSize;
+    private long _writeCoalescingDelay;
     private long _minRequestDataRate;
     private long _minResponseDataRate;
     private HttpCompliance _httpCompliance = HttpCompliance.RFC7230;
@@ -127,6 +133,7 @@ public class HttpConfiguration implements Dumpable
         _responseHeaderSize = config._responseHeaderSize;
         _headerCacheSize = config._headerCacheSize;
         _headerCacheCaseSensitive = config._headerCacheCaseSensitive;
+        _httpFieldCache = config._httpFieldCache;
         _secureScheme = config._secureScheme;
         _securePort = config._securePort;
         _idleTimeout = config._idleTimeout;
@@ -138,6 +145,10 @@ public class HttpConfiguration implements Dumpable
         _maxErrorDispatches = config._maxErrorDispatches;
         _useInputDirectByteBuffers = config._useInputDirectByteBuffers;
         _useOutputDirectByteBuffers = config._useOutputDirectByteBuffers;
+        _useOutputFileTransfer = config._useOutputFileTransfer;
+        _useOutputAsyncFileRead = config._useOutputAsyncFileRead;
+        _writeCoalescingSize = config._writeCoalescingSize;
+        _writeCoalescingDelay = config._writeCoalescingDelay;
         _minRequestDataRate = config._minRequestDataRate;
         _minResponseDataRate = config._minResponseDataRate;
         _httpCompliance = config._httpCompliance;
@@ -211,6 +222,12 @@ public class HttpConfiguration implements Dumpable
         return _headerCacheCaseSensitive;
     }
 
+    @ManagedAttribute("The header field cache shared by all connections")
+    public HttpFieldCache getHttpFieldCache()
+    {
+        return _httpFieldCache;
+    }
+
     @ManagedAttribute("The port to which Integral or Confidential security constraints are redirected")
     public int getSecurePort()
     {
@@ -358,6 +375,83 @@ public class HttpConfiguration implements Dumpable
         return _useOutputDirectByteBuffers;
     }
 
+    /**
+     * <p>Sets whether static file content may be transferred directly from the file to the
+     * network (for example via {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)})
+     * rather than being copied through a buffer.</p>
+     * <p>File transfers are only used when the connection and the response allow them, i.e. for
+     * cleartext HTTP/1.x responses with a known content length and no {@link HttpOutput.Interceptor}.</p>
+     *
+     * @param useOutputFileTransfer whether to transfer file content directly to the network
+     */
+    public void setUseOutputFileTransfer(boolean useOutputFileTransfer)
+    {
+        _useOutputFileTransfer = useOutputFileTransfer;
+    }
+
+    @ManagedAttribute("Whether to transfer file content directly to the network")
+    public boolean isUseOutputFileTransfer()
+    {
+        return _useOutputFileTransfer;
+    }
+
+    /**
+     * <p>Sets whether static file content that is copied through a buffer (i.e. not
+     * {@link #setUseOutputFileTransfer(boolean) transferred}) is read with an
+     * {@link java.nio.channels.AsynchronousFileChannel}, so that no request thread
+     * is blocked while waiting for slow disks.</p>
+     *
+     * @param useOutputAsyncFileRead whether to read file content asynchronously
+     */
+    public void setUseOutputAsyncFileRead(boolean useOutputAsyncFileRead)
+    {
+        _useOutputAsyncFileRead = useOutputAsyncFileRead;
+    }
+
+    @ManagedAttribute("Whether to read file content asynchronously")
+    public boolean isUseOutputAsyncFileRead()
+    {
+        return _useOutputAsyncFileRead;
+    }
+
+    /**
+     * <p>Sets the size of the per-connection buffer into which small network writes
+     * are aggregated, so that they are written with fewer system calls.</p>
+     * <p>The aggregated bytes are written with the next write that does not fit the
+     * buffer, or after the {@link #setWriteCoalescingDelay(long) write coalescing delay},
+     * and aggregated writes are completed as soon as their bytes have been copied.</p>
+     * <p>Write coalescing is enabled only if both the size and the delay are positive.</p>
+     *
+     * @param writeCoalescingSize the size in bytes of the write coalescing buffer, or 0 to disable write coalescing
+     * @see org.eclipse.jetty.io.WriteCoalescing
+     */
+    public void setWriteCoalescingSize(int writeCoalescingSize)
+    {
+        _writeCoalescingSize = writeCoalescingSize;
+    }
+
+    @ManagedAttribute("The size in bytes of the buffer used to coalesce network writes, or 0 if disabled")
+    public int getWriteCoalescingSize()
+    {
+        return _writeCoalescingSize;
+    }
+
+    /**
+     * @param writeCoalescingDelay the max delay in milliseconds before coalesced writes are written to the network,
+     * or 0 to disable write coalescing
+     * @see #setWriteCoalescingSize(int)
+     */
+    public void setWriteCoalescingDelay(long writeCoalescingDelay)
+    {
+        _writeCoalescingDelay = writeCoalescingDelay;
+    }
+
+    @ManagedAttribute("The max delay in milliseconds before coalesced writes are written to the network")
+    public long getWriteCoalescingDelay()
+    {
+        return _writeCoalescingDelay;
+    }
+
     /**
      * <p>Sets the {@link Customizer}s that are invoked for every
      * request received.</p>
@@ -435,6 +529,18 @@ public class HttpConfiguration implements Dumpable
         this._headerCacheCaseSensitive = headerCacheCaseSensitive;
     }
 
+    /**
+     * <p>Sets the header field cache shared by all the connections that use this configuration.</p>
+     * <p>The shared cache learns the most frequent header fields received by all the connections,
+     * so that they can be parsed without allocations, even on new connections.</p>
+     *
+     * @param httpFieldCache the shared header field cache, or null to not use a shared cache
+     */
+    public void setHttpFieldCache(HttpFieldCache httpFieldCache)
+    {
+        _httpFieldCache = httpFieldCache;
+    }
+
     /**
      * <p>Sets the TCP/IP port used for CONFIDENTIAL and INTEGRAL redirections.</p>
      *
@@ -657,6 +763,7 @@ public class HttpConfiguration implements Dumpable
             "requestHeaderSize=" + _requestHeaderSize,
             "responseHeaderSize=" + _responseHeaderSize,
             "headerCacheSize=" + _headerCacheSize,
+            "httpFieldCache=" + _httpFieldCache,
             "secureScheme=" + _secureScheme,
             "securePort=" + _securePort,
             "idleTimeout=" + _idleTimeout,
@@ -666,6 +773,10 @@ public class HttpConfiguration implements Dumpable
             "delayDispatchUntilContent=" + _delayDispatchUntilContent,
             "persistentConnectionsEnabled=" + _persistentConnectionsEnabled,
             "maxErrorDispatches=" + _maxErrorDispatches,
+            "useOutputFileTransfer=" + _useOutputFileTransfer,
+            "useOutputAsyncFileRead=" + _useOutputAsyncFileRead,
+            "writeCoalescingSize=" + _writeCoalescingSize,
+            "writeCoalescingDelay=" + _writeCoalescingDelay,
             "minRequestDataRate=" + _minRequestDataRate,
             "minResponseDataRate=" + _minResponseDataRate,
             "requestCookieCompliance=" + _requestCookieCompliance,
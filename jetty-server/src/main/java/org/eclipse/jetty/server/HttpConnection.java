@@ -22,12 +22,12 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritePendingException;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.http.BadMessageException;
 import org.eclipse.jetty.http.HttpCompliance;
 import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFieldCache;
 import org.eclipse.jetty.http.HttpGenerator;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpHeaderValue;
@@ -41,6 +41,7 @@ import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.EofException;
+import org.eclipse.jetty.io.RetainableByteBuffer;
 import org.eclipse.jetty.io.WriteFlusher;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
@@ -66,8 +67,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     private final HttpGenerator _generator;
     private final HttpChannelOverHttp _channel;
     private final HttpParser _parser;
-    private final AtomicInteger _contentBufferReferences = new AtomicInteger();
-    private volatile ByteBuffer _requestBuffer = null;
+    private volatile RetainableByteBuffer _retainableByteBuffer;
     private final BlockingReadCallback _blockingReadCallback = new BlockingReadCallback();
     private final AsyncReadCallback _asyncReadCallback = new AsyncReadCallback();
     private final SendCallback _sendCallback = new SendCallback();
@@ -137,6 +137,10 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         HttpParser parser = new HttpParser(newRequestHandler(), getHttpConfiguration().getRequestHeaderSize(), compliance);
         parser.setHeaderCacheSize(getHttpConfiguration().getHeaderCacheSize());
         parser.setHeaderCacheCaseSensitive(getHttpConfiguration().isHeaderCacheCaseSensitive());
+        HttpFieldCache httpFieldCache = getHttpConfiguration().getHttpFieldCache();
+        if (httpFieldCache != null && httpFieldCache.getExecutor() == null)
+            httpFieldCache.setExecutor(getExecutor());
+        parser.setHttpFieldCache(httpFieldCache);
         return parser;
     }
 
@@ -205,10 +209,11 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     @Override
     public ByteBuffer onUpgradeFrom()
     {
-        if (BufferUtil.hasContent(_requestBuffer))
+        if (!isRequestBufferEmpty())
         {
-            ByteBuffer unconsumed = ByteBuffer.allocateDirect(_requestBuffer.remaining());
-            unconsumed.put(_requestBuffer);
+            ByteBuffer requestBuffer = _retainableByteBuffer.getBuffer();
+            ByteBuffer unconsumed = ByteBuffer.allocateDirect(requestBuffer.remaining());
+            unconsumed.put(requestBuffer);
             unconsumed.flip();
             releaseRequestBuffer();
             return unconsumed;
@@ -230,38 +235,48 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         _channel.getResponse().getHttpOutput().onFlushed(bytes);
     }
 
+    /**
+     * <p>Releases the reference that this connection holds on the request buffer, if the
+     * buffer is empty.</p>
+     * <p>The buffer is returned to the pool only once all the {@link HttpInput.Content}
+     * chunks that were sliced from it have also been consumed.</p>
+     */
     void releaseRequestBuffer()
     {
-        if (_requestBuffer != null && !_requestBuffer.hasRemaining())
+        RetainableByteBuffer buffer = _retainableByteBuffer;
+        if (buffer != null && buffer.isEmpty())
         {
             if (LOG.isDebugEnabled())
-                LOG.debug("releaseRequestBuffer {}", this);
-            ByteBuffer buffer = _requestBuffer;
-            _requestBuffer = null;
-            _bufferPool.release(buffer);
+                LOG.debug("releaseRequestBuffer {} {}", buffer, this);
+            _retainableByteBuffer = null;
+            buffer.release();
         }
     }
 
     public ByteBuffer getRequestBuffer()
     {
-        if (_requestBuffer == null)
-        {
-            boolean useDirectByteBuffers = isUseInputDirectByteBuffers();
-            _requestBuffer = _bufferPool.acquire(getInputBufferSize(), useDirectByteBuffers);
-        }
-        return _requestBuffer;
+        if (_retainableByteBuffer == null)
+            _retainableByteBuffer = new RetainableByteBuffer(_bufferPool, getInputBufferSize(), isUseInputDirectByteBuffers());
+        return _retainableByteBuffer.getBuffer();
     }
 
     public boolean isRequestBufferEmpty()
     {
-        return BufferUtil.isEmpty(_requestBuffer);
+        RetainableByteBuffer buffer = _retainableByteBuffer;
+        return buffer == null || buffer.isEmpty();
+    }
+
+    private String requestBufferToString()
+    {
+        RetainableByteBuffer buffer = _retainableByteBuffer;
+        return buffer == null ? "null" : buffer.toString();
     }
 
     @Override
     public void onFillable()
     {
         if (LOG.isDebugEnabled())
-            LOG.debug("{} onFillable enter {} {}", this, _channel.getState(), BufferUtil.toDetailString(_requestBuffer));
+            LOG.debug("{} onFillable enter {} {}", this, _channel.getState(), requestBufferToString());
 
         HttpConnection last = setCurrentConnection(this);
         try
@@ -311,7 +326,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         {
             setCurrentConnection(last);
             if (LOG.isDebugEnabled())
-                LOG.debug("{} onFillable exit {} {}", this, _channel.getState(), BufferUtil.toDetailString(_requestBuffer));
+                LOG.debug("{} onFillable exit {} {}", this, _channel.getState(), requestBufferToString());
         }
     }
 
@@ -335,32 +350,26 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
 
     private int fillRequestBuffer()
     {
-        if (_contentBufferReferences.get() > 0)
-        {
-            LOG.warn("{} fill with unconsumed content!", this);
-            return 0;
-        }
-
-        if (BufferUtil.isEmpty(_requestBuffer))
+        if (isRequestBufferEmpty())
         {
             // Get a buffer
             // We are not in a race here for the request buffer as we have not yet received a request,
             // so there are not an possible legal threads calling #parseContent or #completed.
-            _requestBuffer = getRequestBuffer();
+            ByteBuffer requestBuffer = getRequestBuffer();
 
             // fill
             try
             {
-                int filled = getEndPoint().fill(_requestBuffer);
+                int filled = getEndPoint().fill(requestBuffer);
                 if (filled == 0) // Do a retry on fill 0 (optimization for SSL connections)
-                    filled = getEndPoint().fill(_requestBuffer);
+                    filled = getEndPoint().fill(requestBuffer);
 
                 // tell parser
                 if (filled < 0)
                     _parser.atEOF();
 
                 if (LOG.isDebugEnabled())
-                    LOG.debug("{} filled {} {}", this, filled, BufferUtil.toDetailString(_requestBuffer));
+                    LOG.debug("{} filled {} {}", this, filled, requestBufferToString());
 
                 return filled;
             }
@@ -377,16 +386,16 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     private boolean parseRequestBuffer()
     {
         if (LOG.isDebugEnabled())
-            LOG.debug("{} parse {}", this, BufferUtil.toDetailString(_requestBuffer));
+            LOG.debug("{} parse {}", this, requestBufferToString());
 
-        boolean handle = _parser.parseNext(_requestBuffer == null ? BufferUtil.EMPTY_BUFFER : _requestBuffer);
+        RetainableByteBuffer buffer = _retainableByteBuffer;
+        boolean handle = _parser.parseNext(buffer == null ? BufferUtil.EMPTY_BUFFER : buffer.getBuffer());
 
         if (LOG.isDebugEnabled())
             LOG.debug("{} parsed {} {}", this, handle, _parser);
 
         // recycle buffer ?
-        if (_contentBufferReferences.get() == 0)
-            releaseRequestBuffer();
+        releaseRequestBuffer();
 
         return handle;
     }
@@ -404,16 +413,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         _channel.recycle();
         _parser.reset();
         _generator.reset();
-        if (_contentBufferReferences.get() == 0)
-        {
-            releaseRequestBuffer();
-        }
-        else
-        {
-            LOG.warn("{} lingering content references?!?!", this);
-            _requestBuffer = null; // Not returned to pool!
-            _contentBufferReferences.set(0);
-        }
+        releaseRequestBuffer();
         return true;
     }
 
@@ -474,7 +474,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
             if (_parser.isStart())
             {
                 // if the buffer is empty
-                if (BufferUtil.isEmpty(_requestBuffer))
+                if (isRequestBufferEmpty())
                 {
                     // look for more data
                     fillInterested();
@@ -646,17 +646,21 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
 
     private class Content extends HttpInput.Content
     {
+        private final RetainableByteBuffer _buffer;
+
         public Content(ByteBuffer content)
         {
             super(content);
-            _contentBufferReferences.incrementAndGet();
+            // The content is a slice of the request buffer, so
+            // the buffer must not be recycled until it is consumed.
+            _buffer = _retainableByteBuffer;
+            _buffer.retain();
         }
 
         @Override
         public void succeeded()
         {
-            if (_contentBufferReferences.decrementAndGet() == 0)
-                releaseRequestBuffer();
+            _buffer.release();
         }
 
         @Override
@@ -21,8 +21,10 @@ package org.eclipse.jetty.server;
 import java.util.Objects;
 
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.io.AbstractEndPoint;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.WriteCoalescing;
 import org.eclipse.jetty.util.annotation.Name;
 
 /**
@@ -37,6 +39,7 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
     private boolean _recordHttpComplianceViolations;
     private boolean _useInputDirectByteBuffers;
     private boolean _useOutputDirectByteBuffers;
+    private WriteCoalescing _writeCoalescing;
 
     public HttpConnectionFactory()
     {
@@ -88,12 +91,35 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
         _useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    /**
+     * @return the write coalescing configuration and statistics, or null if write coalescing is disabled
+     * @see HttpConfiguration#setWriteCoalescingSize(int)
+     */
+    public WriteCoalescing getWriteCoalescing()
+    {
+        return _writeCoalescing;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        int size = _config.getWriteCoalescingSize();
+        long delay = _config.getWriteCoalescingDelay();
+        WriteCoalescing writeCoalescing = size > 0 && delay > 0 ? new WriteCoalescing(size, delay) : null;
+        updateBean(_writeCoalescing, writeCoalescing);
+        _writeCoalescing = writeCoalescing;
+        super.doStart();
+    }
+
     @Override
     public Connection newConnection(Connector connector, EndPoint endPoint)
     {
         HttpConnection connection = new HttpConnection(_config, connector, endPoint, isRecordHttpComplianceViolations());
         connection.setUseInputDirectByteBuffers(isUseInputDirectByteBuffers());
         connection.setUseOutputDirectByteBuffers(isUseOutputDirectByteBuffers());
+        WriteCoalescing writeCoalescing = getWriteCoalescing();
+        if (writeCoalescing != null && endPoint instanceof AbstractEndPoint)
+            ((AbstractEndPoint)endPoint).setWriteCoalescing(writeCoalescing, connector.getByteBufferPool());
         return configure(connection, connector, endPoint);
     }
 }
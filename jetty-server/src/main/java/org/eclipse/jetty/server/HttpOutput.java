@@ -18,16 +18,28 @@
 
 package org.eclipse.jetty.server;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritePendingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletOutputStream;
@@ -1207,6 +1219,43 @@ public class HttpOutput extends ServletOutputStream implements Runnable
             new ReadableByteChannelWritingCB(in, callback).iterate();
     }
 
+    /**
+     * Asynchronous send of file content.
+     * If {@code transfer} is true, the content is transferred directly from the file to the network
+     * if {@link HttpChannel#isFileTransferSupported()} once the response is committed,
+     * otherwise it is copied through a buffer as for {@link #sendContent(ReadableByteChannel, Callback)}.
+     * If {@code file} is null, the file at {@code path} is opened by a task of the connector executor,
+     * so that the request thread does not block, and it is read asynchronously unless it is transferred.
+     * The file will be closed after sending all content.
+     *
+     * @param file The file content to send, or null to open the file at {@code path}
+     * @param path The path of the file to open, or null if {@code file} is given
+     * @param transfer whether to attempt to transfer the content directly to the network
+     * @param callback The callback to use to notify success or failure
+     */
+    private void sendContent(FileChannel file, Path path, boolean transfer, Callback callback)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("sendContent(file={},path={},transfer={},{})", file, path, transfer, callback);
+
+        if (prepareSendContent(0, callback))
+            new FileChannelWritingCB(file, path, transfer, callback).iterate();
+    }
+
+    private static Path getPath(HttpContent httpContent)
+    {
+        try
+        {
+            File file = httpContent.getResource() == null ? null : httpContent.getResource().getFile();
+            return file == null ? null : file.toPath();
+        }
+        catch (Throwable x)
+        {
+            LOG.debug("Unable to access file for content {}", httpContent, x);
+            return null;
+        }
+    }
+
     private boolean prepareSendContent(int len, Callback callback)
     {
         synchronized (_channelState)
@@ -1270,6 +1319,16 @@ public class HttpOutput extends ServletOutputStream implements Runnable
             return;
         }
 
+        HttpConfiguration config = getHttpChannel().getHttpConfiguration();
+        boolean transfer = _interceptor == _channel && config.isUseOutputFileTransfer();
+        Path path = config.isUseOutputAsyncFileRead() ? getPath(httpContent) : null;
+        if (path != null)
+        {
+            // The file is opened, only once, by the async sendContent.
+            sendContent(null, path, transfer, callback);
+            return;
+        }
+
         ReadableByteChannel rbc = null;
         try
         {
@@ -1282,7 +1341,10 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         if (rbc != null)
         {
             // Close of the rbc is done by the async sendContent
-            sendContent(rbc, callback);
+            if (rbc instanceof FileChannel && transfer)
+                sendContent((FileChannel)rbc, null, true, callback);
+            else
+                sendContent(rbc, callback);
             return;
         }
 
@@ -1817,6 +1879,261 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * An iterating callback that will send content from a FileChannel.
+     * If a transfer is attempted, the response is first committed, then if {@link HttpChannel#isFileTransferSupported()}
+     * the file content is transferred with {@link HttpChannel#transfer(FileChannel, long, long, Callback)},
+     * otherwise it is read into a {@link ByteBuffer} of size {@link HttpOutput#getBufferSize()}
+     * and written to the {@link HttpChannel}.
+     * If a path is given rather than a FileChannel, the file is opened by a task of the connector
+     * executor once it is known whether it is transferred. If it is not, it is opened and read
+     * with an {@link AsynchronousFileChannel} running on the same executor, so that the
+     * thread is not blocked while the buffer is filled.
+     */
+    private class FileChannelWritingCB extends NestedChannelWriteCB implements CompletionHandler<Integer, Void>
+    {
+        private final Path _path;
+        private FileChannel _file;
+        private ByteBuffer _buffer;
+        private boolean _committed;
+        private Boolean _transfer;
+        private boolean _transferred;
+        private AsynchronousFileChannel _asyncFile;
+        private long _position;
+        private boolean _read;
+        private boolean _lastRead;
+        private boolean _eof;
+        private boolean _closed;
+
+        FileChannelWritingCB(FileChannel file, Path path, boolean transfer, Callback callback)
+        {
+            super(callback, true);
+            _file = file;
+            _path = path;
+            if (!transfer)
+            {
+                _committed = true;
+                _transfer = false;
+            }
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            if (_eof)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("EOF of {}", this);
+                if (!_closed)
+                {
+                    _closed = true;
+                    if (_buffer != null)
+                        _channel.getByteBufferPool().release(_buffer);
+                    IO.close(_asyncFile);
+                    IO.close(_file);
+                }
+                return Action.SUCCEEDED;
+            }
+
+            // Commit the response without content, so that
+            // the framing of the content is known.
+            if (!_committed)
+            {
+                _committed = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, false, this);
+                return Action.SCHEDULED;
+            }
+
+            if (_transfer == null)
+            {
+                _transfer = _channel.isFileTransferSupported();
+                if (LOG.isDebugEnabled())
+                    LOG.debug("transfer={} {}", _transfer, this);
+            }
+
+            if (_file == null && _asyncFile == null)
+            {
+                // Open the file off the request thread, the iteration resumes once it is open.
+                _channel.getConnector().getExecutor().execute(this::open);
+                return Action.SCHEDULED;
+            }
+
+            if (_transfer)
+            {
+                if (!_transferred)
+                {
+                    _transferred = true;
+                    long position = _file.position();
+                    long count = _file.size() - position;
+                    long contentLength = _channel.getResponse().getContentLength();
+                    if (contentLength >= 0)
+                        count = Math.min(count, contentLength);
+                    if (count > 0)
+                    {
+                        _written += count;
+                        _channel.transfer(_file, position, count, this);
+                        return Action.SCHEDULED;
+                    }
+                }
+                _eof = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, true, this);
+                return Action.SCHEDULED;
+            }
+
+            if (_buffer == null)
+                _buffer = _channel.getByteBufferPool().acquire(getBufferSize(), _channel.isUseOutputDirectByteBuffers());
+
+            if (_asyncFile != null)
+            {
+                // Alternate asynchronous reads, completed by completed(Integer, Void), and writes.
+                if (!_read)
+                {
+                    _read = true;
+                    BufferUtil.clearToFill(_buffer);
+                    _asyncFile.read(_buffer, _position, null, this);
+                    return Action.SCHEDULED;
+                }
+                _read = false;
+                _eof = _lastRead;
+            }
+            else
+            {
+                // Read from file until buffer full or EOF
+                BufferUtil.clearToFill(_buffer);
+                while (_buffer.hasRemaining() && !_eof)
+                {
+                    _eof = (_file.read(_buffer)) < 0;
+                }
+            }
+
+            // write what we have
+            BufferUtil.flipToFlush(_buffer, 0);
+            _written += _buffer.remaining();
+            channelWrite(_buffer, _eof, this);
+
+            return Action.SCHEDULED;
+        }
+
+        private void open()
+        {
+            try
+            {
+                Executor executor = _channel.getConnector().getExecutor();
+                if (!_transfer)
+                {
+                    try
+                    {
+                        _asyncFile = AsynchronousFileChannel.open(_path, Set.of(StandardOpenOption.READ), new ExecutorServiceAdapter(executor));
+                    }
+                    catch (UnsupportedOperationException x)
+                    {
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("Unable to read asynchronously {}", _path, x);
+                    }
+                }
+                if (_asyncFile == null)
+                    _file = FileChannel.open(_path, StandardOpenOption.READ);
+                succeeded();
+            }
+            catch (Throwable x)
+            {
+                failed(x);
+            }
+        }
+
+        @Override
+        public void completed(Integer read, Void attachment)
+        {
+            if (read < 0)
+            {
+                _lastRead = true;
+            }
+            else
+            {
+                _position += read;
+                // Avoid a further read if the buffer was not filled at the end of the file.
+                if (_buffer.hasRemaining())
+                {
+                    try
+                    {
+                        _lastRead = _position >= _asyncFile.size();
+                    }
+                    catch (IOException x)
+                    {
+                        failed(x);
+                        return;
+                    }
+                }
+            }
+            succeeded();
+        }
+
+        @Override
+        public void failed(Throwable x, Void attachment)
+        {
+            failed(x);
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            if (_buffer != null)
+                _channel.getByteBufferPool().release(_buffer);
+            IO.close(_asyncFile);
+            IO.close(_file);
+            super.onCompleteFailure(x);
+        }
+    }
+
+    /**
+     * <p>Runs the tasks of an {@link AsynchronousFileChannel} on an {@link Executor}
+     * that is not an {@link ExecutorService}. Closing the channel does not shut it down.</p>
+     */
+    private static class ExecutorServiceAdapter extends AbstractExecutorService
+    {
+        private final Executor _executor;
+
+        private ExecutorServiceAdapter(Executor executor)
+        {
+            _executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable task)
+        {
+            _executor.execute(task);
+        }
+
+        @Override
+        public void shutdown()
+        {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow()
+        {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit)
+        {
+            return false;
+        }
+    }
+
     private static class WriteBlocker extends SharedBlockingCallback
     {
         private final HttpChannel _channel;
@@ -0,0 +1,447 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.PathWatcher;
+import org.eclipse.jetty.util.URIUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.compression.CompressionCodec;
+import org.eclipse.jetty.util.compression.CompressionCodecs;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Generates precompressed variants of static files into a cache directory, so that
+ * they can be served as {@link org.eclipse.jetty.http.PrecompressedHttpContent} without
+ * compressing them for each response and without a build step to produce them.</p>
+ * <p>When started, the files of the base directory that have a compressible mime type
+ * are compressed in the background, once for each {@link CompressedContentFormat}
+ * that has a {@link CompressionCodec}. The variant of {@code /css/site.css} for the
+ * {@link CompressedContentFormat#GZIP} format is generated as {@code css/site.css.gz}
+ * in the cache directory, and is only regenerated when the original file is modified
+ * later than the variant. A {@link PathWatcher} then keeps the variants up to date
+ * as files are added, modified or deleted.</p>
+ * <p>As a {@link ResourceFactory}, this class resolves the paths of the variants, so
+ * that a content factory that looks for {@code pathInContext + format._extension}
+ * finds them when they do not exist next to the original files. Variants that are not
+ * smaller than the original file are not kept.</p>
+ */
+@ManagedObject("Generator of precompressed static content")
+public class PrecompressedContentGenerator extends ContainerLifeCycle implements ResourceFactory, PathWatcher.Listener
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PrecompressedContentGenerator.class);
+    private static final List<String> PREFERRED_ENCODINGS = Arrays.asList("br", "zstd", "gzip");
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    private final Path _baseDirectory;
+    private final Path _cacheDirectory;
+    private final CompressedContentFormat[] _formats;
+    private final MimeTypes _mimeTypes;
+    private final Set<String> _compressibleMimeTypes = new HashSet<>(Arrays.asList(
+        "text/html", "text/plain", "text/css", "text/xml", "text/javascript", "text/csv",
+        "application/javascript", "application/json", "application/xml", "application/xhtml+xml",
+        "image/svg+xml", "image/x-icon", "application/wasm", "font/ttf", "font/otf"));
+    private final LongAdder _generated = new LongAdder();
+    private Executor _executor;
+    private int _minCompressSize = 256;
+    private PathWatcher _pathWatcher;
+
+    /**
+     * @param baseDirectory the directory of the static files
+     * @param cacheDirectory the directory where the precompressed variants are generated
+     * @param formats the formats of the variants, or null for the {@link #getDefaultFormats() default formats}
+     * @param mimeTypes the mime types used to decide whether a file is compressible
+     */
+    public PrecompressedContentGenerator(Path baseDirectory, Path cacheDirectory, CompressedContentFormat[] formats, MimeTypes mimeTypes)
+    {
+        _baseDirectory = baseDirectory.toAbsolutePath().normalize();
+        _cacheDirectory = cacheDirectory.toAbsolutePath().normalize();
+        _formats = formats == null || formats.length == 0 ? getDefaultFormats() : formats;
+        _mimeTypes = mimeTypes == null ? new MimeTypes() : mimeTypes;
+        if (_cacheDirectory.startsWith(_baseDirectory))
+            throw new IllegalArgumentException("Cache directory " + _cacheDirectory + " must not be within " + _baseDirectory);
+    }
+
+    /**
+     * @return a format for each available {@link CompressionCodec}, most preferred first
+     */
+    public static CompressedContentFormat[] getDefaultFormats()
+    {
+        List<CompressedContentFormat> formats = new ArrayList<>();
+        for (String encoding : PREFERRED_ENCODINGS)
+        {
+            if (CompressionCodecs.getCodec(encoding) != null)
+                formats.add(toFormat(encoding));
+        }
+        for (CompressionCodec codec : CompressionCodecs.getCodecs())
+        {
+            if (!PREFERRED_ENCODINGS.contains(codec.getEncoding()))
+                formats.add(toFormat(codec.getEncoding()));
+        }
+        return formats.toArray(new CompressedContentFormat[0]);
+    }
+
+    private static CompressedContentFormat toFormat(String encoding)
+    {
+        switch (encoding)
+        {
+            case "gzip":
+                return CompressedContentFormat.GZIP;
+            case "br":
+                return CompressedContentFormat.BR;
+            case "zstd":
+                return new CompressedContentFormat(encoding, ".zst");
+            default:
+                return new CompressedContentFormat(encoding, "." + encoding);
+        }
+    }
+
+    public Path getBaseDirectory()
+    {
+        return _baseDirectory;
+    }
+
+    @ManagedAttribute("The directory where precompressed variants are generated")
+    public Path getCacheDirectory()
+    {
+        return _cacheDirectory;
+    }
+
+    /**
+     * @return the formats of the generated variants, most preferred first
+     */
+    public CompressedContentFormat[] getFormats()
+    {
+        return _formats;
+    }
+
+    /**
+     * @return the executor of the background generation, or null to use a dedicated thread
+     */
+    public Executor getExecutor()
+    {
+        return _executor;
+    }
+
+    /**
+     * @param executor the executor of the background generation, or null to use a dedicated thread
+     */
+    public void setExecutor(Executor executor)
+    {
+        _executor = executor;
+    }
+
+    @ManagedAttribute("The min size in bytes of a file to compress")
+    public int getMinCompressSize()
+    {
+        return _minCompressSize;
+    }
+
+    public void setMinCompressSize(int minCompressSize)
+    {
+        _minCompressSize = minCompressSize;
+    }
+
+    /**
+     * @return the mime types of the files to compress
+     */
+    public Set<String> getCompressibleMimeTypes()
+    {
+        return _compressibleMimeTypes;
+    }
+
+    /**
+     * @param mimeTypes the mime types of the files to compress, replacing the default ones
+     */
+    public void setCompressibleMimeTypes(String... mimeTypes)
+    {
+        _compressibleMimeTypes.clear();
+        _compressibleMimeTypes.addAll(Arrays.asList(mimeTypes));
+    }
+
+    @ManagedAttribute("The number of precompressed variants generated")
+    public long getGenerated()
+    {
+        return _generated.sum();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        Files.createDirectories(_cacheDirectory);
+
+        _pathWatcher = new PathWatcher();
+        PathWatcher.Config config = new PathWatcher.Config(_baseDirectory);
+        config.setRecurseDepth(PathWatcher.Config.UNLIMITED_DEPTH);
+        _pathWatcher.watch(config);
+        _pathWatcher.setNotifyExistingOnStart(false);
+        _pathWatcher.addListener(this);
+        addBean(_pathWatcher, true);
+
+        super.doStart();
+
+        Runnable task = this::generateAll;
+        if (_executor == null)
+        {
+            Thread thread = new Thread(task, getClass().getSimpleName() + "@" + Integer.toHexString(hashCode()));
+            thread.setDaemon(true);
+            thread.start();
+        }
+        else
+        {
+            _executor.execute(task);
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        removeBean(_pathWatcher);
+        _pathWatcher = null;
+    }
+
+    /**
+     * <p>Generates the missing or stale precompressed variants of all the files of the base directory.</p>
+     */
+    @ManagedOperation(value = "Generates the missing or stale precompressed variants", impact = "ACTION")
+    public void generateAll()
+    {
+        try (Stream<Path> files = Files.walk(_baseDirectory))
+        {
+            files.filter(Files::isRegularFile).forEach(file ->
+            {
+                if (isRunning())
+                    generate(file);
+            });
+        }
+        catch (IOException x)
+        {
+            LOG.warn("Unable to generate precompressed content of {}", _baseDirectory, x);
+        }
+    }
+
+    @Override
+    public void onPathWatchEvent(PathWatcher.PathWatchEvent event)
+    {
+        Path file = event.getPath();
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} {}", event.getType(), file);
+        switch (event.getType())
+        {
+            case ADDED:
+            case MODIFIED:
+                if (Files.isRegularFile(file))
+                    generate(file);
+                break;
+            case DELETED:
+                delete(file);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * <p>Generates the precompressed variants of a file, if they are missing or stale.</p>
+     *
+     * @param file a file of the base directory
+     */
+    public void generate(Path file)
+    {
+        file = file.toAbsolutePath().normalize();
+        if (!file.startsWith(_baseDirectory) || !isCompressible(file))
+            return;
+
+        for (CompressedContentFormat format : _formats)
+        {
+            CompressionCodec codec = CompressionCodecs.getCodec(format._encoding);
+            if (codec == null)
+                continue;
+            Path variant = getVariant(file, format);
+            try
+            {
+                if (Files.exists(variant) && Files.getLastModifiedTime(variant).compareTo(Files.getLastModifiedTime(file)) >= 0)
+                    continue;
+                compress(codec, file, variant);
+            }
+            catch (IOException x)
+            {
+                LOG.warn("Unable to generate {} content of {}", format._encoding, file, x);
+            }
+        }
+    }
+
+    private void delete(Path file)
+    {
+        file = file.toAbsolutePath().normalize();
+        if (!file.startsWith(_baseDirectory))
+            return;
+        for (CompressedContentFormat format : _formats)
+        {
+            try
+            {
+                Files.deleteIfExists(getVariant(file, format));
+            }
+            catch (IOException x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Unable to delete {} content of {}", format._encoding, file, x);
+            }
+        }
+    }
+
+    protected boolean isCompressible(Path file)
+    {
+        String fileName = file.getFileName().toString();
+        for (CompressedContentFormat format : _formats)
+        {
+            // Do not compress files that are already precompressed variants.
+            if (fileName.endsWith(format._extension))
+                return false;
+        }
+        String mimeType = _mimeTypes.getMimeByExtension(fileName);
+        if (mimeType == null || !_compressibleMimeTypes.contains(MimeTypes.getContentTypeWithoutCharset(mimeType)))
+            return false;
+        try
+        {
+            return Files.size(file) >= _minCompressSize;
+        }
+        catch (IOException x)
+        {
+            return false;
+        }
+    }
+
+    private Path getVariant(Path file, CompressedContentFormat format)
+    {
+        Path relative = _baseDirectory.relativize(file);
+        return _cacheDirectory.resolve(relative.toString() + format._extension);
+    }
+
+    private void compress(CompressionCodec codec, Path file, Path variant) throws IOException
+    {
+        // Captured before reading, so that a concurrent modification makes the variant stale.
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        Files.createDirectories(variant.getParent());
+        Path temp = Files.createTempFile(variant.getParent(), variant.getFileName().toString(), ".tmp");
+        CompressionCodec.Encoder encoder = codec.newEncoder(codec.getDefaultLevel());
+        try
+        {
+            try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel output = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                ByteBuffer in = BufferUtil.allocate(BUFFER_SIZE);
+                ByteBuffer out = BufferUtil.allocate(BUFFER_SIZE);
+                boolean eof = false;
+                while (!encoder.finished())
+                {
+                    if (!eof && encoder.needsInput())
+                    {
+                        BufferUtil.clearToFill(in);
+                        eof = input.read(in) < 0;
+                        BufferUtil.flipToFlush(in, 0);
+                        if (eof)
+                            encoder.finish();
+                        else
+                            encoder.setInput(in);
+                    }
+                    BufferUtil.clear(out);
+                    encoder.encode(out, false);
+                    while (out.hasRemaining())
+                    {
+                        output.write(out);
+                    }
+                }
+            }
+
+            // Only keep variants that are worth serving.
+            if (Files.size(temp) >= Files.size(file))
+            {
+                Files.deleteIfExists(variant);
+                return;
+            }
+            // The variant is as recent as the content it was generated from.
+            Files.setLastModifiedTime(temp, lastModified);
+            Files.move(temp, variant, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            _generated.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Generated {} content of {} in {}", codec.getEncoding(), file, variant);
+        }
+        finally
+        {
+            encoder.end();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @param pathInContext the path of a precompressed variant, such as {@code /css/site.css.gz}
+     * @return the generated variant, or null if the path is not the path of a variant
+     */
+    @Override
+    public Resource getResource(String pathInContext)
+    {
+        String path = URIUtil.canonicalPath(pathInContext);
+        if (path == null || !path.startsWith("/"))
+            return null;
+        for (CompressedContentFormat format : _formats)
+        {
+            if (path.endsWith(format._extension))
+            {
+                Path variant = _cacheDirectory.resolve(path.substring(1)).normalize();
+                if (variant.startsWith(_cacheDirectory))
+                    return new PathResource(variant);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s->%s,%s}", getClass().getSimpleName(), hashCode(), _baseDirectory, _cacheDirectory, Arrays.toString(Arrays.stream(_formats).map(f -> f._encoding).toArray()));
+    }
+}
@@ -0,0 +1,360 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A cache of the content of static files, shared by all the contexts of a {@link Server}.</p>
+ * <p>The content is stored off-heap, in direct or memory mapped buffers, keyed by the canonical
+ * path of the file, so that a file served by many contexts (for example the same asset deployed
+ * in many web applications) is cached only once. An entry is replaced when the last modified
+ * time or the length of the file change.</p>
+ * <p>When added as a bean to the {@link Server}, every {@link CachedContentFactory} created by
+ * the {@code DefaultServlet} loads its direct buffers from this cache, rather than caching
+ * its own copy of the content.</p>
+ * <p>Direct buffers count towards {@link #getMaxCacheSize()}, while memory mapped buffers only
+ * count towards {@link #getMaxCachedFiles()}; when either limit is exceeded the least recently
+ * used entries are evicted. The {@link Entry entries} handed out release their buffer when
+ * they are evicted, so that holders of an entry do not keep its memory alive: only the
+ * buffers of responses being written remain valid after eviction.</p>
+ */
+@ManagedObject("Static content cache shared by all contexts")
+public class SharedContentCache extends AbstractLifeCycle
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SharedContentCache.class);
+
+    private final AutoLock _lock = new AutoLock();
+    private final Map<String, Entry> _cache = new LinkedHashMap<>(16, 0.75F, true);
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private long _cachedSize;
+    private long _maxCacheSize = 256 * 1024 * 1024;
+    private int _maxCachedFileSize = 128 * 1024 * 1024;
+    private int _maxCachedFiles = 2048;
+    private boolean _useFileMappedBuffer;
+
+    @ManagedAttribute("The max size in bytes of the direct buffers of the cache")
+    public long getMaxCacheSize()
+    {
+        return _maxCacheSize;
+    }
+
+    public void setMaxCacheSize(long maxCacheSize)
+    {
+        _maxCacheSize = maxCacheSize;
+        shrink();
+    }
+
+    @ManagedAttribute("The max size in bytes of a cached file")
+    public int getMaxCachedFileSize()
+    {
+        return _maxCachedFileSize;
+    }
+
+    public void setMaxCachedFileSize(int maxCachedFileSize)
+    {
+        _maxCachedFileSize = maxCachedFileSize;
+    }
+
+    @ManagedAttribute("The max number of cached files")
+    public int getMaxCachedFiles()
+    {
+        return _maxCachedFiles;
+    }
+
+    public void setMaxCachedFiles(int maxCachedFiles)
+    {
+        _maxCachedFiles = maxCachedFiles;
+        shrink();
+    }
+
+    /**
+     * @return whether files are memory mapped rather than copied into direct buffers
+     */
+    @ManagedAttribute("Whether files are memory mapped rather than copied into direct buffers")
+    public boolean isUseFileMappedBuffer()
+    {
+        return _useFileMappedBuffer;
+    }
+
+    /**
+     * @param useFileMappedBuffer whether files are memory mapped rather than copied into direct buffers
+     */
+    public void setUseFileMappedBuffer(boolean useFileMappedBuffer)
+    {
+        _useFileMappedBuffer = useFileMappedBuffer;
+    }
+
+    @ManagedAttribute("The number of bytes of the direct buffers of the cache")
+    public long getCachedSize()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _cachedSize;
+        }
+    }
+
+    @ManagedAttribute("The number of cached files")
+    public int getCachedFiles()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _cache.size();
+        }
+    }
+
+    @ManagedAttribute("The number of lookups that found cached content")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of lookups that did not find cached content")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The number of cached files evicted to keep the cache within its limits")
+    public long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    @ManagedOperation(value = "Resets the cache statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+    }
+
+    /**
+     * <p>Returns the content of the given resource, loading it into the cache if necessary.</p>
+     *
+     * @param resource the resource to get the content of
+     * @return a read-only buffer with the content of the resource, or null
+     * if the resource is not a file or is not cacheable
+     */
+    public ByteBuffer getBuffer(Resource resource)
+    {
+        Entry entry = getEntry(resource);
+        return entry == null ? null : entry.getBuffer();
+    }
+
+    /**
+     * <p>Returns the cache entry of the given resource, loading it into the cache if necessary.</p>
+     * <p>The entry may be retained in place of its buffer: it releases the buffer
+     * when it is evicted, after which {@link Entry#getBuffer()} returns null and
+     * the entry should be looked up again.</p>
+     *
+     * @param resource the resource to get the cache entry of
+     * @return the cache entry of the resource, or null
+     * if the resource is not a file or is not cacheable
+     */
+    public Entry getEntry(Resource resource)
+    {
+        if (!isStarted())
+            return null;
+
+        String key = keyOf(resource);
+        if (key == null)
+            return null;
+
+        long lastModified = resource.lastModified();
+        long length = resource.length();
+        if (length <= 0 || length >= _maxCachedFileSize)
+            return null;
+
+        try (AutoLock l = _lock.lock())
+        {
+            Entry entry = _cache.get(key);
+            if (entry != null && entry._lastModified == lastModified && entry._length == length)
+            {
+                _hits.increment();
+                return entry;
+            }
+        }
+        _misses.increment();
+
+        // Load outside the lock, racing loads of the same file are resolved below.
+        boolean mapped = _useFileMappedBuffer;
+        ByteBuffer buffer = load(resource, mapped);
+        if (buffer == null || buffer.remaining() != length)
+            return null;
+
+        Entry entry = new Entry(lastModified, buffer, mapped);
+        try (AutoLock l = _lock.lock())
+        {
+            Entry existing = _cache.get(key);
+            if (existing != null && existing._lastModified == lastModified && existing._length == length)
+                return existing;
+
+            _cache.put(key, entry);
+            if (existing != null)
+                remove(existing);
+            _cachedSize += entry.getSize();
+            shrink();
+        }
+        return entry;
+    }
+
+    private String keyOf(Resource resource)
+    {
+        try
+        {
+            File file = resource.getFile();
+            if (file == null)
+                return null;
+            return file.getCanonicalPath();
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to resolve canonical path of {}", resource, x);
+            return null;
+        }
+    }
+
+    private ByteBuffer load(Resource resource, boolean mapped)
+    {
+        try
+        {
+            if (mapped)
+                return BufferUtil.toMappedBuffer(resource.getFile());
+            return BufferUtil.toBuffer(resource, true);
+        }
+        catch (IOException | IllegalArgumentException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to load {}", resource, x);
+            return null;
+        }
+    }
+
+    private void shrink()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Iterator<Entry> iterator = _cache.values().iterator();
+            while (iterator.hasNext() && (_cache.size() > _maxCachedFiles || _cachedSize > _maxCacheSize))
+            {
+                Entry entry = iterator.next();
+                iterator.remove();
+                remove(entry);
+                _evictions.increment();
+            }
+        }
+    }
+
+    private void remove(Entry entry)
+    {
+        _cachedSize -= entry.getSize();
+        entry._buffer = null;
+    }
+
+    /**
+     * <p>Removes all the cached content.</p>
+     */
+    @ManagedOperation(value = "Flushes the cache", impact = "ACTION")
+    public void flush()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            _cache.values().forEach(this::remove);
+            _cache.clear();
+            _cachedSize = 0;
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        flush();
+        super.doStop();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{files=%d,size=%d,max=%d}", getClass().getSimpleName(), hashCode(), getCachedFiles(), getCachedSize(), getMaxCacheSize());
+    }
+
+    /**
+     * <p>The cached content of a file.</p>
+     */
+    public static class Entry
+    {
+        private final long _lastModified;
+        private final int _length;
+        private final boolean _mapped;
+        private volatile ByteBuffer _buffer;
+
+        private Entry(long lastModified, ByteBuffer buffer, boolean mapped)
+        {
+            _lastModified = lastModified;
+            _length = buffer.remaining();
+            _mapped = mapped;
+            _buffer = buffer;
+        }
+
+        /**
+         * @return a read-only buffer with the content of the file,
+         * or null if this entry has been evicted from the cache
+         */
+        public ByteBuffer getBuffer()
+        {
+            ByteBuffer buffer = _buffer;
+            return buffer == null ? null : buffer.asReadOnlyBuffer();
+        }
+
+        /**
+         * @return the number of bytes of direct memory held by this entry,
+         * zero if the content is memory mapped
+         */
+        public int getSize()
+        {
+            return _mapped ? 0 : _length;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{length=%d,mapped=%b,evicted=%b}", getClass().getSimpleName(), hashCode(), _length, _mapped, _buffer == null);
+        }
+    }
+}
@@ -19,9 +19,11 @@
 package org.eclipse.jetty.server.handler;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.servlet.ServletException;
@@ -35,7 +37,9 @@ import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.util.ArrayTernaryTrie;
 import org.eclipse.jetty.util.ArrayUtil;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.ConcurrentLRUCache;
 import org.eclipse.jetty.util.Trie;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.thread.SerializedExecutor;
@@ -49,12 +53,17 @@ import org.slf4j.LoggerFactory;
  * The contexts do not need to be directly contained, only children of the contained handlers.
  * Multiple contexts may have the same context path and they are called in order until one
  * handles the request.
+ * <p>
+ * The branches that match recently requested targets are cached, so that the context paths
+ * are not searched again for the same target. The virtual hosts are still checked by the
+ * contexts for every request. The cache is flushed whenever the contexts are mapped.
  */
 @ManagedObject("Context Handler Collection")
 public class ContextHandlerCollection extends HandlerCollection
 {
     private static final Logger LOG = LoggerFactory.getLogger(ContextHandlerCollection.class);
     private final SerializedExecutor _serializedExecutor = new SerializedExecutor();
+    private int _maxCachedTargets = 1024;
 
     public ContextHandlerCollection()
     {
@@ -91,6 +100,39 @@ public class ContextHandlerCollection extends HandlerCollection
         });
     }
 
+    /**
+     * @return the maximum number of targets whose matching branches are cached
+     */
+    @ManagedAttribute("The maximum number of targets whose matching contexts are cached")
+    public int getMaxCachedTargets()
+    {
+        return _maxCachedTargets;
+    }
+
+    /**
+     * <p>Sets the maximum number of targets whose matching branches are cached.</p>
+     * <p>Targets that match no context, or only the root context, are not cached,
+     * and no target is cached if any context defines virtual hosts.</p>
+     * <p>The change takes effect the next time the contexts are mapped.</p>
+     *
+     * @param maxCachedTargets the maximum number of cached targets, or 0 to disable the cache
+     */
+    public void setMaxCachedTargets(int maxCachedTargets)
+    {
+        _maxCachedTargets = maxCachedTargets;
+    }
+
+    /**
+     * @return the number of targets whose matching branches are currently cached
+     */
+    int getCachedTargets()
+    {
+        Mapping mapping = (Mapping)_handlers.get();
+        if (mapping == null || mapping._targetBranches == null)
+            return 0;
+        return mapping._targetBranches.size();
+    }
+
     @Override
     protected Handlers newHandlers(Handler[] handlers)
     {
@@ -111,6 +153,7 @@ public class ContextHandlerCollection extends HandlerCollection
         }
 
         // Sort the branches for each contextPath so those with virtual hosts are considered before those without
+        boolean virtualHosts = false;
         for (Map.Entry<String, Branch[]> entry : path2Branches.entrySet())
         {
             Branch[] branches = entry.getValue();
@@ -119,7 +162,10 @@ public class ContextHandlerCollection extends HandlerCollection
             for (Branch branch : branches)
             {
                 if (branch.hasVirtualHost())
+                {
                     sorted[i++] = branch;
+                    virtualHosts = true;
+                }
             }
             for (Branch branch : branches)
             {
@@ -129,13 +175,16 @@ public class ContextHandlerCollection extends HandlerCollection
             entry.setValue(sorted);
         }
 
+        // The targets are not cached if the matching contexts may depend on the virtual host
+        int maxCachedTargets = virtualHosts ? 0 : _maxCachedTargets;
+
         // Loop until we have a big enough trie to hold all the context paths
         int capacity = 512;
         Mapping mapping;
         loop:
         while (true)
         {
-            mapping = new Mapping(handlers, capacity);
+            mapping = new Mapping(handlers, capacity, maxCachedTargets);
             for (Map.Entry<String, Branch[]> entry : path2Branches.entrySet())
             {
                 if (!mapping._pathBranches.put(entry.getKey().substring(1), entry))
@@ -209,32 +258,15 @@ public class ContextHandlerCollection extends HandlerCollection
         // handle many contexts
         if (target.startsWith("/"))
         {
-            Trie<Map.Entry<String, Branch[]>> pathBranches = mapping._pathBranches;
-            if (pathBranches == null)
+            Branch[] branches = mapping.getBranches(target);
+            if (branches == null)
                 return;
 
-            int limit = target.length() - 1;
-
-            while (limit >= 0)
+            for (Branch branch : branches)
             {
-                // Get best match
-                Map.Entry<String, Branch[]> branches = pathBranches.getBest(target, 1, limit);
-
-                if (branches == null)
-                    break;
-
-                int l = branches.getKey().length();
-                if (l == 1 || target.length() == l || target.charAt(l) == '/')
-                {
-                    for (Branch branch : branches.getValue())
-                    {
-                        branch.getHandler().handle(target, baseRequest, request, response);
-                        if (baseRequest.isHandled())
-                            return;
-                    }
-                }
-
-                limit = l - 2;
+                branch.getHandler().handle(target, baseRequest, request, response);
+                if (baseRequest.isHandled())
+                    return;
             }
         }
         else
@@ -379,11 +411,56 @@ public class ContextHandlerCollection extends HandlerCollection
     {
         private final Map<ContextHandler, Handler> _contextBranches = new HashMap<>();
         private final Trie<Map.Entry<String, Branch[]>> _pathBranches;
+        private final ConcurrentLRUCache<String, Branch[]> _targetBranches;
 
-        private Mapping(Handler[] handlers, int capacity)
+        private Mapping(Handler[] handlers, int capacity, int maxCachedTargets)
         {
             super(handlers);
             _pathBranches = new ArrayTernaryTrie<>(false, capacity);
+            _targetBranches = maxCachedTargets > 0 ? new ConcurrentLRUCache<>(maxCachedTargets) : null;
+        }
+
+        /**
+         * @param target the target of the request
+         * @return the branches whose context path matches the target, in the order they should be called
+         */
+        private Branch[] getBranches(String target)
+        {
+            if (_targetBranches != null)
+            {
+                Branch[] branches = _targetBranches.get(target);
+                if (branches != null)
+                    return branches;
+            }
+
+            List<Branch> list = new ArrayList<>();
+            boolean cache = false;
+            int limit = target.length() - 1;
+            while (limit >= 0)
+            {
+                // Get best match
+                Map.Entry<String, Branch[]> branches = _pathBranches.getBest(target, 1, limit);
+
+                if (branches == null)
+                    break;
+
+                int l = branches.getKey().length();
+                if (l == 1 || target.length() == l || target.charAt(l) == '/')
+                {
+                    list.addAll(Arrays.asList(branches.getValue()));
+                    // Targets that only match the root context are not cached,
+                    // so that one-off targets do not evict the cached targets.
+                    if (l > 1)
+                        cache = true;
+                }
+
+                limit = l - 2;
+            }
+
+            Branch[] branches = list.toArray(new Branch[0]);
+            if (cache && _targetBranches != null)
+                _targetBranches.put(target, branches);
+            return branches;
         }
     }
 }
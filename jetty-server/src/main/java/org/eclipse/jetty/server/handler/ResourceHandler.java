@@ -18,7 +18,9 @@
 
 package org.eclipse.jetty.server.handler;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -31,6 +33,7 @@ import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.server.PrecompressedContentGenerator;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.ResourceContentFactory;
 import org.eclipse.jetty.server.ResourceService;
@@ -59,6 +62,8 @@ public class ResourceHandler extends HandlerWrapper implements ResourceFactory,
     private final ResourceService _resourceService;
     Resource _stylesheet;
     String[] _welcomes = {"index.html"};
+    private Path _precompressedContentDirectory;
+    private PrecompressedContentGenerator _precompressedContentGenerator;
 
     public ResourceHandler(ResourceService resourceService)
     {
@@ -102,12 +107,34 @@ public class ResourceHandler extends HandlerWrapper implements ResourceFactory,
         if (_mimeTypes == null)
             _mimeTypes = _context == null ? new MimeTypes() : _context.getMimeTypes();
 
+        Resource base = _baseResource != null ? _baseResource : _context != null ? _context.getBaseResource() : null;
+        File baseDirectory = base == null ? null : base.getFile();
+        if (_precompressedContentDirectory != null && baseDirectory != null && baseDirectory.isDirectory())
+        {
+            _precompressedContentGenerator = new PrecompressedContentGenerator(baseDirectory.toPath(), _precompressedContentDirectory, getPrecompressedFormats(), _mimeTypes);
+            if (getServer() != null)
+                _precompressedContentGenerator.setExecutor(getServer().getThreadPool());
+            _resourceService.setPrecompressedFormats(_precompressedContentGenerator.getFormats());
+            addBean(_precompressedContentGenerator, true);
+        }
+
         _resourceService.setContentFactory(new ResourceContentFactory(this, _mimeTypes, _resourceService.getPrecompressedFormats()));
         _resourceService.setWelcomeFactory(this);
 
         super.doStart();
     }
 
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        if (_precompressedContentGenerator != null)
+        {
+            removeBean(_precompressedContentGenerator);
+            _precompressedContentGenerator = null;
+        }
+    }
+
     /**
      * @return Returns the resourceBase.
      */
@@ -170,6 +197,14 @@ public class ResourceHandler extends HandlerWrapper implements ResourceFactory,
             if ((r == null || !r.exists()) && path.endsWith("/jetty-dir.css"))
                 r = getStylesheet();
 
+            // Precompressed variants may be generated outside of the base resource.
+            if ((r == null || !r.exists()) && _precompressedContentGenerator != null)
+            {
+                Resource variant = _precompressedContentGenerator.getResource(path);
+                if (variant != null)
+                    r = variant;
+            }
+
             return r;
         }
         catch (Exception e)
@@ -276,6 +311,28 @@ public class ResourceHandler extends HandlerWrapper implements ResourceFactory,
         return _resourceService.getPrecompressedFormats();
     }
 
+    /**
+     * @return the directory where precompressed variants of the static resources are generated, or null
+     */
+    public Path getPrecompressedContentDirectory()
+    {
+        return _precompressedContentDirectory;
+    }
+
+    /**
+     * <p>Sets a directory where precompressed variants of the static resources are generated
+     * in the background when this handler is started, and kept up to date as the resources change.</p>
+     * <p>The variants are generated for the {@link #setPrecompressedFormats(CompressedContentFormat[]) precompressed formats},
+     * or for all the available compression codecs if no format is set. The resource base must be a directory.</p>
+     *
+     * @param precompressedContentDirectory the directory of the generated variants, or null to not generate them
+     * @see PrecompressedContentGenerator
+     */
+    public void setPrecompressedContentDirectory(Path precompressedContentDirectory)
+    {
+        _precompressedContentDirectory = precompressedContentDirectory;
+    }
+
     /**
      * @return true, only the path info will be applied to the resourceBase
      */
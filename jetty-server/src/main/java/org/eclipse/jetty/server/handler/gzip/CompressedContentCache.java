@@ -0,0 +1,243 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler.gzip;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A cache of compressed response content, bounded by memory.</p>
+ * <p>Dynamically generated responses that have a stable {@code ETag} can be compressed
+ * once and then served from this cache, which turns repeated compression into a copy.
+ * Content is keyed by request URI, ETag of the uncompressed response and content coding,
+ * where the request URI includes the host, port and context path of the request.
+ * The content is stored in direct buffers, and the least recently used entries are
+ * evicted when the cache exceeds its max size.</p>
+ *
+ * @see GzipHandler#setMaxCompressedCacheSize(long)
+ */
+@ManagedObject("Cache of compressed response content")
+public class CompressedContentCache
+{
+    private final AutoLock _lock = new AutoLock();
+    private final Map<Key, ByteBuffer> _cache = new LinkedHashMap<>(16, 0.75F, true);
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final long _maxCacheSize;
+    private final int _maxEntrySize;
+    private long _cacheSize;
+
+    /**
+     * @param maxCacheSize the max number of bytes of content in the cache
+     * @param maxEntrySize the max number of bytes of the content of an entry
+     */
+    public CompressedContentCache(long maxCacheSize, int maxEntrySize)
+    {
+        if (maxCacheSize <= 0)
+            throw new IllegalArgumentException("Invalid max cache size " + maxCacheSize);
+        _maxCacheSize = maxCacheSize;
+        _maxEntrySize = (int)Math.min(maxEntrySize, maxCacheSize);
+    }
+
+    @ManagedAttribute("The max number of bytes of content in the cache")
+    public long getMaxCacheSize()
+    {
+        return _maxCacheSize;
+    }
+
+    @ManagedAttribute("The max number of bytes of the content of an entry")
+    public int getMaxEntrySize()
+    {
+        return _maxEntrySize;
+    }
+
+    @ManagedAttribute("The number of bytes of content in the cache")
+    public long getCacheSize()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _cacheSize;
+        }
+    }
+
+    @ManagedAttribute("The number of entries in the cache")
+    public int getCachedEntries()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _cache.size();
+        }
+    }
+
+    @ManagedAttribute("The number of lookups that found an entry")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of lookups that did not find an entry")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The number of entries evicted")
+    public long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    /**
+     * @param uri the request URI
+     * @param etag the ETag of the uncompressed response
+     * @param encoding the content coding
+     * @return a buffer with the compressed content, or null if the content is not cached
+     */
+    public ByteBuffer get(String uri, String etag, String encoding)
+    {
+        Key key = new Key(uri, etag, encoding);
+        ByteBuffer content;
+        try (AutoLock l = _lock.lock())
+        {
+            content = _cache.get(key);
+        }
+        if (content == null)
+        {
+            _misses.increment();
+            return null;
+        }
+        _hits.increment();
+        return content.asReadOnlyBuffer();
+    }
+
+    /**
+     * <p>Caches compressed content, evicting the least recently used entries if needed.</p>
+     * <p>The content is copied once into a direct buffer, so the given buffers may be
+     * reused once this method returns.</p>
+     *
+     * @param uri the request URI
+     * @param etag the ETag of the uncompressed response
+     * @param encoding the content coding
+     * @param chunks the buffers, in flush mode, holding the compressed content
+     * @return true if the content is cached, false if it is larger than {@link #getMaxEntrySize()}
+     */
+    public boolean put(String uri, String etag, String encoding, List<ByteBuffer> chunks)
+    {
+        long length = 0;
+        for (ByteBuffer chunk : chunks)
+        {
+            length += chunk.remaining();
+        }
+        if (length > _maxEntrySize)
+            return false;
+
+        ByteBuffer content = BufferUtil.allocateDirect((int)length);
+        for (ByteBuffer chunk : chunks)
+        {
+            BufferUtil.append(content, chunk.slice());
+        }
+
+        Key key = new Key(uri, etag, encoding);
+        try (AutoLock l = _lock.lock())
+        {
+            ByteBuffer previous = _cache.put(key, content);
+            if (previous != null)
+                _cacheSize -= previous.remaining();
+            _cacheSize += length;
+
+            Iterator<ByteBuffer> lru = _cache.values().iterator();
+            while (_cacheSize > _maxCacheSize && lru.hasNext())
+            {
+                _cacheSize -= lru.next().remaining();
+                lru.remove();
+                _evictions.increment();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param length the length of the content
+     * @return true if an entry of the given length may be cached
+     */
+    public boolean isCacheable(long length)
+    {
+        return length <= _maxEntrySize;
+    }
+
+    @ManagedOperation(value = "Remove all the cached content", impact = "ACTION")
+    public void clear()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            _cache.clear();
+            _cacheSize = 0;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d/%d,entries=%d,hits=%d,misses=%d}",
+            getClass().getSimpleName(), hashCode(), getCacheSize(), getMaxCacheSize(), getCachedEntries(), getHits(), getMisses());
+    }
+
+    private static class Key
+    {
+        private final String _uri;
+        private final String _etag;
+        private final String _encoding;
+
+        private Key(String uri, String etag, String encoding)
+        {
+            _uri = uri;
+            _etag = etag;
+            _encoding = encoding;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key that = (Key)o;
+            return _uri.equals(that._uri) && _etag.equals(that._etag) && _encoding.equals(that._encoding);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(_uri, _etag, _encoding);
+        }
+    }
+}
@@ -18,15 +18,27 @@
 
 package org.eclipse.jetty.server.handler.gzip;
 
-import java.util.zip.Deflater;
-
 import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.compression.CompressionCodec;
 
 public interface GzipFactory
 {
-    Deflater getDeflater(Request request, long contentLength);
+    /**
+     * @param request the request whose response is to be compressed
+     * @param contentLength the length of the response content, or -1 if unknown
+     * @return an Encoder for a content coding accepted by the request, or null if the response must not be compressed
+     */
+    CompressionCodec.Encoder getEncoder(Request request, long contentLength);
 
     boolean isMimeTypeGzipable(String mimetype);
 
-    void recycle(Deflater deflater);
+    void recycle(CompressionCodec.Encoder encoder);
+
+    /**
+     * @return the cache of compressed response content, or null if compressed content is not cached
+     */
+    default CompressedContentCache getCompressedContentCache()
+    {
+        return null;
+    }
 }
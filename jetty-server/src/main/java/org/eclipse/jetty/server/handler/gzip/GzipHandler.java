@@ -19,10 +19,15 @@
 package org.eclipse.jetty.server.handler.gzip;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
 import java.util.zip.Deflater;
 import javax.servlet.DispatcherType;
 import javax.servlet.ServletContext;
@@ -30,7 +35,6 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
@@ -38,6 +42,7 @@ import org.eclipse.jetty.http.HttpHeaderValue;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.QuotedQualityCSV;
 import org.eclipse.jetty.http.pathmap.PathSpecSet;
 import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.server.Request;
@@ -45,7 +50,9 @@ import org.eclipse.jetty.server.handler.HandlerWrapper;
 import org.eclipse.jetty.util.IncludeExclude;
 import org.eclipse.jetty.util.RegexSet;
 import org.eclipse.jetty.util.StringUtil;
-import org.eclipse.jetty.util.compression.DeflaterPool;
+import org.eclipse.jetty.util.compression.CompressionCodec;
+import org.eclipse.jetty.util.compression.CompressionCodecs;
+import org.eclipse.jetty.util.compression.EncoderPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,7 +70,8 @@ import org.slf4j.LoggerFactory;
  * <br>(Default: {@link DispatcherType#REQUEST}).
  * </p>
  * <p>
- * Requests with a {@code Content-Encoding} header with the value {@code gzip} will
+ * Requests with a {@code Content-Encoding} header with the value {@code gzip}, or the
+ * content coding of another available {@link CompressionCodec}, will
  * be uncompressed by a {@link GzipHttpInputInterceptor} for any API that uses
  * {@link HttpServletRequest#getInputStream()} or {@link HttpServletRequest#getReader()}.
  * </p>
@@ -73,7 +81,9 @@ import org.slf4j.LoggerFactory;
  * <ol>
  * <li>
  * Does the request contain a {@code Accept-Encoding} header that specifies
- * {@code gzip} value?
+ * one of the configured {@link #setCompressionEncodings(String...) compression encodings}?
+ * <br> (Default: {@code br}, {@code zstd} and {@code gzip}, in that order of preference,
+ * if a {@link CompressionCodec} is available for them; {@code gzip} is always available)
  * </li>
  * <li>
  * Is the {@link HttpServletRequest#getMethod()} allowed by the configured HTTP Method Filter.
@@ -89,11 +99,7 @@ import org.slf4j.LoggerFactory;
  * </li>
  * <li>
  * Is the Response {@code Content-Length} header present, and does its
- * value meet the minimum gzip size requirements (default 32 bytes)?
- * </li>
- * <li>
- * Is the Request {@code Accept} header present and does it contain the
- * required {@code gzip} value?
+ * value meet the minimum size requirements of the negotiated encoding (default 32 bytes)?
  * </li>
  * </ol>
  * <p>
@@ -119,7 +125,8 @@ import org.slf4j.LoggerFactory;
  * handling.
  * If a ETag is present in the Response headers, and GzipHandler is compressing the
  * contents, it will add the {@code --gzip} suffix before the Response headers are committed
- * and sent to the User Agent.
+ * and sent to the User Agent. Other content codings use the same scheme, for example
+ * a {@code --br} suffix.
  * </p>
  * <p>
  * This implementation relies on an Jetty internal {@link org.eclipse.jetty.server.HttpOutput.Interceptor}
@@ -155,14 +162,22 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     public static final int DEFAULT_MIN_GZIP_SIZE = 32;
     public static final int BREAK_EVEN_GZIP_SIZE = 23;
     private static final Logger LOG = LoggerFactory.getLogger(GzipHandler.class);
+    public static final int DEFAULT_MAX_COMPRESSED_CACHE_ENTRY_SIZE = 256 * 1024;
+    public static final String[] DEFAULT_COMPRESSION_ENCODINGS = {"br", "zstd", GZIP};
     private static final HttpField X_CE_GZIP = new PreEncodedHttpField("X-Content-Encoding", "gzip");
     private static final HttpField TE_CHUNKED = new PreEncodedHttpField(HttpHeader.TRANSFER_ENCODING, HttpHeaderValue.CHUNKED.asString());
-    private static final Pattern COMMA_GZIP = Pattern.compile(".*, *gzip");
 
     private int poolCapacity = -1;
-    private DeflaterPool _deflaterPool = null;
+    private final Map<String, EncoderPool> _encoderPools = new LinkedHashMap<>();
+    private String[] _encoderPreferredOrder = new String[0];
 
+    private String[] _compressionEncodings = DEFAULT_COMPRESSION_ENCODINGS;
+    private final Map<String, Integer> _compressionLevels = new HashMap<>();
+    private final Map<String, Integer> _minCompressSizes = new HashMap<>();
     private int _minGzipSize = DEFAULT_MIN_GZIP_SIZE;
+    private long _maxCompressedCacheSize = 0;
+    private int _maxCompressedCacheEntrySize = DEFAULT_MAX_COMPRESSED_CACHE_ENTRY_SIZE;
+    private CompressedContentCache _compressedContentCache;
     private boolean _syncFlush = false;
     private int _inflateBufferSize = -1;
     private EnumSet<DispatcherType> _dispatchers = EnumSet.of(DispatcherType.REQUEST);
@@ -409,16 +424,222 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         }
     }
 
+    /**
+     * Get the content codings that responses may be compressed with, in order of preference.
+     *
+     * @return the content codings, in order of preference
+     * @see #setCompressionEncodings(String...)
+     */
+    public String[] getCompressionEncodings()
+    {
+        return _compressionEncodings.clone();
+    }
+
+    /**
+     * Set the content codings that responses may be compressed with, in order of preference.
+     * <p>
+     * The encoding of a response is the one with the highest quality in the request
+     * {@code Accept-Encoding} header, or the first of these encodings if several have the
+     * same quality. Encodings without an available {@link CompressionCodec} are ignored.
+     * </p>
+     *
+     * @param encodings the content codings, in order of preference
+     * @see CompressionCodecs
+     */
+    public void setCompressionEncodings(String... encodings)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        List<String> list = new ArrayList<>();
+        for (String e : encodings)
+        {
+            for (String encoding : StringUtil.csvSplit(e))
+            {
+                list.add(StringUtil.asciiToLowerCase(encoding));
+            }
+        }
+        _compressionEncodings = list.toArray(new String[0]);
+    }
+
+    /**
+     * Set the content codings that responses may be compressed with, in order of preference.
+     *
+     * @param csvEncodings the content codings, CSV format
+     * @see #setCompressionEncodings(String...)
+     */
+    public void setCompressionEncodingList(String csvEncodings)
+    {
+        setCompressionEncodings(StringUtil.csvSplit(csvEncodings));
+    }
+
+    /**
+     * Get the content codings that responses may be compressed with, in CSV format
+     *
+     * @return the content codings in order of preference, CSV format
+     * @see #getCompressionEncodings()
+     */
+    public String getCompressionEncodingList()
+    {
+        return String.join(",", _compressionEncodings);
+    }
+
+    /**
+     * Get the compression level used for a content coding.
+     *
+     * @param encoding the content coding
+     * @return the compression level, or the default level of the codec if none is configured
+     * @see #setCompressionLevel(String, int)
+     */
+    public int getCompressionLevel(String encoding)
+    {
+        Integer level = _compressionLevels.get(StringUtil.asciiToLowerCase(encoding));
+        if (level != null)
+            return level;
+        CompressionCodec codec = CompressionCodecs.getCodec(encoding);
+        return codec == null ? Deflater.DEFAULT_COMPRESSION : codec.getDefaultLevel();
+    }
+
+    /**
+     * Set the compression level used for a content coding.
+     *
+     * @param encoding the content coding
+     * @param level the compression level, in the range of the {@link CompressionCodec} of the encoding
+     */
+    public void setCompressionLevel(String encoding, int level)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _compressionLevels.put(StringUtil.asciiToLowerCase(encoding), level);
+    }
+
+    /**
+     * Get the minimum response size to trigger compression with a content coding.
+     *
+     * @param encoding the content coding
+     * @return the minimum response size in bytes, or {@link #getMinGzipSize()} if none is configured
+     * @see #setMinCompressSize(String, int)
+     */
+    public int getMinCompressSize(String encoding)
+    {
+        Integer size = _minCompressSizes.get(StringUtil.asciiToLowerCase(encoding));
+        return size == null ? _minGzipSize : size;
+    }
+
+    /**
+     * Set the minimum response size to trigger compression with a content coding.
+     *
+     * @param encoding the content coding
+     * @param minCompressSize minimum response size in bytes
+     */
+    public void setMinCompressSize(String encoding, int minCompressSize)
+    {
+        _minCompressSizes.put(StringUtil.asciiToLowerCase(encoding), Math.max(0, minCompressSize));
+    }
+
     @Override
     protected void doStart() throws Exception
     {
-        _deflaterPool = newDeflaterPool(poolCapacity);
+        for (String encoding : _compressionEncodings)
+        {
+            CompressionCodec codec = CompressionCodecs.getCodec(encoding);
+            if (codec == null)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} no codec for {}", this, encoding);
+                continue;
+            }
+            if (!_encoderPools.containsKey(encoding))
+            {
+                EncoderPool pool = newEncoderPool(codec, poolCapacity);
+                _encoderPools.put(encoding, pool);
+                addBean(pool);
+            }
+        }
+        _encoderPreferredOrder = _encoderPools.keySet().toArray(new String[0]);
+        if (_maxCompressedCacheSize > 0)
+        {
+            _compressedContentCache = new CompressedContentCache(_maxCompressedCacheSize, _maxCompressedCacheEntrySize);
+            addBean(_compressedContentCache);
+        }
         _vary = (_agentPatterns.size() > 0) ? GzipHttpOutputInterceptor.VARY_ACCEPT_ENCODING_USER_AGENT : GzipHttpOutputInterceptor.VARY_ACCEPT_ENCODING;
         super.doStart();
     }
 
     @Override
-    public Deflater getDeflater(Request request, long contentLength)
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        for (EncoderPool pool : _encoderPools.values())
+        {
+            removeBean(pool);
+        }
+        _encoderPools.clear();
+        if (_compressedContentCache != null)
+        {
+            removeBean(_compressedContentCache);
+            _compressedContentCache = null;
+        }
+    }
+
+    @Override
+    public CompressedContentCache getCompressedContentCache()
+    {
+        return _compressedContentCache;
+    }
+
+    /**
+     * Get the max number of bytes of compressed content that are cached.
+     *
+     * @return the max size of the cache of compressed content, or 0 if compressed content is not cached
+     * @see #setMaxCompressedCacheSize(long)
+     */
+    public long getMaxCompressedCacheSize()
+    {
+        return _maxCompressedCacheSize;
+    }
+
+    /**
+     * Set the max number of bytes of compressed content that are cached.
+     * <p>
+     * Compressed content is cached only for responses with status 200 and a strong {@code ETag},
+     * which must identify the uncompressed content of the request URI. Cached content is served
+     * without compressing the content written by the application again.
+     * </p>
+     *
+     * @param size the max size of the cache of compressed content, or 0 to not cache compressed content
+     * @see CompressedContentCache
+     */
+    public void setMaxCompressedCacheSize(long size)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _maxCompressedCacheSize = size;
+    }
+
+    /**
+     * Get the max number of bytes of the compressed content of a cached response.
+     *
+     * @return the max size of a cache entry
+     */
+    public int getMaxCompressedCacheEntrySize()
+    {
+        return _maxCompressedCacheEntrySize;
+    }
+
+    /**
+     * Set the max number of bytes of the compressed content of a cached response.
+     *
+     * @param size the max size of a cache entry
+     */
+    public void setMaxCompressedCacheEntrySize(int size)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _maxCompressedCacheEntrySize = size;
+    }
+
+    @Override
+    public CompressionCodec.Encoder getEncoder(Request request, long contentLength)
     {
         String ua = request.getHttpFields().get(HttpHeader.USER_AGENT);
         if (ua != null && !isAgentGzipable(ua))
@@ -427,20 +648,69 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
             return null;
         }
 
-        if (contentLength >= 0 && contentLength < _minGzipSize)
+        // check the accept encoding header
+        String encoding = getPreferredEncoding(request);
+        if (encoding == null)
         {
-            LOG.debug("{} excluded minGzipSize {}", this, request);
+            LOG.debug("{} excluded not accepted encoding {}", this, request);
             return null;
         }
 
-        // check the accept encoding header
-        if (!request.getHttpFields().contains(HttpHeader.ACCEPT_ENCODING, "gzip"))
+        if (contentLength >= 0 && contentLength < getMinCompressSize(encoding))
         {
-            LOG.debug("{} excluded not gzip accept {}", this, request);
+            LOG.debug("{} excluded minCompressSize {} {}", this, encoding, request);
             return null;
         }
 
-        return _deflaterPool.acquire();
+        return _encoderPools.get(encoding).acquire();
+    }
+
+    /**
+     * Negotiate the content coding of the response.
+     *
+     * @param request the request
+     * @return the accepted content coding with the highest quality, or null if no available coding is accepted
+     */
+    protected String getPreferredEncoding(Request request)
+    {
+        List<String> acceptEncodings = request.getHttpFields().getValuesList(HttpHeader.ACCEPT_ENCODING);
+        if (acceptEncodings.isEmpty())
+            return null;
+
+        // Codings with a quality of zero are not iterated, so record all the
+        // listed codings, as they must not be selected by the "*" wildcard.
+        Set<String> listed = new HashSet<>();
+        QuotedQualityCSV encodingQualityCSV = new QuotedQualityCSV(_encoderPreferredOrder)
+        {
+            @Override
+            protected void parsedValue(StringBuffer buffer)
+            {
+                super.parsedValue(buffer);
+                listed.add(StringUtil.asciiToLowerCase(buffer.toString()));
+            }
+        };
+        for (String value : acceptEncodings)
+        {
+            encodingQualityCSV.addValue(value);
+        }
+
+        for (String encoding : encodingQualityCSV)
+        {
+            if ("*".equals(encoding))
+            {
+                // The wildcard matches only the codings that are not listed.
+                for (String preferred : _encoderPreferredOrder)
+                {
+                    if (!listed.contains(preferred))
+                        return preferred;
+                }
+                continue;
+            }
+            encoding = StringUtil.asciiToLowerCase(encoding);
+            if (_encoderPools.containsKey(encoding))
+                return encoding;
+        }
+        return null;
     }
 
     /**
@@ -593,12 +863,13 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
 
         // Handle request inflation
         HttpFields httpFields = baseRequest.getHttpFields();
-        boolean inflated = _inflateBufferSize > 0 && httpFields.contains(HttpHeader.CONTENT_ENCODING, "gzip");
+        CompressionCodec inflateCodec = _inflateBufferSize > 0 ? getInflateCodec(httpFields) : null;
+        boolean inflated = inflateCodec != null;
         if (inflated)
         {
             if (LOG.isDebugEnabled())
-                LOG.debug("{} inflate {}", this, request);
-            baseRequest.getHttpInput().addInterceptor(new GzipHttpInputInterceptor(baseRequest.getHttpChannel().getByteBufferPool(), _inflateBufferSize));
+                LOG.debug("{} inflate {} {}", this, inflateCodec.getEncoding(), request);
+            baseRequest.getHttpInput().addInterceptor(new GzipHttpInputInterceptor(inflateCodec, baseRequest.getHttpChannel().getByteBufferPool(), _inflateBufferSize));
         }
 
         // Are we already being gzipped?
@@ -633,18 +904,13 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
                     case IF_NONE_MATCH:
                     {
                         String etag = field.getValue();
-                        int i = etag.indexOf(CompressedContentFormat.GZIP._etagQuote);
-                        if (i <= 0 || alreadyGzipped)
+                        String stripped = alreadyGzipped ? etag : stripCompressedEtags(etag);
+                        if (stripped == etag)
                             newFields.add(field);
                         else
                         {
                             baseRequest.setAttribute("o.e.j.s.h.gzip.GzipHandler.etag", etag);
-                            while (i >= 0)
-                            {
-                                etag = etag.substring(0, i) + etag.substring(i + CompressedContentFormat.GZIP._etag.length());
-                                i = etag.indexOf(CompressedContentFormat.GZIP._etagQuote, i);
-                            }
-                            newFields.add(new HttpField(field.getHeader(), etag));
+                            newFields.add(new HttpField(field.getHeader(), stripped));
                         }
                         break;
                     }
@@ -656,15 +922,12 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
                     case CONTENT_ENCODING:
                         if (inflated)
                         {
-                            if (field.getValue().equalsIgnoreCase("gzip"))
-                                newFields.add(X_CE_GZIP);
-                            else if (COMMA_GZIP.matcher(field.getValue()).matches())
-                            {
-                                String v = field.getValue();
-                                v = v.substring(0, v.lastIndexOf(','));
-                                newFields.add(X_CE_GZIP);
-                                newFields.add(new HttpField(HttpHeader.CONTENT_ENCODING, v));
-                            }
+                            String v = field.getValue();
+                            int comma = v.lastIndexOf(',');
+                            String encoding = inflateCodec.getEncoding();
+                            newFields.add(GZIP.equals(encoding) ? X_CE_GZIP : new HttpField("X-Content-Encoding", encoding));
+                            if (comma > 0)
+                                newFields.add(new HttpField(HttpHeader.CONTENT_ENCODING, v.substring(0, comma)));
                         }
                         else
                         {
@@ -735,6 +998,46 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         }
     }
 
+    /**
+     * Get the codec to decode the request content with, which is the codec of the
+     * last content coding applied to the request content.
+     *
+     * @param httpFields the request fields
+     * @return the codec, or null if the request content is not encoded with an available codec
+     */
+    private CompressionCodec getInflateCodec(HttpFields httpFields)
+    {
+        String contentEncoding = httpFields.get(HttpHeader.CONTENT_ENCODING);
+        if (contentEncoding == null)
+            return null;
+        int comma = contentEncoding.lastIndexOf(',');
+        return CompressionCodecs.getCodec(comma < 0 ? contentEncoding : contentEncoding.substring(comma + 1));
+    }
+
+    /**
+     * Remove the suffixes added by {@link GzipHttpOutputInterceptor} to the entity tags of a
+     * compressed response, such as {@code --gzip}.
+     *
+     * @param etag the entity tags of a request header
+     * @return the entity tags without suffixes, or the same instance if there are no suffixes
+     */
+    private String stripCompressedEtags(String etag)
+    {
+        String stripped = etag;
+        for (CompressionCodec codec : CompressionCodecs.getCodecs())
+        {
+            String suffix = "--" + codec.getEncoding();
+            String suffixQuote = suffix + "\"";
+            int i = stripped.indexOf(suffixQuote);
+            while (i > 0)
+            {
+                stripped = stripped.substring(0, i) + stripped.substring(i + suffix.length());
+                i = stripped.indexOf(suffixQuote, i);
+            }
+        }
+        return stripped;
+    }
+
     /**
      * Test if the provided User-Agent is allowed based on the User-Agent filters.
      *
@@ -776,9 +1079,13 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     }
 
     @Override
-    public void recycle(Deflater deflater)
+    public void recycle(CompressionCodec.Encoder encoder)
     {
-        _deflaterPool.release(deflater);
+        EncoderPool pool = _encoderPools.get(encoder.getEncoding());
+        if (pool == null)
+            encoder.end();
+        else
+            pool.release(encoder);
     }
 
     /**
@@ -945,9 +1252,9 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     }
 
     /**
-     * Gets the maximum number of Deflaters that the DeflaterPool can hold.
+     * Gets the maximum number of Encoders that the pool of each content coding can hold.
      *
-     * @return the Deflater pool capacity
+     * @return the Encoder pool capacity
      */
     public int getDeflaterPoolCapacity()
     {
@@ -955,7 +1262,7 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     }
 
     /**
-     * Sets the maximum number of Deflaters that the DeflaterPool can hold.
+     * Sets the maximum number of Encoders that the pool of each content coding can hold.
      */
     public void setDeflaterPoolCapacity(int capacity)
     {
@@ -965,9 +1272,9 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         poolCapacity = capacity;
     }
 
-    protected DeflaterPool newDeflaterPool(int capacity)
+    protected EncoderPool newEncoderPool(CompressionCodec codec, int capacity)
     {
-        return new DeflaterPool(capacity, Deflater.DEFAULT_COMPRESSION, true);
+        return new EncoderPool(capacity, codec, getCompressionLevel(codec.getEncoding()));
     }
 
     @Override
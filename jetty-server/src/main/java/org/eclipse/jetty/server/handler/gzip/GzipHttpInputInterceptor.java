@@ -18,42 +18,69 @@
 
 package org.eclipse.jetty.server.handler.gzip;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
-import org.eclipse.jetty.http.GZIPContentDecoder;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.server.HttpInput;
 import org.eclipse.jetty.server.HttpInput.Content;
 import org.eclipse.jetty.util.component.Destroyable;
+import org.eclipse.jetty.util.compression.CompressionCodec;
+import org.eclipse.jetty.util.compression.GzipCodec;
 
 /**
- * An HttpInput Interceptor that inflates GZIP encoded request content.
+ * An HttpInput Interceptor that decodes compressed request content,
+ * by default GZIP encoded.
  */
 public class GzipHttpInputInterceptor implements HttpInput.Interceptor, Destroyable
 {
-    private final Decoder _decoder;
-    private ByteBuffer _chunk;
+    private final CompressionCodec.Decoder _decoder;
+    private final ByteBufferPool _pool;
+    private final int _bufferSize;
 
     public GzipHttpInputInterceptor(ByteBufferPool pool, int bufferSize)
     {
-        _decoder = new Decoder(pool, bufferSize);
+        this(new GzipCodec(), pool, bufferSize);
+    }
+
+    public GzipHttpInputInterceptor(CompressionCodec codec, ByteBufferPool pool, int bufferSize)
+    {
+        _decoder = codec.newDecoder();
+        _pool = pool;
+        _bufferSize = bufferSize;
     }
 
     @Override
     public Content readFrom(Content content)
     {
-        _decoder.decodeChunks(content.getByteBuffer());
-        final ByteBuffer chunk = _chunk;
-
-        if (chunk == null)
-            return null;
+        ByteBuffer compressed = content.getByteBuffer();
+        final ByteBuffer chunk = _pool.acquire(_bufferSize, false);
+        try
+        {
+            while (true)
+            {
+                _decoder.decode(compressed, chunk);
+                if (chunk.hasRemaining())
+                    break;
+                if (!compressed.hasRemaining())
+                {
+                    _pool.release(chunk);
+                    return null;
+                }
+            }
+        }
+        catch (IOException x)
+        {
+            _pool.release(chunk);
+            throw new RuntimeException(x);
+        }
 
         return new Content(chunk)
         {
             @Override
             public void succeeded()
             {
-                _decoder.release(chunk);
+                _pool.release(chunk);
             }
         };
     }
@@ -61,28 +88,6 @@ public class GzipHttpInputInterceptor implements HttpInput.Interceptor, Destroya
     @Override
     public void destroy()
     {
-        _decoder.destroy();
-    }
-
-    private class Decoder extends GZIPContentDecoder
-    {
-        private Decoder(ByteBufferPool pool, int bufferSize)
-        {
-            super(pool, bufferSize);
-        }
-
-        @Override
-        protected boolean decodedChunk(final ByteBuffer chunk)
-        {
-            _chunk = chunk;
-            return true;
-        }
-
-        @Override
-        public void decodeChunks(ByteBuffer compressed)
-        {
-            _chunk = null;
-            super.decodeChunks(compressed);
-        }
+        _decoder.end();
     }
 }
@@ -20,10 +20,11 @@ package org.eclipse.jetty.server.handler.gzip;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.WritePendingException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.zip.CRC32;
-import java.util.zip.Deflater;
 
+import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
@@ -31,31 +32,30 @@ import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.server.HttpChannel;
 import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingNestedCallback;
 import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.compression.CompressionCodec;
+import org.eclipse.jetty.util.compression.CompressionCodecs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static org.eclipse.jetty.http.CompressedContentFormat.GZIP;
-
 public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
 {
     public static Logger LOG = LoggerFactory.getLogger(GzipHttpOutputInterceptor.class);
-    private static final byte[] GZIP_HEADER = new byte[]{(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
 
     public static final HttpField VARY_ACCEPT_ENCODING_USER_AGENT = new PreEncodedHttpField(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING + ", " + HttpHeader.USER_AGENT);
     public static final HttpField VARY_ACCEPT_ENCODING = new PreEncodedHttpField(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString());
 
     private enum GZState
     {
-        MIGHT_COMPRESS, NOT_COMPRESSING, COMMITTING, COMPRESSING, FINISHED
+        MIGHT_COMPRESS, NOT_COMPRESSING, COMMITTING, COMPRESSING, CACHED, FINISHED
     }
 
     private final AtomicReference<GZState> _state = new AtomicReference<>(GZState.MIGHT_COMPRESS);
-    private final CRC32 _crc = new CRC32();
 
     private final GzipFactory _factory;
     private final HttpOutput.Interceptor _interceptor;
@@ -64,8 +64,13 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     private final int _bufferSize;
     private final boolean _syncFlush;
 
-    private Deflater _deflater;
+    private CompressionCodec.Encoder _encoder;
     private ByteBuffer _buffer;
+    private CompressedContentCache _cache;
+    private String _cacheUri;
+    private String _cacheEtag;
+    private List<ByteBuffer> _cacheContent;
+    private int _cacheLength;
 
     public GzipHttpOutputInterceptor(GzipFactory factory, HttpChannel channel, HttpOutput.Interceptor next, boolean syncFlush)
     {
@@ -114,18 +119,20 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 gzip(content, complete, callback);
                 break;
 
+            case CACHED:
+                // The cached content has been written, so the content of the application is discarded.
+                if (complete)
+                    _interceptor.write(BufferUtil.EMPTY_BUFFER, true, callback);
+                else
+                    callback.succeeded();
+                break;
+
             default:
                 callback.failed(new IllegalStateException("state=" + _state.get()));
                 break;
         }
     }
 
-    private void addTrailer()
-    {
-        BufferUtil.putIntLittleEndian(_buffer, (int)_crc.getValue());
-        BufferUtil.putIntLittleEndian(_buffer, _deflater.getTotalIn());
-    }
-
     private void gzip(ByteBuffer content, boolean complete, final Callback callback)
     {
         if (content.hasRemaining() || complete)
@@ -150,9 +157,15 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 String responseEtag = response.getHttpFields().get(HttpHeader.ETAG);
                 if (requestEtags != null && responseEtag != null)
                 {
-                    String responseEtagGzip = etagGzip(responseEtag);
-                    if (requestEtags.contains(responseEtagGzip))
-                        response.getHttpFields().put(HttpHeader.ETAG, responseEtagGzip);
+                    for (CompressionCodec codec : CompressionCodecs.getCodecs())
+                    {
+                        String responseEtagCompressed = etagCompressed(responseEtag, codec.getEncoding());
+                        if (requestEtags.contains(responseEtagCompressed))
+                        {
+                            response.getHttpFields().put(HttpHeader.ETAG, responseEtagCompressed);
+                            break;
+                        }
+                    }
                 }
             }
 
@@ -201,26 +214,50 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             if (contentLength < 0 && complete)
                 contentLength = content.remaining();
 
-            _deflater = _factory.getDeflater(_channel.getRequest(), contentLength);
+            _encoder = _factory.getEncoder(_channel.getRequest(), contentLength);
 
-            if (_deflater == null)
+            if (_encoder == null)
             {
-                LOG.debug("{} exclude no deflater", this);
+                LOG.debug("{} exclude no encoder", this);
                 _state.set(GZState.NOT_COMPRESSING);
                 _interceptor.write(content, complete, callback);
                 return;
             }
 
-            fields.put(GZIP._contentEncoding);
-            _crc.reset();
+            String encoding = _encoder.getEncoding();
+            fields.put(CompressedContentFormat.GZIP._encoding.equals(encoding)
+                ? CompressedContentFormat.GZIP._contentEncoding
+                : new PreEncodedHttpField(HttpHeader.CONTENT_ENCODING, encoding));
 
             // Adjust headers
             response.setContentLength(-1);
             String etag = fields.get(HttpHeader.ETAG);
             if (etag != null)
-                fields.put(HttpHeader.ETAG, etagGzip(etag));
+                fields.put(HttpHeader.ETAG, etagCompressed(etag, encoding));
 
-            LOG.debug("{} compressing {}", this, _deflater);
+            // Is the compressed content cached, or should it be?
+            CompressedContentCache cache = _factory.getCompressedContentCache();
+            if (cache != null && etag != null && !etag.startsWith("W/") && (sc <= 0 || sc == 200))
+            {
+                String uri = cacheUri(_channel.getRequest());
+                ByteBuffer cached = cache.get(uri, etag, encoding);
+                if (cached != null)
+                {
+                    LOG.debug("{} cached {}", this, cached);
+                    _factory.recycle(_encoder);
+                    _encoder = null;
+                    _state.set(GZState.CACHED);
+                    _interceptor.write(cached, complete, callback);
+                    return;
+                }
+                _cache = cache;
+                _cacheUri = uri;
+                _cacheEtag = etag;
+                _cacheContent = new ArrayList<>();
+                _cacheLength = 0;
+            }
+
+            LOG.debug("{} compressing {}", this, _encoder);
             _state.set(GZState.COMPRESSING);
 
             if (BufferUtil.isEmpty(content))
@@ -237,10 +274,27 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             callback.failed(new WritePendingException());
     }
 
-    private String etagGzip(String etag)
+    private static String cacheUri(Request request)
+    {
+        // The same path may be served by different contexts or virtual hosts.
+        String contextPath = request.getContextPath();
+        return request.getServerName() + ':' + request.getServerPort() +
+            (contextPath == null ? "" : contextPath) + '|' + request.getHttpURI().getPathQuery();
+    }
+
+    private void releaseCacheContent()
+    {
+        if (_cacheContent != null)
+        {
+            _cacheContent.forEach(_channel.getByteBufferPool()::release);
+            _cacheContent = null;
+        }
+    }
+
+    private String etagCompressed(String etag, String encoding)
     {
         int end = etag.length() - 1;
-        return (etag.charAt(end) == '"') ? etag.substring(0, end) + GZIP._etag + '"' : etag + GZIP._etag;
+        return (etag.charAt(end) == '"') ? etag.substring(0, end) + "--" + encoding + '"' : etag + "--" + encoding;
     }
 
     public void noCompression()
@@ -270,6 +324,7 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             switch (_state.get())
             {
                 case COMPRESSING:
+                case CACHED:
                 case NOT_COMPRESSING:
                     return;
 
@@ -291,9 +346,10 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
 
     private class GzipBufferCB extends IteratingNestedCallback
     {
-        private ByteBuffer _copy;
         private final ByteBuffer _content;
         private final boolean _last;
+        private boolean _finishing;
+        private boolean _full;
 
         public GzipBufferCB(ByteBuffer content, boolean complete, Callback callback)
         {
@@ -305,18 +361,22 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
         @Override
         protected void onCompleteFailure(Throwable x)
         {
-            _factory.recycle(_deflater);
-            _deflater = null;
+            releaseCacheContent();
+            if (_encoder != null)
+            {
+                _factory.recycle(_encoder);
+                _encoder = null;
+            }
             super.onCompleteFailure(x);
         }
 
         @Override
         protected Action process() throws Exception
         {
-            // If we have no deflator
-            if (_deflater == null)
+            // If we have no encoder
+            if (_encoder == null)
             {
-                // then the trailer has been generated and written below.
+                // then the end of the stream has been encoded and written below.
                 // we have finished compressing the entire content, so
                 // cleanup and succeed.
                 if (_buffer != null)
@@ -324,20 +384,21 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                     _channel.getByteBufferPool().release(_buffer);
                     _buffer = null;
                 }
-                if (_copy != null)
-                {
-                    _channel.getByteBufferPool().release(_copy);
-                    _copy = null;
-                }
                 return Action.SUCCEEDED;
             }
 
             // If we have no buffer
             if (_buffer == null)
             {
-                // allocate a buffer and add the gzip header
+                // allocate a buffer for the encoded content
+                _buffer = _channel.getByteBufferPool().acquire(_bufferSize, false);
+            }
+            else if (_cacheContent != null && _buffer.limit() > 0)
+            {
+                // Retain the written buffer as cached content, rather than copying its bytes.
+                _buffer.position(0);
+                _cacheContent.add(_buffer);
                 _buffer = _channel.getByteBufferPool().acquire(_bufferSize, false);
-                BufferUtil.fill(_buffer, GZIP_HEADER, 0, GZIP_HEADER.length);
             }
             else
             {
@@ -345,83 +406,87 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 BufferUtil.clear(_buffer);
             }
 
-            // If the deflator is not finished, then compress more data
-            if (!_deflater.finished())
+            while (true)
             {
-                if (_deflater.needsInput())
+                // If the previous encode did not fill the buffer, then the encoder may need more input.
+                if (!_full && !_finishing && _encoder.needsInput())
                 {
                     // if there is no more content available to compress
                     // then we are either finished all content or just the current write.
                     if (BufferUtil.isEmpty(_content))
                     {
-                        if (_last)
-                            _deflater.finish();
-                        else
-                            return Action.SUCCEEDED;
+                        if (!_last)
+                        {
+                            if (BufferUtil.isEmpty(_buffer))
+                                return Action.SUCCEEDED;
+                            break;
+                        }
+                        _encoder.finish();
+                        _finishing = true;
                     }
                     else
                     {
-                        // If there is more content available to compress, we have to make sure
-                        // it is available in an array for the current deflator API, maybe slicing
-                        // of content.
-                        ByteBuffer slice;
-                        if (_content.hasArray())
-                            slice = _content;
-                        else
+                        // The encoder consumes the content as it is encoded.
+                        _encoder.setInput(_content);
+                        if (_last)
                         {
-                            if (_copy == null)
-                                _copy = _channel.getByteBufferPool().acquire(_bufferSize, false);
-                            else
-                                BufferUtil.clear(_copy);
-                            slice = _copy;
-                            BufferUtil.append(_copy, _content);
+                            _encoder.finish();
+                            _finishing = true;
                         }
-
-                        // transfer the data from the slice to the the deflator
-                        byte[] array = slice.array();
-                        int off = slice.arrayOffset() + slice.position();
-                        int len = slice.remaining();
-                        _crc.update(array, off, len);
-                        _deflater.setInput(array, off, len);  // TODO use ByteBuffer API in Jetty-10
-                        slice.position(slice.position() + len);
-                        if (_last && BufferUtil.isEmpty(_content))
-                            _deflater.finish();
                     }
                 }
 
-                // deflate the content into the available space in the buffer
-                int off = _buffer.arrayOffset() + _buffer.limit();
-                int len = BufferUtil.space(_buffer);
-                int produced = _deflater.deflate(_buffer.array(), off, len, _syncFlush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
-                _buffer.limit(_buffer.limit() + produced);
-            }
+                // encode the content into the available space in the buffer
+                int produced = _encoder.encode(_buffer, _syncFlush);
+                _full = BufferUtil.space(_buffer) == 0;
+                if (_cacheContent != null && produced > 0)
+                    cache(produced);
 
-            // If we have finished deflation and there is room for the trailer.
-            if (_deflater.finished() && BufferUtil.space(_buffer) >= 8)
-            {
-                // add the trailer and recycle the deflator to flag that we will have had completeSuccess when
-                // the write below completes.
-                addTrailer();
-                _factory.recycle(_deflater);
-                _deflater = null;
+                if (_encoder.finished())
+                {
+                    if (_cacheContent != null)
+                    {
+                        _cacheContent.add(_buffer);
+                        _cache.put(_cacheUri, _cacheEtag, _encoder.getEncoding(), _cacheContent);
+                        // The last buffer is still to be written.
+                        _cacheContent.remove(_cacheContent.size() - 1);
+                        releaseCacheContent();
+                    }
+
+                    // recycle the encoder to flag that we will have had completeSuccess when
+                    // the write below completes.
+                    _factory.recycle(_encoder);
+                    _encoder = null;
+                    break;
+                }
+
+                if (_full)
+                    break;
             }
 
             // write the compressed buffer.
-            _interceptor.write(_buffer, _deflater == null, this);
+            _interceptor.write(_buffer, _encoder == null, this);
             return Action.SCHEDULED;
         }
 
+        private void cache(int produced)
+        {
+            // Stop caching if the content is too large.
+            _cacheLength += produced;
+            if (_cacheLength > _cache.getMaxEntrySize())
+                releaseCacheContent();
+        }
+
         @Override
         public String toString()
         {
-            return String.format("%s[content=%s last=%b copy=%s buffer=%s deflate=%s %s]",
+            return String.format("%s[content=%s last=%b buffer=%s encoder=%s %s]",
                 super.toString(),
                 BufferUtil.toDetailString(_content),
                 _last,
-                BufferUtil.toDetailString(_copy),
                 BufferUtil.toDetailString(_buffer),
-                _deflater,
-                _deflater != null && _deflater.finished() ? "(finished)" : "");
+                _encoder,
+                _encoder != null && _encoder.finished() ? "(finished)" : "");
         }
     }
 }
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -37,6 +38,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -47,11 +49,15 @@ import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpParser;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.tools.HttpTester;
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.WriteCoalescing;
 import org.eclipse.jetty.logging.StacklessLogging;
 import org.eclipse.jetty.server.LocalConnector.LocalEndPoint;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.eclipse.jetty.server.handler.ErrorHandler;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IO;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -64,6 +70,7 @@ import org.slf4j.LoggerFactory;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
@@ -1382,6 +1389,99 @@ public class HttpConnectionTest
         }
     }
 
+    @Test
+    public void testRequestBufferReleasedAfterContentConsumed() throws Exception
+    {
+        server.stop();
+
+        HttpConnectionFactory http = new HttpConnectionFactory();
+        AtomicInteger acquired = new AtomicInteger();
+        ByteBufferPool bufferPool = new ArrayByteBufferPool()
+        {
+            @Override
+            public ByteBuffer acquire(int size, boolean direct)
+            {
+                acquired.incrementAndGet();
+                return super.acquire(size, direct);
+            }
+
+            @Override
+            public void release(ByteBuffer buffer)
+            {
+                acquired.decrementAndGet();
+                super.release(buffer);
+            }
+        };
+        LocalConnector localConnector = new LocalConnector(server, null, null, bufferPool, -1, http);
+        server.addConnector(localConnector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                baseRequest.setHandled(true);
+                byte[] content = IO.readBytes(request.getInputStream());
+                response.getOutputStream().print("read=" + content.length);
+            }
+        });
+        server.start();
+
+        // The content is larger than the request buffer, so it is parsed from multiple buffers.
+        int length = 4 * http.getInputBufferSize();
+        char[] content = new char[length];
+        Arrays.fill(content, 'x');
+        LocalEndPoint endPoint = localConnector.executeRequest("POST / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Content-Length: " + length + "\r\n" +
+            "Connection: close\r\n" +
+            "\r\n" +
+            new String(content));
+
+        String response = endPoint.getResponse();
+        assertThat(response, containsString("HTTP/1.1 200"));
+        assertThat(response, containsString("read=" + length));
+
+        // All the request buffers must have been returned to the pool.
+        endPoint.waitUntilClosed();
+        assertThat(acquired.get(), is(0));
+    }
+
+    @Test
+    public void testPipelinedWriteCoalescing() throws Exception
+    {
+        server.stop();
+        HttpConnectionFactory http = connector.getConnectionFactory(HttpConnectionFactory.class);
+        http.getHttpConfiguration().setWriteCoalescingSize(16 * 1024);
+        http.getHttpConfiguration().setWriteCoalescingDelay(1);
+        server.start();
+
+        LocalEndPoint endPoint = connector.executeRequest(
+            "GET /R1 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "\r\n" +
+                "GET /R2 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "\r\n" +
+                "GET /R3 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "\r\n");
+        endPoint.waitUntilClosed();
+        String responses = endPoint.takeOutputString();
+
+        int offset = 0;
+        offset = checkContains(responses, offset, "HTTP/1.1 200");
+        offset = checkContains(responses, offset, "/R1");
+        offset = checkContains(responses, offset, "HTTP/1.1 200");
+        offset = checkContains(responses, offset, "/R2");
+        offset = checkContains(responses, offset, "HTTP/1.1 200");
+        checkContains(responses, offset, "/R3");
+
+        WriteCoalescing writeCoalescing = http.getWriteCoalescing();
+        assertThat(writeCoalescing.getCoalescedWrites(), greaterThan(0L));
+        assertThat(writeCoalescing.getWritesPerFlush(), greaterThan(1.0D));
+    }
+
     private int checkContains(String s, int offset, String c)
     {
         assertThat(s.substring(offset), Matchers.containsString(c));
@@ -0,0 +1,152 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.eclipse.jetty.util.resource.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(WorkDirExtension.class)
+public class PrecompressedContentGeneratorTest
+{
+    private static final String CSS = "body { margin: 0; padding: 0; }\n".repeat(100);
+
+    public WorkDir workDir;
+    private Path _base;
+    private Path _cache;
+    private PrecompressedContentGenerator _generator;
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        Path dir = workDir.getEmptyPathDir();
+        _base = dir.resolve("base");
+        _cache = dir.resolve("cache");
+        Files.createDirectories(_base.resolve("css"));
+        Files.writeString(_base.resolve("css/site.css"), CSS, UTF_8);
+        Files.writeString(_base.resolve("small.txt"), "small", UTF_8);
+        Files.write(_base.resolve("image.png"), CSS.getBytes(UTF_8));
+
+        _generator = new PrecompressedContentGenerator(_base, _cache, new CompressedContentFormat[]{CompressedContentFormat.GZIP}, new MimeTypes());
+        // Generate synchronously.
+        _generator.setExecutor(Runnable::run);
+        _generator.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        _generator.stop();
+    }
+
+    private static String gunzip(Path file) throws IOException
+    {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file)))
+        {
+            return IO.toString(input, UTF_8);
+        }
+    }
+
+    @Test
+    public void testGenerateOnStart() throws Exception
+    {
+        Path variant = _cache.resolve("css/site.css.gz");
+        assertTrue(Files.exists(variant));
+        assertEquals(CSS, gunzip(variant));
+
+        // Not compressible, or too small.
+        assertFalse(Files.exists(_cache.resolve("image.png.gz")));
+        assertFalse(Files.exists(_cache.resolve("small.txt.gz")));
+        assertEquals(1, _generator.getGenerated());
+
+        Resource resource = _generator.getResource("/css/site.css.gz");
+        assertThat(resource, notNullValue());
+        assertTrue(resource.exists());
+        assertNull(_generator.getResource("/css/site.css"));
+        assertNull(_generator.getResource("/../base/css/site.css.gz"));
+    }
+
+    @Test
+    public void testRegenerateModified() throws Exception
+    {
+        Path file = _base.resolve("css/site.css");
+        Path variant = _cache.resolve("css/site.css.gz");
+        String modified = CSS + "p { color: red; }\n";
+        Files.writeString(file, modified, UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(variant).toMillis() + 2000));
+
+        _generator.generate(file);
+        assertEquals(modified, gunzip(variant));
+        assertEquals(2, _generator.getGenerated());
+
+        // Up to date variants are not generated again.
+        _generator.generateAll();
+        assertEquals(2, _generator.getGenerated());
+    }
+
+    @Test
+    public void testServedAsPrecompressedContent() throws Exception
+    {
+        // Resolve variants from the cache directory, and the other resources from the base directory.
+        PathResource baseResource = new PathResource(_base);
+        ResourceContentFactory factory = new ResourceContentFactory(path ->
+        {
+            Resource variant = _generator.getResource(path);
+            if (variant != null)
+                return variant;
+            try
+            {
+                return baseResource.addPath(path);
+            }
+            catch (IOException x)
+            {
+                return null;
+            }
+        }, new MimeTypes(), _generator.getFormats());
+
+        HttpContent content = factory.getContent("/css/site.css", 4096);
+        assertThat(content.getPrecompressedContents(), notNullValue());
+        assertEquals(1, content.getPrecompressedContents().size());
+        assertTrue(content.getPrecompressedContents().containsKey(CompressedContentFormat.GZIP));
+    }
+}
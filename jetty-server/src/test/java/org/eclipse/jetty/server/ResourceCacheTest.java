@@ -42,10 +42,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -346,6 +348,66 @@ public class ResourceCacheTest
         cache.flushCache();
     }
 
+    @Test
+    public void testScanDoesNotEvictHotContent() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        makeFile(basePath.resolve("hot.txt"), "hot content");
+        for (int i = 0; i < 20; i++)
+        {
+            makeFile(basePath.resolve("scan-" + i + ".txt"), "scanned content " + i);
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(4);
+
+        // The hot content is promoted on the first hit.
+        assertEquals("hot content", getContent(cache, "hot.txt"));
+        assertEquals("hot content", getContent(cache, "hot.txt"));
+
+        // A scan of resources accessed only once.
+        for (int i = 0; i < 20; i++)
+        {
+            assertEquals("scanned content " + i, getContent(cache, "scan-" + i + ".txt"));
+        }
+        assertThat(cache.getCachedFiles(), lessThanOrEqualTo(4));
+
+        HttpContent content = cache.getContent("hot.txt", 4096);
+        assertThat(content, instanceOf(CachedContentFactory.CachedHttpContent.class));
+        assertEquals(2, cache.getHits());
+        assertEquals(21, cache.getMisses());
+        assertEquals(17, cache.getEvictions());
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedSize());
+        assertEquals(0, cache.getCachedFiles());
+    }
+
+    @Test
+    public void testLessPopularContentNotAdmitted() throws Exception
+    {
+        Path basePath = createUtilTestResources(workDir.getEmptyPathDir());
+
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(1);
+
+        assertEquals("this is test data", getContent(cache, "resource.txt"));
+        assertEquals("this is test data", getContent(cache, "resource.txt"));
+
+        // Accessed less often than the cached content, so it is served but not cached.
+        HttpContent content = cache.getContent("one/1.txt", 4096);
+        assertThat(content, instanceOf(ResourceHttpContent.class));
+        assertEquals(1, cache.getRejections());
+        assertEquals(1, cache.getCachedFiles());
+
+        // Once as popular, it is admitted and evicts the other content.
+        cache.getContent("one/1.txt", 4096);
+        content = cache.getContent("one/1.txt", 4096);
+        assertThat(content, instanceOf(CachedContentFactory.CachedHttpContent.class));
+        assertEquals(1, cache.getCachedFiles());
+        assertEquals(1, cache.getEvictions());
+    }
+
     @Test
     public void testNoextension() throws Exception
     {
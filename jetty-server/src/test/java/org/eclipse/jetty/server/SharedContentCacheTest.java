@@ -0,0 +1,185 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(WorkDirExtension.class)
+public class SharedContentCacheTest
+{
+    public WorkDir workDir;
+    private SharedContentCache _sharedCache;
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        _sharedCache = new SharedContentCache();
+        _sharedCache.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        _sharedCache.stop();
+    }
+
+    private CachedContentFactory newContentFactory(Path base)
+    {
+        CachedContentFactory factory = new CachedContentFactory(null, new PathResource(base), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        factory.setSharedContentCache(_sharedCache);
+        return factory;
+    }
+
+    @Test
+    public void testContentSharedByContentFactories() throws Exception
+    {
+        Path base = workDir.getEmptyPathDir();
+        Files.writeString(base.resolve("shared.txt"), "shared content", UTF_8);
+
+        CachedContentFactory factory1 = newContentFactory(base);
+        CachedContentFactory factory2 = newContentFactory(base);
+
+        HttpContent content1 = factory1.getContent("shared.txt", 4096);
+        HttpContent content2 = factory2.getContent("shared.txt", 4096);
+        ByteBuffer buffer1 = content1.getDirectBuffer();
+        ByteBuffer buffer2 = content2.getDirectBuffer();
+
+        assertEquals("shared content", BufferUtil.toString(buffer1));
+        assertEquals("shared content", BufferUtil.toString(buffer2));
+        assertTrue(buffer1.isDirect());
+        assertEquals(1, _sharedCache.getCachedFiles());
+        assertEquals(14, _sharedCache.getCachedSize());
+        assertEquals(1, _sharedCache.getMisses());
+        assertEquals(1, _sharedCache.getHits());
+
+        // The content is held once, but counts towards the size of both content factories.
+        assertEquals(14, factory1.getCachedSize());
+        assertEquals(14, factory2.getCachedSize());
+    }
+
+    @Test
+    public void testEvictedContentReleased() throws Exception
+    {
+        Path base = workDir.getEmptyPathDir();
+        Path file = base.resolve("evicted.txt");
+        Files.writeString(file, "evicted content", UTF_8);
+
+        CachedContentFactory factory = newContentFactory(base);
+        HttpContent content = factory.getContent("evicted.txt", 4096);
+        assertEquals("evicted content", BufferUtil.toString(content.getDirectBuffer()));
+        assertEquals(15, factory.getCachedSize());
+
+        SharedContentCache.Entry entry = _sharedCache.getEntry(new PathResource(file));
+        _sharedCache.setMaxCachedFiles(0);
+        assertEquals(1, _sharedCache.getEvictions());
+        assertNull(entry.getBuffer());
+
+        // The content factory does not keep the evicted buffer, it loads it again in the shared cache.
+        _sharedCache.setMaxCachedFiles(1);
+        assertEquals("evicted content", BufferUtil.toString(content.getDirectBuffer()));
+        assertEquals(15, factory.getCachedSize());
+        assertEquals(1, _sharedCache.getCachedFiles());
+        assertEquals(15, _sharedCache.getCachedSize());
+    }
+
+    @Test
+    public void testSharedContentCountsTowardsCacheSize() throws Exception
+    {
+        Path base = workDir.getEmptyPathDir();
+        Files.writeString(base.resolve("file-0.txt"), "content 0", UTF_8);
+        Files.writeString(base.resolve("file-1.txt"), "content 1", UTF_8);
+
+        CachedContentFactory factory = newContentFactory(base);
+        factory.setMaxCacheSize(15);
+        factory.getContent("file-0.txt", 4096).getDirectBuffer();
+        factory.getContent("file-1.txt", 4096).getDirectBuffer();
+
+        assertEquals(1, factory.getEvictions());
+        assertEquals(1, factory.getCachedFiles());
+        assertEquals(9, factory.getCachedSize());
+    }
+
+    @Test
+    public void testModifiedContentReplaced() throws Exception
+    {
+        Path base = workDir.getEmptyPathDir();
+        Path file = base.resolve("modified.txt");
+        Files.writeString(file, "old content", UTF_8);
+        PathResource resource = new PathResource(file);
+
+        assertEquals("old content", BufferUtil.toString(_sharedCache.getBuffer(resource)));
+
+        Files.writeString(file, "newer content", UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(resource.lastModified() + 2000));
+
+        assertEquals("newer content", BufferUtil.toString(_sharedCache.getBuffer(resource)));
+        assertEquals(1, _sharedCache.getCachedFiles());
+        assertEquals(13, _sharedCache.getCachedSize());
+    }
+
+    @Test
+    public void testEviction() throws Exception
+    {
+        Path base = workDir.getEmptyPathDir();
+        _sharedCache.setMaxCacheSize(25);
+        for (int i = 0; i < 3; i++)
+        {
+            Path file = base.resolve("file-" + i + ".txt");
+            Files.writeString(file, "content " + i, UTF_8);
+            assertEquals("content " + i, BufferUtil.toString(_sharedCache.getBuffer(new PathResource(file))));
+        }
+
+        assertEquals(2, _sharedCache.getCachedFiles());
+        assertEquals(18, _sharedCache.getCachedSize());
+        assertEquals(1, _sharedCache.getEvictions());
+
+        _sharedCache.flush();
+        assertEquals(0, _sharedCache.getCachedFiles());
+        assertEquals(0, _sharedCache.getCachedSize());
+    }
+
+    @Test
+    public void testNotStarted() throws Exception
+    {
+        Path file = workDir.getEmptyPathDir().resolve("file.txt");
+        Files.writeString(file, "content", UTF_8);
+        _sharedCache.stop();
+        assertNull(_sharedCache.getBuffer(new PathResource(file)));
+    }
+}
@@ -161,6 +161,94 @@ public class ContextHandlerCollectionTest
         }
     }
 
+    @Test
+    public void testMapContextsFlushesCachedTargets() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.setConnectors(new Connector[]{connector});
+
+        ContextHandler contextA = new ContextHandler("/a");
+        IsHandledHandler handlerA = new IsHandledHandler("A");
+        contextA.setHandler(handlerA);
+
+        ContextHandler contextB = new ContextHandler("/b");
+        IsHandledHandler handlerB = new IsHandledHandler("B");
+        contextB.setHandler(handlerB);
+
+        ContextHandler root = new ContextHandler("/");
+        IsHandledHandler handlerRoot = new IsHandledHandler("R");
+        root.setHandler(handlerRoot);
+
+        ContextHandlerCollection c = new ContextHandlerCollection(contextA, contextB, root);
+        server.setHandler(c);
+
+        try
+        {
+            server.start();
+
+            String request = "GET /a/info HTTP/1.0\n\n";
+            assertThat(connector.getResponse(request), endsWith(handlerA.toString()));
+            // The second request uses the cached branches.
+            assertThat(connector.getResponse(request), endsWith(handlerA.toString()));
+
+            contextA.setContextPath("/other");
+            c.mapContexts();
+            assertThat(connector.getResponse(request), endsWith(handlerRoot.toString()));
+
+            contextB.setContextPath("/a");
+            c.mapContexts();
+            assertThat(connector.getResponse(request), endsWith(handlerB.toString()));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testCachedTargets() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.setConnectors(new Connector[]{connector});
+
+        ContextHandler contextA = new ContextHandler("/a");
+        IsHandledHandler handlerA = new IsHandledHandler("A");
+        contextA.setHandler(handlerA);
+
+        ContextHandler root = new ContextHandler("/");
+        IsHandledHandler handlerRoot = new IsHandledHandler("R");
+        root.setHandler(handlerRoot);
+
+        ContextHandlerCollection c = new ContextHandlerCollection(contextA, root);
+        server.setHandler(c);
+
+        try
+        {
+            server.start();
+
+            assertThat(connector.getResponse("GET /a/info HTTP/1.0\n\n"), endsWith(handlerA.toString()));
+            assertEquals(1, c.getCachedTargets());
+
+            // Targets that only match the root context are not cached.
+            assertThat(connector.getResponse("GET /other/1 HTTP/1.0\n\n"), endsWith(handlerRoot.toString()));
+            assertThat(connector.getResponse("GET /other/2 HTTP/1.0\n\n"), endsWith(handlerRoot.toString()));
+            assertEquals(1, c.getCachedTargets());
+
+            // No target is cached if a context defines virtual hosts.
+            contextA.setVirtualHosts(new String[]{"example.com"});
+            c.mapContexts();
+            assertThat(connector.getResponse("GET /a/info HTTP/1.0\nHost: example.com\n\n"), endsWith(handlerA.toString()));
+            assertThat(connector.getResponse("GET /a/info HTTP/1.0\nHost: other.com\n\n"), endsWith(handlerRoot.toString()));
+            assertEquals(0, c.getCachedTargets());
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
     @Test
     public void testVirtualHostWildcard() throws Exception
     {
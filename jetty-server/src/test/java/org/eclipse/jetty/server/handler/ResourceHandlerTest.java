@@ -46,6 +46,8 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.eclipse.jetty.http.HttpHeader.CONTENT_LENGTH;
 import static org.eclipse.jetty.http.HttpHeader.CONTENT_TYPE;
@@ -255,6 +257,74 @@ public class ResourceHandlerTest
         }
     }
 
+    @Test
+    public void testBiggerPersistent() throws Exception
+    {
+        long length = MavenTestingUtils.getTargetFile("test-classes/simple/bigger.txt").length();
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            socket.setSoTimeout(10000);
+            OutputStream output = socket.getOutputStream();
+            HttpTester.Input input = HttpTester.from(socket.getInputStream());
+
+            // Several responses on the same connection, so that any
+            // content in excess or missing would break the next one.
+            for (int i = 0; i < 3; i++)
+            {
+                output.write("GET /resource/bigger.txt HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                output.flush();
+                HttpTester.Response response = HttpTester.parseResponse(input);
+                assertThat(response.getStatus(), equalTo(200));
+                assertThat(response.get(CONTENT_LENGTH), equalTo(Long.toString(length)));
+                assertThat(response.getContent(), startsWith("     1\tThis is a big file"));
+                assertThat(response.getContent(), endsWith("   400\tThis is a big file" + LN));
+            }
+
+            output.write("GET /resource/simple.txt HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            output.flush();
+            HttpTester.Response response = HttpTester.parseResponse(input);
+            assertThat(response.getStatus(), equalTo(200));
+            assertThat(response.getContent(), equalTo("simple text"));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testBiggerAsyncFileRead(boolean transfer) throws Exception
+    {
+        long length = MavenTestingUtils.getTargetFile("test-classes/simple/bigger.txt").length();
+        _config.setUseOutputFileTransfer(transfer);
+        _config.setUseOutputAsyncFileRead(true);
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            socket.setSoTimeout(10000);
+            OutputStream output = socket.getOutputStream();
+            HttpTester.Input input = HttpTester.from(socket.getInputStream());
+
+            for (int i = 0; i < 3; i++)
+            {
+                output.write("GET /resource/bigger.txt HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                output.flush();
+                HttpTester.Response response = HttpTester.parseResponse(input);
+                assertThat(response.getStatus(), equalTo(200));
+                assertThat(response.get(CONTENT_LENGTH), equalTo(Long.toString(length)));
+                assertThat(response.getContent(), startsWith("     1\tThis is a big file"));
+                assertThat(response.getContent(), endsWith("   400\tThis is a big file" + LN));
+            }
+
+            output.write("GET /resource/simple.txt HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            output.flush();
+            HttpTester.Response response = HttpTester.parseResponse(input);
+            assertThat(response.getStatus(), equalTo(200));
+            assertThat(response.getContent(), equalTo("simple text"));
+        }
+        finally
+        {
+            _config.setUseOutputAsyncFileRead(false);
+            _config.setUseOutputFileTransfer(true);
+        }
+    }
+
     @Test
     public void testWelcome() throws Exception
     {
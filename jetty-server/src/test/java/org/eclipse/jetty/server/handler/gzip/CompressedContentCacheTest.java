@@ -0,0 +1,99 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler.gzip;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressedContentCacheTest
+{
+    @Test
+    public void testGetPut()
+    {
+        CompressedContentCache cache = new CompressedContentCache(1024, 256);
+        byte[] bytes = "compressed".getBytes();
+        assertNull(cache.get("host/path", "\"tag\"", "gzip"));
+        assertTrue(cache.put("host/path", "\"tag\"", "gzip", List.of(ByteBuffer.wrap(bytes))));
+
+        ByteBuffer content = cache.get("host/path", "\"tag\"", "gzip");
+        assertNotNull(content);
+        assertEquals("compressed", BufferUtil.toString(content));
+        // Reading the returned content does not consume the cached content.
+        assertEquals("compressed", BufferUtil.toString(cache.get("host/path", "\"tag\"", "gzip")));
+
+        assertNull(cache.get("host/path", "\"other\"", "gzip"));
+        assertNull(cache.get("host/path", "\"tag\"", "br"));
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(bytes.length, cache.getCacheSize());
+    }
+
+    @Test
+    public void testPutChunks()
+    {
+        CompressedContentCache cache = new CompressedContentCache(1024, 256);
+        ByteBuffer chunk1 = BufferUtil.toBuffer("com");
+        ByteBuffer chunk2 = BufferUtil.toBuffer("pressed");
+        assertTrue(cache.put("host/path", "\"tag\"", "gzip", List.of(chunk1, chunk2)));
+        // The chunks are not consumed.
+        assertEquals(3, chunk1.remaining());
+        assertEquals(7, chunk2.remaining());
+
+        assertEquals("compressed", BufferUtil.toString(cache.get("host/path", "\"tag\"", "gzip")));
+        assertEquals(10, cache.getCacheSize());
+    }
+
+    @Test
+    public void testEntryTooLarge()
+    {
+        CompressedContentCache cache = new CompressedContentCache(1024, 16);
+        byte[] bytes = new byte[17];
+        assertFalse(cache.put("host/path", "\"tag\"", "gzip", List.of(ByteBuffer.wrap(bytes))));
+        assertEquals(0, cache.getCachedEntries());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted()
+    {
+        CompressedContentCache cache = new CompressedContentCache(300, 100);
+        byte[] bytes = new byte[100];
+        cache.put("host/a", "\"a\"", "gzip", List.of(ByteBuffer.wrap(bytes)));
+        cache.put("host/b", "\"b\"", "gzip", List.of(ByteBuffer.wrap(bytes)));
+        cache.put("host/c", "\"c\"", "gzip", List.of(ByteBuffer.wrap(bytes)));
+        assertNotNull(cache.get("host/a", "\"a\"", "gzip"));
+
+        cache.put("host/d", "\"d\"", "gzip", List.of(ByteBuffer.wrap(bytes)));
+
+        assertEquals(300, cache.getCacheSize());
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.get("host/a", "\"a\"", "gzip"));
+        assertNull(cache.get("host/b", "\"b\"", "gzip"));
+        assertNotNull(cache.get("host/c", "\"c\"", "gzip"));
+        assertNotNull(cache.get("host/d", "\"d\"", "gzip"));
+    }
+}
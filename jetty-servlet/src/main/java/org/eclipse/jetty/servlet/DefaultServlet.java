@@ -39,6 +39,8 @@ import org.eclipse.jetty.server.CachedContentFactory;
 import org.eclipse.jetty.server.ResourceContentFactory;
 import org.eclipse.jetty.server.ResourceService;
 import org.eclipse.jetty.server.ResourceService.WelcomeFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.SharedContentCache;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.jetty.util.resource.Resource;
@@ -264,6 +266,9 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
                     _cache.setMaxCachedFileSize(maxCachedFileSize);
                 if (maxCachedFiles >= -1)
                     _cache.setMaxCachedFiles(maxCachedFiles);
+                Server server = _contextHandler.getServer();
+                if (server != null)
+                    _cache.setSharedContentCache(server.getBean(SharedContentCache.class));
                 _servletContext.setAttribute(resourceCache == null ? "resourceCache" : resourceCache, _cache);
             }
         }
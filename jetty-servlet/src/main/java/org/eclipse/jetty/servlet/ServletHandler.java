@@ -51,6 +51,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.http.pathmap.MappedResource;
 import org.eclipse.jetty.http.pathmap.PathMappings;
 import org.eclipse.jetty.http.pathmap.PathSpec;
+import org.eclipse.jetty.http.pathmap.PathSpecGroup;
 import org.eclipse.jetty.http.pathmap.ServletPathSpec;
 import org.eclipse.jetty.security.IdentityService;
 import org.eclipse.jetty.security.SecurityHandler;
@@ -62,6 +63,7 @@ import org.eclipse.jetty.server.UserIdentity;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ScopedHandler;
 import org.eclipse.jetty.util.ArrayUtil;
+import org.eclipse.jetty.util.ConcurrentLRUCache;
 import org.eclipse.jetty.util.LazyList;
 import org.eclipse.jetty.util.MultiException;
 import org.eclipse.jetty.util.MultiMap;
@@ -98,6 +100,7 @@ public class ServletHandler extends ScopedHandler
     private int _matchAfterIndex = -1;  //index of 1st programmatic FilterMapping with isMatchAfter=true
     private boolean _filterChainsCached = true;
     private int _maxFilterChainsCacheSize = 512;
+    private int _maxServletMatchesCacheSize = 512;
     private boolean _startWithUnavailable = false;
     private boolean _ensureDefaultServlet = true;
     private IdentityService _identityService;
@@ -111,6 +114,7 @@ public class ServletHandler extends ScopedHandler
 
     private final Map<String, MappedServlet> _servletNameMap = new HashMap<>();
     private PathMappings<MappedServlet> _servletPathMap;
+    private volatile ConcurrentLRUCache<String, ServletMatch> _servletMatchCache;
 
     private ListenerHolder[] _listeners = new ListenerHolder[0];
     private boolean _initialized = false;
@@ -341,6 +345,7 @@ public class ServletHandler extends ScopedHandler
         _filterPathMappings = null;
         _filterNameMappings = null;
         _servletPathMap = null;
+        _servletMatchCache = null;
         _initialized = false;
     }
 
@@ -442,11 +447,11 @@ public class ServletHandler extends ScopedHandler
         ServletHolder servletHolder = null;
         UserIdentity.Scope oldScope = null;
 
-        MappedServlet mappedServlet = getMappedServlet(target);
-        if (mappedServlet != null)
+        ServletMatch servletMatch = getServletMatch(target);
+        if (servletMatch != null)
         {
-            servletHolder = mappedServlet.getServletHolder();
-            ServletPathMapping servletPathMapping = mappedServlet.getServletPathMapping(target);
+            servletHolder = servletMatch._mappedServlet.getServletHolder();
+            ServletPathMapping servletPathMapping = servletMatch._servletPathMapping;
             if (servletPathMapping != null)
             {
                 // Setting the servletPathMapping also provides the servletPath and pathInfo
@@ -541,18 +546,61 @@ public class ServletHandler extends ScopedHandler
     {
         if (target.startsWith("/"))
         {
-            if (_servletPathMap == null)
-                return null;
-
-            MappedResource<MappedServlet> match = _servletPathMap.getMatch(target);
-            if (match == null)
-                return null;
-            return match.getResource();
+            ServletMatch servletMatch = getServletMatch(target);
+            return servletMatch == null ? null : servletMatch._mappedServlet;
         }
 
         return _servletNameMap.get(target);
     }
 
+    /**
+     * Get the MappedServlet and the ServletPathMapping for target,
+     * from the cache of recently matched paths if possible.
+     *
+     * @param target Path within _context or servlet name
+     * @return the ServletMatch for the target, or null if no servlet matches the target
+     */
+    private ServletMatch getServletMatch(String target)
+    {
+        if (!target.startsWith("/"))
+        {
+            MappedServlet mappedServlet = _servletNameMap.get(target);
+            return mappedServlet == null ? null : new ServletMatch(mappedServlet, mappedServlet.getServletPathMapping(target));
+        }
+
+        // Read the cache before the path map, as they are updated in the opposite order.
+        ConcurrentLRUCache<String, ServletMatch> cache = _servletMatchCache;
+        if (cache != null)
+        {
+            ServletMatch servletMatch = cache.get(target);
+            if (servletMatch != null)
+                return servletMatch;
+        }
+
+        PathMappings<MappedServlet> servletPathMap = _servletPathMap;
+        if (servletPathMap == null)
+            return null;
+        MappedResource<MappedServlet> match = servletPathMap.getMatch(target);
+        if (match == null)
+            return null;
+
+        MappedServlet mappedServlet = match.getResource();
+        ServletMatch servletMatch = new ServletMatch(mappedServlet, mappedServlet.getServletPathMapping(target));
+        // Do not let the paths that fall back to the default servlet evict the cached paths.
+        if (cache != null && match.getPathSpec().getGroup() != PathSpecGroup.DEFAULT)
+            cache.put(target, servletMatch);
+        return servletMatch;
+    }
+
+    /**
+     * @return the number of paths in the cache of the servlets matched by path
+     */
+    int getServletMatchesCached()
+    {
+        ConcurrentLRUCache<String, ServletMatch> cache = _servletMatchCache;
+        return cache == null ? 0 : cache.size();
+    }
+
     private FilterChain getFilterChain(Request baseRequest, String pathInContext, ServletHolder servletHolder)
     {
         String key = pathInContext == null ? servletHolder.getName() : pathInContext;
@@ -1388,6 +1436,9 @@ public class ServletHandler extends ScopedHandler
             _servletPathMap = pm;
         }
 
+        // Flush the servlet matches cache, after the update of the path map.
+        _servletMatchCache = _servletPathMap != null && _maxServletMatchesCacheSize > 0 ? new ConcurrentLRUCache<>(_maxServletMatchesCacheSize) : null;
+
         // flush filter chain cache
         for (int i = _chainCache.length; i-- > 0; )
         {
@@ -1687,6 +1738,29 @@ public class ServletHandler extends ScopedHandler
         _maxFilterChainsCacheSize = maxFilterChainsCacheSize;
     }
 
+    /**
+     * @return The maximum entries in the cache of the servlets matched by path.
+     */
+    @ManagedAttribute("The maximum entries in the cache of the servlets matched by path")
+    public int getMaxServletMatchesCacheSize()
+    {
+        return _maxServletMatchesCacheSize;
+    }
+
+    /**
+     * Set the maximum size of the cache of the servlets matched by path.
+     * The servlet and the servlet path mapping of recently requested paths are cached,
+     * so that the servlet mappings are not searched again for the same path.
+     * Paths that match no servlet, or only the default servlet, are not cached.
+     * The cache is flushed whenever the mappings are updated.
+     *
+     * @param maxServletMatchesCacheSize the maximum number of entries in the cache, or 0 to disable the cache
+     */
+    public void setMaxServletMatchesCacheSize(int maxServletMatchesCacheSize)
+    {
+        _maxServletMatchesCacheSize = maxServletMatchesCacheSize;
+    }
+
     void destroyServlet(Servlet servlet)
     {
         if (_contextHandler != null)
@@ -1767,6 +1841,18 @@ public class ServletHandler extends ScopedHandler
 
     }
 
+    private static class ServletMatch
+    {
+        private final MappedServlet _mappedServlet;
+        private final ServletPathMapping _servletPathMapping;
+
+        private ServletMatch(MappedServlet mappedServlet, ServletPathMapping servletPathMapping)
+        {
+            _mappedServlet = mappedServlet;
+            _servletPathMapping = servletPathMapping;
+        }
+    }
+
     @SuppressWarnings("serial")
     public static class Default404Servlet extends HttpServlet
     {
@@ -48,6 +48,7 @@ import org.eclipse.jetty.http.tools.HttpTester;
 import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.gzip.CompressedContentCache;
 import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.IO;
@@ -87,9 +88,11 @@ public class GzipHandlerTest
     private static final String __micro = __content.substring(0, 10);
 
     private static final String __contentETag = String.format("W/\"%x\"", __content.hashCode());
+    private static final String __contentStrongETag = String.format("\"%x\"", __content.hashCode());
     private static final String __contentETagGzip = String.format("W/\"%x--gzip\"", __content.hashCode());
     private static final String __icontent = "BEFORE" + __content + "AFTER";
 
+    private GzipHandler _gzipHandler;
     private Server _server;
     private LocalConnector _connector;
 
@@ -104,6 +107,8 @@ public class GzipHandlerTest
         gzipHandler.setExcludedAgentPatterns();
         gzipHandler.setMinGzipSize(16);
         gzipHandler.setInflateBufferSize(4096);
+        gzipHandler.setMaxCompressedCacheSize(64 * 1024);
+        _gzipHandler = gzipHandler;
 
         ServletContextHandler context = new ServletContextHandler(gzipHandler, "/ctx");
         ServletHandler servlets = context.getServletHandler();
@@ -113,6 +118,7 @@ public class GzipHandlerTest
         servlets.addServletWithMapping(MicroServlet.class, "/micro");
         servlets.addServletWithMapping(MicroChunkedServlet.class, "/microchunked");
         servlets.addServletWithMapping(TestServlet.class, "/content");
+        servlets.addServletWithMapping(StrongETagServlet.class, "/strong");
         servlets.addServletWithMapping(ForwardServlet.class, "/forward");
         servlets.addServletWithMapping(IncludeServlet.class, "/include");
         servlets.addServletWithMapping(EchoServlet.class, "/echo/*");
@@ -277,6 +283,18 @@ public class GzipHandlerTest
         }
     }
 
+    public static class StrongETagServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse response) throws ServletException, IOException
+        {
+            response.setHeader("ETag", __contentStrongETag);
+            response.setContentType("text/plain");
+            PrintWriter writer = response.getWriter();
+            writer.write(__content);
+        }
+    }
+
     public static class IncludeServlet extends HttpServlet
     {
         @Override
@@ -483,6 +501,98 @@ public class GzipHandlerTest
         assertEquals(__content, testOut.toString("UTF8"));
     }
 
+    @Test
+    public void testGzipNotAcceptedByQuality() throws Exception
+    {
+        // generated and parsed test
+        HttpTester.Request request = HttpTester.newRequest();
+        HttpTester.Response response;
+
+        request.setMethod("GET");
+        request.setURI("/ctx/content");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "deflate, gzip;q=0");
+
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), nullValue());
+        assertThat(response.get("ETag"), is(__contentETag));
+        assertEquals(__content, response.getContent());
+    }
+
+    @Test
+    public void testGzipNotAcceptedByQualityWithWildcard() throws Exception
+    {
+        // generated and parsed test
+        HttpTester.Request request = HttpTester.newRequest();
+        HttpTester.Response response;
+
+        request.setMethod("GET");
+        request.setURI("/ctx/content");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "gzip;q=0, *");
+
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), nullValue());
+        assertThat(response.get("ETag"), is(__contentETag));
+        assertEquals(__content, response.getContent());
+    }
+
+    @Test
+    public void testGzipAcceptedByWildcard() throws Exception
+    {
+        // generated and parsed test
+        HttpTester.Request request = HttpTester.newRequest();
+        HttpTester.Response response;
+
+        request.setMethod("GET");
+        request.setURI("/ctx/content");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "deflate;q=0, *");
+
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), Matchers.equalToIgnoringCase("gzip"));
+        assertThat(response.get("ETag"), is(__contentETagGzip));
+    }
+
+    @Test
+    public void testCompressedContentCache() throws Exception
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            HttpTester.Request request = HttpTester.newRequest();
+            request.setMethod("GET");
+            request.setURI("/ctx/strong");
+            request.setVersion("HTTP/1.0");
+            request.setHeader("Host", "tester");
+            request.setHeader("accept-encoding", "gzip");
+
+            HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+
+            assertThat(response.getStatus(), is(200));
+            assertThat(response.get("Content-Encoding"), Matchers.equalToIgnoringCase("gzip"));
+            assertThat(response.get("ETag"), is(String.format("\"%x--gzip\"", __content.hashCode())));
+
+            InputStream testIn = new GZIPInputStream(new ByteArrayInputStream(response.getContentBytes()));
+            ByteArrayOutputStream testOut = new ByteArrayOutputStream();
+            IO.copy(testIn, testOut);
+            assertEquals(__content, testOut.toString("UTF8"));
+        }
+
+        CompressedContentCache cache = _gzipHandler.getCompressedContentCache();
+        assertEquals(1, cache.getCachedEntries());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
     @Test
     public void testGzipNotMicro() throws Exception
     {
@@ -33,6 +33,8 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ServletHandlerTest
@@ -285,6 +287,63 @@ public class ServletHandlerTest
         handler.updateMappings();
     }
 
+    @Test
+    public void testServletMatchesCacheFlushedOnMappingsUpdate() throws Exception
+    {
+        ServletHandler handler = new ServletHandler();
+        handler.addServlet(sh1);
+        handler.addServlet(sh2);
+        handler.updateNameMappings();
+        handler.addServletMapping(sm1);
+        handler.updateMappings();
+
+        ServletHandler.MappedServlet entry = handler.getMappedServlet("/foo/bar");
+        assertNotNull(entry);
+        assertEquals("s1", entry.getServletHolder().getName());
+        // The second lookup is served by the cache.
+        assertSame(entry, handler.getMappedServlet("/foo/bar"));
+
+        ServletMapping sm = new ServletMapping();
+        sm.setPathSpec("/foo/bar");
+        sm.setServletName("s2");
+        handler.addServletMapping(sm);
+        handler.updateMappings();
+
+        entry = handler.getMappedServlet("/foo/bar");
+        assertNotNull(entry);
+        assertEquals("s2", entry.getServletHolder().getName());
+    }
+
+    @Test
+    public void testServletMatchesCacheSkipsUnmatchedPaths() throws Exception
+    {
+        ServletHandler handler = new ServletHandler();
+        handler.addServlet(sh1);
+        handler.addServlet(sh2);
+        handler.updateNameMappings();
+        handler.addServletMapping(sm1);
+        handler.updateMappings();
+
+        // Paths that match no servlet are not cached.
+        assertNull(handler.getMappedServlet("/other/1"));
+        assertEquals(0, handler.getServletMatchesCached());
+        assertEquals("s1", handler.getMappedServlet("/foo/bar").getServletHolder().getName());
+        assertEquals(1, handler.getServletMatchesCached());
+
+        ServletMapping sm = new ServletMapping();
+        sm.setPathSpec("/");
+        sm.setServletName("s2");
+        handler.addServletMapping(sm);
+        handler.updateMappings();
+
+        // Paths that only match the default servlet are not cached.
+        assertEquals("s2", handler.getMappedServlet("/other/1").getServletHolder().getName());
+        assertEquals("s2", handler.getMappedServlet("/other/2").getServletHolder().getName());
+        assertEquals(0, handler.getServletMatchesCached());
+        assertEquals("s1", handler.getMappedServlet("/foo/bar").getServletHolder().getName());
+        assertEquals(1, handler.getServletMatchesCached());
+    }
+
     @Test
     public void testDuplicateMappingsAllowed() throws Exception
     {
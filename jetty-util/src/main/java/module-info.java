@@ -16,6 +16,7 @@
 // ========================================================================
 //
 
+import org.eclipse.jetty.util.compression.CompressionCodec;
 import org.eclipse.jetty.util.security.CredentialProvider;
 
 module org.eclipse.jetty.util
@@ -48,5 +49,6 @@ module org.eclipse.jetty.util
     // Only required if using DOMLeakPreventer.
     requires static java.xml;
 
+    uses CompressionCodec;
     uses CredentialProvider;
 }
@@ -0,0 +1,462 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>A lock-free, multiple producers and multiple consumers, {@link BlockingQueue}.</p>
+ * <p>Elements are stored in a linked list of array segments.
+ * Producers and consumers claim the slots of a segment with an atomic increment
+ * of the segment tail and head indexes, and then atomically swap the slot content,
+ * so that, unlike {@link BlockingArrayQueue}, {@link #offer(Object)} and {@link #poll()}
+ * never take a lock.
+ * When the tail segment is full, a new segment is linked after it; when the head segment
+ * is consumed, it is unlinked and left to the garbage collector.</p>
+ * <p>The capacity semantic is the same of {@link BlockingArrayQueue}: the queue may be
+ * bounded by a max capacity, and segments are sized after the initial capacity and
+ * the growth factor, up to {@value #MAX_SEGMENT_SIZE} elements.</p>
+ * <p>Only the blocking methods {@link #poll(long, TimeUnit)} and {@link #take()} take a
+ * lock, and only when the queue is empty, to wait for an element to be offered;
+ * {@link #offer(Object)} takes the same lock to signal waiting consumers, only if there
+ * are waiting consumers.
+ * Like {@link BlockingArrayQueue}, the methods that would wait for the queue to have
+ * space do not wait: {@link #put(Object)} behaves like {@link #add(Object)} and
+ * {@link #offer(Object, long, TimeUnit)} behaves like {@link #offer(Object)}.</p>
+ *
+ * @param <E> The element type
+ */
+public class ConcurrentArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>
+{
+    /**
+     * The max number of elements of a segment.
+     */
+    public static final int MAX_SEGMENT_SIZE = 1024;
+    private static final Object TAKEN = new Object();
+
+    private final AtomicInteger _size = new AtomicInteger();
+    private final AtomicInteger _waiters = new AtomicInteger();
+    private final Lock _lock = new ReentrantLock();
+    private final Condition _notEmpty = _lock.newCondition();
+    private final AtomicReference<Segment> _head;
+    private final AtomicReference<Segment> _tail;
+    private final int _segmentSize;
+    private final int _maxCapacity;
+
+    /**
+     * Creates an unbounded {@link ConcurrentArrayBlockingQueue} with default initial capacity and grow factor.
+     *
+     * @see BlockingArrayQueue#DEFAULT_CAPACITY
+     * @see BlockingArrayQueue#DEFAULT_GROWTH
+     */
+    public ConcurrentArrayBlockingQueue()
+    {
+        this(BlockingArrayQueue.DEFAULT_CAPACITY, BlockingArrayQueue.DEFAULT_GROWTH, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a bounded {@link ConcurrentArrayBlockingQueue} with the given max capacity.
+     *
+     * @param maxCapacity the maximum capacity
+     */
+    public ConcurrentArrayBlockingQueue(int maxCapacity)
+    {
+        this(maxCapacity, -1, maxCapacity);
+    }
+
+    /**
+     * Creates an unbounded {@link ConcurrentArrayBlockingQueue} that grows by the given parameter.
+     *
+     * @param capacity the initial capacity
+     * @param growBy the growth factor
+     */
+    public ConcurrentArrayBlockingQueue(int capacity, int growBy)
+    {
+        this(capacity, growBy, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a bounded {@link ConcurrentArrayBlockingQueue} that grows by the given parameter.
+     *
+     * @param capacity the initial capacity
+     * @param growBy the growth factor
+     * @param maxCapacity the maximum capacity
+     */
+    public ConcurrentArrayBlockingQueue(int capacity, int growBy, int maxCapacity)
+    {
+        if (capacity <= 0 || capacity > maxCapacity)
+            throw new IllegalArgumentException();
+        _maxCapacity = maxCapacity;
+        _segmentSize = Math.min(growBy > 0 ? growBy : capacity, MAX_SEGMENT_SIZE);
+        Segment segment = new Segment(Math.min(capacity, MAX_SEGMENT_SIZE));
+        _head = new AtomicReference<>(segment);
+        _tail = new AtomicReference<>(segment);
+    }
+
+    /**
+     * @return the max number of elements of each segment
+     */
+    public int getSegmentSize()
+    {
+        return _segmentSize;
+    }
+
+    /**
+     * @return the maximum capacity
+     */
+    public int getMaxCapacity()
+    {
+        return _maxCapacity;
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        Objects.requireNonNull(e);
+
+        if (_size.incrementAndGet() > _maxCapacity)
+        {
+            _size.decrementAndGet();
+            return false;
+        }
+
+        enqueue(e);
+
+        if (_waiters.get() > 0)
+            signalNotEmpty();
+
+        return true;
+    }
+
+    private void enqueue(E e)
+    {
+        while (true)
+        {
+            Segment tail = _tail.get();
+            int index = tail._tailIndex.getAndIncrement();
+            if (index < tail._slots.length())
+            {
+                // The slot may have been taken by a consumer, that found it empty.
+                if (tail._slots.compareAndSet(index, null, e))
+                    return;
+                continue;
+            }
+
+            // The tail segment is full.
+            if (tail != _tail.get())
+                continue;
+            Segment next = tail._next.get();
+            if (next == null)
+            {
+                Segment segment = new Segment(_segmentSize);
+                segment._slots.lazySet(0, e);
+                segment._tailIndex.lazySet(1);
+                if (tail._next.compareAndSet(null, segment))
+                {
+                    _tail.compareAndSet(tail, segment);
+                    return;
+                }
+            }
+            else
+            {
+                _tail.compareAndSet(tail, next);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll()
+    {
+        while (true)
+        {
+            Segment head = _head.get();
+            if (head._headIndex.get() >= head._tailIndex.get() && head._next.get() == null)
+                return null;
+
+            int index = head._headIndex.getAndIncrement();
+            if (index < head._slots.length())
+            {
+                // Mark the slot as taken, so that a producer that claimed
+                // the slot but has not stored the element yet, tries again.
+                Object element = head._slots.getAndSet(index, TAKEN);
+                if (element == null || element == TAKEN)
+                    continue;
+                _size.decrementAndGet();
+                return (E)element;
+            }
+
+            // The head segment is consumed.
+            Segment next = head._next.get();
+            if (next == null)
+                return null;
+            _head.compareAndSet(head, next);
+        }
+    }
+
+    @Override
+    public E poll(long time, TimeUnit unit) throws InterruptedException
+    {
+        E e = poll();
+        if (e != null)
+            return e;
+
+        long nanos = unit.toNanos(time);
+        _lock.lockInterruptibly();
+        _waiters.incrementAndGet();
+        try
+        {
+            while (true)
+            {
+                // Poll after incrementing the waiters, so that
+                // either we see the element or the producer sees us.
+                e = poll();
+                if (e != null)
+                    return e;
+                if (nanos <= 0)
+                    return null;
+                nanos = _notEmpty.awaitNanos(nanos);
+            }
+        }
+        catch (InterruptedException x)
+        {
+            // Pass on the signal we may have consumed.
+            _notEmpty.signal();
+            throw x;
+        }
+        finally
+        {
+            _waiters.decrementAndGet();
+            _lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException
+    {
+        E e = poll();
+        if (e != null)
+            return e;
+
+        _lock.lockInterruptibly();
+        _waiters.incrementAndGet();
+        try
+        {
+            while (true)
+            {
+                e = poll();
+                if (e != null)
+                    return e;
+                _notEmpty.await();
+            }
+        }
+        catch (InterruptedException x)
+        {
+            // Pass on the signal we may have consumed.
+            _notEmpty.signal();
+            throw x;
+        }
+        finally
+        {
+            _waiters.decrementAndGet();
+            _lock.unlock();
+        }
+    }
+
+    private void signalNotEmpty()
+    {
+        _lock.lock();
+        try
+        {
+            _notEmpty.signal();
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek()
+    {
+        Iterator<E> iterator = iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException
+    {
+        // The mechanism to await and signal when the queue is full is not implemented
+        add(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        // The mechanism to await and signal when the queue is full is not implemented
+        return offer(e);
+    }
+
+    @Override
+    public int size()
+    {
+        return Math.max(0, Math.min(_size.get(), _maxCapacity));
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return _maxCapacity - size();
+    }
+
+    @Override
+    public void clear()
+    {
+        while (poll() != null)
+        {
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c)
+    {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements)
+    {
+        int elements = 0;
+        while (elements < maxElements)
+        {
+            E e = poll();
+            if (e == null)
+                break;
+            c.add(e);
+            ++elements;
+        }
+        return elements;
+    }
+
+    /**
+     * <p>Returns a weakly consistent iterator over the elements of this queue.</p>
+     * <p>The iterator supports {@link Iterator#remove()}.</p>
+     *
+     * @return an iterator over the elements of this queue
+     */
+    @Override
+    public Iterator<E> iterator()
+    {
+        return new Itr();
+    }
+
+    private static class Segment
+    {
+        private final AtomicInteger _headIndex = new AtomicInteger();
+        private final AtomicInteger _tailIndex = new AtomicInteger();
+        private final AtomicReference<Segment> _next = new AtomicReference<>();
+        private final AtomicReferenceArray<Object> _slots;
+
+        private Segment(int size)
+        {
+            _slots = new AtomicReferenceArray<>(size);
+        }
+    }
+
+    private class Itr implements Iterator<E>
+    {
+        private Segment _segment = _head.get();
+        private int _index = _segment._headIndex.get();
+        private Segment _lastSegment;
+        private int _lastIndex;
+        private Object _last;
+        private Object _next;
+        private Segment _nextSegment;
+        private int _nextIndex;
+
+        private Itr()
+        {
+            advance();
+        }
+
+        private void advance()
+        {
+            _next = null;
+            while (_segment != null)
+            {
+                int length = Math.min(_segment._tailIndex.get(), _segment._slots.length());
+                while (_index < length)
+                {
+                    int index = _index++;
+                    Object element = _segment._slots.get(index);
+                    if (element != null && element != TAKEN)
+                    {
+                        _next = element;
+                        _nextSegment = _segment;
+                        _nextIndex = index;
+                        return;
+                    }
+                }
+                _segment = _segment._next.get();
+                _index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return _next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next()
+        {
+            if (_next == null)
+                throw new NoSuchElementException();
+            _last = _next;
+            _lastSegment = _nextSegment;
+            _lastIndex = _nextIndex;
+            advance();
+            return (E)_last;
+        }
+
+        @Override
+        public void remove()
+        {
+            if (_last == null)
+                throw new IllegalStateException();
+            if (_lastSegment._slots.compareAndSet(_lastIndex, _last, TAKEN))
+                _size.decrementAndGet();
+            _last = null;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A bounded, concurrent cache that evicts the least recently used entries.</p>
+ * <p>A hit records the access time in the entry, without locks or reordering
+ * of the entries; the access time is recorded at most once per millisecond,
+ * to avoid contention on the entries of hot keys.
+ * When the cache grows beyond its max size, a single thread evicts the least
+ * recently used entries until the cache is back to 3/4 of its max size,
+ * so that the cost of the eviction is amortized over many insertions.
+ * The entries to evict are selected in a single pass over the cache, keeping
+ * only the candidates for eviction sorted, so that exactly the excess entries
+ * are evicted, even when many entries have the same access time.</p>
+ * <p>Null keys and values are not supported.</p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class ConcurrentLRUCache<K, V>
+{
+    private static final long ACCESS_GRANULARITY = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Map<K, Node<V>> _map = new ConcurrentHashMap<>();
+    private final AtomicBoolean _sweeping = new AtomicBoolean();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final int _maxSize;
+
+    /**
+     * @param maxSize the max number of entries of the cache
+     */
+    public ConcurrentLRUCache(int maxSize)
+    {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Invalid max size " + maxSize);
+        _maxSize = maxSize;
+    }
+
+    /**
+     * @return the max number of entries of the cache
+     */
+    public int getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    /**
+     * @return the number of entries of the cache
+     */
+    public int size()
+    {
+        return _map.size();
+    }
+
+    /**
+     * @return the number of lookups that found an entry
+     */
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that did not find an entry
+     */
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    /**
+     * @param key the key to lookup
+     * @return the value for the key, or null if the key is not cached
+     */
+    public V get(K key)
+    {
+        Node<V> node = _map.get(key);
+        if (node == null)
+        {
+            _misses.increment();
+            return null;
+        }
+        _hits.increment();
+        long now = System.nanoTime();
+        if (now - node._accessed > ACCESS_GRANULARITY)
+            node._accessed = now;
+        return node._value;
+    }
+
+    /**
+     * <p>Caches the given value for the given key, possibly evicting other entries.</p>
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(K key, V value)
+    {
+        _map.put(Objects.requireNonNull(key), new Node<>(Objects.requireNonNull(value)));
+        if (_map.size() > _maxSize)
+            sweep();
+    }
+
+    /**
+     * @param key the key to remove
+     * @return the value removed, or null if the key was not cached
+     */
+    public V remove(K key)
+    {
+        Node<V> node = _map.remove(key);
+        return node == null ? null : node._value;
+    }
+
+    /**
+     * <p>Removes all the entries.</p>
+     */
+    public void clear()
+    {
+        _map.clear();
+    }
+
+    private void sweep()
+    {
+        if (!_sweeping.compareAndSet(false, true))
+            return;
+        try
+        {
+            int target = _maxSize - _maxSize / 4;
+            int evictions = _map.size() - target;
+            if (evictions <= 0)
+                return;
+
+            // Select the least recently used entries with a max-heap bounded
+            // to the number of evictions, whose head is the most recently used
+            // of the entries selected so far.
+            PriorityQueue<Eviction<K, V>> selected = new PriorityQueue<>(evictions + 1);
+            for (Map.Entry<K, Node<V>> entry : _map.entrySet())
+            {
+                Node<V> node = entry.getValue();
+                long accessed = node._accessed;
+                if (selected.size() < evictions)
+                    selected.offer(new Eviction<>(entry.getKey(), node, accessed));
+                else if (accessed - selected.peek()._accessed < 0)
+                {
+                    selected.poll();
+                    selected.offer(new Eviction<>(entry.getKey(), node, accessed));
+                }
+            }
+
+            for (Eviction<K, V> eviction : selected)
+            {
+                _map.remove(eviction._key, eviction._node);
+            }
+        }
+        finally
+        {
+            _sweeping.set(false);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,max=%d,hits=%d,misses=%d}",
+            getClass().getSimpleName(), hashCode(), size(), getMaxSize(), getHits(), getMisses());
+    }
+
+    private static class Eviction<K, V> implements Comparable<Eviction<K, V>>
+    {
+        private final K _key;
+        private final Node<V> _node;
+        private final long _accessed;
+
+        private Eviction(K key, Node<V> node, long accessed)
+        {
+            _key = key;
+            _node = node;
+            _accessed = accessed;
+        }
+
+        @Override
+        public int compareTo(Eviction<K, V> that)
+        {
+            // Reverse order, so that the most recently used is at the head of the queue.
+            return Long.signum(that._accessed - _accessed);
+        }
+    }
+
+    private static class Node<V>
+    {
+        private final V _value;
+        private volatile long _accessed;
+
+        private Node(V value)
+        {
+            _value = value;
+            _accessed = System.nanoTime();
+        }
+    }
+}
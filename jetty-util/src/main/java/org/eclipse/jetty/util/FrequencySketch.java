@@ -0,0 +1,165 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * <p>A compact, approximate, concurrent counter of the popularity of keys,
+ * used by caches to decide whether a new entry is worth admitting in place
+ * of an entry that would be evicted (the TinyLFU admission policy).</p>
+ * <p>The sketch is a count-min sketch of {@value #DEPTH} rows of 4-bit
+ * counters, eight packed in each {@code int}, so frequencies saturate at 15.
+ * The counters of a key are chosen by double hashing, and an increment only
+ * bumps the counters of the key that hold its current minimum (conservative
+ * update), which reduces the overestimation caused by collisions.
+ * After a number of increments proportional to the capacity, all the
+ * counters are halved, so that the popularity of keys that are no longer
+ * accessed fades away over time.</p>
+ * <p>Concurrent increments may occasionally be lost while the counters
+ * are halved, which is harmless for an estimate.</p>
+ */
+public class FrequencySketch
+{
+    private static final int DEPTH = 4;
+    private static final int MAX_FREQUENCY = 15;
+    private static final int HALVE_MASK = 0x77777777;
+
+    private final AtomicIntegerArray _counters;
+    private final AtomicInteger _additions = new AtomicInteger();
+    private final int _mask;
+    private final int _period;
+
+    /**
+     * @param capacity the expected max number of entries of the cache
+     */
+    public FrequencySketch(int capacity)
+    {
+        // Two ints, that is sixteen counters, per expected entry.
+        int length = Integer.highestOneBit(Math.max(16, Math.min(capacity, 1 << 24)) - 1) << 2;
+        _counters = new AtomicIntegerArray(length);
+        _mask = (length << 3) - 1;
+        _period = 10 * Math.max(16, capacity);
+    }
+
+    /**
+     * @param hash the hash of the key
+     * @return the estimated number of accesses of the key, between 0 and 15
+     */
+    public int frequency(int hash)
+    {
+        int h1 = mix(hash);
+        int h2 = mix(h1) | 1;
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < DEPTH; i++)
+        {
+            frequency = Math.min(frequency, get(counter(h1, h2, i)));
+        }
+        return frequency;
+    }
+
+    /**
+     * <p>Records an access of the key.</p>
+     *
+     * @param hash the hash of the key
+     */
+    public void increment(int hash)
+    {
+        int h1 = mix(hash);
+        int h2 = mix(h1) | 1;
+        int min = MAX_FREQUENCY;
+        for (int i = 0; i < DEPTH; i++)
+        {
+            min = Math.min(min, get(counter(h1, h2, i)));
+        }
+        if (min == MAX_FREQUENCY)
+            return;
+
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++)
+        {
+            added |= increment(counter(h1, h2, i), min);
+        }
+        if (added && _additions.incrementAndGet() == _period)
+            halve();
+    }
+
+    /**
+     * @param h1 the first hash of the key
+     * @param h2 the second hash of the key, odd so that the rows hit distinct counters
+     * @param row the row of the sketch
+     * @return the position of the counter of the key in the given row
+     */
+    private int counter(int h1, int h2, int row)
+    {
+        return (h1 + row * h2) & _mask;
+    }
+
+    private int get(int counter)
+    {
+        return (_counters.get(counter >>> 3) >>> ((counter & 7) << 2)) & 0xF;
+    }
+
+    private boolean increment(int counter, int expected)
+    {
+        int index = counter >>> 3;
+        int shift = (counter & 7) << 2;
+        while (true)
+        {
+            int value = _counters.get(index);
+            // Another key sharing this counter, or a concurrent
+            // increment of this key, already moved it past the minimum.
+            if (((value >>> shift) & 0xF) != expected)
+                return false;
+            if (_counters.compareAndSet(index, value, value + (1 << shift)))
+                return true;
+        }
+    }
+
+    private void halve()
+    {
+        for (int i = 0; i < _counters.length(); i++)
+        {
+            while (true)
+            {
+                int value = _counters.get(i);
+                if (_counters.compareAndSet(i, value, (value >>> 1) & HALVE_MASK))
+                    break;
+            }
+        }
+        _additions.addAndGet(-_period / 2);
+    }
+
+    private static int mix(int hash)
+    {
+        // The MurmurHash3 32-bit finalizer.
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{counters=%d,period=%d}", getClass().getSimpleName(), hashCode(), _mask + 1, _period);
+    }
+}
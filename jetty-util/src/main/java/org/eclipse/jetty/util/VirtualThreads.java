@@ -0,0 +1,129 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Utility class to use virtual threads, if they are supported by the JVM.</p>
+ * <p>Virtual threads are accessed via reflection, so that this class can be
+ * compiled and used with JVMs that do not support them.</p>
+ */
+public class VirtualThreads
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreads.class);
+    private static final Executor executor = probeVirtualThreadsExecutor();
+
+    private static Executor probeVirtualThreadsExecutor()
+    {
+        try
+        {
+            return (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Virtual threads are not supported", x);
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the JVM supports virtual threads
+     */
+    public static boolean areSupported()
+    {
+        return executor != null;
+    }
+
+    /**
+     * @return a default executor that runs each task in a new virtual thread,
+     * or null if virtual threads are not supported
+     */
+    public static Executor getDefaultVirtualThreadsExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * @param executor the executor to query
+     * @return the virtual threads executor configured in the given executor, or null
+     * if the given executor is not {@link Configurable} or it does not use virtual threads
+     */
+    public static Executor getVirtualThreadsExecutor(Executor executor)
+    {
+        if (executor instanceof Configurable)
+            return ((Configurable)executor).getVirtualThreadsExecutor();
+        return null;
+    }
+
+    /**
+     * <p>Implementations of this interface can be configured
+     * to run some of their tasks in virtual threads.</p>
+     * <p>Typically, blocking tasks such as the handling of a request by a
+     * blocking application are run in virtual threads, while non-blocking
+     * tasks such as selecting for I/O events keep running in platform threads.</p>
+     */
+    public interface Configurable
+    {
+        /**
+         * @return the executor that runs tasks in virtual threads, or null if virtual threads are not used
+         */
+        Executor getVirtualThreadsExecutor();
+
+        /**
+         * @param executor the executor that runs tasks in virtual threads, or null to not use virtual threads
+         */
+        void setVirtualThreadsExecutor(Executor executor);
+
+        /**
+         * @return whether virtual threads are used
+         */
+        default boolean isUseVirtualThreads()
+        {
+            return getVirtualThreadsExecutor() != null;
+        }
+
+        /**
+         * <p>Sets whether to use virtual threads, with the
+         * {@link #getDefaultVirtualThreadsExecutor() default virtual threads executor}.</p>
+         * <p>If virtual threads are not supported by the JVM, a warning
+         * is logged and virtual threads are not used.</p>
+         *
+         * @param useVirtualThreads whether to use virtual threads
+         */
+        default void setUseVirtualThreads(boolean useVirtualThreads)
+        {
+            if (useVirtualThreads && !areSupported())
+            {
+                LOG.warn("Virtual threads are not supported by this JVM, using platform threads");
+                useVirtualThreads = false;
+            }
+            setVirtualThreadsExecutor(useVirtualThreads ? getDefaultVirtualThreadsExecutor() : null);
+        }
+    }
+
+    private VirtualThreads()
+    {
+    }
+}
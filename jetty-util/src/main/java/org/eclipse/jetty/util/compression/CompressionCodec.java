@@ -0,0 +1,143 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>A compression algorithm identified by an HTTP content coding such as {@code gzip}, {@code br} or {@code zstd}.</p>
+ * <p>Codecs are discovered with the {@link java.util.ServiceLoader} via {@link CompressionCodecs}, so that codecs
+ * backed by native libraries can be provided by optional modules. The {@link GzipCodec} is implemented with
+ * {@code java.util.zip} and is always available.</p>
+ * <p>{@link Encoder}s and {@link Decoder}s are not thread safe, but may be {@link Encoder#reset() reset} and reused,
+ * for example from an {@link EncoderPool}.</p>
+ */
+public interface CompressionCodec
+{
+    /**
+     * @return the content coding of this codec, as used in the {@code Accept-Encoding} and
+     * {@code Content-Encoding} headers
+     */
+    String getEncoding();
+
+    /**
+     * @return the compression level used when no level is configured
+     */
+    int getDefaultLevel();
+
+    /**
+     * @param level the compression level, in the range of the codec
+     * @return a new Encoder
+     */
+    Encoder newEncoder(int level);
+
+    /**
+     * @return a new Decoder
+     */
+    Decoder newDecoder();
+
+    /**
+     * <p>A streaming compressor.</p>
+     * <p>The input buffer passed to {@link #setInput(ByteBuffer)} is consumed by calls to
+     * {@link #encode(ByteBuffer, boolean)}, which must be repeated until {@link #needsInput()}
+     * is true, or until {@link #finished()} is true after a call to {@link #finish()}.</p>
+     */
+    interface Encoder
+    {
+        /**
+         * @return the content coding of the encoded bytes
+         */
+        String getEncoding();
+
+        /**
+         * @return true if the input is consumed and more input may be set
+         */
+        boolean needsInput();
+
+        /**
+         * @param input the bytes to compress, which must not be modified until they are consumed
+         */
+        void setInput(ByteBuffer input);
+
+        /**
+         * Signals that no more input will be set, so the end of the stream must be encoded.
+         */
+        void finish();
+
+        /**
+         * @return true if the end of the stream has been encoded
+         */
+        boolean finished();
+
+        /**
+         * <p>Compresses input bytes into the space of the given buffer.</p>
+         *
+         * @param output the buffer, in flush mode, to which encoded bytes are appended
+         * @param flush true if all the input consumed so far must be encoded in the output
+         * @return the number of bytes appended to the output
+         * @throws IOException if the input cannot be encoded
+         */
+        int encode(ByteBuffer output, boolean flush) throws IOException;
+
+        /**
+         * Resets this encoder so that it can encode a new stream.
+         */
+        void reset();
+
+        /**
+         * Releases the resources of this encoder, which cannot be used after this call.
+         */
+        void end();
+    }
+
+    /**
+     * <p>A streaming decompressor.</p>
+     */
+    interface Decoder
+    {
+        /**
+         * <p>Decompresses bytes from the input into the space of the output.</p>
+         * <p>Decoding stops when the output is full, when the input is consumed or when the
+         * end of the stream is reached, so this method must be called again with the same input
+         * until it is consumed.</p>
+         *
+         * @param input the encoded bytes
+         * @param output the buffer, in flush mode, to which decoded bytes are appended
+         * @return the number of bytes appended to the output
+         * @throws IOException if the input is not correctly encoded
+         */
+        int decode(ByteBuffer input, ByteBuffer output) throws IOException;
+
+        /**
+         * @return true if the end of the stream has been decoded
+         */
+        boolean finished();
+
+        /**
+         * Resets this decoder so that it can decode a new stream.
+         */
+        void reset();
+
+        /**
+         * Releases the resources of this decoder, which cannot be used after this call.
+         */
+        void end();
+    }
+}
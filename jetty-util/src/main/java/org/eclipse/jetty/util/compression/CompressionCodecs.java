@@ -0,0 +1,74 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.compression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+
+import org.eclipse.jetty.util.TypeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>The {@link CompressionCodec}s available to the JVM.</p>
+ * <p>The {@link GzipCodec} is always available, and other codecs, such as {@code br} or {@code zstd},
+ * are discovered with the {@link ServiceLoader}. A discovered codec with the same encoding as the
+ * {@link GzipCodec} replaces it, so that an accelerated implementation may be provided.</p>
+ */
+public class CompressionCodecs
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CompressionCodecs.class);
+    private static final Map<String, CompressionCodec> CODECS = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    static
+    {
+        CODECS.put(GzipCodec.ENCODING, new GzipCodec());
+        TypeUtil.serviceStream(ServiceLoader.load(CompressionCodec.class)).forEach(codec ->
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Discovered {} for {}", codec, codec.getEncoding());
+            CODECS.put(codec.getEncoding(), codec);
+        });
+    }
+
+    private CompressionCodecs()
+    {
+    }
+
+    /**
+     * @param encoding the content coding
+     * @return the codec for the content coding, or null if no codec is available
+     */
+    public static CompressionCodec getCodec(String encoding)
+    {
+        return encoding == null ? null : CODECS.get(encoding.trim());
+    }
+
+    /**
+     * @return the available codecs, ordered by encoding
+     */
+    public static List<CompressionCodec> getCodecs()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(CODECS.values()));
+    }
+}
@@ -0,0 +1,71 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.compression;
+
+public class EncoderPool extends CompressionPool<CompressionCodec.Encoder>
+{
+    private final CompressionCodec codec;
+    private final int compressionLevel;
+
+    /**
+     * Create a Pool of {@link CompressionCodec.Encoder} instances.
+     * <p>
+     * If given a capacity equal to zero the Encoders will not be pooled
+     * and will be created on acquire and ended on release.
+     * If given a negative capacity equal to zero there will be no size restrictions on the EncoderPool
+     *
+     * @param capacity maximum number of Encoders which can be contained in the pool
+     * @param codec the codec that creates the Encoders
+     * @param compressionLevel the compression level for new Encoder objects
+     */
+    public EncoderPool(int capacity, CompressionCodec codec, int compressionLevel)
+    {
+        super(capacity);
+        this.codec = codec;
+        this.compressionLevel = compressionLevel;
+    }
+
+    public CompressionCodec getCodec()
+    {
+        return codec;
+    }
+
+    public int getCompressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    @Override
+    protected CompressionCodec.Encoder newObject()
+    {
+        return codec.newEncoder(compressionLevel);
+    }
+
+    @Override
+    protected void end(CompressionCodec.Encoder encoder)
+    {
+        encoder.end();
+    }
+
+    @Override
+    protected void reset(CompressionCodec.Encoder encoder)
+    {
+        encoder.reset();
+    }
+}
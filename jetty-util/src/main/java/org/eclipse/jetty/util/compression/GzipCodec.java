@@ -0,0 +1,496 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.compression;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.eclipse.jetty.util.BufferUtil;
+
+/**
+ * <p>The {@code gzip} {@link CompressionCodec}, implemented with {@link Deflater} and {@link Inflater}.</p>
+ */
+public class GzipCodec implements CompressionCodec
+{
+    public static final String ENCODING = "gzip";
+    private static final byte[] GZIP_HEADER = new byte[]{(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    // Unsigned Integer Max == 2^32
+    private static final long UINT_MAX = 0xFFFFFFFFL;
+
+    @Override
+    public String getEncoding()
+    {
+        return ENCODING;
+    }
+
+    @Override
+    public int getDefaultLevel()
+    {
+        return Deflater.DEFAULT_COMPRESSION;
+    }
+
+    @Override
+    public CompressionCodec.Encoder newEncoder(int level)
+    {
+        return new Encoder(level);
+    }
+
+    @Override
+    public CompressionCodec.Decoder newDecoder()
+    {
+        return new Decoder();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x", getClass().getSimpleName(), hashCode());
+    }
+
+    private static class Encoder implements CompressionCodec.Encoder
+    {
+        private final CRC32 _crc = new CRC32();
+        private final Deflater _deflater;
+        private ByteBuffer _input;
+        private boolean _header;
+        private boolean _trailer;
+
+        private Encoder(int level)
+        {
+            _deflater = new Deflater(level, true);
+        }
+
+        @Override
+        public String getEncoding()
+        {
+            return ENCODING;
+        }
+
+        @Override
+        public boolean needsInput()
+        {
+            return _deflater.needsInput();
+        }
+
+        @Override
+        public void setInput(ByteBuffer input)
+        {
+            _input = input;
+            _deflater.setInput(input);
+        }
+
+        @Override
+        public void finish()
+        {
+            _deflater.finish();
+        }
+
+        @Override
+        public boolean finished()
+        {
+            return _trailer;
+        }
+
+        @Override
+        public int encode(ByteBuffer output, boolean flush)
+        {
+            int remaining = output.remaining();
+            int pos = BufferUtil.flipToFill(output);
+            try
+            {
+                deflate(output, flush);
+            }
+            finally
+            {
+                BufferUtil.flipToFlush(output, pos);
+            }
+            return output.remaining() - remaining;
+        }
+
+        private void deflate(ByteBuffer output, boolean flush)
+        {
+            if (!_header)
+            {
+                if (output.remaining() < GZIP_HEADER.length)
+                    return;
+                output.put(GZIP_HEADER);
+                _header = true;
+            }
+
+            if (!_deflater.finished())
+            {
+                ByteBuffer input = _input;
+                int position = input == null ? 0 : input.position();
+                _deflater.deflate(output, flush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
+                if (input != null)
+                {
+                    // Checksum only the consumed bytes, as the caller may reuse the input once consumed.
+                    ByteBuffer consumed = input.duplicate();
+                    consumed.limit(input.position());
+                    consumed.position(position);
+                    _crc.update(consumed);
+                    if (!input.hasRemaining())
+                    {
+                        // Release the input, so that it is not read again if the caller refills it.
+                        _input = null;
+                        _deflater.setInput(BufferUtil.EMPTY_BUFFER);
+                    }
+                }
+            }
+
+            // Add the trailer once deflation is finished and there is room for it.
+            if (_deflater.finished() && !_trailer && output.remaining() >= 8)
+            {
+                putIntLittleEndian(output, (int)_crc.getValue());
+                putIntLittleEndian(output, (int)_deflater.getBytesRead());
+                _trailer = true;
+            }
+        }
+
+        private static void putIntLittleEndian(ByteBuffer buffer, int value)
+        {
+            buffer.put((byte)(value & 0xFF));
+            buffer.put((byte)((value >>> 8) & 0xFF));
+            buffer.put((byte)((value >>> 16) & 0xFF));
+            buffer.put((byte)((value >>> 24) & 0xFF));
+        }
+
+        @Override
+        public void reset()
+        {
+            _deflater.reset();
+            _crc.reset();
+            _input = null;
+            _header = false;
+            _trailer = false;
+        }
+
+        @Override
+        public void end()
+        {
+            _deflater.end();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{%s,in=%d,out=%d}", getClass().getSimpleName(), hashCode(), ENCODING, _deflater.getBytesRead(), _deflater.getBytesWritten());
+        }
+    }
+
+    private enum State
+    {
+        INITIAL, ID, CM, FLG, MTIME, XFL, OS, FLAGS, EXTRA_LENGTH, EXTRA, NAME, COMMENT, HCRC, DATA, CRC, ISIZE, FINISHED
+    }
+
+    /**
+     * <p>The {@code gzip} decoder, that parses the gzip members and inflates their data.</p>
+     */
+    public static class Decoder implements CompressionCodec.Decoder
+    {
+        private final Inflater _inflater = new Inflater(true);
+        private State _state = State.INITIAL;
+        private int _size;
+        private long _value;
+        private byte _flags;
+
+        @Override
+        public int decode(ByteBuffer input, ByteBuffer output) throws ZipException
+        {
+            int remaining = output.remaining();
+            int pos = BufferUtil.flipToFill(output);
+            try
+            {
+                inflate(input, output);
+            }
+            finally
+            {
+                BufferUtil.flipToFlush(output, pos);
+            }
+            return output.remaining() - remaining;
+        }
+
+        private void inflate(ByteBuffer input, ByteBuffer output) throws ZipException
+        {
+            while (true)
+            {
+                switch (_state)
+                {
+                    case FINISHED:
+                    {
+                        // A concatenated gzip member may follow.
+                        if (!input.hasRemaining())
+                            return;
+                        reset();
+                        continue;
+                    }
+
+                    case INITIAL:
+                    {
+                        _state = State.ID;
+                        break;
+                    }
+
+                    case FLAGS:
+                    {
+                        if ((_flags & 0x04) == 0x04)
+                        {
+                            _state = State.EXTRA_LENGTH;
+                            _size = 0;
+                            _value = 0;
+                        }
+                        else if ((_flags & 0x08) == 0x08)
+                            _state = State.NAME;
+                        else if ((_flags & 0x10) == 0x10)
+                            _state = State.COMMENT;
+                        else if ((_flags & 0x2) == 0x2)
+                        {
+                            _state = State.HCRC;
+                            _size = 0;
+                            _value = 0;
+                        }
+                        else
+                        {
+                            _state = State.DATA;
+                            continue;
+                        }
+                        break;
+                    }
+
+                    case DATA:
+                    {
+                        if (!output.hasRemaining())
+                            return;
+
+                        _inflater.setInput(input);
+                        int length;
+                        try
+                        {
+                            length = _inflater.inflate(output);
+                        }
+                        catch (DataFormatException x)
+                        {
+                            throw new ZipException(x.getMessage());
+                        }
+
+                        if (_inflater.finished())
+                        {
+                            _state = State.CRC;
+                            _size = 0;
+                            _value = 0;
+                            break;
+                        }
+
+                        if (length == 0)
+                        {
+                            if (_inflater.needsDictionary())
+                                throw new ZipException("Invalid gzip dictionary");
+                            if (_inflater.needsInput())
+                                return;
+                        }
+                        continue;
+                    }
+
+                    default:
+                        break;
+                }
+
+                if (!input.hasRemaining())
+                    return;
+
+                byte currByte = input.get();
+                switch (_state)
+                {
+                    case ID:
+                    {
+                        _value += (currByte & 0xFF) << 8 * _size;
+                        ++_size;
+                        if (_size == 2)
+                        {
+                            if (_value != 0x8B1F)
+                                throw new ZipException("Invalid gzip bytes");
+                            _state = State.CM;
+                        }
+                        break;
+                    }
+                    case CM:
+                    {
+                        if ((currByte & 0xFF) != 0x08)
+                            throw new ZipException("Invalid gzip compression method");
+                        _state = State.FLG;
+                        break;
+                    }
+                    case FLG:
+                    {
+                        _flags = currByte;
+                        _state = State.MTIME;
+                        _size = 0;
+                        _value = 0;
+                        break;
+                    }
+                    case MTIME:
+                    {
+                        // Skip the 4 MTIME bytes
+                        ++_size;
+                        if (_size == 4)
+                            _state = State.XFL;
+                        break;
+                    }
+                    case XFL:
+                    {
+                        // Skip XFL
+                        _state = State.OS;
+                        break;
+                    }
+                    case OS:
+                    {
+                        // Skip OS
+                        _state = State.FLAGS;
+                        break;
+                    }
+                    case EXTRA_LENGTH:
+                    {
+                        _value += (currByte & 0xFF) << 8 * _size;
+                        ++_size;
+                        if (_size == 2)
+                            _state = State.EXTRA;
+                        break;
+                    }
+                    case EXTRA:
+                    {
+                        // Skip EXTRA bytes
+                        --_value;
+                        if (_value == 0)
+                        {
+                            // Clear the EXTRA flag and loop on the flags
+                            _flags &= ~0x04;
+                            _state = State.FLAGS;
+                        }
+                        break;
+                    }
+                    case NAME:
+                    {
+                        // Skip NAME bytes
+                        if (currByte == 0)
+                        {
+                            // Clear the NAME flag and loop on the flags
+                            _flags &= ~0x08;
+                            _state = State.FLAGS;
+                        }
+                        break;
+                    }
+                    case COMMENT:
+                    {
+                        // Skip COMMENT bytes
+                        if (currByte == 0)
+                        {
+                            // Clear the COMMENT flag and loop on the flags
+                            _flags &= ~0x10;
+                            _state = State.FLAGS;
+                        }
+                        break;
+                    }
+                    case HCRC:
+                    {
+                        // Skip HCRC
+                        ++_size;
+                        if (_size == 2)
+                        {
+                            // Clear the HCRC flag and loop on the flags
+                            _flags &= ~0x02;
+                            _state = State.FLAGS;
+                        }
+                        break;
+                    }
+                    case CRC:
+                    {
+                        _value += (currByte & 0xFF) << 8 * _size;
+                        ++_size;
+                        if (_size == 4)
+                        {
+                            // From RFC 1952, compliant decoders need not to verify the CRC
+                            _state = State.ISIZE;
+                            _size = 0;
+                            _value = 0;
+                        }
+                        break;
+                    }
+                    case ISIZE:
+                    {
+                        _value = _value | ((currByte & 0xFFL) << (8 * _size));
+                        ++_size;
+                        if (_size == 4)
+                        {
+                            // RFC 1952: Section 2.3.1; ISIZE is the input size modulo 2^32
+                            if (_value != (_inflater.getBytesWritten() & UINT_MAX))
+                                throw new ZipException("Invalid input size");
+                            // Stop at the end of the member, a concatenated one is decoded by the next call.
+                            _state = State.FINISHED;
+                            return;
+                        }
+                        break;
+                    }
+                    default:
+                        throw new ZipException();
+                }
+            }
+        }
+
+        @Override
+        public boolean finished()
+        {
+            return _state == State.FINISHED;
+        }
+
+        /**
+         * @return true if all the data of the current member has been inflated,
+         * but its trailer has not been decoded yet
+         */
+        public boolean isDecodingTrailer()
+        {
+            return _state == State.CRC || _state == State.ISIZE;
+        }
+
+        @Override
+        public void reset()
+        {
+            _inflater.reset();
+            _state = State.INITIAL;
+            _size = 0;
+            _value = 0;
+            _flags = 0;
+        }
+
+        @Override
+        public void end()
+        {
+            _inflater.end();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{%s,%s}", getClass().getSimpleName(), hashCode(), ENCODING, _state);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -33,6 +34,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.jetty.util.AtomicBiInteger;
 import org.eclipse.jetty.util.BlockingArrayQueue;
 import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
@@ -45,7 +47,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @ManagedObject("A thread pool")
-public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactory, SizedThreadPool, Dumpable, TryExecutor
+public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactory, SizedThreadPool, Dumpable, TryExecutor, VirtualThreads.Configurable
 {
     private static final Logger LOG = LoggerFactory.getLogger(QueuedThreadPool.class);
     private static Runnable NOOP = () ->
@@ -80,6 +82,7 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
     private int _lowThreadsThreshold = 1;
     private ThreadPoolBudget _budget;
     private long _stopTimeout;
+    private Executor _virtualThreadsExecutor;
 
     public QueuedThreadPool()
     {
@@ -169,6 +172,35 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         return _stopTimeout;
     }
 
+    @Override
+    public Executor getVirtualThreadsExecutor()
+    {
+        return _virtualThreadsExecutor;
+    }
+
+    /**
+     * <p>Sets the executor that runs blocking tasks, such as the handling of requests,
+     * in virtual threads.</p>
+     * <p>The threads of this pool are still used for non-blocking tasks, such as selecting
+     * and reserved threads, so the number of threads can be much smaller when most of the
+     * work is blocking and done in virtual threads.</p>
+     *
+     * @param executor the virtual threads executor, or null to not use virtual threads
+     * @see VirtualThreads#getDefaultVirtualThreadsExecutor()
+     */
+    @Override
+    public void setVirtualThreadsExecutor(Executor executor)
+    {
+        _virtualThreadsExecutor = executor;
+    }
+
+    @Override
+    @ManagedAttribute("whether blocking tasks run in virtual threads")
+    public boolean isUseVirtualThreads()
+    {
+        return VirtualThreads.Configurable.super.isUseVirtualThreads();
+    }
+
     @Override
     protected void doStart() throws Exception
     {
@@ -796,7 +828,7 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         int idle = Math.max(0, AtomicBiInteger.getLo(count));
         int queue = getQueueSize();
 
-        return String.format("%s[%s]@%x{%s,%d<=%d<=%d,i=%d,r=%d,q=%d}[%s]",
+        return String.format("%s[%s]@%x{%s,%d<=%d<=%d,i=%d,r=%d,q=%d%s}[%s]",
             getClass().getSimpleName(),
             _name,
             hashCode(),
@@ -807,6 +839,7 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
             idle,
             getReservedThreads(),
             queue,
+            isUseVirtualThreads() ? ",virtual" : "",
             _tryExecutor);
     }
 
@@ -0,0 +1,38 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.strategy;
+
+import java.util.concurrent.Executor;
+
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>An {@link EatWhatYouKill} strategy that is {@link #setAdaptive(boolean) adaptive}:
+ * it also uses the measured execution time of tasks and the measured latency of the
+ * executor queue to choose the mode in which a task is consumed.</p>
+ */
+@ManagedObject("adaptive execution strategy")
+public class AdaptiveExecutionStrategy extends EatWhatYouKill
+{
+    public AdaptiveExecutionStrategy(Producer producer, Executor executor)
+    {
+        super(producer, executor);
+        setAdaptive(true);
+    }
+}
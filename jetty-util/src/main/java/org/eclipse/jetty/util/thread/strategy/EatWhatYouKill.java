@@ -23,8 +23,11 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
+import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
@@ -52,11 +55,30 @@ import org.slf4j.LoggerFactory;
  * indicated it is non-blocking, then this strategy will dispatch the execution of
  * the task and immediately continue production. When operating in this pattern, the
  * sub-strategy is called ProduceExecuteConsume (PEC).</p>
+ * <p>If the executor is configured to use {@link VirtualThreads virtual threads},
+ * blocking tasks are always executed in a virtual thread (PEC mode), so that
+ * production continues in the platform thread.</p>
+ * <p>If {@link #setAdaptive(boolean) adaptive}, this strategy also tracks a moving
+ * average of the execution time of tasks of each invocation type, and of the time
+ * tasks wait in the executor queue, sampled from the executed tasks:</p>
+ * <ul>
+ * <li>{@link Invocable.InvocationType#EITHER} tasks whose average execution time is
+ * less than {@link #getMaxInlineTaskNanos() maxInlineTaskNanos} are always invoked
+ * directly (PIC mode), avoiding the handoff of production to a pending producer.
+ * Slower tasks are never invoked directly, but consumed in EPC mode when a pending
+ * producer is available, or executed (PEC mode) otherwise.</li>
+ * <li>{@link Invocable.InvocationType#BLOCKING} tasks whose average execution time is
+ * more than {@link #getMaxInlineTaskNanos() maxInlineTaskNanos} are executed (PEC mode)
+ * while the executor queue latency is less than {@link #getMaxQueueLatencyNanos()
+ * maxQueueLatencyNanos}, keeping the producing thread producing.</li>
+ * </ul>
  */
 @ManagedObject("eat what you kill execution strategy")
 public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrategy, Runnable
 {
     private static final Logger LOG = LoggerFactory.getLogger(EatWhatYouKill.class);
+    // Only one in SAMPLE_RATE executed tasks is wrapped to measure the queue latency.
+    private static final int SAMPLE_RATE = 8;
 
     private enum State
     {
@@ -76,9 +98,17 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
     private final LongAdder _picMode = new LongAdder();
     private final LongAdder _pecMode = new LongAdder();
     private final LongAdder _epcMode = new LongAdder();
+    private final AtomicLong _eitherTaskNanos = new AtomicLong();
+    private final AtomicLong _blockingTaskNanos = new AtomicLong();
+    private final AtomicLong _queueLatencyNanos = new AtomicLong();
     private final Producer _producer;
     private final Executor _executor;
     private final TryExecutor _tryExecutor;
+    private Executor _virtualExecutor;
+    private boolean _adaptive;
+    private long _maxInlineTaskNanos = TimeUnit.MICROSECONDS.toNanos(50);
+    private long _maxQueueLatencyNanos = TimeUnit.MICROSECONDS.toNanos(100);
+    private int _executed;
     private State _state = State.IDLE;
     private boolean _pending;
 
@@ -93,6 +123,64 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
             LOG.debug("{} created", this);
     }
 
+    /**
+     * @return whether the mode of a task also depends on the measured execution time of tasks and executor queue latency
+     */
+    @ManagedAttribute("Whether the mode of a task also depends on the measured execution time of tasks and executor queue latency")
+    public boolean isAdaptive()
+    {
+        return _adaptive;
+    }
+
+    /**
+     * @param adaptive whether the mode of a task also depends on the measured execution time of tasks and executor queue latency
+     */
+    public void setAdaptive(boolean adaptive)
+    {
+        _adaptive = adaptive;
+    }
+
+    /**
+     * @return the max average execution time in nanoseconds of tasks that are run by the producing thread
+     */
+    @ManagedAttribute("The max average execution time in ns of tasks that are run by the producing thread")
+    public long getMaxInlineTaskNanos()
+    {
+        return _maxInlineTaskNanos;
+    }
+
+    /**
+     * @param maxInlineTaskNanos the max average execution time in nanoseconds of tasks that are run by the producing thread
+     */
+    public void setMaxInlineTaskNanos(long maxInlineTaskNanos)
+    {
+        _maxInlineTaskNanos = maxInlineTaskNanos;
+    }
+
+    /**
+     * @return the max average executor queue latency in nanoseconds below which slow blocking tasks are executed
+     */
+    @ManagedAttribute("The max average executor queue latency in ns below which slow blocking tasks are executed")
+    public long getMaxQueueLatencyNanos()
+    {
+        return _maxQueueLatencyNanos;
+    }
+
+    /**
+     * @param maxQueueLatencyNanos the max average executor queue latency in nanoseconds below which slow blocking tasks are executed
+     */
+    public void setMaxQueueLatencyNanos(long maxQueueLatencyNanos)
+    {
+        _maxQueueLatencyNanos = maxQueueLatencyNanos;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        super.doStart();
+        _virtualExecutor = VirtualThreads.getVirtualThreadsExecutor(_executor);
+    }
+
     @Override
     public void dispatch()
     {
@@ -204,19 +292,20 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
             }
         }
 
+        Invocable.InvocationType invocationType = Invocable.getInvocationType(task);
         Mode mode;
         if (nonBlocking)
         {
             // The calling thread cannot block, so we only have a choice between PC and PEC modes,
-            // based on the invocation type of the task
-            switch (Invocable.getInvocationType(task))
+            // based on the invocation type of the task and, if adaptive, on its execution time.
+            switch (invocationType)
             {
                 case NON_BLOCKING:
                     mode = Mode.PRODUCE_CONSUME;
                     break;
 
                 case EITHER:
-                    mode = Mode.PRODUCE_INVOKE_CONSUME;
+                    mode = isSlow(_eitherTaskNanos) ? Mode.PRODUCE_EXECUTE_CONSUME : Mode.PRODUCE_INVOKE_CONSUME;
                     break;
 
                 default:
@@ -228,7 +317,7 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         {
             // The calling thread can block, so we can choose between PC, PEC and EPC modes,
             // based on the invocation type of the task and if a reserved thread is available
-            switch (Invocable.getInvocationType(task))
+            switch (invocationType)
             {
                 case NON_BLOCKING:
                     mode = Mode.PRODUCE_CONSUME;
@@ -236,7 +325,14 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
 
                 case BLOCKING:
                     // The task is blocking, so PC is not an option. Thus we choose
-                    // between EPC and PEC based on the availability of a reserved thread.
+                    // between EPC and PEC based on the availability of a reserved thread,
+                    // unless the task can be executed in a virtual thread, or, if adaptive,
+                    // the task is slow and the executor is responsive.
+                    if (_virtualExecutor != null || isSlow(_blockingTaskNanos) && isExecutorResponsive())
+                    {
+                        mode = Mode.PRODUCE_EXECUTE_CONSUME;
+                        break;
+                    }
                     synchronized (this)
                     {
                         if (_pending)
@@ -260,6 +356,13 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                 case EITHER:
                     // The task may be non blocking, so PC is an option. Thus we choose
                     // between EPC and PC based on the availability of a reserved thread.
+                    // If adaptive, a cheap task is always invoked, to avoid the handoff
+                    // of production, while a slow task is never invoked.
+                    if (_adaptive && !isSlow(_eitherTaskNanos))
+                    {
+                        mode = Mode.PRODUCE_INVOKE_CONSUME;
+                        break;
+                    }
                     synchronized (this)
                     {
                         if (_pending)
@@ -273,6 +376,10 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                             _state = State.IDLE;
                             mode = Mode.EXECUTE_PRODUCE_CONSUME;
                         }
+                        else if (_adaptive)
+                        {
+                            mode = Mode.PRODUCE_EXECUTE_CONSUME;
+                        }
                         else
                         {
                             // PC mode, but we must consume with non-blocking invocation
@@ -288,14 +395,14 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
 
         if (LOG.isDebugEnabled())
-            LOG.debug("{} m={} t={}/{}", this, mode, task, Invocable.getInvocationType(task));
+            LOG.debug("{} m={} t={}/{}", this, mode, task, invocationType);
 
         // Consume or execute task
         switch (mode)
         {
             case PRODUCE_CONSUME:
                 _pcMode.increment();
-                runTask(task);
+                runTask(task, invocationType);
                 return true;
 
             case PRODUCE_INVOKE_CONSUME:
@@ -305,12 +412,12 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
 
             case PRODUCE_EXECUTE_CONSUME:
                 _pecMode.increment();
-                execute(task);
+                execute(task, invocationType);
                 return true;
 
             case EXECUTE_PRODUCE_CONSUME:
                 _epcMode.increment();
-                runTask(task);
+                runTask(task, invocationType);
 
                 // Try to produce again?
                 synchronized (this)
@@ -329,8 +436,25 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
-    private void runTask(Runnable task)
+    private boolean isSlow(AtomicLong taskNanos)
+    {
+        return _adaptive && taskNanos.get() > _maxInlineTaskNanos;
+    }
+
+    private boolean isExecutorResponsive()
+    {
+        if (_queueLatencyNanos.get() < _maxQueueLatencyNanos)
+            return true;
+        // While the latency is high slow tasks are not executed, so the
+        // latency would not be sampled again: decay it towards zero so
+        // that the executor is eventually sampled again.
+        record(_queueLatencyNanos, 0);
+        return false;
+    }
+
+    private void runTask(Runnable task, Invocable.InvocationType invocationType)
     {
+        long begin = _adaptive ? System.nanoTime() : 0;
         try
         {
             task.run();
@@ -339,10 +463,16 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         {
             LOG.warn("Task run failed", x);
         }
+        finally
+        {
+            if (_adaptive)
+                recordTaskTime(invocationType, System.nanoTime() - begin);
+        }
     }
 
     private void invokeTask(Runnable task)
     {
+        long begin = _adaptive ? System.nanoTime() : 0;
         try
         {
             Invocable.invokeNonBlocking(task);
@@ -351,6 +481,32 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         {
             LOG.warn("Task invoke failed", x);
         }
+        finally
+        {
+            if (_adaptive)
+                recordTaskTime(Invocable.InvocationType.EITHER, System.nanoTime() - begin);
+        }
+    }
+
+    private void recordTaskTime(Invocable.InvocationType invocationType, long nanos)
+    {
+        switch (invocationType)
+        {
+            case EITHER:
+                record(_eitherTaskNanos, nanos);
+                break;
+            case BLOCKING:
+                record(_blockingTaskNanos, nanos);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void record(AtomicLong average, long sample)
+    {
+        // Exponentially weighted moving average with a weight of 1/8.
+        average.accumulateAndGet(sample, (avg, s) -> avg + (s - avg) / 8);
     }
 
     private Runnable produceTask()
@@ -366,11 +522,19 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
-    private void execute(Runnable task)
+    private void execute(Runnable task, Invocable.InvocationType invocationType)
     {
         try
         {
-            _executor.execute(task);
+            Executor executor = _executor;
+            Executor virtualExecutor = _virtualExecutor;
+            if (virtualExecutor != null && invocationType == Invocable.InvocationType.BLOCKING)
+                executor = virtualExecutor;
+            // The counter is only updated by the producing thread, races are benign.
+            if (_adaptive && ++_executed % SAMPLE_RATE == 0)
+                executor.execute(new SampledTask(task, invocationType));
+            else
+                executor.execute(task);
         }
         catch (RejectedExecutionException e)
         {
@@ -417,6 +581,24 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         return _epcMode.longValue();
     }
 
+    @ManagedAttribute(value = "average execution time in ns of EITHER tasks", readonly = true)
+    public long getEitherTaskNanos()
+    {
+        return _eitherTaskNanos.get();
+    }
+
+    @ManagedAttribute(value = "average execution time in ns of BLOCKING tasks", readonly = true)
+    public long getBlockingTaskNanos()
+    {
+        return _blockingTaskNanos.get();
+    }
+
+    @ManagedAttribute(value = "average latency in ns of the executor queue", readonly = true)
+    public long getQueueLatencyNanos()
+    {
+        return _queueLatencyNanos.get();
+    }
+
     @ManagedAttribute(value = "whether this execution strategy is idle", readonly = true)
     public boolean isIdle()
     {
@@ -426,13 +608,16 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
-    @ManagedOperation(value = "resets the task counts", impact = "ACTION")
+    @ManagedOperation(value = "resets the task counts and measured times", impact = "ACTION")
     public void reset()
     {
         _pcMode.reset();
         _epcMode.reset();
         _pecMode.reset();
         _picMode.reset();
+        _eitherTaskNanos.set(0);
+        _blockingTaskNanos.set(0);
+        _queueLatencyNanos.set(0);
     }
 
     @Override
@@ -477,8 +662,58 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         builder.append(getPECTasksExecuted());
         builder.append(",epc=");
         builder.append(getEPCTasksConsumed());
+        if (_adaptive)
+        {
+            builder.append(",either=");
+            builder.append(getEitherTaskNanos());
+            builder.append("ns,blocking=");
+            builder.append(getBlockingTaskNanos());
+            builder.append("ns,queue=");
+            builder.append(getQueueLatencyNanos());
+            builder.append("ns");
+        }
         builder.append("]");
         builder.append("@");
         builder.append(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now()));
     }
+
+    private class SampledTask implements Runnable, Invocable
+    {
+        private final Runnable _task;
+        private final InvocationType _invocationType;
+        private final long _queued = System.nanoTime();
+
+        private SampledTask(Runnable task, InvocationType invocationType)
+        {
+            _task = task;
+            _invocationType = invocationType;
+        }
+
+        @Override
+        public void run()
+        {
+            long begin = System.nanoTime();
+            record(_queueLatencyNanos, begin - _queued);
+            try
+            {
+                _task.run();
+            }
+            finally
+            {
+                recordTaskTime(_invocationType, System.nanoTime() - begin);
+            }
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return _invocationType;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), _task);
+        }
+    }
 }
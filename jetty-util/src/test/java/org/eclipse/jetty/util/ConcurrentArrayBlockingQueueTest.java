@@ -0,0 +1,269 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentArrayBlockingQueueTest
+{
+    @Test
+    public void testOfferPoll()
+    {
+        ConcurrentArrayBlockingQueue<String> queue = new ConcurrentArrayBlockingQueue<>(3);
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue(queue.offer("one"));
+            assertTrue(queue.offer("two"));
+            assertTrue(queue.offer("three"));
+            assertEquals(3, queue.size());
+            assertEquals("one", queue.peek());
+            assertEquals("[one, two, three]", queue.toString());
+
+            assertEquals("one", queue.poll());
+            assertEquals("two", queue.poll());
+            assertEquals("three", queue.poll());
+            assertEquals(0, queue.size());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void testLimit()
+    {
+        ConcurrentArrayBlockingQueue<String> queue = new ConcurrentArrayBlockingQueue<>(1, 1, 2);
+        assertTrue(queue.offer("one"));
+        assertTrue(queue.offer("two"));
+        assertFalse(queue.offer("three"));
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+
+        assertEquals("one", queue.poll());
+        assertTrue(queue.offer("three"));
+        assertEquals("two", queue.poll());
+        assertEquals("three", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testPutAndTimedOfferDoNotWait() throws Exception
+    {
+        ConcurrentArrayBlockingQueue<String> queue = new ConcurrentArrayBlockingQueue<>(1, 1, 2);
+        queue.put("one");
+        assertTrue(queue.offer("two", 5, TimeUnit.SECONDS));
+        assertFalse(queue.offer("three", 5, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> queue.put("three"));
+        assertEquals(2, queue.size());
+
+        assertEquals("one", queue.poll());
+        queue.put("three");
+        assertEquals("two", queue.poll());
+        assertEquals("three", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testGrow()
+    {
+        ConcurrentArrayBlockingQueue<Integer> queue = new ConcurrentArrayBlockingQueue<>(4, 8);
+        assertEquals(8, queue.getSegmentSize());
+
+        int count = 0;
+        for (int loop = 0; loop < 10; loop++)
+        {
+            int elements = 3 * loop + 5;
+            for (int i = 0; i < elements; i++)
+            {
+                assertTrue(queue.offer(count + i));
+            }
+            assertEquals(elements, queue.size());
+            for (int i = 0; i < elements; i++)
+            {
+                assertEquals(count + i, queue.poll());
+            }
+            assertNull(queue.poll());
+            count += elements;
+        }
+    }
+
+    @Test
+    public void testIteratorRemove()
+    {
+        ConcurrentArrayBlockingQueue<String> queue = new ConcurrentArrayBlockingQueue<>(2, 2);
+        queue.add("a");
+        queue.add("b");
+        queue.add("c");
+        queue.add("d");
+
+        assertTrue(queue.remove("b"));
+        assertFalse(queue.remove("x"));
+        assertEquals(3, queue.size());
+
+        Iterator<String> iterator = queue.iterator();
+        assertEquals("a", iterator.next());
+        iterator.remove();
+        assertEquals("c", iterator.next());
+        assertEquals("d", iterator.next());
+        assertFalse(iterator.hasNext());
+
+        assertEquals(2, queue.size());
+        assertEquals("c", queue.poll());
+        assertEquals("d", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testDrainTo()
+    {
+        ConcurrentArrayBlockingQueue<String> queue = new ConcurrentArrayBlockingQueue<>();
+        queue.add("one");
+        queue.add("two");
+        queue.add("three");
+
+        List<String> list = new ArrayList<>();
+        assertEquals(2, queue.drainTo(list, 2));
+        assertEquals(List.of("one", "two"), list);
+        assertEquals(1, queue.drainTo(list));
+        assertEquals(List.of("one", "two", "three"), list);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testPollTimeout() throws Exception
+    {
+        ConcurrentArrayBlockingQueue<String> queue = new ConcurrentArrayBlockingQueue<>();
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+
+        AtomicReference<String> taken = new AtomicReference<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                taken.set(queue.poll(5, TimeUnit.SECONDS));
+            }
+            catch (Throwable x)
+            {
+                failure.set(x);
+            }
+            latch.countDown();
+        });
+        thread.start();
+
+        Thread.sleep(100);
+        queue.offer("one");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNull(failure.get());
+        assertEquals("one", taken.get());
+    }
+
+    @Test
+    public void testConcurrentProducersConsumers() throws Exception
+    {
+        ConcurrentArrayBlockingQueue<Long> queue = new ConcurrentArrayBlockingQueue<>(16, 16);
+        int producers = 4;
+        int consumers = 4;
+        int elements = 100_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch consumed = new CountDownLatch(producers * elements);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++)
+        {
+            threads.add(new Thread(() ->
+            {
+                for (long i = 1; i <= elements; i++)
+                {
+                    queue.offer(i);
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++)
+        {
+            threads.add(new Thread(() ->
+            {
+                try
+                {
+                    while (true)
+                    {
+                        Long element = queue.poll(1, TimeUnit.SECONDS);
+                        if (element == null)
+                            return;
+                        sum.addAndGet(element);
+                        consumed.countDown();
+                    }
+                }
+                catch (Throwable x)
+                {
+                    failure.set(x);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        assertTrue(consumed.await(30, TimeUnit.SECONDS));
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(producers * ((long)elements * (elements + 1) / 2), sum.get());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testQueuedThreadPool() throws Exception
+    {
+        QueuedThreadPool pool = new QueuedThreadPool(8, 2, new ConcurrentArrayBlockingQueue<>(256, 256));
+        pool.start();
+        try
+        {
+            int jobs = 1000;
+            CountDownLatch latch = new CountDownLatch(jobs);
+            for (int i = 0; i < jobs; i++)
+            {
+                pool.execute(latch::countDown);
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            pool.stop();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentLRUCacheTest
+{
+    @Test
+    public void testGetPutRemove()
+    {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<>(4);
+        assertNull(cache.get("a"));
+        cache.put("a", "A");
+        assertEquals("A", cache.get("a"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals("A", cache.remove("a"));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRecentlyUsedEntriesAreNotEvicted() throws Exception
+    {
+        ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(8);
+        for (int i = 0; i < 8; i++)
+        {
+            cache.put(i, i);
+        }
+        // Use the hot entries, later than their insertion.
+        Thread.sleep(5);
+        cache.get(2);
+        cache.get(5);
+
+        // Overflow the cache, which evicts down to 3/4 of the max size.
+        cache.put(8, 8);
+        assertEquals(6, cache.size());
+        assertEquals(2, cache.get(2));
+        assertEquals(5, cache.get(5));
+        assertEquals(8, cache.get(8));
+    }
+
+    @Test
+    public void testEvictsExactlyTheExcessEntries()
+    {
+        int maxSize = 1000;
+        ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(maxSize);
+        for (int i = 0; i <= maxSize; i++)
+        {
+            cache.put(i, i);
+        }
+        assertEquals(maxSize - maxSize / 4, cache.size());
+        // The most recently inserted entries are retained.
+        for (int i = maxSize / 2; i <= maxSize; i++)
+        {
+            assertEquals(i, cache.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentAccessIsBounded() throws Exception
+    {
+        int maxSize = 64;
+        ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(maxSize);
+        int threads = 8;
+        CountDownLatch latch = new CountDownLatch(threads);
+        List<Thread> list = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            Thread thread = new Thread(() ->
+            {
+                for (int i = 0; i < 10_000; i++)
+                {
+                    int key = ThreadLocalRandom.current().nextInt(1024);
+                    Integer value = cache.get(key);
+                    if (value == null)
+                        cache.put(key, key);
+                    else
+                        assertEquals(key, value);
+                }
+                latch.countDown();
+            });
+            list.add(thread);
+            thread.start();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (Thread thread : list)
+        {
+            thread.join();
+        }
+        cache.put(-1, -1);
+        assertThat(cache.size(), lessThanOrEqualTo(maxSize));
+    }
+}
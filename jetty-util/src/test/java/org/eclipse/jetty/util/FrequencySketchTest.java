@@ -0,0 +1,92 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FrequencySketchTest
+{
+    @Test
+    public void testIncrement()
+    {
+        FrequencySketch sketch = new FrequencySketch(64);
+        int hash = "/index.html".hashCode();
+        assertEquals(0, sketch.frequency(hash));
+        for (int i = 1; i <= 5; i++)
+        {
+            sketch.increment(hash);
+            assertEquals(i, sketch.frequency(hash));
+        }
+    }
+
+    @Test
+    public void testFrequencySaturates()
+    {
+        FrequencySketch sketch = new FrequencySketch(64);
+        int hash = "/index.html".hashCode();
+        for (int i = 0; i < 20; i++)
+        {
+            sketch.increment(hash);
+        }
+        assertEquals(15, sketch.frequency(hash));
+    }
+
+    @Test
+    public void testFrequenciesAge()
+    {
+        FrequencySketch sketch = new FrequencySketch(16);
+        int hot = "/hot".hashCode();
+        for (int i = 0; i < 10; i++)
+        {
+            sketch.increment(hot);
+        }
+        assertEquals(10, sketch.frequency(hot));
+
+        // Enough other increments to trigger the halving of the counters.
+        for (int i = 0; i < 160; i++)
+        {
+            sketch.increment(("/other/" + i).hashCode());
+        }
+        assertThat(sketch.frequency(hot), lessThan(10));
+        assertThat(sketch.frequency(hot), greaterThan(0));
+    }
+
+    @Test
+    public void testCollisionsDoNotInflateFrequencies()
+    {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 64; i++)
+        {
+            sketch.increment(("/seen/" + i).hashCode());
+        }
+
+        int inflated = 0;
+        for (int i = 0; i < 64; i++)
+        {
+            if (sketch.frequency(("/unseen/" + i).hashCode()) > 0)
+                inflated++;
+        }
+        assertThat(inflated, lessThan(8));
+    }
+}
@@ -63,6 +63,7 @@ public class QueueBenchmarkTest
         queues.add(new ConcurrentLinkedQueue<>()); // JDK lock-free queue, allocating nodes
         queues.add(new ArrayBlockingQueue<>(iterations * writers)); // JDK lock-based, circular array queue
         queues.add(new BlockingArrayQueue<>(iterations * writers)); // Jetty lock-based, circular array queue
+        queues.add(new ConcurrentArrayBlockingQueue<>(iterations * writers)); // Jetty lock-free, segmented array queue
 
         testQueues(readers, writers, iterations, queues, false);
     }
@@ -81,6 +82,7 @@ public class QueueBenchmarkTest
         queues.add(new LinkedBlockingQueue<>());
         queues.add(new ArrayBlockingQueue<>(iterations * writers));
         queues.add(new BlockingArrayQueue<>(iterations * writers));
+        queues.add(new ConcurrentArrayBlockingQueue<>(iterations * writers));
 
         testQueues(readers, writers, iterations, queues, true);
     }
@@ -0,0 +1,176 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GzipCodecTest
+{
+    private static byte[] data(int size)
+    {
+        Random random = new Random(size);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++)
+        {
+            data[i] = (byte)('a' + random.nextInt(4));
+        }
+        return data;
+    }
+
+    private static byte[] encode(CompressionCodec.Encoder encoder, byte[] data, int chunk) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer output = BufferUtil.allocate(64);
+        for (int offset = 0; offset <= data.length; offset += chunk)
+        {
+            boolean last = offset + chunk > data.length;
+            encoder.setInput(ByteBuffer.wrap(data, offset, Math.min(chunk, data.length - offset)));
+            if (last)
+                encoder.finish();
+            while (true)
+            {
+                BufferUtil.clear(output);
+                int produced = encoder.encode(output, true);
+                assertEquals(produced, output.remaining());
+                out.write(BufferUtil.toArray(output));
+                if (last ? encoder.finished() : encoder.needsInput() && BufferUtil.space(output) > 0)
+                    break;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100, 5000, 200000})
+    public void testEncode(int size) throws Exception
+    {
+        byte[] data = data(size);
+        CompressionCodec codec = CompressionCodecs.getCodec("gzip");
+        assertNotNull(codec);
+        CompressionCodec.Encoder encoder = codec.newEncoder(codec.getDefaultLevel());
+
+        byte[] encoded = encode(encoder, data, 777);
+        assertArrayEquals(data, new GZIPInputStream(new ByteArrayInputStream(encoded)).readAllBytes());
+
+        // The encoder can be reused after a reset.
+        encoder.reset();
+        encoded = encode(encoder, data, 1024);
+        assertArrayEquals(data, new GZIPInputStream(new ByteArrayInputStream(encoded)).readAllBytes());
+        encoder.end();
+    }
+
+    @Test
+    public void testEncodeReusedInputBuffer() throws Exception
+    {
+        byte[] data = data(10000);
+        CompressionCodec.Encoder encoder = new GzipCodec().newEncoder(Deflater.DEFAULT_COMPRESSION);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer input = BufferUtil.allocate(1000);
+        ByteBuffer output = BufferUtil.allocate(4096);
+        for (int offset = 0; offset < data.length; offset += 1000)
+        {
+            // Refill the same input buffer once the encoder has consumed it, like an aggregate buffer.
+            BufferUtil.clear(input);
+            BufferUtil.append(input, data, offset, 1000);
+            if (encoder.needsInput())
+                encoder.setInput(input);
+            while (input.hasRemaining())
+            {
+                BufferUtil.clear(output);
+                encoder.encode(output, false);
+                out.write(BufferUtil.toArray(output));
+            }
+        }
+        encoder.finish();
+        while (!encoder.finished())
+        {
+            BufferUtil.clear(output);
+            encoder.encode(output, false);
+            out.write(BufferUtil.toArray(output));
+        }
+
+        assertArrayEquals(data, new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes());
+        encoder.end();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100, 5000, 200000})
+    public void testDecodeConcatenated(int size) throws Exception
+    {
+        byte[] data = data(size);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        for (int i = 0; i < 2; i++)
+        {
+            try (GZIPOutputStream output = new GZIPOutputStream(gzip))
+            {
+                output.write(data);
+            }
+        }
+        byte[] encoded = gzip.toByteArray();
+
+        CompressionCodec.Decoder decoder = new GzipCodec().newDecoder();
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        ByteBuffer output = BufferUtil.allocate(50);
+        for (int offset = 0; offset < encoded.length; offset += 13)
+        {
+            ByteBuffer input = ByteBuffer.wrap(encoded, offset, Math.min(13, encoded.length - offset));
+            while (true)
+            {
+                BufferUtil.clear(output);
+                int produced = decoder.decode(input, output);
+                decoded.write(BufferUtil.toArray(output));
+                if (produced == 0 && !input.hasRemaining())
+                    break;
+            }
+        }
+
+        assertTrue(decoder.finished());
+        byte[] expected = new byte[size * 2];
+        System.arraycopy(data, 0, expected, 0, size);
+        System.arraycopy(data, 0, expected, size, size);
+        assertArrayEquals(expected, decoded.toByteArray());
+        decoder.end();
+    }
+
+    @Test
+    public void testDecodeInvalid()
+    {
+        CompressionCodec.Decoder decoder = new GzipCodec().newDecoder();
+        ByteBuffer input = BufferUtil.toBuffer("not gzip");
+        assertThrows(ZipException.class, () -> decoder.decode(input, BufferUtil.allocate(64)));
+    }
+}
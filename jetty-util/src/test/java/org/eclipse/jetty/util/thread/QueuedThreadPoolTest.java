@@ -25,6 +25,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.logging.StacklessLogging;
+import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.ThreadPool.SizedThreadPool;
 import org.junit.jupiter.api.Test;
@@ -36,7 +37,10 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -750,6 +754,23 @@ public class QueuedThreadPoolTest extends AbstractThreadPoolTest
         assertTrue(latch.await(5, TimeUnit.SECONDS));
     }
 
+    @Test
+    public void testUseVirtualThreads()
+    {
+        QueuedThreadPool pool = new QueuedThreadPool();
+        assertFalse(pool.isUseVirtualThreads());
+        assertNull(VirtualThreads.getVirtualThreadsExecutor(pool));
+
+        // Virtual threads are only used if supported by the JVM.
+        pool.setUseVirtualThreads(true);
+        assertEquals(VirtualThreads.areSupported(), pool.isUseVirtualThreads());
+        assertSame(VirtualThreads.getDefaultVirtualThreadsExecutor(), VirtualThreads.getVirtualThreadsExecutor(pool));
+
+        pool.setUseVirtualThreads(false);
+        assertFalse(pool.isUseVirtualThreads());
+        assertNull(pool.getVirtualThreadsExecutor());
+    }
+
     @Test
     public void testConstructorMinMaxThreadsValidation()
     {
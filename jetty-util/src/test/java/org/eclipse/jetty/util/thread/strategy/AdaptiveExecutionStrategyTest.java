@@ -0,0 +1,201 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.strategy;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.TryExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AdaptiveExecutionStrategyTest
+{
+    private final Queue<Runnable> _produce = new ArrayDeque<>();
+    private final Queue<Runnable> _executions = new ArrayDeque<>();
+    private AdaptiveExecutionStrategy _strategy;
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        _strategy = new AdaptiveExecutionStrategy(_produce::poll, _executions::add);
+        _strategy.setMaxInlineTaskNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        _strategy.start();
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        _strategy.stop();
+    }
+
+    @Test
+    public void testCheapEitherTasksAreInvoked()
+    {
+        AtomicInteger count = new AtomicInteger();
+        int tasks = 10;
+        for (int i = 0; i < tasks; ++i)
+        {
+            _produce.add(new EitherTask(count::incrementAndGet));
+        }
+
+        _strategy.produce();
+
+        assertEquals(tasks, count.get());
+        assertEquals(tasks, _strategy.getPICTasksExecuted());
+        assertEquals(0, _strategy.getPECTasksExecuted());
+        assertEquals(0, _executions.size());
+    }
+
+    @Test
+    public void testSlowEitherTasksAreExecuted()
+    {
+        AtomicInteger count = new AtomicInteger();
+        int tasks = 10;
+        for (int i = 0; i < tasks; ++i)
+        {
+            _produce.add(new EitherTask(() ->
+            {
+                count.incrementAndGet();
+                sleep(2);
+            }));
+        }
+
+        _strategy.produce();
+
+        // The first task is invoked, then the measured
+        // execution time makes the others executed.
+        assertEquals(1, count.get());
+        assertEquals(1, _strategy.getPICTasksExecuted());
+        assertEquals(tasks - 1, _strategy.getPECTasksExecuted());
+        assertEquals(tasks - 1, _executions.size());
+        assertThat(_strategy.getEitherTaskNanos(), greaterThan(_strategy.getMaxInlineTaskNanos()));
+
+        // Running the executed tasks updates the queue latency.
+        _executions.forEach(Runnable::run);
+        assertEquals(tasks, count.get());
+        assertThat(_strategy.getQueueLatencyNanos(), greaterThan(0L));
+    }
+
+    @Test
+    public void testHighQueueLatencyDecays() throws Exception
+    {
+        _strategy.stop();
+        // An executor with an always available reserved thread, that never runs the pending producer.
+        TryExecutor executor = new TryExecutor()
+        {
+            @Override
+            public boolean tryExecute(Runnable task)
+            {
+                return true;
+            }
+
+            @Override
+            public void execute(Runnable task)
+            {
+                _executions.add(task);
+            }
+        };
+        _strategy = new AdaptiveExecutionStrategy(_produce::poll, executor);
+        _strategy.setMaxQueueLatencyNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        _strategy.start();
+
+        // The first slow blocking task is consumed in EPC mode,
+        // then the others are executed while the executor is responsive.
+        AtomicInteger count = new AtomicInteger();
+        int tasks = 1 + 8;
+        for (int i = 0; i < tasks; ++i)
+        {
+            _produce.add(() ->
+            {
+                count.incrementAndGet();
+                sleep(1);
+            });
+        }
+        _strategy.produce();
+        assertEquals(1, _strategy.getEPCTasksConsumed());
+        assertEquals(tasks - 1, _strategy.getPECTasksExecuted());
+
+        // The executor queue is slow.
+        sleep(5);
+        _executions.forEach(Runnable::run);
+        _executions.clear();
+        assertThat(_strategy.getQueueLatencyNanos(), greaterThan(_strategy.getMaxQueueLatencyNanos()));
+
+        // Slow blocking tasks are consumed in EPC mode, until the
+        // latency has decayed enough for the executor to be sampled again.
+        long epc = _strategy.getEPCTasksConsumed();
+        long pec = _strategy.getPECTasksExecuted();
+        for (int i = 0; i < 64; ++i)
+        {
+            _produce.add(() ->
+            {
+                count.incrementAndGet();
+                sleep(1);
+            });
+        }
+        _strategy.produce();
+        assertThat(_strategy.getEPCTasksConsumed(), greaterThan(epc));
+        assertThat(_strategy.getPECTasksExecuted(), greaterThan(pec));
+        assertThat(_strategy.getQueueLatencyNanos(), lessThan(_strategy.getMaxQueueLatencyNanos()));
+    }
+
+    private static class EitherTask implements Runnable, Invocable
+    {
+        private final Runnable _task;
+
+        private EitherTask(Runnable task)
+        {
+            _task = task;
+        }
+
+        @Override
+        public void run()
+        {
+            _task.run();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return InvocationType.EITHER;
+        }
+    }
+
+    private static void sleep(long ms)
+    {
+        try
+        {
+            Thread.sleep(ms);
+        }
+        catch (InterruptedException x)
+        {
+            throw new RuntimeException(x);
+        }
+    }
+}
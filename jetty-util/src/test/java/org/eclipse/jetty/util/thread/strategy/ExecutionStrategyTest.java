@@ -31,6 +31,7 @@ import java.util.stream.Stream;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.ExecutionStrategy.Producer;
+import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +41,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ExecutionStrategyTest
@@ -49,7 +51,16 @@ public class ExecutionStrategyTest
         return Stream.of(
             ProduceExecuteConsume.class,
             ExecuteProduceConsume.class,
-            EatWhatYouKill.class
+            EatWhatYouKill.class,
+            AdaptiveExecutionStrategy.class
+        ).map(Arguments::of);
+    }
+
+    public static Stream<Arguments> virtualThreadsStrategies()
+    {
+        return Stream.of(
+            EatWhatYouKill.class,
+            AdaptiveExecutionStrategy.class
         ).map(Arguments::of);
     }
 
@@ -87,6 +98,30 @@ public class ExecutionStrategyTest
         }
     }
 
+    private static class TestTask implements Runnable, Invocable
+    {
+        private final InvocationType _type;
+        private final Runnable _task;
+
+        private TestTask(InvocationType type, Runnable task)
+        {
+            _type = type;
+            _task = task;
+        }
+
+        @Override
+        public void run()
+        {
+            _task.run();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return _type;
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("strategies")
     public void idleTest(Class<? extends ExecutionStrategy> strategyClass) throws Exception
@@ -209,4 +244,40 @@ public class ExecutionStrategyTest
             String.format("Timed out waiting for latch: %s%ntasks=%d latch=%d q=%d%n%s",
                 strategy, TASKS, latch.getCount(), q.size(), _threads.dump()));
     }
+
+    @ParameterizedTest
+    @MethodSource("virtualThreadsStrategies")
+    public void virtualThreadsTest(Class<? extends ExecutionStrategy> strategyClass) throws Exception
+    {
+        final int TASKS = 10;
+        final CountDownLatch latch = new CountDownLatch(2 * TASKS);
+        AtomicInteger virtual = new AtomicInteger();
+        _threads.setVirtualThreadsExecutor(task ->
+        {
+            virtual.incrementAndGet();
+            _threads.execute(task);
+        });
+        Producer producer = new TestProducer()
+        {
+            int tasks = 2 * TASKS;
+
+            @Override
+            public Runnable produce()
+            {
+                if (tasks-- > 0)
+                {
+                    Invocable.InvocationType type = tasks % 2 == 0 ? Invocable.InvocationType.BLOCKING : Invocable.InvocationType.NON_BLOCKING;
+                    return new TestTask(type, latch::countDown);
+                }
+                return null;
+            }
+        };
+
+        ExecutionStrategy strategy = newExecutionStrategy(strategyClass, producer, _threads);
+        strategy.produce();
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        // Only the blocking tasks run in virtual threads.
+        assertEquals(TASKS, virtual.get());
+    }
 }
@@ -0,0 +1,116 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.pathmap.MappedResource;
+import org.eclipse.jetty.http.pathmap.PathMappings;
+import org.eclipse.jetty.http.pathmap.ServletPathSpec;
+import org.eclipse.jetty.http.pathmap.UriTemplatePathSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class PathMappingsBenchmark
+{
+    @Param({"10", "100", "1000"})
+    int routes;
+
+    PathMappings<String> mappings;
+    List<MappedResource<String>> linear;
+    String[] paths;
+
+    @Setup
+    public void setup()
+    {
+        mappings = new PathMappings<>();
+        // A typical REST gateway: one family of templates per resource.
+        for (int i = 0; i < routes / 2; i++)
+        {
+            mappings.put(new UriTemplatePathSpec("/api/resource" + i + "/{id}"), "item" + i);
+            mappings.put(new UriTemplatePathSpec("/api/resource" + i + "/{id}/children/{child}"), "child" + i);
+        }
+        mappings.put(new ServletPathSpec("/"), "default");
+        linear = mappings.getMappings();
+
+        paths = new String[256];
+        for (int i = 0; i < paths.length; i++)
+        {
+            int resource = ThreadLocalRandom.current().nextInt(routes / 2);
+            if (i % 2 == 0)
+                paths[i] = "/api/resource" + resource + "/" + i;
+            else
+                paths[i] = "/api/resource" + resource + "/" + i + "/children/" + resource;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object testGetMatch()
+    {
+        String path = paths[ThreadLocalRandom.current().nextInt(paths.length)];
+        return mappings.getMatch(path);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object testLinearMatch()
+    {
+        // The one by one search of path specs, for comparison.
+        String path = paths[ThreadLocalRandom.current().nextInt(paths.length)];
+        for (MappedResource<String> mr : linear)
+        {
+            if (mr.getPathSpec().matches(path))
+                return mr;
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(PathMappingsBenchmark.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
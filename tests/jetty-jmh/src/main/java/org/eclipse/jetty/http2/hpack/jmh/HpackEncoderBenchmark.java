@@ -0,0 +1,117 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.DateGenerator;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.http2.hpack.HpackException;
+import org.eclipse.jetty.http2.hpack.PreEncodedFieldBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class HpackEncoderBenchmark
+{
+    private static final PreEncodedFieldBlock SECURITY_HEADERS = new PreEncodedFieldBlock(
+        new HttpField("strict-transport-security", "max-age=31536000; includeSubDomains; preload"),
+        new HttpField("content-security-policy", "default-src 'self'; img-src 'self' data:; frame-ancestors 'none'"),
+        new HttpField("x-content-type-options", "nosniff"),
+        new HttpField("x-frame-options", "DENY"),
+        new HttpField("referrer-policy", "strict-origin-when-cross-origin"),
+        new HttpField("permissions-policy", "geolocation=(), microphone=(), camera=()"));
+
+    @Param({"true", "false"})
+    boolean preEncoded;
+
+    HpackEncoder encoder;
+    ByteBuffer buffer;
+    MetaData.Response[] responses;
+    int next;
+
+    @Setup
+    public void setup()
+    {
+        encoder = new HpackEncoder();
+        if (preEncoded)
+            encoder.setPreEncodedFieldBlocks(List.of(SECURITY_HEADERS));
+        buffer = ByteBuffer.allocate(16 * 1024);
+
+        // Responses that differ only in their content length, date and etag.
+        responses = new MetaData.Response[64];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < responses.length; i++)
+        {
+            HttpFields.Mutable fields = HttpFields.build()
+                .add(HttpHeader.CONTENT_TYPE, "text/html;charset=utf-8")
+                .add(HttpHeader.DATE, DateGenerator.formatDate(now + (i / 8) * 1000L))
+                .add(HttpHeader.ETAG, "W/\"" + Integer.toHexString(i % 16) + "-5f3c2a1b\"")
+                .add(HttpHeader.CACHE_CONTROL, "max-age=3600");
+            // Without the block registered, the same fields are encoded one by one.
+            SECURITY_HEADERS.addTo(fields);
+            responses[i] = new MetaData.Response(HttpVersion.HTTP_2, 200, fields, 1024 + i);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testEncodeResponse() throws HpackException
+    {
+        MetaData.Response response = responses[next++ & (responses.length - 1)];
+        buffer.clear();
+        encoder.encode(buffer, response);
+        return buffer.position();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HpackEncoderBenchmark.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,116 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.http2.generator.FrameHeaderLease;
+import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.hpack.HpackException;
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class FrameGeneratorBenchmark
+{
+    @Param({"true", "false"})
+    boolean slab;
+
+    @Param({"16", "1024"})
+    int chunkSize;
+
+    ByteBufferPool pool;
+    Generator generator;
+    ByteBufferPool.Lease lease;
+    HeadersFrame headers;
+    ByteBuffer content;
+
+    @Setup
+    public void setup()
+    {
+        pool = new ArrayByteBufferPool();
+        generator = new Generator(pool);
+        lease = slab ? new FrameHeaderLease(pool) : new ByteBufferPool.Lease(pool);
+        HttpFields fields = HttpFields.build()
+            .put(HttpHeader.CONTENT_TYPE, "application/json");
+        headers = new HeadersFrame(1, new MetaData.Response(HttpVersion.HTTP_2, 200, fields), null, false);
+        content = ByteBuffer.allocateDirect(chunkSize);
+    }
+
+    /**
+     * <p>Generates what a flusher iteration generates for a streaming response:
+     * the response headers, 32 DATA frames and a couple of WINDOW_UPDATE frames.</p>
+     */
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testGenerateFrames() throws HpackException
+    {
+        int length = generator.control(lease, headers);
+        for (int i = 0; i < 32; ++i)
+        {
+            content.clear();
+            length += generator.data(lease, new DataFrame(1, content, false), Integer.MAX_VALUE);
+        }
+        length += generator.control(lease, new WindowUpdateFrame(0, 65535));
+        length += generator.control(lease, new WindowUpdateFrame(3, 65535));
+        length += lease.getSize();
+        lease.recycle();
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(FrameGeneratorBenchmark.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,144 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.jmh;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http2.StreamMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Simulates the stream table of a session with a sliding window of concurrent
+ * streams: every operation opens a stream, looks up a few open streams, as the
+ * frames of the streams are received, and removes the oldest stream.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class StreamMapBenchmark
+{
+    @Param({"16", "1024"})
+    int concurrentStreams;
+
+    Entry[] entries;
+    ConcurrentMap<Integer, Entry> concurrentHashMap;
+    StreamMap<Entry> streamMap;
+    int next;
+
+    @Setup
+    public void setup()
+    {
+        entries = new Entry[64 * 1024];
+        for (int i = 0; i < entries.length; ++i)
+        {
+            entries[i] = new Entry(2 * i + 1);
+        }
+        concurrentHashMap = new ConcurrentHashMap<>();
+        streamMap = new StreamMap<>(Entry::getId);
+        for (int i = 0; i < concurrentStreams; ++i)
+        {
+            concurrentHashMap.put(entries[i].getId(), entries[i]);
+            streamMap.putIfAbsent(entries[i]);
+        }
+        next = concurrentStreams;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testConcurrentHashMap()
+    {
+        int index = next++;
+        Entry entry = entries[index & (entries.length - 1)];
+        concurrentHashMap.putIfAbsent(entry.getId(), entry);
+        int result = 0;
+        for (int i = 0; i < 4; ++i)
+        {
+            Entry open = entries[(index - i * (concurrentStreams / 4)) & (entries.length - 1)];
+            result += concurrentHashMap.get(open.getId()).getId();
+        }
+        Entry oldest = entries[(index - concurrentStreams) & (entries.length - 1)];
+        concurrentHashMap.remove(oldest.getId());
+        return result;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testStreamMap()
+    {
+        int index = next++;
+        Entry entry = entries[index & (entries.length - 1)];
+        streamMap.putIfAbsent(entry);
+        int result = 0;
+        for (int i = 0; i < 4; ++i)
+        {
+            Entry open = entries[(index - i * (concurrentStreams / 4)) & (entries.length - 1)];
+            result += streamMap.get(open.getId()).getId();
+        }
+        Entry oldest = entries[(index - concurrentStreams) & (entries.length - 1)];
+        streamMap.remove(oldest.getId());
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(StreamMapBenchmark.class.getSimpleName())
+            .warmupIterations(10)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    private static class Entry
+    {
+        private final int id;
+
+        private Entry(int id)
+        {
+            this.id = id;
+        }
+
+        private int getId()
+        {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.io.StripedByteBufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class ByteBufferPoolBenchmark
+{
+    public enum Type
+    {
+        ARRAY, MAPPED, STRIPED
+    }
+
+    @Param({"ARRAY", "MAPPED", "STRIPED"})
+    Type type;
+
+    @Param({"true", "false"})
+    boolean direct;
+
+    ByteBufferPool pool;
+
+    @Setup
+    public void buildPool()
+    {
+        switch (type)
+        {
+            case ARRAY:
+                pool = new ArrayByteBufferPool();
+                break;
+            case MAPPED:
+                pool = new MappedByteBufferPool();
+                break;
+            case STRIPED:
+                pool = new StripedByteBufferPool();
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    @TearDown
+    public void disposePool()
+    {
+        pool = null;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @Threads(1)
+    public long testAcquireReleaseOne()
+    {
+        return acquireRelease();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @Threads(4)
+    public long testAcquireReleaseSome()
+    {
+        return acquireRelease();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @Threads(32)
+    public long testAcquireReleaseMany()
+    {
+        return acquireRelease();
+    }
+
+    private long acquireRelease()
+    {
+        // Typical sizes for request buffers, output aggregation and frames.
+        int size = 1024 * (1 + ThreadLocalRandom.current().nextInt(32));
+        ByteBuffer buffer1 = pool.acquire(size, direct);
+        ByteBuffer buffer2 = pool.acquire(size / 2, direct);
+        long capacity = buffer1.capacity() + buffer2.capacity();
+        pool.release(buffer2);
+        pool.release(buffer1);
+        return capacity;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(ByteBufferPoolBenchmark.class.getSimpleName())
+            .warmupIterations(20)
+            .measurementIterations(10)
+            // .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -20,10 +20,13 @@ package org.eclipse.jetty.util.thread.jmh;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.ConcurrentArrayBlockingQueue;
+import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.ExecutorThreadPool;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
@@ -51,16 +54,18 @@ public class ThreadPoolBenchmark
 {
     public enum Type
     {
-        QTP, ETP, LQTP, LETP, AQTP, AETP;
+        QTP, ETP, LQTP, LETP, AQTP, AETP, CQTP, CETP, VQTP;
     }
 
-    @Param({"QTP", "ETP" /*, "LQTP", "LETP", "AQTP", "AETP" */})
+    // VQTP requires a JVM that supports virtual threads.
+    @Param({"QTP", "ETP", "CQTP", "CETP" /*, "VQTP", "LQTP", "LETP", "AQTP", "AETP" */})
     Type type;
 
     @Param({"200"})
     int size;
 
     ThreadPool pool;
+    Executor executor;
 
     @Setup // (Level.Iteration)
     public void buildPool()
@@ -103,10 +108,35 @@ public class ThreadPoolBenchmark
                 pool = new ExecutorThreadPool(size, size, new ArrayBlockingQueue<>(32768));
                 break;
 
+            case CQTP:
+            {
+                QueuedThreadPool qtp = new QueuedThreadPool(size, size, new ConcurrentArrayBlockingQueue<>(32768, 32768));
+                qtp.setReservedThreads(0);
+                pool = qtp;
+                break;
+            }
+
+            case CETP:
+                pool = new ExecutorThreadPool(size, size, new ConcurrentArrayBlockingQueue<>(32768, 32768));
+                break;
+
+            case VQTP:
+            {
+                if (!VirtualThreads.areSupported())
+                    throw new IllegalStateException("Virtual threads are not supported");
+                QueuedThreadPool qtp = new QueuedThreadPool(size, size, new BlockingArrayQueue<>(32768, 32768));
+                qtp.setReservedThreads(0);
+                qtp.setUseVirtualThreads(true);
+                pool = qtp;
+                break;
+            }
+
             default:
                 throw new IllegalStateException();
         }
         LifeCycle.start(pool);
+        Executor virtual = VirtualThreads.getVirtualThreadsExecutor(pool);
+        executor = virtual == null ? pool : virtual;
     }
 
     @Benchmark
@@ -138,12 +168,13 @@ public class ThreadPoolBenchmark
     {
         LifeCycle.stop(pool);
         pool = null;
+        executor = null;
     }
 
     void doJob() throws Exception
     {
         CountDownLatch latch = new CountDownLatch(1);
-        pool.execute(latch::countDown);
+        executor.execute(latch::countDown);
         latch.await();
     }
 
@@ -31,6 +31,7 @@ import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
+import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
 import org.eclipse.jetty.util.thread.strategy.ProduceConsume;
 import org.eclipse.jetty.util.thread.strategy.ProduceExecuteConsume;
@@ -56,7 +57,7 @@ public class EWYKBenchmark
     static ReservedThreadExecutor reserved;
     static Path directory;
 
-    @Param({"PC", "PEC", "EWYK"})
+    @Param({"PC", "PEC", "EWYK", "ADAPTIVE"})
     public static String strategyName;
 
     @Param({"true", "false"})
@@ -119,6 +120,10 @@ public class EWYKBenchmark
                     strategy = new EatWhatYouKill(connection, server);
                     break;
 
+                case "ADAPTIVE":
+                    strategy = new AdaptiveExecutionStrategy(connection, server);
+                    break;
+
                 default:
                     throw new IllegalStateException();
             }